@@ -0,0 +1,117 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de lectura a través ({@code read-through}) con tamaño máximo y tiempo de vida.
+ *
+ * <ul>
+ *   <li>Al superar el tamaño máximo se desaloja la entrada usada hace más tiempo (LRU)</li>
+ *   <li>Las entradas que superan su tiempo de vida se descartan al leerlas</li>
+ *   <li>El valor se calcula fuera del bloqueo; si entre tanto se invalidó alguna entrada, el valor
+ *       se devuelve pero no se guarda, para no dejar en la caché un cálculo anterior a la modificación</li>
+ *   <li>Los valores {@code null} y las excepciones del cálculo no se guardan</li>
+ * </ul>
+ */
+public class CacheAcotada<K, V> {
+
+    private final int tamanoMaximo;
+    private final Duration tiempoDeVida;
+    private final Clock reloj;
+
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    /** Se incrementa con cada invalidación; un cálculo solo se guarda si no cambió mientras se hacía */
+    private long version;
+
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+    private long expiraciones;
+    private long invalidaciones;
+
+    public CacheAcotada(int tamanoMaximo, Duration tiempoDeVida) {
+        this(tamanoMaximo, tiempoDeVida, Clock.systemUTC());
+    }
+
+    CacheAcotada(int tamanoMaximo, Duration tiempoDeVida, Clock reloj) {
+        if (tamanoMaximo < 1) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché debe ser mayor que cero");
+        }
+        this.tamanoMaximo = tamanoMaximo;
+        this.tiempoDeVida = tiempoDeVida;
+        this.reloj = reloj;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> mayor) {
+                if (size() > CacheAcotada.this.tamanoMaximo) {
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor de la clave, calculándolo con {@code cargar} si no está en la caché o expiró.
+     */
+    public V obtener(K clave, Supplier<V> cargar) {
+        long versionCarga;
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (reloj.instant().isBefore(entrada.expira())) {
+                    aciertos++;
+                    return entrada.valor();
+                }
+                entradas.remove(clave);
+                expiraciones++;
+            }
+            fallos++;
+            versionCarga = version;
+        }
+
+        V valor = cargar.get();
+        if (valor != null) {
+            synchronized (this) {
+                if (version == versionCarga) {
+                    entradas.put(clave, new Entrada<>(valor, reloj.instant().plus(tiempoDeVida)));
+                }
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Quita las entradas de las claves indicadas.
+     */
+    public synchronized void invalidar(Collection<K> claves) {
+        version++;
+        for (K clave : claves) {
+            if (entradas.remove(clave) != null) {
+                invalidaciones++;
+            }
+        }
+    }
+
+    public synchronized void invalidarTodo() {
+        version++;
+        invalidaciones += entradas.size();
+        entradas.clear();
+    }
+
+    public synchronized CacheEstadisticas getEstadisticas() {
+        return new CacheEstadisticas(aciertos, fallos, desalojos, expiraciones, invalidaciones,
+                entradas.size(), tamanoMaximo);
+    }
+
+    private record Entrada<V>(V valor, Instant expira) {
+    }
+}
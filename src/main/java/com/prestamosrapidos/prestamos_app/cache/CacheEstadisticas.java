@@ -0,0 +1,31 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Métricas acumuladas de una {@link CacheAcotada} en este nodo.
+ */
+@Getter
+@AllArgsConstructor
+public class CacheEstadisticas {
+
+    private final long aciertos;
+    private final long fallos;
+    /** Entradas desalojadas por superar el tamaño máximo */
+    private final long desalojos;
+    /** Entradas descartadas al leerlas por haber superado su tiempo de vida */
+    private final long expiraciones;
+    /** Entradas quitadas por un evento de modificación */
+    private final long invalidaciones;
+    private final int tamano;
+    private final int tamanoMaximo;
+
+    /**
+     * Proporción de lecturas servidas desde la caché (0 si aún no hubo lecturas).
+     */
+    public double getTasaAciertos() {
+        long lecturas = aciertos + fallos;
+        return lecturas == 0 ? 0 : (double) aciertos / lecturas;
+    }
+}
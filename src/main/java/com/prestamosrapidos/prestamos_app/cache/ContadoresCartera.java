@@ -0,0 +1,169 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
+import com.prestamosrapidos.prestamos_app.event.SituacionPrestamo;
+import com.prestamosrapidos.prestamos_app.model.PortafolioContadorModel;
+import com.prestamosrapidos.prestamos_app.model.PortafolioContadoresModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Número de préstamos y saldo pendiente por estado, en memoria y sin bloqueos: un {@link LongAdder} por
+ * estado (índice: ordinal de {@link EstadoPrestamo}) para los préstamos y otro para el saldo en céntimos.
+ * Leerlos no consulta la base de datos.
+ *
+ * <ul>
+ *   <li>Se cargan al arrancar con una consulta agregada</li>
+ *   <li>Cada {@link PrestamoModificadoEvent} (altas, pagos, cambios de estado y eliminaciones de
+ *       {@code PrestamoServiceImpl} y {@code PagoServiceImpl}) aplica la diferencia entre la situación
+ *       anterior y la nueva del préstamo al confirmarse su transacción</li>
+ *   <li>Los procesos masivos del scheduler no publican un evento por préstamo: su
+ *       {@link CarteraRecalculadaEvent} concilia los contadores con la base de datos</li>
+ *   <li>Se concilian además cada {@code prestamo.contadores.conciliacion}, lo que recoge los cambios
+ *       hechos en otros nodos y los que no pasan por los servicios</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class ContadoresCartera {
+
+    static final String SQL_CONTADORES = """
+            SELECT estado, COUNT(*) AS prestamos,
+                   SUM(%s) AS saldo_pendiente
+              FROM prestamos
+             GROUP BY estado
+            """.formatted(SituacionPrestamo.SQL_SALDO_PENDIENTE);
+
+    private static final EstadoPrestamo[] ESTADOS = EstadoPrestamo.values();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final LongAdder[] prestamos = nuevosContadores();
+    private final LongAdder[] saldoCentimos = nuevosContadores();
+
+    private volatile LocalDateTime ultimaConciliacion;
+    private volatile int diferenciasUltimaConciliacion;
+
+    public ContadoresCartera(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarPrestamo(PrestamoModificadoEvent evento) {
+        aplicar(evento.anterior(), -1);
+        aplicar(evento.nueva(), 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecalcularCartera(CarteraRecalculadaEvent evento) {
+        conciliar();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        conciliar();
+    }
+
+    @Scheduled(fixedDelayString = "${prestamo.contadores.conciliacion:5m}",
+               initialDelayString = "${prestamo.contadores.conciliacion:5m}")
+    public void conciliarProgramado() {
+        conciliar();
+    }
+
+    /**
+     * Ajusta los contadores a la consulta agregada. Se toman los valores justo antes de la consulta y se
+     * suma la diferencia con ella, de modo que los eventos aplicados mientras se ejecuta se conservan.
+     * Solo se sincronizan las conciliaciones entre sí; los eventos siguen aplicándose sin esperar.
+     *
+     * <p>No es exacta: una transacción que se confirma entre la lectura de los contadores y la instantánea
+     * de la consulta queda contada dos veces, en la diferencia con la consulta y en su evento. La desviación
+     * se limita a los préstamos modificados en ese intervalo y la corrige la conciliación siguiente.</p>
+     */
+    public synchronized void conciliar() {
+        long inicio = System.currentTimeMillis();
+        long[] prestamosAntes = sumas(prestamos);
+        long[] saldoAntes = sumas(saldoCentimos);
+        long[] prestamosBd = new long[ESTADOS.length];
+        long[] saldoBd = new long[ESTADOS.length];
+        jdbcTemplate.query(SQL_CONTADORES, fila -> {
+            int indice = EstadoPrestamo.valueOf(fila.getString("estado")).ordinal();
+            prestamosBd[indice] = fila.getLong("prestamos");
+            BigDecimal saldo = fila.getBigDecimal("saldo_pendiente");
+            saldoBd[indice] = saldo != null ? SituacionPrestamo.aCentimos(saldo) : 0;
+        });
+
+        int diferencias = 0;
+        for (int i = 0; i < ESTADOS.length; i++) {
+            long diferenciaPrestamos = prestamosBd[i] - prestamosAntes[i];
+            long diferenciaSaldo = saldoBd[i] - saldoAntes[i];
+            if (diferenciaPrestamos != 0 || diferenciaSaldo != 0) {
+                prestamos[i].add(diferenciaPrestamos);
+                saldoCentimos[i].add(diferenciaSaldo);
+                diferencias++;
+            }
+        }
+        if (ultimaConciliacion != null && diferencias > 0) {
+            log.info("Contadores de la cartera conciliados: {} estados corregidos", diferencias);
+        }
+        diferenciasUltimaConciliacion = diferencias;
+        ultimaConciliacion = LocalDateTime.now();
+        log.debug("Conciliación de los contadores de la cartera en {} ms", System.currentTimeMillis() - inicio);
+    }
+
+    public PortafolioContadoresModel getContadores() {
+        Map<String, PortafolioContadorModel> porEstado = new LinkedHashMap<>();
+        long totalPrestamos = 0;
+        long totalSaldo = 0;
+        for (EstadoPrestamo estado : ESTADOS) {
+            long prestamosEstado = prestamos[estado.ordinal()].sum();
+            long saldoEstado = saldoCentimos[estado.ordinal()].sum();
+            porEstado.put(estado.name(), contador(prestamosEstado, saldoEstado));
+            totalPrestamos += prestamosEstado;
+            totalSaldo += saldoEstado;
+        }
+        return new PortafolioContadoresModel(contador(totalPrestamos, totalSaldo), porEstado,
+                ultimaConciliacion, diferenciasUltimaConciliacion);
+    }
+
+    private void aplicar(SituacionPrestamo situacion, int signo) {
+        if (situacion == null || situacion.estado() == null) {
+            return;
+        }
+        int indice = situacion.estado().ordinal();
+        prestamos[indice].add(signo);
+        saldoCentimos[indice].add(signo * situacion.saldoCentimos());
+    }
+
+    private static PortafolioContadorModel contador(long prestamos, long saldoCentimos) {
+        return new PortafolioContadorModel(prestamos, BigDecimal.valueOf(saldoCentimos, 2));
+    }
+
+    private static long[] sumas(LongAdder[] contadores) {
+        long[] sumas = new long[contadores.length];
+        for (int i = 0; i < contadores.length; i++) {
+            sumas[i] = contadores[i].sum();
+        }
+        return sumas;
+    }
+
+    private static LongAdder[] nuevosContadores() {
+        LongAdder[] contadores = new LongAdder[ESTADOS.length];
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] = new LongAdder();
+        }
+        return contadores;
+    }
+}
@@ -0,0 +1,128 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import com.prestamosrapidos.prestamos_app.datasource.ContextoLectura;
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
+import com.prestamosrapidos.prestamos_app.model.PrestamoModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de los valores calculados de cada préstamo: el {@link PrestamoModel} de
+ * {@code GET /prestamos/{id}}, el monto restante, el interés total y el monto restante de pagos.
+ *
+ * <p>Un préstamo solo cambia al registrar o eliminar un pago, al modificarlo y con los procesos
+ * masivos del scheduler, que publican {@link PrestamoModificadoEvent} y {@link CarteraRecalculadaEvent}.
+ * Las entradas se invalidan al confirmarse la transacción que publicó el evento.</p>
+ *
+ * <ul>
+ *   <li>Las claves incluyen la fecha del cálculo, porque la mora de los saldos depende del día</li>
+ *   <li>El modelo se guarda además con la versión del préstamo (la de su ETag): una modificación hecha en
+ *       otro nodo cambia la versión, de modo que nunca se devuelve un modelo anterior a ella</li>
+ *   <li>Los saldos no llevan versión y se cargan siempre de la primaria ({@link ContextoLectura#conPrimaria}):
+ *       cargados de una réplica retrasada justo después de invalidarlos, se guardaría el saldo anterior
+ *       al pago durante todo el tiempo de vida</li>
+ *   <li>Cada nodo tiene su propia caché y solo recibe los eventos de sus transacciones: el tiempo de
+ *       vida ({@code prestamo.cache.ttl}) acota cuánto tarda en verse un cambio hecho en otro nodo</li>
+ *   <li>Deshabilitada ({@code prestamo.cache.habilitada=false}) cada lectura se calcula de nuevo</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class PrestamoCache {
+
+    /** Valores calculados que se guardan por préstamo */
+    enum TipoValor {
+        MODELO,
+        MONTO_RESTANTE,
+        INTERES_TOTAL,
+        MONTO_RESTANTE_PAGOS
+    }
+
+    /** La versión solo se usa en los modelos; null en el resto de valores */
+    record Clave(TipoValor tipo, Long prestamoId, LocalDate fecha, String version) {
+    }
+
+    private final boolean habilitada;
+    private final CacheAcotada<Clave, Object> cache;
+
+    /**
+     * @param habilitada Propiedad 'prestamo.cache.habilitada' (default: true)
+     * @param tamanoMaximo Máximo de valores guardados; propiedad 'prestamo.cache.tamano-maximo' (default: 10000)
+     * @param tiempoDeVida Tiempo de vida de cada valor; propiedad 'prestamo.cache.ttl' (default: 60s)
+     */
+    public PrestamoCache(@Value("${prestamo.cache.habilitada:true}") boolean habilitada,
+                         @Value("${prestamo.cache.tamano-maximo:10000}") int tamanoMaximo,
+                         @Value("${prestamo.cache.ttl:60s}") Duration tiempoDeVida) {
+        this.habilitada = habilitada;
+        this.cache = new CacheAcotada<>(tamanoMaximo, tiempoDeVida);
+    }
+
+    public PrestamoModel modelo(Long prestamoId, String version, Supplier<PrestamoModel> cargar) {
+        return obtener(TipoValor.MODELO, prestamoId, version, cargar);
+    }
+
+    public BigDecimal montoRestante(Long prestamoId, Supplier<BigDecimal> cargar) {
+        return obtener(TipoValor.MONTO_RESTANTE, prestamoId, null, cargar);
+    }
+
+    public BigDecimal interesTotal(Long prestamoId, Supplier<BigDecimal> cargar) {
+        return obtener(TipoValor.INTERES_TOTAL, prestamoId, null, cargar);
+    }
+
+    public BigDecimal montoRestantePagos(Long prestamoId, Supplier<BigDecimal> cargar) {
+        return obtener(TipoValor.MONTO_RESTANTE_PAGOS, prestamoId, null, cargar);
+    }
+
+    /**
+     * Quita los valores calculados hoy para el préstamo. Los modelos no hace falta quitarlos: la
+     * modificación cambia su versión y los anteriores salen de la caché por tamaño o tiempo de vida.
+     */
+    public void invalidar(Long prestamoId) {
+        LocalDate hoy = LocalDate.now();
+        List<Clave> claves = Arrays.stream(TipoValor.values())
+                .filter(tipo -> tipo != TipoValor.MODELO)
+                .map(tipo -> new Clave(tipo, prestamoId, hoy, null))
+                .toList();
+        cache.invalidar(claves);
+    }
+
+    public void invalidarTodo() {
+        cache.invalidarTodo();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarPrestamo(PrestamoModificadoEvent evento) {
+        invalidar(evento.prestamoId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecalcularCartera(CarteraRecalculadaEvent evento) {
+        invalidarTodo();
+        log.debug("Caché de préstamos vaciada tras recalcular la cartera del {}", evento.fecha());
+    }
+
+    public CacheEstadisticas getEstadisticas() {
+        return cache.getEstadisticas();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T obtener(TipoValor tipo, Long prestamoId, String version, Supplier<T> cargar) {
+        if (!habilitada || prestamoId == null) {
+            return cargar.get();
+        }
+        Supplier<Object> carga = version != null
+                ? (Supplier<Object>) cargar
+                : () -> ContextoLectura.conPrimaria(cargar);
+        return (T) cache.obtener(new Clave(tipo, prestamoId, LocalDate.now(), version), carga);
+    }
+}
@@ -0,0 +1,96 @@
+package com.prestamosrapidos.prestamos_app.config;
+
+import com.prestamosrapidos.prestamos_app.datasource.DataSourceEscritura;
+import com.prestamosrapidos.prestamos_app.datasource.DataSourceLectura;
+import com.prestamosrapidos.prestamos_app.datasource.FiltroContextoLectura;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Réplica de lectura de PostgreSQL, activa solo con {@code prestamo.datasource.replica.url}.
+ *
+ * <p>El {@code DataSource} de la aplicación pasa a ser un {@link LazyConnectionDataSourceProxy}: la conexión
+ * física se obtiene en la primera sentencia, cuando ya se sabe si la transacción es de solo lectura.
+ * Las de solo lectura ({@code @Transactional(readOnly = true)} y las consultas de los repositorios fuera
+ * de una transacción) usan {@link DataSourceLectura}; el resto, la primaria. Los pools de la primaria y la
+ * réplica también son beans, pero quien inyecta un {@code DataSource} recibe el proxy ({@link Primary}).</p>
+ *
+ * <p>Un método que lee una entidad para modificarla debe ser {@code @Transactional}: fuera de una transacción
+ * la lectura iría a la réplica, que puede estar retrasada, y el {@code save} sobrescribiría en la primaria
+ * los cambios confirmados entretanto (las entidades no tienen {@code @Version}).</p>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "prestamo.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties properties) {
+        HikariDataSource primaria = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName("primaria");
+        return primaria;
+    }
+
+    /**
+     * Usuario y contraseña por defecto, los de la primaria.
+     */
+    @Bean
+    public HikariDataSource dataSourceReplica(DataSourceProperties properties,
+                                              @Value("${prestamo.datasource.replica.url}") String url,
+                                              @Value("${prestamo.datasource.replica.username:}") String usuario,
+                                              @Value("${prestamo.datasource.replica.password:}") String clave,
+                                              @Value("${prestamo.datasource.replica.tamano-pool:10}") int tamanoPool) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(url);
+        replica.setUsername(StringUtils.hasText(usuario) ? usuario : properties.determineUsername());
+        replica.setPassword(StringUtils.hasText(clave) ? clave : properties.determinePassword());
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setMaximumPoolSize(tamanoPool);
+        replica.setReadOnly(true);
+        // La réplica puede no estar levantada al arrancar: las lecturas irán a la primaria hasta que responda
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+
+    @Bean
+    public DataSourceLectura dataSourceLectura(
+            @Qualifier("dataSourcePrimaria") DataSource primaria,
+            @Qualifier("dataSourceReplica") DataSource replica,
+            @Value("${prestamo.datasource.replica.retraso-maximo:5s}") Duration retrasoMaximo) {
+        log.info("Réplica de lectura configurada; retraso máximo admitido: {}", retrasoMaximo);
+        return new DataSourceLectura(primaria, replica, retrasoMaximo);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimaria") DataSource primaria,
+                                 DataSourceLectura dataSourceLectura) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new DataSourceEscritura(primaria));
+        dataSource.setReadOnlyDataSource(dataSourceLectura);
+        return dataSource;
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroContextoLectura> filtroContextoLectura() {
+        FilterRegistrationBean<FiltroContextoLectura> registro = new FilterRegistrationBean<>(new FiltroContextoLectura());
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
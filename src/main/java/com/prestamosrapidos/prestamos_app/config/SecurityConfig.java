@@ -1,5 +1,6 @@
 package com.prestamosrapidos.prestamos_app.config;
 
+import com.prestamosrapidos.prestamos_app.idempotencia.RegistroIdempotencia;
 import com.prestamosrapidos.prestamos_app.security.CustomUserDetailsService;
 import com.prestamosrapidos.prestamos_app.security.JwtAuthenticationFilter;
 import com.prestamosrapidos.prestamos_app.security.CustomAuthenticationEntryPoint;
@@ -139,6 +140,8 @@ public class SecurityConfig {
             "Accept",
             "X-Requested-With",
             "Cache-Control",
+            "If-None-Match",
+            RegistroIdempotencia.CABECERA,
             "Origin"
         ));
         
@@ -152,7 +155,9 @@ public class SecurityConfig {
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization",
             "Content-Disposition",
-            "Content-Length"
+            "Content-Length",
+            "ETag",
+            RegistroIdempotencia.CABECERA_REPETIDA
         ));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
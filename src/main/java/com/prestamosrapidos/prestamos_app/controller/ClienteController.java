@@ -1,6 +1,8 @@
 package com.prestamosrapidos.prestamos_app.controller;
 
 import com.prestamosrapidos.prestamos_app.model.ClienteModel;
+import com.prestamosrapidos.prestamos_app.model.ClienteResumenModel;
+import com.prestamosrapidos.prestamos_app.model.PaginaModel;
 import com.prestamosrapidos.prestamos_app.service.ClienteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,10 +12,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -55,19 +57,28 @@ public class ClienteController {
         }
     }
 
+    /**
+     * Lista el resumen de los clientes paginado por keyset. Para pedir la página siguiente se envía
+     * en {@code after} el cursor {@code siguiente} de la respuesta anterior.
+     */
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<List<ClienteModel>> obtenerTodosLosClientes() {
-        List<ClienteModel> clientes = clienteService.obtenerTodosLosClientes();
-        return new ResponseEntity<>(clientes, HttpStatus.OK);
+    public ResponseEntity<PaginaModel<ClienteResumenModel>> listarClientes(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(clienteService.listarClientes(after, limit));
     }
 
+    /**
+     * Devuelve el cliente con su ETag; con {@code If-None-Match} de la versión actual responde
+     * {@code 304 Not Modified} sin cargar el cliente, sus cuentas ni sus préstamos.
+     */
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<ClienteModel> obtenerClientePorId(@PathVariable Long id) {
+    public ResponseEntity<ClienteModel> obtenerClientePorId(@PathVariable Long id, WebRequest request) {
         try {
-            ClienteModel cliente = clienteService.obtenerClientePorId(id);
-            return new ResponseEntity<>(cliente, HttpStatus.OK);
+            return RespuestaCondicional.responder(request, clienteService.obtenerVersionCliente(id),
+                    () -> clienteService.obtenerClientePorId(id));
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
         }
@@ -1,5 +1,6 @@
 package com.prestamosrapidos.prestamos_app.controller;
 
+import com.prestamosrapidos.prestamos_app.idempotencia.RegistroIdempotencia;
 import com.prestamosrapidos.prestamos_app.model.ErrorResponse;
 import com.prestamosrapidos.prestamos_app.model.PagoModel;
 import com.prestamosrapidos.prestamos_app.service.PagoService;
@@ -12,10 +13,16 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -32,6 +39,7 @@ import java.util.List;
 public class PagoController {
 
     private final PagoService pagoService;
+    private final RegistroIdempotencia registroIdempotencia;
 
     /**
      * Endpoint para listar todos los pagos con paginación.
@@ -56,19 +64,59 @@ public class PagoController {
         }
     }
 
+    /**
+     * Registra un pago. Con la cabecera {@code Idempotency-Key}, los reintentos con la misma clave
+     * devuelven el pago ya registrado sin registrarlo otra vez.
+     */
     @PostMapping("/{prestamoId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> registrarPago(
             @PathVariable Long prestamoId,
+            @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String claveIdempotencia,
             @RequestBody @Valid PagoModel pagoModel) {
+        // Aseguramos que el modelo reciba el id del préstamo desde la URL
+        pagoModel.setPrestamoId(prestamoId);
+        return registroIdempotencia.ejecutar("pago", claveIdempotencia, pagoModel, () -> {
+            try {
+                PagoModel pagoRegistrado = pagoService.registrarPago(pagoModel);
+                return ResponseEntity.status(HttpStatus.CREATED).body(pagoRegistrado);
+            } catch (Exception ex) {
+                log.error("Error al registrar pago: {}", ex.getMessage(), ex);
+                return buildErrorResponse("Error al registrar pago: " + ex.getMessage(),
+                                       HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * Carga masiva de pagos (por ejemplo, el fichero diario del banco) como array JSON de pagos, cada uno
+     * con su {@code prestamoId}. Devuelve el resultado de cada fila: los pagos inválidos se rechazan sin
+     * detener la carga.
+     */
+    @PostMapping(value = "/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> registrarPagosLote(@RequestBody List<PagoModel> pagos) {
         try {
-            // Aseguramos que el modelo reciba el id del préstamo desde la URL
-            pagoModel.setPrestamoId(prestamoId);
-            PagoModel pagoRegistrado = pagoService.registrarPago(pagoModel);
-            return ResponseEntity.status(HttpStatus.CREATED).body(pagoRegistrado);
+            return ResponseEntity.ok(pagoService.registrarPagosLote(pagos));
+        } catch (Exception ex) {
+            log.error("Error al registrar el lote de pagos: {}", ex.getMessage(), ex);
+            return buildErrorResponse("Error al registrar el lote de pagos: " + ex.getMessage(),
+                                   HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Carga masiva de pagos desde un fichero CSV ({@code prestamoId,monto[,fecha]}) subido en el campo
+     * {@code archivo}.
+     */
+    @PostMapping(value = "/lote", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> registrarPagosLoteCsv(@RequestParam("archivo") MultipartFile archivo) {
+        try (Reader csv = new InputStreamReader(archivo.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(pagoService.registrarPagosLoteCsv(csv));
         } catch (Exception ex) {
-            log.error("Error al registrar pago: {}", ex.getMessage(), ex);
-            return buildErrorResponse("Error al registrar pago: " + ex.getMessage(), 
+            log.error("Error al registrar el lote de pagos {}: {}", archivo.getOriginalFilename(), ex.getMessage(), ex);
+            return buildErrorResponse("Error al registrar el lote de pagos: " + ex.getMessage(),
                                    HttpStatus.BAD_REQUEST);
         }
     }
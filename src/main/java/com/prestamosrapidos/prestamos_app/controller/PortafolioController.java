@@ -0,0 +1,45 @@
+package com.prestamosrapidos.prestamos_app.controller;
+
+import com.prestamosrapidos.prestamos_app.cache.ContadoresCartera;
+import com.prestamosrapidos.prestamos_app.model.PortafolioContadoresModel;
+import com.prestamosrapidos.prestamos_app.model.PortafolioResumenModel;
+import com.prestamosrapidos.prestamos_app.service.PortafolioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/portafolio")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173",
+             allowedHeaders = "*",
+             allowCredentials = "true")
+public class PortafolioController {
+
+    private final PortafolioService portafolioService;
+    private final ContadoresCartera contadoresCartera;
+
+    /**
+     * Totales de la cartera por estado, por tramo de días de mora y de los préstamos vencidos o en mora.
+     * Se sirven de una vista materializada; {@code actualizadoEn} indica a qué momento corresponden.
+     */
+    @GetMapping("/resumen")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<PortafolioResumenModel> obtenerResumen() {
+        return ResponseEntity.ok(portafolioService.obtenerResumen());
+    }
+
+    /**
+     * Número de préstamos y saldo pendiente por estado al momento, mantenidos en memoria con cada cambio
+     * de préstamo y conciliados periódicamente con la base de datos. No consulta la base de datos.
+     */
+    @GetMapping("/contadores")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    public ResponseEntity<PortafolioContadoresModel> obtenerContadores() {
+        return ResponseEntity.ok(contadoresCartera.getContadores());
+    }
+}
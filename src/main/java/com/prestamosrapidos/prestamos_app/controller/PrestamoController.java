@@ -1,20 +1,30 @@
 package com.prestamosrapidos.prestamos_app.controller;
 
+import com.prestamosrapidos.prestamos_app.idempotencia.RegistroIdempotencia;
 import com.prestamosrapidos.prestamos_app.model.EstadoModel;
+import com.prestamosrapidos.prestamos_app.model.PaginaModel;
+import com.prestamosrapidos.prestamos_app.model.PrestamoFiltroModel;
 import com.prestamosrapidos.prestamos_app.model.PrestamoModel;
 import com.prestamosrapidos.prestamos_app.service.PrestamoService;
+import com.prestamosrapidos.prestamos_app.util.FormatoExportacion;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -28,13 +38,18 @@ import java.util.List;
 public class PrestamoController {
 
     private final PrestamoService prestamoService;
+    private final RegistroIdempotencia registroIdempotencia;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<PrestamoModel> crearPrestamo(@Valid @RequestBody PrestamoModel prestamoModel) {
-        PrestamoModel nuevoPrestamo = prestamoService.crearPrestamo(prestamoModel);
-        log.info("Préstamo creado exitosamente con ID: {}", nuevoPrestamo.getId());
-        return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPrestamo);
+    public ResponseEntity<?> crearPrestamo(
+            @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String claveIdempotencia,
+            @Valid @RequestBody PrestamoModel prestamoModel) {
+        return registroIdempotencia.ejecutar("prestamo", claveIdempotencia, prestamoModel, () -> {
+            PrestamoModel nuevoPrestamo = prestamoService.crearPrestamo(prestamoModel);
+            log.info("Préstamo creado exitosamente con ID: {}", nuevoPrestamo.getId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPrestamo);
+        });
     }
 
     @PutMapping("/{id}")
@@ -57,18 +72,62 @@ public class PrestamoController {
         return ResponseEntity.ok(prestamoActualizado);
     }
 
+    /**
+     * Devuelve el préstamo con su ETag; con {@code If-None-Match} de la versión actual responde
+     * {@code 304 Not Modified} sin cargarlo.
+     */
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<PrestamoModel> obtenerPrestamoPorId(@PathVariable @Min(1) Long id) {
-        PrestamoModel prestamo = prestamoService.obtenerPrestamoPorId(id);
-        return ResponseEntity.ok(prestamo);
+    public ResponseEntity<PrestamoModel> obtenerPrestamoPorId(@PathVariable @Min(1) Long id, WebRequest request) {
+        return RespuestaCondicional.responder(request, prestamoService.obtenerVersionPrestamo(id),
+                () -> prestamoService.obtenerPrestamoPorId(id));
     }
 
+    /**
+     * Busca préstamos paginados por keyset. Para pedir la página siguiente se envía en
+     * {@code after} el cursor {@code siguiente} de la respuesta anterior. Todos los filtros son
+     * opcionales; {@code estado} admite varios valores ({@code estado=Vencido&estado=En mora} o
+     * {@code estado=Vencido,En mora}) y los rangos incluyen sus extremos.
+     */
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    public ResponseEntity<List<PrestamoModel>> obtenerTodosLosPrestamos() {
-        List<PrestamoModel> prestamos = prestamoService.obtenerTodosLosPrestamos();
-        return ResponseEntity.ok(prestamos);
+    public ResponseEntity<PaginaModel<PrestamoModel>> listarPrestamos(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) List<String> estado,
+            @RequestParam(required = false) Long clienteId,
+            @RequestParam(required = false) BigDecimal montoMinimo,
+            @RequestParam(required = false) BigDecimal montoMaximo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimientoDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate vencimientoHasta,
+            @RequestParam(required = false) Integer diasMoraMinimo,
+            @RequestParam(required = false) Integer diasMoraMaximo) {
+        PrestamoFiltroModel filtro = PrestamoFiltroModel.builder()
+                .estados(estado)
+                .clienteId(clienteId)
+                .montoMinimo(montoMinimo)
+                .montoMaximo(montoMaximo)
+                .vencimientoDesde(vencimientoDesde)
+                .vencimientoHasta(vencimientoHasta)
+                .diasMoraMinimo(diasMoraMinimo)
+                .diasMoraMaximo(diasMoraMaximo)
+                .build();
+        return ResponseEntity.ok(prestamoService.listarPrestamos(filtro, after, limit));
+    }
+
+    /**
+     * Exporta toda la cartera en streaming (NDJSON o CSV), un préstamo por línea con sus saldos y
+     * su mora a hoy. Los préstamos se escriben a medida que se leen de la base de datos.
+     */
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportarPrestamos(
+            @RequestParam(defaultValue = "NDJSON") FormatoExportacion formato) {
+        StreamingResponseBody cuerpo = salida -> prestamoService.exportarPrestamos(formato, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=prestamos." + formato.getExtension())
+                .body(cuerpo);
     }
 
     @GetMapping("/cliente/{clienteId}")
@@ -1,13 +1,30 @@
 package com.prestamosrapidos.prestamos_app.controller;
 
+import com.prestamosrapidos.prestamos_app.cache.CacheEstadisticas;
+import com.prestamosrapidos.prestamos_app.cache.PrestamoCache;
+import com.prestamosrapidos.prestamos_app.datasource.DataSourceLectura;
+import com.prestamosrapidos.prestamos_app.datasource.ReplicaEstadisticas;
+import com.prestamosrapidos.prestamos_app.scheduler.ConciliacionTotalPagado;
+import com.prestamosrapidos.prestamos_app.scheduler.FormatoSimulacion;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraRecalculoTrabajo;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulacionParametros;
+import com.prestamosrapidos.prestamos_app.scheduler.SchedulerLock;
+import com.prestamosrapidos.prestamos_app.scheduler.SchedulerLockEstadisticas;
 import com.prestamosrapidos.prestamos_app.service.PrestamoSchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,23 +34,111 @@ import java.util.Map;
 public class PrestamoSchedulerController {
 
     private final PrestamoSchedulerService prestamoSchedulerService;
+    private final SchedulerLock schedulerLock;
+    private final ConciliacionTotalPagado conciliacionTotalPagado;
+    private final PrestamoCache prestamoCache;
+    private final ObjectProvider<DataSourceLectura> dataSourceLectura;
 
+    /**
+     * Encola un recálculo de mora y responde de inmediato con su identificador.
+     *
+     * <p>Con {@code fecha} recalcula solo esa fecha; con {@code desde}/{@code hasta} recalcula el rango
+     * (por defecto hasta hoy). Sin parámetros recalcula la fecha actual.</p>
+     *
+     * @return 202 con el recálculo encolado y su URI de seguimiento en {@code Location}
+     */
     @PostMapping("/calcular-mora")
-    public ResponseEntity<Map<String, Object>> calcularMoraManual(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
-        
-        LocalDate fechaCalculo = fecha != null ? fecha : LocalDate.now();
-        
-        try {
-            Map<String, Object> response = prestamoSchedulerService.calcularMoraManual(fechaCalculo);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error en el controlador al calcular mora: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().body(Map.of(
-                "status", "error",
-                "fechaCalculo", LocalDate.now().toString(),
-                "mensaje", "Error al procesar la solicitud: " + e.getMessage()
-            ));
-        }
+    public ResponseEntity<MoraRecalculoTrabajo> calcularMoraManual(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            UriComponentsBuilder uriComponentsBuilder) {
+
+        LocalDate hoy = LocalDate.now();
+        LocalDate inicio = fecha != null ? fecha : desde != null ? desde : hoy;
+        LocalDate fin = fecha != null ? fecha : hasta != null ? hasta : hoy;
+
+        MoraRecalculoTrabajo trabajo = prestamoSchedulerService.calcularMoraManual(inicio, fin);
+        URI location = uriComponentsBuilder
+                .path("/scheduler/calcular-mora/{id}")
+                .buildAndExpand(trabajo.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(trabajo);
+    }
+
+    @GetMapping("/calcular-mora")
+    public ResponseEntity<List<MoraRecalculoTrabajo>> listarCalculosMora() {
+        return ResponseEntity.ok(prestamoSchedulerService.listarCalculosMoraManual());
+    }
+
+    /**
+     * Avance de un recálculo: fechas terminadas, préstamos procesados por segundo, errores y tiempo restante estimado.
+     */
+    @GetMapping("/calcular-mora/{id}")
+    public ResponseEntity<MoraRecalculoTrabajo> obtenerCalculoMora(@PathVariable String id) {
+        return ResponseEntity.ok(prestamoSchedulerService.obtenerCalculoMoraManual(id));
+    }
+
+    /**
+     * Cancela un recálculo; si está en curso se detiene al terminar el lote actual.
+     */
+    @DeleteMapping("/calcular-mora/{id}")
+    public ResponseEntity<MoraRecalculoTrabajo> cancelarCalculoMora(@PathVariable String id) {
+        return ResponseEntity.accepted().body(prestamoSchedulerService.cancelarCalculoMoraManual(id));
+    }
+
+    /**
+     * Simula el cálculo de mora de una fecha con otra configuración, sin modificar ningún préstamo.
+     *
+     * <p>Responde en streaming una línea por préstamo con los valores anteriores y nuevos de estado,
+     * días de mora, mora acumulada y deuda restante. Los parámetros omitidos toman la configuración
+     * actual; por defecto solo se emiten los préstamos que cambiarían.</p>
+     */
+    @GetMapping("/simular-mora")
+    public ResponseEntity<StreamingResponseBody> simularMora(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @RequestParam(required = false) BigDecimal porcentajeDiario,
+            @RequestParam(required = false) Integer diasGracia,
+            @RequestParam(defaultValue = "NDJSON") FormatoSimulacion formato,
+            @RequestParam(defaultValue = "true") boolean soloCambios) {
+
+        MoraSimulacionParametros parametros =
+                prestamoSchedulerService.prepararSimulacionMora(fecha, porcentajeDiario, diasGracia, soloCambios);
+        StreamingResponseBody cuerpo = salida -> prestamoSchedulerService.simularMora(parametros, formato, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getContentType()))
+                .body(cuerpo);
+    }
+
+    /**
+     * Compara el total pagado y la fecha del último pago de cada préstamo con sus pagos.
+     *
+     * @return Ids de los préstamos con diferencias (corregidas si {@code corregir=true})
+     */
+    @PostMapping("/conciliar-pagos")
+    public ResponseEntity<List<Long>> conciliarPagos(@RequestParam(defaultValue = "false") boolean corregir) {
+        return ResponseEntity.ok(conciliacionTotalPagado.conciliar(corregir));
+    }
+
+    @GetMapping("/bloqueos")
+    public ResponseEntity<Map<String, SchedulerLockEstadisticas>> obtenerEstadisticasBloqueos() {
+        return ResponseEntity.ok(schedulerLock.getEstadisticas());
+    }
+
+    /**
+     * Aciertos, fallos, desalojos e invalidaciones de la caché de préstamos de este nodo.
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<CacheEstadisticas> obtenerEstadisticasCache() {
+        return ResponseEntity.ok(prestamoCache.getEstadisticas());
+    }
+
+    /**
+     * Retraso de la réplica de lectura y destino de las lecturas en este nodo; 404 si no hay réplica configurada.
+     */
+    @GetMapping("/replica")
+    public ResponseEntity<ReplicaEstadisticas> obtenerEstadisticasReplica() {
+        DataSourceLectura lectura = dataSourceLectura.getIfAvailable();
+        return lectura != null ? ResponseEntity.ok(lectura.getEstadisticas()) : ResponseEntity.notFound().build();
     }
 }
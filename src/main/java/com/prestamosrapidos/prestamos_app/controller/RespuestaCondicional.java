@@ -0,0 +1,40 @@
+package com.prestamosrapidos.prestamos_app.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas de los GET condicionales ({@code ETag} / {@code If-None-Match}) de los recursos que el
+ * front-end consulta periódicamente.
+ *
+ * <p>La versión se lee con una consulta ligera antes que el recurso: si coincide con la que envía el
+ * cliente se responde {@code 304 Not Modified} sin cargar ni serializar nada. Si el recurso cambia
+ * entre ambas lecturas, el cliente recibe el recurso nuevo con la versión anterior y en la siguiente
+ * consulta lo vuelve a descargar; nunca se queda con un recurso anterior a su ETag.</p>
+ */
+final class RespuestaCondicional {
+
+    /** El navegador puede guardar la respuesta, pero debe revalidarla antes de cada uso */
+    private static final CacheControl REVALIDAR = CacheControl.noCache().cachePrivate();
+
+    private RespuestaCondicional() {
+    }
+
+    /**
+     * @param version Versión actual del recurso; vacía si no existe, en cuyo caso {@code cargar} informa el error
+     * @param cargar Carga del recurso cuando el cliente no tiene la versión actual
+     */
+    static <T> ResponseEntity<T> responder(WebRequest request, Optional<String> version, Supplier<T> cargar) {
+        String etag = version.orElse(null);
+        if (etag != null && request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDAR).build();
+        }
+        T cuerpo = cargar.get();
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDAR).body(cuerpo);
+    }
+}
@@ -0,0 +1,95 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Indica, para el hilo actual, si las transacciones de solo lectura deben leer de la base de datos
+ * primaria en lugar de la réplica.
+ *
+ * <ul>
+ *   <li>Tras obtener una conexión de escritura, el resto de la petición lee de la primaria: la réplica
+ *       aún puede no tener lo que se acaba de escribir (lectura de las propias escrituras)</li>
+ *   <li>{@link FiltroContextoLectura} abre un ámbito por petición HTTP y lo limpia al terminar</li>
+ *   <li>Fuera de una petición (ejecutores, listeners de arranque) no hay quien limpie el hilo: la marca
+ *       dura hasta que termina la transacción que escribió, y una sentencia suelta fuera de transacción
+ *       no marca el hilo</li>
+ *   <li>{@link #conPrimaria} fuerza la primaria mientras dura una tarea, p. ej. los procesos del
+ *       scheduler, cuyas etapas leen lo que escribió la anterior</li>
+ * </ul>
+ *
+ * <p>Sin réplica configurada nadie lo consulta y no tiene efecto.</p>
+ */
+public final class ContextoLectura {
+
+    private static final ThreadLocal<Boolean> PRIMARIA = new ThreadLocal<>();
+
+    /** Hay una petición abierta que limpiará la marca al terminar */
+    private static final ThreadLocal<Boolean> AMBITO = new ThreadLocal<>();
+
+    private ContextoLectura() {
+    }
+
+    /**
+     * Marca el hilo para que las lecturas siguientes vayan a la primaria: hasta el final de la petición
+     * si hay una abierta ({@link #abrirAmbito}) o, si no, hasta que termine la transacción en curso.
+     */
+    public static void marcarEscritura() {
+        if (requierePrimaria()) {
+            return;
+        }
+        if (Boolean.TRUE.equals(AMBITO.get())) {
+            PRIMARIA.set(Boolean.TRUE);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            PRIMARIA.set(Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    PRIMARIA.remove();
+                }
+            });
+        }
+    }
+
+    public static boolean requierePrimaria() {
+        return Boolean.TRUE.equals(PRIMARIA.get());
+    }
+
+    /**
+     * Abre el ámbito de una petición: la marca de escritura dura hasta {@link #limpiar()}.
+     */
+    public static void abrirAmbito() {
+        AMBITO.set(Boolean.TRUE);
+    }
+
+    public static void limpiar() {
+        PRIMARIA.remove();
+        AMBITO.remove();
+    }
+
+    /**
+     * Ejecuta la tarea leyendo siempre de la primaria y restaura después el estado anterior del hilo.
+     */
+    public static <T> T conPrimaria(Supplier<T> tarea) {
+        Boolean anterior = PRIMARIA.get();
+        PRIMARIA.set(Boolean.TRUE);
+        try {
+            return tarea.get();
+        } finally {
+            if (anterior == null) {
+                PRIMARIA.remove();
+            } else {
+                PRIMARIA.set(anterior);
+            }
+        }
+    }
+
+    public static void conPrimaria(Runnable tarea) {
+        conPrimaria(() -> {
+            tarea.run();
+            return null;
+        });
+    }
+}
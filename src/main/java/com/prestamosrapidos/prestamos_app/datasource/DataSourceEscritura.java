@@ -0,0 +1,31 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Conexiones de la primaria para las transacciones de lectura y escritura. Cada conexión marca el
+ * hilo en {@link ContextoLectura} para que las lecturas siguientes de la petición (o, fuera de una
+ * petición, de la transacción) no vayan a la réplica.
+ */
+public class DataSourceEscritura extends DelegatingDataSource {
+
+    public DataSourceEscritura(DataSource primaria) {
+        super(primaria);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ContextoLectura.marcarEscritura();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ContextoLectura.marcarEscritura();
+        return super.getConnection(username, password);
+    }
+}
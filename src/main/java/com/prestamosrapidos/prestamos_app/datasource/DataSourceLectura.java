@@ -0,0 +1,139 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conexiones de las transacciones de solo lectura: de la réplica mientras esté al día, de la primaria
+ * en otro caso.
+ *
+ * <ul>
+ *   <li>El retraso se comprueba periódicamente ({@code prestamo.datasource.replica.comprobacion}); si supera
+ *       {@code prestamo.datasource.replica.retraso-maximo} o la réplica no responde, se lee de la primaria
+ *       hasta la siguiente comprobación correcta</li>
+ *   <li>Si la petición ya escribió ({@link ContextoLectura}), se lee de la primaria</li>
+ *   <li>Si no se puede obtener la conexión de la réplica, se sirve desde la primaria y la réplica
+ *       queda fuera hasta la siguiente comprobación</li>
+ * </ul>
+ */
+@Slf4j
+public class DataSourceLectura extends AbstractDataSource {
+
+    /**
+     * Retraso de la réplica: el tiempo desde la última transacción aplicada, o cero si ya aplicó todo lo
+     * recibido (con la primaria sin escrituras el tiempo crecería sin que haya retraso real).
+     * Una instancia que no está en recuperación (no es réplica) no tiene retraso.
+     */
+    static final String SQL_RETRASO = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final DataSource primaria;
+    private final DataSource replica;
+    private final Duration retrasoMaximo;
+
+    /** Hasta la primera comprobación las lecturas van a la primaria */
+    private volatile boolean disponible;
+    private volatile Duration retraso;
+    private volatile LocalDateTime ultimaComprobacion;
+
+    private final AtomicLong lecturasReplica = new AtomicLong();
+    private final AtomicLong lecturasPrimariaTrasEscritura = new AtomicLong();
+    private final AtomicLong lecturasPrimariaNoDisponible = new AtomicLong();
+    private final AtomicLong fallosReplica = new AtomicLong();
+
+    public DataSourceLectura(DataSource primaria, DataSource replica, Duration retrasoMaximo) {
+        this.primaria = primaria;
+        this.replica = replica;
+        this.retrasoMaximo = retrasoMaximo;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return obtenerConexion(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return obtenerConexion(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection obtenerConexion(Conexion conexion) throws SQLException {
+        if (ContextoLectura.requierePrimaria()) {
+            lecturasPrimariaTrasEscritura.incrementAndGet();
+            return conexion.de(primaria);
+        }
+        if (!disponible) {
+            lecturasPrimariaNoDisponible.incrementAndGet();
+            return conexion.de(primaria);
+        }
+        try {
+            Connection deReplica = conexion.de(replica);
+            lecturasReplica.incrementAndGet();
+            return deReplica;
+        } catch (SQLException e) {
+            disponible = false;
+            fallosReplica.incrementAndGet();
+            log.warn("⚠️ Réplica sin conexión, se lee de la primaria hasta la siguiente comprobación: {}", e.getMessage());
+            return conexion.de(primaria);
+        }
+    }
+
+    /** Obtiene la conexión de un pool, con o sin credenciales explícitas */
+    @FunctionalInterface
+    private interface Conexion {
+        Connection de(DataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * Consulta el retraso de la réplica y decide si las lecturas siguientes van a ella.
+     */
+    @Scheduled(fixedDelayString = "${prestamo.datasource.replica.comprobacion:5s}")
+    public void comprobarRetraso() {
+        Duration medido = null;
+        try (Connection conexion = replica.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(SQL_RETRASO)) {
+            resultado.next();
+            medido = Duration.ofMillis(Math.round(resultado.getDouble(1) * 1000));
+        } catch (SQLException e) {
+            log.warn("⚠️ No se pudo comprobar el retraso de la réplica: {}", e.getMessage());
+        }
+        actualizar(medido);
+    }
+
+    /**
+     * @param medido Retraso medido, o null si la réplica no respondió
+     */
+    void actualizar(Duration medido) {
+        boolean estabaDisponible = disponible;
+        retraso = medido;
+        ultimaComprobacion = LocalDateTime.now();
+        disponible = medido != null && medido.compareTo(retrasoMaximo) <= 0;
+        if (estabaDisponible && !disponible) {
+            log.warn("⚠️ Réplica fuera de las lecturas (retraso: {}, máximo: {})", medido, retrasoMaximo);
+        } else if (!estabaDisponible && disponible) {
+            log.info("✓ Réplica disponible para lecturas (retraso: {})", medido);
+        }
+    }
+
+    public ReplicaEstadisticas getEstadisticas() {
+        return new ReplicaEstadisticas(disponible, retraso, retrasoMaximo, ultimaComprobacion,
+                lecturasReplica.get(), lecturasPrimariaTrasEscritura.get(),
+                lecturasPrimariaNoDisponible.get(), fallosReplica.get());
+    }
+}
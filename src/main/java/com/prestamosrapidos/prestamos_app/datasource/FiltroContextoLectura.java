@@ -0,0 +1,27 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Abre el ámbito de {@link ContextoLectura} en cada petición y lo limpia al terminar: la marca de
+ * escritura dura toda la petición, pero no debe pasar a la siguiente que atienda el mismo hilo.
+ */
+public class FiltroContextoLectura extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContextoLectura.abrirAmbito();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContextoLectura.limpiar();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Estado de la réplica de lectura y destino de las conexiones de solo lectura en este nodo.
+ */
+@Getter
+@AllArgsConstructor
+public class ReplicaEstadisticas {
+
+    /** Si las lecturas van a la réplica: la última comprobación respondió y el retraso no supera el máximo */
+    private final boolean disponible;
+    /** Retraso de la réplica en la última comprobación (null si no respondió) */
+    private final Duration retraso;
+    private final Duration retrasoMaximo;
+    private final LocalDateTime ultimaComprobacion;
+    private final long lecturasReplica;
+    /** Lecturas enviadas a la primaria por haber escrito antes en la misma petición o tarea */
+    private final long lecturasPrimariaTrasEscritura;
+    /** Lecturas enviadas a la primaria por retraso excesivo o réplica sin responder */
+    private final long lecturasPrimariaNoDisponible;
+    /** Conexiones a la réplica fallidas que se sirvieron desde la primaria */
+    private final long fallosReplica;
+}
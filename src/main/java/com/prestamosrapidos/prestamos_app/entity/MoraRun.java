@@ -0,0 +1,51 @@
+package com.prestamosrapidos.prestamos_app.entity;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoMoraRun;
+import com.prestamosrapidos.prestamos_app.entity.enums.EtapaMora;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Registro de la ejecución del cálculo de mora de una fecha de negocio.
+ * Garantiza que cada fecha se procese una sola vez y permite retomar una ejecución
+ * interrumpida a partir de la última etapa completada.
+ */
+@Entity
+@Table(name = "mora_run")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoraRun {
+
+    @Id
+    @Column(name = "fecha_negocio")
+    private LocalDate fechaNegocio;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoMoraRun estado;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ultima_etapa", length = 30)
+    private EtapaMora ultimaEtapa;
+
+    @Column(name = "iniciado_el", nullable = false)
+    private LocalDateTime iniciadoEl;
+
+    @Column(name = "finalizado_el")
+    private LocalDateTime finalizadoEl;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    @Column(nullable = false)
+    private long procesados;
+
+    @Column(nullable = false)
+    private long errores;
+}
@@ -0,0 +1,64 @@
+package com.prestamosrapidos.prestamos_app.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Punto de control de una fase del cálculo de mora por lotes, uno por partición.
+ * Se actualiza en la misma transacción que cada lote, de modo que una ejecución interrumpida
+ * (caída o despliegue) se reanuda desde el último lote confirmado.
+ */
+@Entity
+@Table(name = "mora_run_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_mora_run_checkpoint",
+                columnNames = {"fecha_negocio", "fase", "particion"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoraRunCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "fecha_negocio", nullable = false)
+    private LocalDate fechaNegocio;
+
+    @Column(nullable = false, length = 40)
+    private String fase;
+
+    @Column(nullable = false)
+    private int particion;
+
+    @Column(name = "rango_desde", nullable = false)
+    private long rangoDesde;
+
+    @Column(name = "rango_hasta", nullable = false)
+    private long rangoHasta;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private long ultimoId;
+
+    @Column(nullable = false)
+    private int lotes;
+
+    @Column(name = "lotes_fallidos", nullable = false)
+    private int lotesFallidos;
+
+    @Column(nullable = false)
+    private long procesados;
+
+    @Column(nullable = false)
+    private long errores;
+
+    @Column(nullable = false)
+    private boolean completada;
+
+    @Column(name = "actualizado_el", nullable = false)
+    private LocalDateTime actualizadoEl;
+}
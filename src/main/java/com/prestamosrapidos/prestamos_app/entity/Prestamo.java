@@ -1,6 +1,7 @@
 package com.prestamosrapidos.prestamos_app.entity;
 
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.SituacionPrestamo;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Future;
@@ -111,6 +112,14 @@ public class Prestamo {
     
     @Column(name = "dias_mora", nullable = false)
     private Integer diasMora = 0;
+
+    /** Suma de los pagos, mantenida al registrar y eliminar pagos para no recorrer la colección */
+    @Column(name = "total_pagado", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal totalPagado = BigDecimal.ZERO;
+
+    @Column(name = "ultimo_pago_fecha")
+    private LocalDate ultimoPagoFecha;
     
     protected void validarFechasYCalcularMora() {
         if (fechaCreacion == null || fechaVencimiento == null) {
@@ -155,6 +164,12 @@ public class Prestamo {
     @Column(name = "modificado_por", nullable = false)
     private String modificadoPor;
 
+    /** Situación al cargar el préstamo o en su último {@code PrestamoModificadoEvent}; null si aún no existe */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private SituacionPrestamo situacionPublicada;
+
    /* @LastModifiedDate
     @Column(name = "fecha_actualizacion", nullable = false)
     private LocalDateTime fechaActualizacion;*/
@@ -173,11 +188,52 @@ public class Prestamo {
         validarFechasYCalcularMora();
     }
 
+    @PostLoad
+    public void postLoad() {
+        situacionPublicada = SituacionPrestamo.de(this);
+    }
+
+    /**
+     * Sustituye la situación publicada del préstamo.
+     *
+     * @return La situación publicada hasta ahora (null si el préstamo es nuevo)
+     */
+    public SituacionPrestamo publicarSituacion(SituacionPrestamo situacion) {
+        SituacionPrestamo anterior = situacionPublicada;
+        situacionPublicada = situacion;
+        return anterior;
+    }
+
+    /**
+     * Asocia un pago al préstamo y lo suma al total pagado y a la fecha del último pago.
+     */
     public void addPago(Pago pago) {
         if (pagos == null) {
             pagos = new ArrayList<>();
         }
         pagos.add(pago);
         pago.setPrestamo(this);
+        sumarPago(pago.getMonto(), pago.getFecha());
+    }
+
+    /**
+     * Suma un pago a los totales mantenidos sin tocar la colección de pagos.
+     */
+    public void sumarPago(BigDecimal monto, LocalDate fecha) {
+        totalPagado = (totalPagado != null ? totalPagado : BigDecimal.ZERO).add(monto);
+        if (fecha != null && (ultimoPagoFecha == null || fecha.isAfter(ultimoPagoFecha))) {
+            ultimoPagoFecha = fecha;
+        }
+    }
+
+    /**
+     * Descuenta un pago eliminado de los totales mantenidos.
+     *
+     * @param monto Monto del pago eliminado
+     * @param ultimaFechaRestante Fecha del pago más reciente que queda (null si no queda ninguno)
+     */
+    public void restarPago(BigDecimal monto, LocalDate ultimaFechaRestante) {
+        totalPagado = (totalPagado != null ? totalPagado : BigDecimal.ZERO).subtract(monto).max(BigDecimal.ZERO);
+        ultimoPagoFecha = ultimaFechaRestante;
     }
 }
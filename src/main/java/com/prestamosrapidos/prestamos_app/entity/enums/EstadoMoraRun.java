@@ -0,0 +1,13 @@
+package com.prestamosrapidos.prestamos_app.entity.enums;
+
+/**
+ * Estado de la ejecución del cálculo de mora para una fecha de negocio.
+ */
+public enum EstadoMoraRun {
+
+    /** La ejecución empezó y no ha completado todas sus etapas */
+    EN_CURSO,
+
+    /** Todas las etapas se completaron; volver a ejecutar la fecha no hace nada */
+    COMPLETADO
+}
@@ -0,0 +1,16 @@
+package com.prestamosrapidos.prestamos_app.entity.enums;
+
+/**
+ * Etapas del cálculo diario de mora, en el orden en que se ejecutan.
+ */
+public enum EtapaMora {
+
+    /** Préstamos APROBADOS cuya fecha de vencimiento ya llegó pasan a VENCIDO */
+    MARCAR_VENCIDOS,
+
+    /** Se acumulan los días y el monto de mora de los préstamos vencidos o en mora */
+    ACUMULAR_MORA,
+
+    /** Se recalcula la deuda restante (capital pendiente + mora) de los préstamos con mora aplicada */
+    RECALCULAR_DEUDA
+}
@@ -0,0 +1,12 @@
+package com.prestamosrapidos.prestamos_app.event;
+
+import java.time.LocalDate;
+
+/**
+ * Se publica cuando un proceso masivo (cálculo de mora, conciliación)
+ * puede haber modificado cualquier préstamo de la cartera.
+ *
+ * @param fecha Fecha de negocio procesada
+ */
+public record CarteraRecalculadaEvent(LocalDate fecha) {
+}
@@ -0,0 +1,36 @@
+package com.prestamosrapidos.prestamos_app.event;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+
+/**
+ * Se publica cuando cambia un préstamo (creación, actualización, cambio de estado, eliminación o
+ * registro/eliminación de un pago). Dentro de una transacción, los oyentes
+ * {@code @TransactionalEventListener} lo reciben al confirmarse.
+ *
+ * <p>Lleva la situación del préstamo antes y después del cambio para que los contadores de la cartera
+ * apliquen la diferencia: {@code anterior} es null en la creación y {@code nueva} en la eliminación.</p>
+ *
+ * @param prestamoId ID del préstamo modificado
+ * @param anterior Situación publicada en el evento anterior del préstamo, o la cargada de la base de datos
+ * @param nueva Situación tras el cambio
+ */
+public record PrestamoModificadoEvent(Long prestamoId, SituacionPrestamo anterior, SituacionPrestamo nueva) {
+
+    /**
+     * Evento de un préstamo creado o modificado. La situación actual pasa a ser la publicada del préstamo,
+     * de modo que varios eventos del mismo préstamo en una transacción no repiten la diferencia.
+     */
+    public static PrestamoModificadoEvent de(Prestamo prestamo) {
+        SituacionPrestamo nueva = SituacionPrestamo.de(prestamo);
+        return new PrestamoModificadoEvent(prestamo.getId(), prestamo.publicarSituacion(nueva), nueva);
+    }
+
+    /**
+     * Evento de un préstamo eliminado.
+     */
+    public static PrestamoModificadoEvent eliminado(Prestamo prestamo) {
+        SituacionPrestamo anterior = prestamo.publicarSituacion(null);
+        return new PrestamoModificadoEvent(prestamo.getId(),
+                anterior != null ? anterior : SituacionPrestamo.de(prestamo), null);
+    }
+}
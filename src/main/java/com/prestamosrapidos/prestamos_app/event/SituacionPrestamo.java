@@ -0,0 +1,42 @@
+package com.prestamosrapidos.prestamos_app.event;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Estado y saldo pendiente de un préstamo en un momento dado, lo que necesitan los contadores de la
+ * cartera para aplicar un cambio sin leer la base de datos.
+ *
+ * @param estado Estado del préstamo
+ * @param saldoCentimos Capital + interés ordinario + mora - total pagado, en céntimos (la misma fórmula que
+ *                      {@code portafolio_resumen})
+ */
+public record SituacionPrestamo(EstadoPrestamo estado, long saldoCentimos) {
+
+    /**
+     * Saldo pendiente de una fila de {@code prestamos} en SQL, el mismo que {@link #de} y {@code portafolio_resumen}:
+     * lo usan los contadores de la cartera y el resumen de clientes para que sus importes coincidan.
+     */
+    public static final String SQL_SALDO_PENDIENTE = "(monto + ROUND(monto * interes / 100, 2) + mora_acumulada - total_pagado)";
+
+    public static SituacionPrestamo de(Prestamo prestamo) {
+        BigDecimal monto = valor(prestamo.getMonto());
+        BigDecimal interesOrdinario = monto.multiply(valor(prestamo.getInteres()))
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        BigDecimal saldo = monto.add(interesOrdinario)
+                .add(valor(prestamo.getMoraAcumulada()))
+                .subtract(valor(prestamo.getTotalPagado()));
+        return new SituacionPrestamo(prestamo.getEstado(), aCentimos(saldo));
+    }
+
+    public static long aCentimos(BigDecimal importe) {
+        return importe.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal valor(BigDecimal importe) {
+        return importe != null ? importe : BigDecimal.ZERO;
+    }
+}
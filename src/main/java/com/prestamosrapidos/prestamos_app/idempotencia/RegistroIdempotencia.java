@@ -0,0 +1,216 @@
+package com.prestamosrapidos.prestamos_app.idempotencia;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prestamosrapidos.prestamos_app.cache.CacheAcotada;
+import com.prestamosrapidos.prestamos_app.cache.CacheEstadisticas;
+import com.prestamosrapidos.prestamos_app.model.ErrorResponse;
+import com.prestamosrapidos.prestamos_app.scheduler.SchedulerLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Peticiones con cabecera {@code Idempotency-Key}: la primera se ejecuta y su respuesta se guarda en la
+ * tabla {@code idempotencia}; los reintentos con la misma clave reciben esa respuesta sin ejecutarse de nuevo.
+ *
+ * <ul>
+ *   <li>La clave se inserta con un {@code INSERT ... ON CONFLICT} como primera sentencia de la transacción
+ *       de la operación, y la respuesta se guarda en esa misma transacción: o se confirman las dos o ninguna</li>
+ *   <li>Una petición simultánea con la misma clave espera en el índice único a que la primera termine, por
+ *       mucho que tarde: si se confirmó recibe su respuesta; si se revirtió (fallo o respuesta que no es 2xx),
+ *       se ejecuta ella. Nunca se ejecutan las dos</li>
+ *   <li>La misma clave con otro cuerpo de petición recibe 422</li>
+ *   <li>Las respuestas completadas se guardan además en una {@link CacheAcotada}: los reintentos de las claves
+ *       recientes no consultan la base de datos</li>
+ *   <li>Las claves duran {@code prestamo.idempotencia.ttl}; las expiradas se borran cada
+ *       {@code prestamo.idempotencia.limpieza}</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class RegistroIdempotencia {
+
+    public static final String CABECERA = "Idempotency-Key";
+
+    /** Cabecera de las respuestas devueltas a un reintento */
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    /** Solo se reutiliza una clave expirada que la limpieza aún no borró */
+    static final String SQL_RESERVAR = """
+            INSERT INTO idempotencia (operacion, clave, huella, estado, creado_en, expira_en)
+            VALUES (?, ?, ?, 'EN_CURSO', now(), now() + make_interval(secs => ?))
+            ON CONFLICT (operacion, clave) DO UPDATE
+               SET huella = EXCLUDED.huella, estado = 'EN_CURSO', codigo_http = NULL, cuerpo = NULL,
+                   creado_en = EXCLUDED.creado_en, expira_en = EXCLUDED.expira_en
+             WHERE idempotencia.expira_en < now()
+            """;
+
+    static final String SQL_LEER = """
+            SELECT huella, codigo_http, cuerpo
+              FROM idempotencia
+             WHERE operacion = ? AND clave = ? AND estado = 'COMPLETADA' AND expira_en > now()
+            """;
+
+    static final String SQL_COMPLETAR = """
+            UPDATE idempotencia SET estado = 'COMPLETADA', codigo_http = ?, cuerpo = ?
+             WHERE operacion = ? AND clave = ?
+            """;
+
+    static final String SQL_LIMPIAR = "DELETE FROM idempotencia WHERE expira_en < now()";
+
+    private static final String TAREA_LIMPIEZA = "idempotencia-limpieza";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SchedulerLock schedulerLock;
+    private final Duration tiempoDeVida;
+    private final CacheAcotada<String, RespuestaIdempotente> cache;
+
+    /**
+     * @param tiempoDeVida Tiempo durante el que un reintento recibe la respuesta original;
+     *                     propiedad 'prestamo.idempotencia.ttl' (default: 24h)
+     * @param tamanoCache Respuestas guardadas en memoria; propiedad 'prestamo.idempotencia.cache.tamano-maximo' (default: 10000)
+     * @param tiempoDeVidaCache Tiempo de vida de cada respuesta en memoria; propiedad 'prestamo.idempotencia.cache.ttl' (default: 10m)
+     */
+    public RegistroIdempotencia(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                SchedulerLock schedulerLock,
+                                @Value("${prestamo.idempotencia.ttl:24h}") Duration tiempoDeVida,
+                                @Value("${prestamo.idempotencia.cache.tamano-maximo:10000}") int tamanoCache,
+                                @Value("${prestamo.idempotencia.cache.ttl:10m}") Duration tiempoDeVidaCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.schedulerLock = schedulerLock;
+        this.tiempoDeVida = tiempoDeVida;
+        this.cache = new CacheAcotada<>(tamanoCache, tiempoDeVidaCache);
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave, o devuelve la respuesta de la ejecución anterior.
+     *
+     * @param operacion Nombre de la operación (las claves son únicas por operación)
+     * @param clave Valor de la cabecera {@code Idempotency-Key}; sin clave la operación se ejecuta siempre
+     * @param peticion Cuerpo de la petición, para comprobar que los reintentos son la misma petición
+     * @param accion Operación; se ejecuta dentro de la transacción en la que se guarda su respuesta
+     * @return Respuesta de la operación, la guardada (con {@value #CABECERA_REPETIDA}) o un error 422
+     */
+    public ResponseEntity<?> ejecutar(String operacion, String clave, Object peticion,
+                                      Supplier<ResponseEntity<?>> accion) {
+        if (clave == null) {
+            return accion.get();
+        }
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            return error("La cabecera " + CABECERA + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE
+                    + " caracteres", HttpStatus.BAD_REQUEST);
+        }
+        String huella = huella(peticion);
+        String claveCache = operacion + ":" + clave;
+
+        RespuestaIdempotente guardada = cache.obtener(claveCache, () -> leerCompletada(operacion, clave));
+        if (guardada != null) {
+            return repetir(guardada, huella, operacion, clave);
+        }
+
+        return transactionTemplate.execute(estado -> {
+            // Primera sentencia de la transacción: otra petición con la misma clave espera aquí a que esta termine
+            if (jdbcTemplate.update(SQL_RESERVAR, operacion, clave, huella, tiempoDeVida.toSeconds()) == 0) {
+                estado.setRollbackOnly();
+                RespuestaIdempotente completada = leerCompletada(operacion, clave);
+                if (completada == null) {
+                    // La fila solo es visible ya confirmada, con su respuesta
+                    throw new IllegalStateException("La clave " + clave + " de " + operacion + " no tiene respuesta");
+                }
+                return repetir(completada, huella, operacion, clave);
+            }
+            ResponseEntity<?> resultado = accion.get();
+            if (resultado.getStatusCode().is2xxSuccessful()) {
+                completar(operacion, clave, resultado);
+            } else {
+                // La clave queda libre para el reintento
+                estado.setRollbackOnly();
+            }
+            return resultado;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${prestamo.idempotencia.limpieza:1h}",
+               initialDelayString = "${prestamo.idempotencia.limpieza:1h}")
+    public void limpiarProgramado() {
+        schedulerLock.ejecutar(TAREA_LIMPIEZA, this::limpiar);
+    }
+
+    public void limpiar() {
+        int borradas = jdbcTemplate.update(SQL_LIMPIAR);
+        log.debug("Claves de idempotencia expiradas borradas: {}", borradas);
+    }
+
+    public CacheEstadisticas getEstadisticasCache() {
+        return cache.getEstadisticas();
+    }
+
+    private void completar(String operacion, String clave, ResponseEntity<?> respuesta) {
+        String cuerpo;
+        try {
+            cuerpo = objectMapper.writeValueAsString(respuesta.getBody());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo guardar la respuesta de la clave " + clave, e);
+        }
+        jdbcTemplate.update(SQL_COMPLETAR, respuesta.getStatusCode().value(), cuerpo, operacion, clave);
+    }
+
+    private RespuestaIdempotente leerCompletada(String operacion, String clave) {
+        List<RespuestaIdempotente> respuestas = jdbcTemplate.query(SQL_LEER, (fila, numero) ->
+                new RespuestaIdempotente(fila.getString("huella"), fila.getInt("codigo_http"), fila.getString("cuerpo")),
+                operacion, clave);
+        return respuestas.isEmpty() ? null : respuestas.get(0);
+    }
+
+    private ResponseEntity<?> repetir(RespuestaIdempotente guardada, String huella, String operacion, String clave) {
+        if (!guardada.huella().equals(huella)) {
+            return error("La clave " + CABECERA + " ya se usó con otra petición", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+        log.info("Reintento de {} con la clave {}: se devuelve la respuesta original", operacion, clave);
+        return ResponseEntity.status(guardada.codigoHttp())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(CABECERA_REPETIDA, "true")
+                .body(guardada.cuerpo());
+    }
+
+    String huella(Object peticion) {
+        try {
+            byte[] contenido = objectMapper.writeValueAsString(peticion).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la petición", e);
+        }
+    }
+
+    private static ResponseEntity<ErrorResponse> error(String mensaje, HttpStatus estado) {
+        return ResponseEntity.status(estado).body(ErrorResponse.builder()
+                .message(mensaje)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+}
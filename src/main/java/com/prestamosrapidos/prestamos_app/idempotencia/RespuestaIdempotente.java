@@ -0,0 +1,11 @@
+package com.prestamosrapidos.prestamos_app.idempotencia;
+
+/**
+ * Respuesta guardada de una petición con {@code Idempotency-Key}.
+ *
+ * @param huella SHA-256 del cuerpo de la petición original
+ * @param codigoHttp Código de estado de la respuesta original
+ * @param cuerpo Cuerpo JSON de la respuesta original
+ */
+public record RespuestaIdempotente(String huella, int codigoHttp, String cuerpo) {
+}
@@ -0,0 +1,25 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+
+import java.math.BigDecimal;
+
+/**
+ * Resumen de un cliente para el listado: datos básicos, saldo de su cuenta principal y agregados
+ * de sus préstamos. El detalle completo (cuentas, préstamos y pagos) se obtiene con {@code GET /clientes/{id}}.
+ *
+ * @param saldoCuenta Saldo de la cuenta principal (la de menor id), o null si no tiene cuentas
+ * @param prestamos Número de préstamos del cliente
+ * @param deudaTotal Suma de la deuda restante de sus préstamos no pagados ni rechazados
+ * @param peorEstado Estado más grave entre sus préstamos, o null si no tiene préstamos
+ */
+public record ClienteResumenModel(
+        Long id,
+        String nombre,
+        String correo,
+        BigDecimal saldoCuenta,
+        long prestamos,
+        BigDecimal deudaTotal,
+        EstadoPrestamo peorEstado
+) {
+}
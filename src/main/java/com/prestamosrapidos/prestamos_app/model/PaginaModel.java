@@ -0,0 +1,22 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de un listado paginado por keyset. {@code siguiente} es el cursor opaco de la página
+ * siguiente, o {@code null} si no hay más resultados.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaModel<T> {
+    private List<T> contenido;
+    private int limite;
+    private String siguiente;
+}
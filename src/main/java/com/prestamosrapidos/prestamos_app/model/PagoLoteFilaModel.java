@@ -0,0 +1,38 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Resultado de una fila de una carga masiva de pagos.
+ *
+ * @param fila Posición en el array JSON o línea del CSV, empezando en 1
+ * @param montoSolicitado Monto recibido
+ * @param montoPago Monto registrado: el recibido, o la deuda pendiente si la superaba (null si se rechazó)
+ * @param ajustado Si el monto registrado es menor que el recibido porque superaba la deuda pendiente
+ * @param pagoId ID del pago registrado (null si se rechazó)
+ * @param error Motivo del rechazo (null si se registró)
+ */
+public record PagoLoteFilaModel(
+        int fila,
+        Long prestamoId,
+        BigDecimal montoSolicitado,
+        BigDecimal montoPago,
+        boolean ajustado,
+        LocalDate fecha,
+        Long pagoId,
+        boolean registrado,
+        String error
+) {
+
+    public static PagoLoteFilaModel registrado(int fila, PagoModel pago, BigDecimal montoSolicitado, Long pagoId) {
+        boolean ajustado = montoSolicitado.compareTo(pago.getMontoPago()) != 0;
+        return new PagoLoteFilaModel(fila, pago.getPrestamoId(), montoSolicitado, pago.getMontoPago(), ajustado,
+                pago.getFecha(), pagoId, true, null);
+    }
+
+    public static PagoLoteFilaModel rechazado(int fila, PagoModel pago, BigDecimal montoSolicitado, String error) {
+        return new PagoLoteFilaModel(fila, pago != null ? pago.getPrestamoId() : null, montoSolicitado, null, false,
+                pago != null ? pago.getFecha() : null, null, false, error);
+    }
+}
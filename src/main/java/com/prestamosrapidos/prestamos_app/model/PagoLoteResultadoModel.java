@@ -0,0 +1,17 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import java.util.List;
+
+/**
+ * Informe de una carga masiva de pagos, con el resultado de cada fila en el orden recibido.
+ *
+ * @param duracionMs Tiempo de la carga, sin contar la lectura de la petición
+ */
+public record PagoLoteResultadoModel(
+        int recibidos,
+        int registrados,
+        int rechazados,
+        long duracionMs,
+        List<PagoLoteFilaModel> filas
+) {
+}
@@ -0,0 +1,11 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Contadores en vivo de un grupo de préstamos.
+ *
+ * @param saldoPendiente Capital + interés ordinario + mora - total pagado
+ */
+public record PortafolioContadorModel(long prestamos, BigDecimal saldoPendiente) {
+}
@@ -0,0 +1,20 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Contadores en vivo de la cartera, mantenidos en memoria con los cambios de cada préstamo.
+ *
+ * @param total Contadores de toda la cartera
+ * @param porEstado Contadores por estado del préstamo
+ * @param ultimaConciliacion Hora de la última conciliación con la base de datos (null si aún no se cargaron)
+ * @param diferenciasUltimaConciliacion Estados cuyos contadores corrigió la última conciliación
+ */
+public record PortafolioContadoresModel(
+        PortafolioContadorModel total,
+        Map<String, PortafolioContadorModel> porEstado,
+        LocalDateTime ultimaConciliacion,
+        int diferenciasUltimaConciliacion
+) {
+}
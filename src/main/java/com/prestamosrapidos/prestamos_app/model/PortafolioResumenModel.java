@@ -0,0 +1,22 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Resumen de la cartera de préstamos, leído de la vista materializada {@code portafolio_resumen}.
+ *
+ * @param actualizadoEn Hora del último refresco de la vista: los datos reflejan la cartera en ese momento
+ * @param total Agregados de toda la cartera
+ * @param porEstado Agregados por estado del préstamo
+ * @param porTramoMora Agregados por tramo de días de mora ({@code 0-30}, {@code 31-60}, {@code 61-90}, {@code 90+})
+ * @param exposicionMora Agregados de los préstamos vencidos o en mora
+ */
+public record PortafolioResumenModel(
+        LocalDateTime actualizadoEn,
+        PortafolioTotalesModel total,
+        Map<String, PortafolioTotalesModel> porEstado,
+        Map<String, PortafolioTotalesModel> porTramoMora,
+        PortafolioTotalesModel exposicionMora
+) {
+}
@@ -0,0 +1,33 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Agregados de un grupo de préstamos del resumen de la cartera.
+ *
+ * @param interesOrdinario Suma de monto * interés / 100
+ * @param moraAcumulada Mora persistida por el último cálculo diario
+ * @param saldoPendiente Capital + interés ordinario + mora - total pagado
+ */
+public record PortafolioTotalesModel(
+        long prestamos,
+        BigDecimal monto,
+        BigDecimal interesOrdinario,
+        BigDecimal totalPagado,
+        BigDecimal moraAcumulada,
+        BigDecimal saldoPendiente
+) {
+
+    public static final PortafolioTotalesModel VACIO = new PortafolioTotalesModel(0, BigDecimal.ZERO, BigDecimal.ZERO,
+            BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+
+    public PortafolioTotalesModel sumar(PortafolioTotalesModel otro) {
+        return new PortafolioTotalesModel(
+                prestamos + otro.prestamos,
+                monto.add(otro.monto),
+                interesOrdinario.add(otro.interesOrdinario),
+                totalPagado.add(otro.totalPagado),
+                moraAcumulada.add(otro.moraAcumulada),
+                saldoPendiente.add(otro.saldoPendiente));
+    }
+}
@@ -0,0 +1,33 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila de la exportación de la cartera: un préstamo con los mismos saldos y mora que
+ * {@code GET /prestamos/{id}}, sin sus pagos.
+ *
+ * @param estado Estado a la fecha de la exportación (un préstamo aprobado ya vencido aparece vencido o en mora)
+ * @param interesOrdinario Monto del interés ordinario (monto * interés / 100)
+ * @param moraAcumulada Mora a la fecha de la exportación
+ * @param deudaRestante Capital + interés ordinario + mora - total pagado
+ */
+public record PrestamoExportadoModel(
+        Long id,
+        Long clienteId,
+        EstadoPrestamo estado,
+        BigDecimal monto,
+        BigDecimal interes,
+        BigDecimal interesOrdinario,
+        BigDecimal totalPagado,
+        LocalDate ultimoPagoFecha,
+        int diasMora,
+        BigDecimal moraDiaria,
+        BigDecimal moraAcumulada,
+        BigDecimal deudaRestante,
+        LocalDate fechaCreacion,
+        LocalDate fechaVencimiento
+) {
+}
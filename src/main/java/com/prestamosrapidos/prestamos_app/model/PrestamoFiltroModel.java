@@ -0,0 +1,31 @@
+package com.prestamosrapidos.prestamos_app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Filtros opcionales del listado de préstamos. Los rangos incluyen ambos extremos y cualquiera
+ * de ellos puede omitirse.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrestamoFiltroModel {
+    /** Estados admitidos (cualquiera de ellos) */
+    private List<String> estados;
+    private Long clienteId;
+    private BigDecimal montoMinimo;
+    private BigDecimal montoMaximo;
+    private LocalDate vencimientoDesde;
+    private LocalDate vencimientoHasta;
+    /** Días de mora calculados por el proceso diario */
+    private Integer diasMoraMinimo;
+    private Integer diasMoraMaximo;
+}
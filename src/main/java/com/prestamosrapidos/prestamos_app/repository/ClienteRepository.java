@@ -1,13 +1,66 @@
 package com.prestamosrapidos.prestamos_app.repository;
 
 import com.prestamosrapidos.prestamos_app.entity.Cliente;
+import com.prestamosrapidos.prestamos_app.event.SituacionPrestamo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
     Optional<Cliente> findByCorreo(String correo);
     boolean existsByCorreo(String correo);
+
+    // Versión de GET /clientes/{id} para su ETag, sin cargar el cliente: resumen de los datos del cliente, de sus
+    // cuentas y, de sus préstamos, el número y la última modificación (incluye los pagos, que actualizan el préstamo)
+
+    @Query(value = """
+            SELECT md5(concat_ws('|', c.nombre, c.correo,
+                   (SELECT string_agg(cu.id || ':' || cu.numero_cuenta || ':' || cu.saldo, ',' ORDER BY cu.id)
+                      FROM cuentas cu WHERE cu.cliente_id = c.id),
+                   (SELECT COUNT(*) || ':' || COALESCE(MAX(p.fecha_modificacion_auditoria)::text, '')
+                      FROM prestamos p WHERE p.cliente_id = c.id)))
+              FROM clientes c
+             WHERE c.id = :id
+            """, nativeQuery = true)
+    Optional<String> findVersionById(@Param("id") Long id);
+
+    // Resumen de clientes paginado por keyset: una sola consulta; los agregados se calculan solo para los clientes de la página.
+    // La deuda total suma el saldo pendiente de la cartera (SituacionPrestamo.SQL_SALDO_PENDIENTE) de los préstamos no cerrados
+
+    interface ClienteResumen {
+        Long getId();
+        String getNombre();
+        String getCorreo();
+        BigDecimal getSaldoCuenta();
+        Long getPrestamos();
+        BigDecimal getDeudaTotal();
+        // 6 = EN_MORA, 5 = VENCIDO, 4 = APROBADO, 3 = PENDIENTE, 2 = PAGADO, 1 = RECHAZADO; null sin préstamos
+        Integer getGravedadPeorEstado();
+    }
+
+    @Query(value = """
+            SELECT c.id AS "id", c.nombre AS "nombre", c.correo AS "correo",
+                   (SELECT cu.saldo FROM cuentas cu WHERE cu.cliente_id = c.id ORDER BY cu.id LIMIT 1) AS "saldoCuenta",
+                   a.prestamos AS "prestamos", a.deuda_total AS "deudaTotal", a.gravedad AS "gravedadPeorEstado"
+              FROM (SELECT id, nombre, correo FROM clientes WHERE id > :despuesDeId ORDER BY id LIMIT :limite) c
+             CROSS JOIN LATERAL (
+                    SELECT COUNT(*) AS prestamos,
+                           COALESCE(SUM(CASE WHEN p.estado IN ('PAGADO', 'RECHAZADO') THEN 0
+                                             ELSE """ + SituacionPrestamo.SQL_SALDO_PENDIENTE + """
+                                        END), 0) AS deuda_total,
+                           MAX(CASE p.estado WHEN 'EN_MORA' THEN 6 WHEN 'VENCIDO' THEN 5 WHEN 'APROBADO' THEN 4
+                                             WHEN 'PENDIENTE' THEN 3 WHEN 'PAGADO' THEN 2 WHEN 'RECHAZADO' THEN 1
+                               END) AS gravedad
+                      FROM prestamos p
+                     WHERE p.cliente_id = c.id
+                   ) a
+             ORDER BY c.id
+            """, nativeQuery = true)
+    List<ClienteResumen> findResumenPagina(@Param("despuesDeId") Long despuesDeId, @Param("limite") int limite);
 }
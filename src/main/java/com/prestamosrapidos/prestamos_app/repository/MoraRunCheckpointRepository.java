@@ -0,0 +1,42 @@
+package com.prestamosrapidos.prestamos_app.repository;
+
+import com.prestamosrapidos.prestamos_app.entity.MoraRunCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MoraRunCheckpointRepository extends JpaRepository<MoraRunCheckpoint, Long> {
+
+    List<MoraRunCheckpoint> findByFechaNegocioAndFaseOrderByParticion(LocalDate fechaNegocio, String fase);
+
+    // Se ejecuta dentro de la transacción del lote, junto con los cambios de sus préstamos
+    @Modifying
+    @Query("UPDATE MoraRunCheckpoint c SET c.ultimoId = :ultimoId, c.lotes = c.lotes + 1, " +
+           "c.lotesFallidos = c.lotesFallidos + :lotesFallidos, c.procesados = c.procesados + :procesados, " +
+           "c.errores = c.errores + :errores, c.actualizadoEl = :ahora WHERE c.id = :id")
+    int avanzar(
+        @Param("id") Long id,
+        @Param("ultimoId") long ultimoId,
+        @Param("procesados") long procesados,
+        @Param("errores") long errores,
+        @Param("lotesFallidos") int lotesFallidos,
+        @Param("ahora") LocalDateTime ahora
+    );
+
+    @Modifying
+    @Query("UPDATE MoraRunCheckpoint c SET c.completada = true, c.actualizadoEl = :ahora WHERE c.id = :id")
+    int completar(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MoraRunCheckpoint c WHERE c.fechaNegocio = :fecha")
+    int deleteByFechaNegocio(@Param("fecha") LocalDate fecha);
+}
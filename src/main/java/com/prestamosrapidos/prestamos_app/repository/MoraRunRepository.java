@@ -0,0 +1,15 @@
+package com.prestamosrapidos.prestamos_app.repository;
+
+import com.prestamosrapidos.prestamos_app.entity.MoraRun;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoMoraRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MoraRunRepository extends JpaRepository<MoraRun, LocalDate> {
+
+    List<MoraRun> findByEstadoOrderByFechaNegocio(EstadoMoraRun estado);
+}
@@ -8,14 +8,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface PagoRepository extends JpaRepository<Pago, Long> {
     List<Pago> findByPrestamoId(Long prestamoId); // Obtener todos los pagos de un préstamo
 
-    @Query("SELECT COALESCE(SUM(p.monto), 0) FROM Pago p WHERE p.prestamo.id = :prestamoId")
-    Double calcularTotalPagado(@Param("prestamoId") Long prestamoId);
+    // Fecha del pago más reciente de un préstamo sin contar el que se elimina
+    @Query("SELECT MAX(p.fecha) FROM Pago p WHERE p.prestamo.id = :prestamoId AND p.id <> :excluidoId")
+    LocalDate findUltimaFechaPago(@Param("prestamoId") Long prestamoId, @Param("excluidoId") Long excluidoId);
 
     Page<Pago> findAll(Pageable pageable);
 }
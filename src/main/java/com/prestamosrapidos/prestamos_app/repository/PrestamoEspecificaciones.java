@@ -0,0 +1,64 @@
+package com.prestamosrapidos.prestamos_app.repository;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Criterios de búsqueda de préstamos para {@link PrestamoRepository}. Cada criterio sin valor
+ * devuelve {@code null}, que {@link Specification#and} ignora: la consulta solo lleva los filtros
+ * pedidos y PostgreSQL puede elegir el índice de cada combinación (a diferencia de
+ * {@code (:param IS NULL OR ...)}, que obliga a un plan genérico).
+ *
+ * <p>Índices de apoyo: {@code (estado, fecha_vencimiento)}, {@code (fecha_vencimiento) WHERE estado <> 'PAGADO'},
+ * {@code (dias_mora) WHERE dias_mora > 0}, {@code (cliente_id, id)} y la clave primaria para el keyset.</p>
+ */
+public final class PrestamoEspecificaciones {
+
+    private PrestamoEspecificaciones() {
+    }
+
+    /** Keyset: préstamos con id mayor que el último de la página anterior */
+    public static Specification<Prestamo> despuesDe(Long id) {
+        return id == null ? null : (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Prestamo> estadoEn(Collection<EstadoPrestamo> estados) {
+        return estados == null || estados.isEmpty() ? null : (root, query, cb) -> root.get("estado").in(estados);
+    }
+
+    public static Specification<Prestamo> deCliente(Long clienteId) {
+        return clienteId == null ? null : (root, query, cb) -> cb.equal(root.get("cliente").get("id"), clienteId);
+    }
+
+    public static Specification<Prestamo> montoEntre(BigDecimal minimo, BigDecimal maximo) {
+        return entre("monto", minimo, maximo);
+    }
+
+    public static Specification<Prestamo> vencimientoEntre(LocalDate desde, LocalDate hasta) {
+        return entre("fechaVencimiento", desde, hasta);
+    }
+
+    public static Specification<Prestamo> diasMoraEntre(Integer minimo, Integer maximo) {
+        return entre("diasMora", minimo, maximo);
+    }
+
+    private static <T extends Comparable<? super T>> Specification<Prestamo> entre(String atributo, T minimo, T maximo) {
+        if (minimo == null && maximo == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (minimo == null) {
+                return cb.lessThanOrEqualTo(root.get(atributo), maximo);
+            }
+            if (maximo == null) {
+                return cb.greaterThanOrEqualTo(root.get(atributo), minimo);
+            }
+            return cb.between(root.get(atributo), minimo, maximo);
+        };
+    }
+}
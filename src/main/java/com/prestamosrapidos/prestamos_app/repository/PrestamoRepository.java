@@ -1,25 +1,149 @@
 package com.prestamosrapidos.prestamos_app.repository;
 
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
+public interface PrestamoRepository extends JpaRepository<Prestamo, Long>, JpaSpecificationExecutor<Prestamo> {
 
-    List<Prestamo> findByClienteId(Long clienteId);
+    // Los listados cargan los pagos en la misma consulta: convertir N préstamos a modelo no lanza más sentencias
 
-    List<Prestamo> findByEstado(String estado);
+    // Préstamos de un cliente para GET /prestamos/cliente/{id}: una sola consulta, sin bloqueos y con las
+    // entidades de solo lectura (Hibernate no guarda copia para comprobar cambios ni las escribe al confirmar)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT DISTINCT p FROM Prestamo p LEFT JOIN FETCH p.pagos WHERE p.cliente.id = :clienteId ORDER BY p.id")
+    List<Prestamo> findByClienteIdWithPagos(@Param("clienteId") Long clienteId);
+
+    @EntityGraph(attributePaths = "pagos")
+    List<Prestamo> findByEstado(EstadoPrestamo estado);
 
     @Query("SELECT p FROM Prestamo p LEFT JOIN FETCH p.pagos WHERE p.id = :id")
     Optional<Prestamo> findByIdWithPagos(@Param("id") Long id);
 
+    // Versión del préstamo para el ETag de GET /prestamos/{id}: solo la fecha de modificación, sin cargar la entidad
+    @Query("SELECT p.fechaModificacionAuditoria FROM Prestamo p WHERE p.id = :id")
+    Optional<LocalDateTime> findFechaModificacionById(@Param("id") Long id);
+
+    // Bloquea la fila del préstamo hasta el fin de la transacción: los pagos concurrentes sobre
+    // un mismo préstamo actualizan total_pagado uno detrás de otro
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Prestamo p WHERE p.id = :id")
+    Optional<Prestamo> findByIdParaActualizar(@Param("id") Long id);
+
+    // Carga masiva de pagos: bloquea los préstamos del grupo en una consulta, siempre en orden de id
+    // para que dos cargas simultáneas no se bloqueen mutuamente
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Prestamo p WHERE p.id IN :ids ORDER BY p.id")
+    List<Prestamo> findByIdInParaActualizar(@Param("ids") Collection<Long> ids);
+
+    List<Prestamo> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("SELECT DISTINCT p FROM Prestamo p LEFT JOIN FETCH p.pagos WHERE p.id IN :ids ORDER BY p.id")
+    List<Prestamo> findByIdInWithPagos(@Param("ids") Collection<Long> ids);
+
+    // Consultas keyset (id > :despuesDeId ORDER BY id) usadas por el procesamiento de mora por lotes
+
+    @Query("SELECT p.id FROM Prestamo p WHERE p.estado = :estado AND p.fechaVencimiento <= :hoy " +
+           "AND p.id > :despuesDeId ORDER BY p.id")
+    List<Long> findIdsPorEstadoVencidos(
+        @Param("estado") EstadoPrestamo estado,
+        @Param("hoy") LocalDate hoy,
+        @Param("despuesDeId") Long despuesDeId,
+        Pageable lote
+    );
+
+    @Query("SELECT p.id FROM Prestamo p WHERE p.estado = com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo.VENCIDO " +
+           "AND (p.fechaUltimoCalculoMora IS NULL OR p.fechaUltimoCalculoMora < :hoy) " +
+           "AND p.id > :despuesDeId ORDER BY p.id")
+    List<Long> findIdsVencidosSinMoraActualizada(
+        @Param("hoy") LocalDate hoy,
+        @Param("despuesDeId") Long despuesDeId,
+        Pageable lote
+    );
+
+    @Query("SELECT p.id FROM Prestamo p WHERE p.estado IN :estados AND p.fechaVencimiento <= :fechaVencimiento " +
+           "AND p.id > :despuesDeId ORDER BY p.id")
+    List<Long> findIdsPorEstadosYFechaVencimiento(
+        @Param("estados") Collection<EstadoPrestamo> estados,
+        @Param("fechaVencimiento") LocalDate fechaVencimiento,
+        @Param("despuesDeId") Long despuesDeId,
+        Pageable lote
+    );
+
+    @Query("SELECT p.id FROM Prestamo p WHERE p.fechaUltimaMora = :fecha " +
+           "AND p.id > :despuesDeId ORDER BY p.id")
+    List<Long> findIdsConMoraAplicadaEn(
+        @Param("fecha") LocalDate fecha,
+        @Param("despuesDeId") Long despuesDeId,
+        Pageable lote
+    );
+
+    // Proyección con los datos que necesita el cálculo del saldo pendiente, sin cargar entidades ni pagos
+
+    interface SaldoPrestamo {
+        Long getId();
+        BigDecimal getMonto();
+        BigDecimal getInteres();
+        BigDecimal getTotalPagado();
+        LocalDate getFechaVencimiento();
+        EstadoPrestamo getEstado();
+        LocalDate getFechaUltimoCalculoMora();
+        Integer getDiasMora();
+        BigDecimal getMoraAcumulada();
+    }
+
+    @Query("SELECT p.id AS id, p.monto AS monto, p.interes AS interes, p.totalPagado AS totalPagado, " +
+           "p.fechaVencimiento AS fechaVencimiento, p.estado AS estado, " +
+           "p.fechaUltimoCalculoMora AS fechaUltimoCalculoMora, p.diasMora AS diasMora, " +
+           "p.moraAcumulada AS moraAcumulada FROM Prestamo p WHERE p.id IN :ids")
+    List<SaldoPrestamo> findSaldosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Proyección mínima (id, estado, vencimiento, días de mora) con la que se carga y sincroniza la rueda de vencimientos
+
+    interface VencimientoPrestamo {
+        Long getId();
+        EstadoPrestamo getEstado();
+        LocalDate getFechaVencimiento();
+        Integer getDiasMora();
+    }
+
+    @Query("SELECT p.id AS id, p.estado AS estado, p.fechaVencimiento AS fechaVencimiento, " +
+           "p.diasMora AS diasMora FROM Prestamo p " +
+           "WHERE p.estado IN :estados AND p.id > :despuesDeId ORDER BY p.id")
+    List<VencimientoPrestamo> findVencimientosPorEstados(
+        @Param("estados") Collection<EstadoPrestamo> estados,
+        @Param("despuesDeId") Long despuesDeId,
+        Pageable lote
+    );
+
+    @Query("SELECT p.id AS id, p.estado AS estado, p.fechaVencimiento AS fechaVencimiento, " +
+           "p.diasMora AS diasMora FROM Prestamo p " +
+           "WHERE p.fechaModificacionAuditoria >= :desde")
+    List<VencimientoPrestamo> findVencimientosModificadosDesde(@Param("desde") LocalDateTime desde);
+
+    // Límite superior del rango de ids que se reparte entre las particiones del procesamiento paralelo
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Prestamo p")
+    Long findMaxId();
+
     @Query("SELECT p FROM Prestamo p WHERE p.estado IN :estados AND p.fechaVencimiento <= :fechaVencimiento " +
            "AND (p.estado <> 'PAGADO' AND p.estado <> 'CANCELADO')")
     List<Prestamo> findByEstadoInAndFechaVencimientoBefore(
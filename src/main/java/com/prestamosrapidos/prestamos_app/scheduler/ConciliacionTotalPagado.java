@@ -0,0 +1,105 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Comprueba que {@code prestamos.total_pagado} y {@code prestamos.ultimo_pago_fecha} coinciden con
+ * la suma y la última fecha de los pagos de cada préstamo.
+ *
+ * <p>Los servicios de pagos mantienen ambas columnas al registrar y eliminar pagos; esta tarea
+ * detecta las diferencias que pudieran dejar cargas directas en la base de datos u otros procesos
+ * que escriban en {@code pagos}. Por defecto solo las registra; con
+ * {@code prestamo.conciliacion.corregir=true} además las corrige.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConciliacionTotalPagado {
+
+    /** Préstamos cuyos totales mantenidos difieren de los calculados a partir de sus pagos */
+    private static final String SQL_DIFERENCIAS = """
+            SELECT p.id
+              FROM prestamos p
+              LEFT JOIN (
+                    SELECT prestamo_id, SUM(monto) AS total, MAX(fecha_pago) AS ultima
+                      FROM pagos
+                     GROUP BY prestamo_id
+                   ) g ON g.prestamo_id = p.id
+             WHERE p.total_pagado <> COALESCE(g.total, 0)
+                OR p.ultimo_pago_fecha IS DISTINCT FROM g.ultima
+             ORDER BY p.id
+            """;
+
+    private static final String SQL_CORREGIR = """
+            UPDATE prestamos p
+               SET total_pagado = c.total,
+                   ultimo_pago_fecha = c.ultima,
+                   fecha_modificacion_auditoria = CURRENT_TIMESTAMP
+              FROM (
+                    SELECT x.id, COALESCE(g.total, 0) AS total, g.ultima
+                      FROM prestamos x
+                      LEFT JOIN (
+                            SELECT prestamo_id, SUM(monto) AS total, MAX(fecha_pago) AS ultima
+                              FROM pagos
+                             GROUP BY prestamo_id
+                           ) g ON g.prestamo_id = x.id
+                     WHERE x.total_pagado <> COALESCE(g.total, 0)
+                        OR x.ultimo_pago_fecha IS DISTINCT FROM g.ultima
+                   ) c
+             WHERE p.id = c.id
+            """;
+
+    /** Máximo de ids de préstamos con diferencias que se muestran en el log */
+    private static final int IDS_EN_LOG = 20;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final SchedulerLock schedulerLock;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Corrige las diferencias encontradas además de registrarlas.
+     * Valor configurable mediante la propiedad 'prestamo.conciliacion.corregir' (default: false)
+     */
+    @Value("${prestamo.conciliacion.corregir:false}")
+    private boolean corregir;
+
+    @Scheduled(cron = "${prestamo.conciliacion.cron:0 30 3 * * ?}")
+    public void conciliarProgramado() {
+        schedulerLock.ejecutar("conciliacion-total-pagado", () -> conciliar(corregir));
+    }
+
+    /**
+     * Busca los préstamos con diferencias y, si se indica, recalcula sus totales desde los pagos.
+     *
+     * @return Ids de los préstamos que tenían diferencias
+     */
+    @Transactional
+    public List<Long> conciliar(boolean corregirDiferencias) {
+        List<Long> ids = jdbcTemplate.queryForList(SQL_DIFERENCIAS, new MapSqlParameterSource(), Long.class);
+        if (ids.isEmpty()) {
+            log.info("✓ Conciliación de totales pagados: sin diferencias");
+            return ids;
+        }
+
+        log.warn("⚠️ Conciliación de totales pagados: {} préstamos con diferencias (primeros: {})",
+                ids.size(), ids.subList(0, Math.min(IDS_EN_LOG, ids.size())));
+        if (corregirDiferencias) {
+            int corregidos = jdbcTemplate.update(SQL_CORREGIR, new MapSqlParameterSource());
+            log.info("✓ Conciliación de totales pagados: {} préstamos corregidos", corregidos);
+            eventPublisher.publishEvent(new CarteraRecalculadaEvent(LocalDate.now()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,22 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+/**
+ * Estado de un {@link MoraRecalculoTrabajo}.
+ */
+public enum EstadoRecalculoMora {
+
+    /** En cola, a la espera de que terminen los recálculos enviados antes */
+    PENDIENTE,
+
+    /** Procesando las fechas del rango */
+    EN_CURSO,
+
+    /** Todas las fechas del rango quedaron completadas */
+    COMPLETADO,
+
+    /** Detenido a petición; las fechas no terminadas quedan pendientes en el libro de ejecuciones */
+    CANCELADO,
+
+    /** Detenido por un error al procesar una fecha */
+    FALLIDO
+}
@@ -0,0 +1,23 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+/**
+ * Formato de salida de una simulación de mora ({@link MoraSimulador}).
+ */
+public enum FormatoSimulacion {
+
+    /** Un objeto JSON por línea y por préstamo */
+    NDJSON("application/x-ndjson"),
+
+    /** Una fila por préstamo, con cabecera */
+    CSV("text/csv");
+
+    private final String contentType;
+
+    FormatoSimulacion(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,383 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.datasource.ContextoLectura;
+import com.prestamosrapidos.prestamos_app.entity.MoraRunCheckpoint;
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.repository.MoraRunCheckpointRepository;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Motor de procesamiento por lotes para el cálculo de mora.
+ *
+ * <p>Recorre los préstamos de una fase en lotes ordenados por {@code id} (paginación por keyset),
+ * de modo que nunca se cargan en memoria más de {@code prestamo.mora.batch.chunk-size} préstamos
+ * a la vez.</p>
+ *
+ * <ul>
+ *   <li>Cada lote se ejecuta y confirma en su propia transacción ({@code REQUIRES_NEW})</li>
+ *   <li>Al finalizar cada lote se vacía el contexto de persistencia</li>
+ *   <li>Un error al confirmar un lote solo revierte ese lote; el recorrido continúa con el siguiente</li>
+ * </ul>
+ *
+ * <p>Con {@code prestamo.mora.batch.particiones} mayor que 1, el rango de ids se divide en
+ * particiones contiguas que se recorren a la vez, cada una en su propio hilo virtual. El número
+ * de particiones simultáneas nunca supera el tamaño del pool de conexiones menos dos: una queda
+ * retenida por el {@link SchedulerLock} de la tarea y otra para el resto de la aplicación.</p>
+ */
+@Slf4j
+@Component
+public class MoraBatchEngine {
+
+    private final PrestamoRepository prestamoRepository;
+    private final MoraRunCheckpointRepository checkpointRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Cantidad de préstamos procesados por transacción.
+     * Valor configurable mediante la propiedad 'prestamo.mora.batch.chunk-size' (default: 500)
+     */
+    @Value("${prestamo.mora.batch.chunk-size:500}")
+    private int tamanoLote = 500;
+
+    /**
+     * Cantidad de particiones por rango de id que se procesan en paralelo.
+     * Valor configurable mediante la propiedad 'prestamo.mora.batch.particiones' (default: 1, secuencial)
+     */
+    @Value("${prestamo.mora.batch.particiones:1}")
+    private int particiones = 1;
+
+    /** Conexiones del pool que no se ocupan con particiones (bloqueo de la tarea y resto de la aplicación) */
+    private static final int CONEXIONES_RESERVADAS = 2;
+
+    /** Tamaño del pool de conexiones, del que depende el máximo de particiones simultáneas */
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int tamanoPoolConexiones = 10;
+
+    public MoraBatchEngine(PrestamoRepository prestamoRepository,
+                           MoraRunCheckpointRepository checkpointRepository,
+                           EntityManager entityManager,
+                           PlatformTransactionManager transactionManager) {
+        this.prestamoRepository = prestamoRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Origen de los identificadores a procesar en una fase.
+     * Debe devolver, en orden ascendente, los ids mayores que {@code despuesDeId}
+     * limitados al tamaño de la página recibida.
+     */
+    @FunctionalInterface
+    public interface FuenteIds {
+        List<Long> siguientes(Long despuesDeId, Pageable lote);
+    }
+
+    /**
+     * Procesa todos los préstamos de una fase, lote a lote.
+     *
+     * @param fase Nombre de la fase (solo para trazas y resultado)
+     * @param fuente Consulta keyset que devuelve los ids del siguiente lote
+     * @param accion Operación a aplicar sobre cada préstamo dentro de la transacción del lote
+     * @return Resumen de la ejecución de la fase (con el detalle por partición si se ejecutó en paralelo)
+     */
+    public MoraBatchResultado procesar(String fase, FuenteIds fuente, Consumer<Prestamo> accion) {
+        return procesar(fase, fuente, accion, MoraBatchSeguimiento.NINGUNO);
+    }
+
+    /**
+     * Procesa todos los préstamos de una fase, lote a lote, notificando el avance.
+     *
+     * @param fase Nombre de la fase (solo para trazas y resultado)
+     * @param fuente Consulta keyset que devuelve los ids del siguiente lote
+     * @param accion Operación a aplicar sobre cada préstamo dentro de la transacción del lote
+     * @param seguimiento Recibe cada lote terminado y puede detener la fase entre lotes
+     * @return Resumen de la ejecución de la fase (parcial si se canceló)
+     */
+    public MoraBatchResultado procesar(String fase, FuenteIds fuente, Consumer<Prestamo> accion,
+                                       MoraBatchSeguimiento seguimiento) {
+        return procesar(null, fase, fuente, accion, seguimiento);
+    }
+
+    /**
+     * Procesa todos los préstamos de una fase de una fecha de negocio, guardando un punto de control
+     * por partición en {@code mora_run_checkpoint}.
+     *
+     * <p>Cada lote actualiza su punto de control en su misma transacción. Si la fase ya tiene puntos
+     * de control (ejecución interrumpida por una caída, un despliegue o una cancelación), se reanuda
+     * desde el último lote confirmado de cada partición, con las mismas particiones y los contadores
+     * acumulados; las particiones ya completadas no se recorren.</p>
+     *
+     * @param fecha Fecha de negocio de la ejecución, o {@code null} para procesar sin puntos de control
+     * @param fase Nombre de la fase
+     * @param fuente Consulta keyset que devuelve los ids del siguiente lote
+     * @param accion Operación a aplicar sobre cada préstamo dentro de la transacción del lote
+     * @param seguimiento Recibe cada lote terminado y puede detener la fase entre lotes
+     * @return Resumen de la ejecución de la fase, incluidos los lotes de ejecuciones anteriores
+     */
+    public MoraBatchResultado procesar(LocalDate fecha, String fase, FuenteIds fuente, Consumer<Prestamo> accion,
+                                       MoraBatchSeguimiento seguimiento) {
+        // Los puntos de control se leen y se dan de alta en la primaria, en una transacción de escritura
+        List<Tramo> tramos = fecha == null
+                ? planificar(null, fase)
+                : transactionTemplate.execute(status -> planificar(fecha, fase));
+        if (tramos.isEmpty()) {
+            MoraBatchResultado resultado = new MoraBatchResultado(fase);
+            resultado.finalizar();
+            return resultado;
+        }
+        if (tramos.size() == 1) {
+            return procesarTramo(fase, tramos.get(0), fuente, accion, seguimiento);
+        }
+        return procesarEnParalelo(fase, tramos, fuente, accion, seguimiento);
+    }
+
+    /**
+     * Rangos de ids a recorrer: los de los puntos de control existentes de la fase o, si no hay,
+     * el rango completo dividido en {@code particiones}, registrando sus puntos de control.
+     */
+    private List<Tramo> planificar(LocalDate fecha, String fase) {
+        if (fecha != null) {
+            List<MoraRunCheckpoint> existentes = checkpointRepository.findByFechaNegocioAndFaseOrderByParticion(fecha, fase);
+            if (!existentes.isEmpty()) {
+                log.info("Reanudando fase '{}' del {} desde {} puntos de control", fase, fecha, existentes.size());
+                return existentes.stream().map(Tramo::new).toList();
+            }
+        }
+
+        List<long[]> rangos = new ArrayList<>();
+        if (particiones <= 1) {
+            rangos.add(new long[]{0L, Long.MAX_VALUE});
+        } else {
+            Long maxId = prestamoRepository.findMaxId();
+            if (maxId == null || maxId <= 0) {
+                return List.of();
+            }
+            long ancho = Math.max(1, (maxId + particiones - 1) / particiones);
+            for (int i = 0; i < particiones; i++) {
+                long desde = i * ancho;
+                rangos.add(new long[]{desde, i == particiones - 1 ? Long.MAX_VALUE : desde + ancho});
+            }
+        }
+
+        List<Tramo> tramos = new ArrayList<>(rangos.size());
+        for (int i = 0; i < rangos.size(); i++) {
+            long desde = rangos.get(i)[0];
+            long hasta = rangos.get(i)[1];
+            MoraRunCheckpoint checkpoint = fecha == null ? null : MoraRunCheckpoint.builder()
+                    .fechaNegocio(fecha)
+                    .fase(fase)
+                    .particion(i + 1)
+                    .rangoDesde(desde)
+                    .rangoHasta(hasta)
+                    .ultimoId(desde)
+                    .actualizadoEl(LocalDateTime.now())
+                    .build();
+            tramos.add(new Tramo(i + 1, desde, hasta, checkpoint));
+        }
+        if (fecha != null) {
+            List<MoraRunCheckpoint> guardados = checkpointRepository.saveAll(
+                    tramos.stream().map(tramo -> tramo.checkpoint).toList());
+            for (int i = 0; i < tramos.size(); i++) {
+                tramos.set(i, new Tramo(guardados.get(i)));
+            }
+        }
+        return tramos;
+    }
+
+    /**
+     * Procesa las particiones en hilos virtuales.
+     * Cada partición recorre sus propios lotes, cada uno en su propia transacción.
+     */
+    private MoraBatchResultado procesarEnParalelo(String fase, List<Tramo> tramos, FuenteIds fuente,
+                                                  Consumer<Prestamo> accion, MoraBatchSeguimiento seguimiento) {
+        MoraBatchResultado resultado = new MoraBatchResultado(fase);
+        int simultaneas = Math.max(1, Math.min(tramos.size(), tamanoPoolConexiones - CONEXIONES_RESERVADAS));
+        Semaphore permisos = new Semaphore(simultaneas);
+        log.info("Iniciando fase '{}' en {} particiones ({} simultáneas)", fase, tramos.size(), simultaneas);
+
+        List<Future<MoraBatchResultado>> pendientes = new ArrayList<>(tramos.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Tramo tramo : tramos) {
+                String nombre = fase + "#" + tramo.particion;
+                pendientes.add(executor.submit(() -> {
+                    permisos.acquire();
+                    try {
+                        // Cada fase lee lo que escribió la anterior: los hilos de las particiones leen de la primaria
+                        return ContextoLectura.conPrimaria(() -> procesarTramo(nombre, tramo, fuente, accion, seguimiento));
+                    } finally {
+                        permisos.release();
+                    }
+                }));
+            }
+
+            for (Future<MoraBatchResultado> pendiente : pendientes) {
+                try {
+                    resultado.agregarParticion(pendiente.get());
+                } catch (ExecutionException e) {
+                    log.error("✗ Partición de la fase '{}' abortada: {}", fase, e.getCause().getMessage(), e.getCause());
+                    resultado.registrarParticionFallida();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Fase '" + fase + "' interrumpida", e);
+                }
+            }
+        }
+
+        resultado.finalizar();
+        resultado.getParticiones().forEach(particion -> log.info("Partición '{}': {}", particion.getFase(), particion));
+        log.info("Fase '{}' finalizada: {}", fase, resultado);
+        return resultado;
+    }
+
+    /**
+     * Recorre por keyset los ids de la fase comprendidos en el rango {@code (desde, hasta]} del tramo,
+     * a partir de su punto de control si lo tiene.
+     * Antes de cada lote consulta si el seguimiento pidió detener la fase.
+     */
+    private MoraBatchResultado procesarTramo(String fase, Tramo tramo, FuenteIds fuente, Consumer<Prestamo> accion,
+                                             MoraBatchSeguimiento seguimiento) {
+        MoraBatchResultado resultado = new MoraBatchResultado(fase);
+        MoraRunCheckpoint checkpoint = tramo.checkpoint;
+        Long ultimoId = tramo.desde;
+        if (checkpoint != null) {
+            resultado.restaurar(checkpoint.getLotes(), checkpoint.getLotesFallidos(),
+                    checkpoint.getProcesados(), checkpoint.getErrores());
+            ultimoId = checkpoint.getUltimoId();
+            if (checkpoint.isCompletada()) {
+                log.info("Fase '{}' ya completada en una ejecución anterior: {}", fase, resultado);
+                resultado.finalizar();
+                return resultado;
+            }
+        }
+        Pageable lote = PageRequest.of(0, Math.max(1, tamanoLote));
+        boolean agotada = false;
+
+        log.info("Iniciando fase '{}' con lotes de {} préstamos desde el id {}", fase, lote.getPageSize(), ultimoId);
+
+        while (true) {
+            if (seguimiento.cancelado()) {
+                log.warn("⚠️ Fase '{}' cancelada después del id {}", fase, ultimoId);
+                break;
+            }
+            List<Long> encontrados = fuente.siguientes(ultimoId, lote);
+            if (encontrados == null || encontrados.isEmpty()) {
+                agotada = true;
+                break;
+            }
+            List<Long> ids = encontrados.stream().filter(id -> id <= tramo.hasta).toList();
+            if (ids.isEmpty()) {
+                agotada = true;
+                break;
+            }
+            // El cursor avanza aunque el lote falle, para no reintentar indefinidamente las mismas filas
+            ultimoId = ids.get(ids.size() - 1);
+            long cursor = ultimoId;
+
+            try {
+                int[] contadores = transactionTemplate.execute(status -> {
+                    int[] resultadoLote = procesarLote(ids, accion);
+                    avanzar(checkpoint, cursor, resultadoLote[0], resultadoLote[1], 0);
+                    return resultadoLote;
+                });
+                resultado.registrarLote(contadores[0], contadores[1]);
+                seguimiento.loteProcesado(contadores[0], contadores[1]);
+            } catch (RuntimeException e) {
+                resultado.registrarLoteFallido(ids.size());
+                seguimiento.loteProcesado(0, ids.size());
+                log.error("✗ Lote de la fase '{}' revertido (ids {} a {}): {}",
+                        fase, ids.get(0), ultimoId, e.getMessage(), e);
+                // El lote se revirtió junto con su punto de control: registrar el avance aparte
+                transactionTemplate.executeWithoutResult(status -> avanzar(checkpoint, cursor, 0, ids.size(), 1));
+            }
+
+            // Fin de la fuente o del rango de la partición
+            if (encontrados.size() < lote.getPageSize() || ids.size() < encontrados.size()) {
+                agotada = true;
+                break;
+            }
+        }
+
+        if (agotada && checkpoint != null) {
+            transactionTemplate.executeWithoutResult(status ->
+                    checkpointRepository.completar(checkpoint.getId(), LocalDateTime.now()));
+        }
+        resultado.finalizar();
+        log.info("Fase '{}' finalizada: {}", fase, resultado);
+        return resultado;
+    }
+
+    private void avanzar(MoraRunCheckpoint checkpoint, long ultimoId, int procesados, int errores, int lotesFallidos) {
+        if (checkpoint != null) {
+            checkpointRepository.avanzar(checkpoint.getId(), ultimoId, procesados, errores, lotesFallidos,
+                    LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Carga y procesa un lote de préstamos. Se ejecuta dentro de la transacción del lote.
+     *
+     * @return arreglo con {procesados, errores}
+     */
+    private int[] procesarLote(List<Long> ids, Consumer<Prestamo> accion) {
+        int procesados = 0;
+        int errores = 0;
+
+        List<Prestamo> prestamos = prestamoRepository.findByIdInOrderByIdAsc(ids);
+        for (Prestamo prestamo : prestamos) {
+            try {
+                accion.accept(prestamo);
+                procesados++;
+            } catch (Exception e) {
+                errores++;
+                log.error("✗ Error procesando préstamo {}: {}", prestamo.getId(), e.getMessage(), e);
+            }
+        }
+
+        // Escribir los cambios del lote y liberar las entidades antes del siguiente
+        entityManager.flush();
+        entityManager.clear();
+        return new int[]{procesados, errores};
+    }
+
+    /** Rango de ids {@code (desde, hasta]} de una partición, con su punto de control si la fase tiene fecha */
+    private static final class Tramo {
+        private final int particion;
+        private final long desde;
+        private final long hasta;
+        private final MoraRunCheckpoint checkpoint;
+
+        private Tramo(int particion, long desde, long hasta, MoraRunCheckpoint checkpoint) {
+            this.particion = particion;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.checkpoint = checkpoint;
+        }
+
+        private Tramo(MoraRunCheckpoint checkpoint) {
+            this(checkpoint.getParticion(), checkpoint.getRangoDesde(), checkpoint.getRangoHasta(), checkpoint);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de la ejecución de una fase del {@link MoraBatchEngine}.
+ */
+@Getter
+public class MoraBatchResultado {
+
+    private final String fase;
+    private final Instant inicio = Instant.now();
+    private Duration duracion = Duration.ZERO;
+    private int lotes;
+    private int lotesFallidos;
+    private long procesados;
+    private long errores;
+    private int particionesFallidas;
+
+    /** Resultado de cada partición cuando la fase se ejecuta en paralelo */
+    private final List<MoraBatchResultado> particiones = new ArrayList<>();
+
+    public MoraBatchResultado(String fase) {
+        this.fase = fase;
+    }
+
+    /** Parte de los contadores guardados en el punto de control de una ejecución anterior */
+    void restaurar(int lotesPrevios, int lotesFallidosPrevios, long procesadosPrevios, long erroresPrevios) {
+        lotes = lotesPrevios;
+        lotesFallidos = lotesFallidosPrevios;
+        procesados = procesadosPrevios;
+        errores = erroresPrevios;
+    }
+
+    void registrarLote(int procesadosLote, int erroresLote) {
+        lotes++;
+        procesados += procesadosLote;
+        errores += erroresLote;
+    }
+
+    void registrarLoteFallido(int tamanoLote) {
+        lotes++;
+        lotesFallidos++;
+        errores += tamanoLote;
+    }
+
+    void agregarParticion(MoraBatchResultado particion) {
+        particiones.add(particion);
+        lotes += particion.lotes;
+        lotesFallidos += particion.lotesFallidos;
+        procesados += particion.procesados;
+        errores += particion.errores;
+    }
+
+    void registrarParticionFallida() {
+        particionesFallidas++;
+    }
+
+    void finalizar() {
+        duracion = Duration.between(inicio, Instant.now());
+    }
+
+    @Override
+    public String toString() {
+        String resumen = String.format("lotes=%d, lotesFallidos=%d, procesados=%d, errores=%d, duracion=%dms",
+                lotes, lotesFallidos, procesados, errores, duracion.toMillis());
+        if (particiones.isEmpty() && particionesFallidas == 0) {
+            return resumen;
+        }
+        return resumen + String.format(", particiones=%d, particionesFallidas=%d",
+                particiones.size() + particionesFallidas, particionesFallidas);
+    }
+}
@@ -0,0 +1,36 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+/**
+ * Observador del avance de una fase del {@link MoraBatchEngine}.
+ *
+ * <p>Se consulta entre lotes, por lo que una cancelación nunca interrumpe un lote a medias:
+ * el lote en curso se confirma y la fase termina antes del siguiente. Con particiones en
+ * paralelo se invoca desde varios hilos a la vez.</p>
+ */
+public interface MoraBatchSeguimiento {
+
+    /** Seguimiento del cálculo programado: no observa el avance ni se cancela */
+    MoraBatchSeguimiento NINGUNO = new MoraBatchSeguimiento() {
+        @Override
+        public void loteProcesado(int procesados, int errores) {
+        }
+
+        @Override
+        public boolean cancelado() {
+            return false;
+        }
+    };
+
+    /**
+     * Notifica un lote terminado (confirmado o revertido).
+     *
+     * @param procesados Préstamos procesados en el lote
+     * @param errores Préstamos con error en el lote
+     */
+    void loteProcesado(int procesados, int errores);
+
+    /**
+     * @return {@code true} si la fase debe detenerse antes del siguiente lote
+     */
+    boolean cancelado();
+}
@@ -0,0 +1,30 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Mora vigente de un préstamo a una fecha, calculada por {@link MoraEvaluador} sin modificar el préstamo.
+ */
+@Getter
+@AllArgsConstructor
+public class MoraEvaluada {
+
+    /** Días de mora a la fecha evaluada */
+    private final int diasMora;
+
+    /** Mora acumulada a la fecha evaluada */
+    private final BigDecimal moraAcumulada;
+
+    /** Mora que se suma por cada día adicional (cero si el préstamo no acumula mora) */
+    private final BigDecimal moraDiaria;
+
+    /** Estado que tendría el préstamo tras el cálculo de mora de esa fecha */
+    private final EstadoPrestamo estado;
+
+    /** Indica si la fecha evaluada suma días de mora que aún no están persistidos */
+    private final boolean pendienteDePersistir;
+}
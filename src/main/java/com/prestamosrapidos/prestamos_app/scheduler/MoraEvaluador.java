@@ -0,0 +1,150 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Evalúa la mora vigente de un préstamo a una fecha sin escribir en la base de datos.
+ *
+ * <p>Aplica la misma regla que el cálculo diario de {@link PrestamoScheduler}, en forma cerrada y
+ * en O(1): a partir del último cálculo persistido ({@code fechaUltimoCalculoMora} y {@code diasMora})
+ * suma los días transcurridos menos los días de gracia, y la mora es la mora diaria (porcentaje del
+ * monto) por el total de días. Las consultas la usan para mostrar la mora del día aunque el
+ * proceso nocturno aún no la haya persistido; solo ese proceso y los pagos guardan la mora.</p>
+ */
+@Component
+public class MoraEvaluador {
+
+    /**
+     * Porcentaje de mora diario a aplicar sobre el monto del préstamo.
+     * Valor configurable mediante la propiedad 'prestamo.mora.porcentaje-diario' (default: 0.1%)
+     */
+    @Value("${prestamo.mora.porcentaje-diario:0.1}")
+    private BigDecimal porcentajeMoraDiario = new BigDecimal("0.1");
+
+    /**
+     * Número de días de gracia antes de comenzar a aplicar la mora.
+     * Valor configurable mediante la propiedad 'prestamo.mora.dias-gracia' (default: 0)
+     */
+    @Value("${prestamo.mora.dias-gracia:0}")
+    private int diasGracia;
+
+    /**
+     * Calcula la mora del préstamo a la fecha indicada.
+     *
+     * @param prestamo Préstamo a evaluar (no se modifica)
+     * @param fecha Fecha de referencia, normalmente hoy
+     * @return Días, monto y estado de mora a esa fecha
+     */
+    public MoraEvaluada evaluar(Prestamo prestamo, LocalDate fecha) {
+        return evaluar(prestamo.getEstado(), prestamo.getMonto(), prestamo.getFechaVencimiento(),
+                prestamo.getFechaUltimoCalculoMora(), prestamo.getDiasMora(), prestamo.getMoraAcumulada(), fecha);
+    }
+
+    /**
+     * Calcula la mora a la fecha indicada a partir de las columnas del préstamo, para quien las lee
+     * sin cargar la entidad (por ejemplo, recorriendo un cursor JDBC).
+     *
+     * @param fecha Fecha de referencia, normalmente hoy
+     * @return Días, monto y estado de mora a esa fecha
+     */
+    public MoraEvaluada evaluar(EstadoPrestamo estadoActual, BigDecimal monto, LocalDate fechaVencimiento,
+                                LocalDate fechaUltimoCalculo, Integer diasMoraPersistidos,
+                                BigDecimal moraAcumulada, LocalDate fecha) {
+        int diasPersistidos = diasMoraPersistidos != null ? diasMoraPersistidos : 0;
+        BigDecimal moraPersistida = moraAcumulada != null ? moraAcumulada : BigDecimal.ZERO;
+
+        if (!acumulaMora(estadoActual, fechaVencimiento, fecha)) {
+            return new MoraEvaluada(diasPersistidos, moraPersistida, BigDecimal.ZERO, estadoActual, false);
+        }
+
+        BigDecimal moraDiaria = calcularMoraDiaria(monto);
+        EstadoPrestamo estado = estadoActual == EstadoPrestamo.APROBADO
+                ? EstadoPrestamo.VENCIDO
+                : estadoActual;
+
+        // Último día ya calculado: el del último cálculo persistido o, si no hay, el vencimiento
+        LocalDate fechaReferencia = fechaVencimiento;
+        if (fechaUltimoCalculo != null && fechaUltimoCalculo.isAfter(fechaReferencia)) {
+            fechaReferencia = fechaUltimoCalculo;
+        }
+
+        long diasNuevos = fechaReferencia.isAfter(fecha)
+                ? 0
+                : Math.max(0, ChronoUnit.DAYS.between(fechaReferencia, fecha) - diasGracia);
+        if (diasNuevos == 0) {
+            return new MoraEvaluada(diasPersistidos, moraPersistida, moraDiaria, estado, false);
+        }
+
+        int diasMora = diasPersistidos + (int) diasNuevos;
+        return new MoraEvaluada(diasMora, moraDiaria.multiply(BigDecimal.valueOf(diasMora)),
+                moraDiaria, EstadoPrestamo.EN_MORA, true);
+    }
+
+    /**
+     * Deuda restante del préstamo a la fecha indicada, con su mora vigente.
+     *
+     * @param prestamo Préstamo a evaluar (no se modifica)
+     * @param fecha Fecha de referencia, normalmente hoy
+     * @return Deuda restante, la misma que muestra el {@code PrestamoModel} del préstamo
+     * @see #deudaRestante(BigDecimal, BigDecimal, BigDecimal, MoraEvaluada)
+     */
+    public BigDecimal deudaRestante(Prestamo prestamo, LocalDate fecha) {
+        return deudaRestante(prestamo.getMonto(), prestamo.getInteres(), prestamo.getTotalPagado(),
+                evaluar(prestamo, fecha));
+    }
+
+    /**
+     * Deuda restante = capital + interés ordinario + mora vigente - total pagado, redondeada a 2 decimales.
+     * Es la definición única que usan el detalle del préstamo, los montos restantes, el cliente y la exportación.
+     *
+     * @param mora Mora vigente del préstamo ({@link #evaluar})
+     */
+    public static BigDecimal deudaRestante(BigDecimal monto, BigDecimal interes, BigDecimal totalPagado,
+                                           MoraEvaluada mora) {
+        return monto.add(interesOrdinario(monto, interes))
+                .add(mora.getMoraAcumulada())
+                .subtract(totalPagado != null ? totalPagado : BigDecimal.ZERO)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Interés ordinario = monto * interés / 100, redondeado a 2 decimales.
+     */
+    public static BigDecimal interesOrdinario(BigDecimal monto, BigDecimal interes) {
+        return monto.multiply(interes).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Mismos préstamos que recorre el cálculo diario: vencidos, en mora o aprobados con vencimiento
+     * hasta la fecha (el día del vencimiento {@code MARCAR_VENCIDOS} ya los pasa a VENCIDO).
+     */
+    private boolean acumulaMora(EstadoPrestamo estado, LocalDate fechaVencimiento, LocalDate fecha) {
+        if (fechaVencimiento == null || estado == null) {
+            return false;
+        }
+        return switch (estado) {
+            case VENCIDO, EN_MORA -> true;
+            case APROBADO -> !fechaVencimiento.isAfter(fecha);
+            default -> false;
+        };
+    }
+
+    /**
+     * Mora diaria = monto * porcentaje diario / 100, redondeada a 2 decimales.
+     */
+    private BigDecimal calcularMoraDiaria(BigDecimal monto) {
+        if (monto == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return monto.multiply(porcentajeMoraDiario.abs())
+                .divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,14 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+/**
+ * Modo de ejecución del cálculo diario de mora.
+ * Se selecciona mediante la propiedad 'prestamo.mora.modo' (default: ENTIDAD).
+ */
+public enum MoraModo {
+
+    /** Préstamo a préstamo sobre las entidades JPA, por lotes ({@link MoraBatchEngine}) */
+    ENTIDAD,
+
+    /** Sentencias UPDATE ... FROM sobre todo el conjunto de préstamos ({@link MoraSqlEngine}) */
+    SQL
+}
@@ -0,0 +1,265 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recálculos manuales de mora ejecutados en segundo plano.
+ *
+ * <p>Permite recuperar días no procesados (p. ej. tras una caída) sin ocupar el hilo de la
+ * petición HTTP: cada recálculo recorre su rango de fechas en orden ascendente y procesa cada
+ * fecha con las mismas etapas y el mismo motor por lotes que la tarea programada.</p>
+ *
+ * <ul>
+ *   <li>Los recálculos se ejecutan de uno en uno, en el orden en que se enviaron</li>
+ *   <li>Cada fecha se procesa dentro del bloqueo {@code mora-diaria}; si la tarea programada
+ *       lo tiene tomado en algún nodo, se espera y se reintenta</li>
+ *   <li>Las fechas ya completadas en el libro de ejecuciones se omiten</li>
+ *   <li>La cancelación se atiende entre lotes; la fecha en curso queda pendiente y se reanuda
+ *       en el siguiente cálculo de esa fecha</li>
+ *   <li>Al arrancar la aplicación se encola un recálculo por cada fecha que quedó a medias en el
+ *       libro de ejecuciones, que continúa desde los puntos de control de sus fases</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class MoraRecalculoManual implements DisposableBean {
+
+    /** Tarea del {@link SchedulerLock} compartida con el cálculo programado */
+    static final String TAREA = "mora-diaria";
+
+    private final PrestamoScheduler prestamoScheduler;
+    private final SchedulerLock schedulerLock;
+    private final MoraRunLedger moraRunLedger;
+    private final Executor executor;
+
+    /** Recálculos en orden de envío; se conservan los últimos {@link #historial} terminados */
+    private final Map<String, MoraRecalculoTrabajo> trabajos = new LinkedHashMap<>();
+
+    /**
+     * Máximo de fechas que puede abarcar un recálculo.
+     * Valor configurable mediante la propiedad 'prestamo.mora.recalculo.max-dias' (default: 366)
+     */
+    @Value("${prestamo.mora.recalculo.max-dias:366}")
+    private int maxDias = 366;
+
+    /**
+     * Espera entre intentos cuando otro nodo tiene tomado el bloqueo de la tarea.
+     * Valor configurable mediante la propiedad 'prestamo.mora.recalculo.espera-bloqueo-ms' (default: 30000)
+     */
+    @Value("${prestamo.mora.recalculo.espera-bloqueo-ms:30000}")
+    private long esperaBloqueoMs = 30000;
+
+    /**
+     * Cantidad de recálculos terminados que se conservan para consulta.
+     * Valor configurable mediante la propiedad 'prestamo.mora.recalculo.historial' (default: 50)
+     */
+    @Value("${prestamo.mora.recalculo.historial:50}")
+    private int historial = 50;
+
+    /**
+     * Reanuda al arrancar las ejecuciones de mora interrumpidas.
+     * Valor configurable mediante la propiedad 'prestamo.mora.reanudar-al-iniciar' (default: true)
+     */
+    @Value("${prestamo.mora.reanudar-al-iniciar:true}")
+    private boolean reanudarAlIniciar = true;
+
+    @Value("${prestamo.mora.habilitada:true}")
+    private boolean moraHabilitada = true;
+
+    @Autowired
+    public MoraRecalculoManual(PrestamoScheduler prestamoScheduler, SchedulerLock schedulerLock,
+                               MoraRunLedger moraRunLedger) {
+        this(prestamoScheduler, schedulerLock, moraRunLedger, Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "mora-recalculo");
+            hilo.setDaemon(true);
+            return hilo;
+        }));
+    }
+
+    MoraRecalculoManual(PrestamoScheduler prestamoScheduler, SchedulerLock schedulerLock,
+                        MoraRunLedger moraRunLedger, Executor executor) {
+        this.prestamoScheduler = prestamoScheduler;
+        this.schedulerLock = schedulerLock;
+        this.moraRunLedger = moraRunLedger;
+        this.executor = executor;
+    }
+
+    /**
+     * Encola la reanudación de cada fecha que quedó en curso en el libro de ejecuciones.
+     * Si otro nodo ya la está reanudando, el recálculo espera su bloqueo y luego la omite por completada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reanudarPendientes() {
+        if (!reanudarAlIniciar || !moraHabilitada) {
+            return;
+        }
+        try {
+            for (LocalDate fecha : moraRunLedger.pendientes()) {
+                if (fecha.isAfter(LocalDate.now())) {
+                    continue;
+                }
+                log.info("Ejecución de mora del {} interrumpida; se reanuda desde su último punto de control", fecha);
+                enviar(fecha, fecha);
+            }
+        } catch (RuntimeException e) {
+            log.error("✗ No se pudieron reanudar las ejecuciones de mora pendientes: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encola el recálculo de un rango de fechas de negocio.
+     *
+     * @param desde Primera fecha a recalcular
+     * @param hasta Última fecha a recalcular (inclusive, no posterior a hoy)
+     * @return El recálculo encolado, para consultar su avance
+     * @throws IllegalArgumentException Si el rango no es válido
+     */
+    public MoraRecalculoTrabajo enviar(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas del recálculo son obligatorias");
+        }
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final " + hasta + " es anterior a la inicial " + desde);
+        }
+        if (hasta.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("No se puede calcular la mora de una fecha futura: " + hasta);
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) + 1 > maxDias) {
+            throw new IllegalArgumentException("El recálculo no puede abarcar más de " + maxDias + " días");
+        }
+
+        MoraRecalculoTrabajo trabajo = new MoraRecalculoTrabajo(desde, hasta);
+        synchronized (trabajos) {
+            trabajos.put(trabajo.getId(), trabajo);
+            depurarHistorial();
+        }
+        log.info("Recálculo de mora {} encolado: {} a {} ({} fechas)",
+                trabajo.getId(), desde, hasta, trabajo.getTotalFechas());
+        executor.execute(() -> ejecutar(trabajo));
+        return trabajo;
+    }
+
+    public Optional<MoraRecalculoTrabajo> obtener(String id) {
+        synchronized (trabajos) {
+            return Optional.ofNullable(trabajos.get(id));
+        }
+    }
+
+    /**
+     * Recálculos conocidos, del más reciente al más antiguo.
+     */
+    public List<MoraRecalculoTrabajo> listar() {
+        List<MoraRecalculoTrabajo> lista;
+        synchronized (trabajos) {
+            lista = new ArrayList<>(trabajos.values());
+        }
+        Collections.reverse(lista);
+        return lista;
+    }
+
+    /**
+     * Cancela un recálculo. Si está en curso se detiene al terminar el lote actual.
+     *
+     * @param id Identificador del recálculo
+     * @return El recálculo, o vacío si no existe
+     */
+    public Optional<MoraRecalculoTrabajo> cancelar(String id) {
+        Optional<MoraRecalculoTrabajo> trabajo = obtener(id);
+        trabajo.ifPresent(t -> {
+            log.info("Cancelación solicitada para el recálculo de mora {} ({})", id, t.getEstado());
+            t.solicitarCancelacion();
+        });
+        return trabajo;
+    }
+
+    void ejecutar(MoraRecalculoTrabajo trabajo) {
+        if (!trabajo.iniciar()) {
+            log.info("Recálculo de mora {} cancelado antes de iniciar", trabajo.getId());
+            return;
+        }
+        log.info("\n=== INICIO DE RECÁLCULO DE MORA {} ({} a {})", trabajo.getId(), trabajo.getDesde(), trabajo.getHasta());
+
+        try {
+            for (LocalDate fecha = trabajo.getDesde(); !fecha.isAfter(trabajo.getHasta()); fecha = fecha.plusDays(1)) {
+                if (trabajo.cancelado()) {
+                    throw new CancellationException("Recálculo cancelado antes del " + fecha);
+                }
+                trabajo.iniciarFecha(fecha);
+                trabajo.terminarFecha(ejecutarFecha(trabajo, fecha));
+            }
+            trabajo.finalizar(EstadoRecalculoMora.COMPLETADO, null);
+            log.info("\n=== RECÁLCULO DE MORA {} COMPLETADO: {} préstamos, {} errores en {}",
+                    trabajo.getId(), trabajo.getProcesados(), trabajo.getErrores(), trabajo.getDuracion());
+        } catch (CancellationException e) {
+            trabajo.finalizar(EstadoRecalculoMora.CANCELADO, e.getMessage());
+            log.warn("⚠️ Recálculo de mora {} cancelado: {}", trabajo.getId(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            trabajo.finalizar(EstadoRecalculoMora.CANCELADO, "Recálculo interrumpido");
+        } catch (RuntimeException e) {
+            trabajo.finalizar(EstadoRecalculoMora.FALLIDO,
+                    "Error en la fecha " + trabajo.getFechaEnCurso() + ": " + e.getMessage());
+            log.error("\n=== ERROR EN EL RECÁLCULO DE MORA {}: {}", trabajo.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Procesa una fecha dentro del bloqueo de la tarea, esperando mientras otro nodo lo tenga.
+     *
+     * @return {@code true} si la fecha se procesó, {@code false} si ya estaba completada
+     */
+    private boolean ejecutarFecha(MoraRecalculoTrabajo trabajo, LocalDate fecha) throws InterruptedException {
+        AtomicBoolean ejecutada = new AtomicBoolean();
+        while (!schedulerLock.ejecutar(TAREA,
+                () -> ejecutada.set(prestamoScheduler.recalcularMora(fecha, trabajo)))) {
+            if (trabajo.cancelado()) {
+                throw new CancellationException("Recálculo cancelado esperando el bloqueo para el " + fecha);
+            }
+            log.info("Bloqueo '{}' ocupado; el recálculo {} reintenta el {} en {} ms",
+                    TAREA, trabajo.getId(), fecha, esperaBloqueoMs);
+            Thread.sleep(esperaBloqueoMs);
+        }
+        return ejecutada.get();
+    }
+
+    /** Descarta los recálculos terminados más antiguos que excedan el historial */
+    private void depurarHistorial() {
+        List<MoraRecalculoTrabajo> terminados = trabajos.values().stream()
+                .filter(MoraRecalculoTrabajo::isTerminado)
+                .sorted(Comparator.comparing(MoraRecalculoTrabajo::getCreado))
+                .toList();
+        for (int i = 0; i < terminados.size() - historial; i++) {
+            trabajos.remove(terminados.get(i).getId());
+        }
+    }
+
+    /** Pide detenerse al recálculo en curso y descarta los que están en cola */
+    @Override
+    public void destroy() {
+        listar().forEach(MoraRecalculoTrabajo::solicitarCancelacion);
+        if (executor instanceof ExecutorService servicio) {
+            servicio.shutdown();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recálculo manual de mora sobre un rango de fechas de negocio, ejecutado en segundo plano
+ * por {@link MoraRecalculoManual}.
+ *
+ * <p>Es también el {@link MoraBatchSeguimiento} de cada fase: acumula los préstamos procesados
+ * lote a lote y comunica al motor la cancelación solicitada. Se consulta desde los hilos HTTP
+ * mientras el hilo del recálculo lo actualiza.</p>
+ */
+@Getter
+public class MoraRecalculoTrabajo implements MoraBatchSeguimiento {
+
+    private final String id = UUID.randomUUID().toString();
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final int totalFechas;
+    private final Instant creado = Instant.now();
+
+    private volatile EstadoRecalculoMora estado = EstadoRecalculoMora.PENDIENTE;
+    private volatile Instant iniciado;
+    private volatile Instant finalizado;
+    private volatile LocalDate fechaEnCurso;
+    private volatile int fechasCompletadas;
+    private volatile int fechasOmitidas;
+    private volatile boolean cancelacionSolicitada;
+    private volatile String mensaje;
+
+    @Getter(AccessLevel.NONE)
+    private final LongAdder procesados = new LongAdder();
+
+    @Getter(AccessLevel.NONE)
+    private final LongAdder errores = new LongAdder();
+
+    public MoraRecalculoTrabajo(LocalDate desde, LocalDate hasta) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.totalFechas = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+    }
+
+    public long getProcesados() {
+        return procesados.sum();
+    }
+
+    public long getErrores() {
+        return errores.sum();
+    }
+
+    public int getFechasPendientes() {
+        return totalFechas - fechasCompletadas - fechasOmitidas;
+    }
+
+    public boolean isTerminado() {
+        return finalizado != null;
+    }
+
+    /**
+     * Tiempo de ejecución hasta ahora, o total si el recálculo terminó.
+     */
+    public Duration getDuracion() {
+        if (iniciado == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(iniciado, finalizado != null ? finalizado : Instant.now());
+    }
+
+    /**
+     * Préstamos procesados por segundo desde el inicio del recálculo.
+     */
+    public double getPrestamosPorSegundo() {
+        long milisegundos = getDuracion().toMillis();
+        return milisegundos == 0 ? 0 : getProcesados() * 1000.0 / milisegundos;
+    }
+
+    /**
+     * Tiempo estimado para terminar, según la duración media de las fechas ya terminadas,
+     * o {@code null} si aún no hay ninguna fecha terminada o el recálculo ya no está en curso.
+     */
+    public Duration getTiempoRestanteEstimado() {
+        int terminadas = fechasCompletadas + fechasOmitidas;
+        if (estado != EstadoRecalculoMora.EN_CURSO || terminadas == 0) {
+            return null;
+        }
+        return getDuracion().dividedBy(terminadas).multipliedBy(getFechasPendientes());
+    }
+
+    @Override
+    public void loteProcesado(int procesadosLote, int erroresLote) {
+        procesados.add(procesadosLote);
+        errores.add(erroresLote);
+    }
+
+    @Override
+    public boolean cancelado() {
+        return cancelacionSolicitada;
+    }
+
+    /**
+     * @return {@code false} si el recálculo se canceló mientras estaba en cola
+     */
+    synchronized boolean iniciar() {
+        if (estado != EstadoRecalculoMora.PENDIENTE) {
+            return false;
+        }
+        estado = EstadoRecalculoMora.EN_CURSO;
+        iniciado = Instant.now();
+        return true;
+    }
+
+    void iniciarFecha(LocalDate fecha) {
+        fechaEnCurso = fecha;
+    }
+
+    /**
+     * @param ejecutada {@code false} si la fecha ya estaba completada en el libro de ejecuciones
+     */
+    void terminarFecha(boolean ejecutada) {
+        if (ejecutada) {
+            fechasCompletadas++;
+        } else {
+            fechasOmitidas++;
+        }
+        fechaEnCurso = null;
+    }
+
+    synchronized void finalizar(EstadoRecalculoMora estadoFinal, String mensajeFinal) {
+        estado = estadoFinal;
+        mensaje = mensajeFinal;
+        finalizado = Instant.now();
+    }
+
+    /**
+     * Cancela el recálculo si está en cola, o pide al que está en curso que se detenga al
+     * terminar el lote actual.
+     */
+    synchronized void solicitarCancelacion() {
+        if (estado == EstadoRecalculoMora.PENDIENTE) {
+            finalizar(EstadoRecalculoMora.CANCELADO, "Cancelado antes de iniciar");
+        } else if (estado == EstadoRecalculoMora.EN_CURSO) {
+            cancelacionSolicitada = true;
+        }
+    }
+}
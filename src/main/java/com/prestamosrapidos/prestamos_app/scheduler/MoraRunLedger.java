@@ -0,0 +1,106 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.MoraRun;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoMoraRun;
+import com.prestamosrapidos.prestamos_app.entity.enums.EtapaMora;
+import com.prestamosrapidos.prestamos_app.repository.MoraRunCheckpointRepository;
+import com.prestamosrapidos.prestamos_app.repository.MoraRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Libro de ejecuciones del cálculo de mora (tabla {@code mora_run}), una fila por fecha de negocio.
+ *
+ * <p>Cada operación se confirma en su propia transacción, de modo que el avance de la ejecución
+ * queda registrado aunque una etapa posterior falle. Las que leen y modifican la ejecución la leen
+ * en esa misma transacción, de la primaria y no de la réplica de lectura. La exclusión entre nodos la garantiza el
+ * {@link SchedulerLock} de la tarea.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MoraRunLedger {
+
+    private final MoraRunRepository moraRunRepository;
+    private final MoraRunCheckpointRepository checkpointRepository;
+
+    /**
+     * Registra el inicio (o la reanudación) de la ejecución de una fecha.
+     *
+     * @param fecha Fecha de negocio a procesar
+     * @return La ejecución a continuar, o vacío si la fecha ya está completada
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Optional<MoraRun> iniciar(LocalDate fecha) {
+        MoraRun run = moraRunRepository.findById(fecha).orElse(null);
+        if (run != null && run.getEstado() == EstadoMoraRun.COMPLETADO) {
+            return Optional.empty();
+        }
+        if (run == null) {
+            run = MoraRun.builder()
+                    .fechaNegocio(fecha)
+                    .estado(EstadoMoraRun.EN_CURSO)
+                    .iniciadoEl(LocalDateTime.now())
+                    .build();
+        } else {
+            log.info("Reanudando la ejecución de mora del {} después de la etapa {}", fecha, run.getUltimaEtapa());
+        }
+        run.setIntentos(run.getIntentos() + 1);
+        return Optional.of(moraRunRepository.save(run));
+    }
+
+    /**
+     * Registra una etapa completada y acumula sus contadores.
+     *
+     * @param fecha Fecha de negocio en curso
+     * @param etapa Etapa completada
+     * @param resultados Resultado de cada fase de la etapa
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void registrarEtapa(LocalDate fecha, EtapaMora etapa, List<MoraBatchResultado> resultados) {
+        MoraRun run = obtener(fecha);
+        run.setUltimaEtapa(etapa);
+        resultados.forEach(resultado -> {
+            run.setProcesados(run.getProcesados() + resultado.getProcesados());
+            run.setErrores(run.getErrores() + resultado.getErrores());
+        });
+        moraRunRepository.save(run);
+    }
+
+    /**
+     * Marca la fecha como completada; las siguientes ejecuciones de la fecha no harán nada.
+     * Los puntos de control de sus fases dejan de ser necesarios y se eliminan.
+     *
+     * @param fecha Fecha de negocio en curso
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void completar(LocalDate fecha) {
+        MoraRun run = obtener(fecha);
+        run.setEstado(EstadoMoraRun.COMPLETADO);
+        run.setFinalizadoEl(LocalDateTime.now());
+        moraRunRepository.save(run);
+        checkpointRepository.deleteByFechaNegocio(fecha);
+    }
+
+    /**
+     * Fechas cuya ejecución quedó a medias (caída, despliegue o cancelación), de la más antigua a la más reciente.
+     */
+    public List<LocalDate> pendientes() {
+        return moraRunRepository.findByEstadoOrderByFechaNegocio(EstadoMoraRun.EN_CURSO).stream()
+                .map(MoraRun::getFechaNegocio)
+                .toList();
+    }
+
+    private MoraRun obtener(LocalDate fecha) {
+        return moraRunRepository.findById(fecha)
+                .orElseThrow(() -> new IllegalStateException("No hay ejecución de mora iniciada para " + fecha));
+    }
+}
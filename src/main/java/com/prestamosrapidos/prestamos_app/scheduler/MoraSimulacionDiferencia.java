@@ -0,0 +1,40 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Valores de un préstamo antes y después del cálculo de mora simulado.
+ */
+@Getter
+@AllArgsConstructor
+public class MoraSimulacionDiferencia {
+
+    private final Long id;
+    private final EstadoPrestamo estadoAnterior;
+    private final EstadoPrestamo estadoNuevo;
+    private final int diasMoraAnterior;
+    private final int diasMoraNuevo;
+    private final BigDecimal moraAcumuladaAnterior;
+    private final BigDecimal moraAcumuladaNueva;
+    private final BigDecimal deudaRestanteAnterior;
+    private final BigDecimal deudaRestanteNueva;
+
+    /**
+     * Indica si el cálculo cambiaría el estado, los días de mora, la mora o la deuda del préstamo.
+     */
+    public boolean tieneCambios() {
+        return estadoAnterior != estadoNuevo
+                || diasMoraAnterior != diasMoraNuevo
+                || !iguales(moraAcumuladaAnterior, moraAcumuladaNueva)
+                || !iguales(deudaRestanteAnterior, deudaRestanteNueva);
+    }
+
+    private static boolean iguales(BigDecimal anterior, BigDecimal nuevo) {
+        return anterior == null || nuevo == null ? Objects.equals(anterior, nuevo) : anterior.compareTo(nuevo) == 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fecha de negocio y configuración con las que {@link MoraSimulador} simula el cálculo de mora.
+ */
+@Getter
+@AllArgsConstructor
+public class MoraSimulacionParametros {
+
+    /** Fecha de negocio a simular */
+    private final LocalDate fecha;
+
+    /** Porcentaje de mora diario sobre el monto */
+    private final BigDecimal porcentajeDiario;
+
+    /** Días de gracia antes de aplicar mora */
+    private final int diasGracia;
+
+    /** Si es {@code true} solo se emiten los préstamos que cambiarían */
+    private final boolean soloCambios;
+}
@@ -0,0 +1,45 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Totales de una simulación de mora.
+ */
+@Getter
+public class MoraSimulacionResumen {
+
+    private final MoraSimulacionParametros parametros;
+    private final Instant inicio = Instant.now();
+    private Duration duracion = Duration.ZERO;
+    private long prestamos;
+    private long cambios;
+    private BigDecimal moraAnterior = BigDecimal.ZERO;
+    private BigDecimal moraNueva = BigDecimal.ZERO;
+
+    public MoraSimulacionResumen(MoraSimulacionParametros parametros) {
+        this.parametros = parametros;
+    }
+
+    void registrar(MoraSimulacionDiferencia diferencia) {
+        prestamos++;
+        if (diferencia.tieneCambios()) {
+            cambios++;
+        }
+        moraAnterior = moraAnterior.add(diferencia.getMoraAcumuladaAnterior());
+        moraNueva = moraNueva.add(diferencia.getMoraAcumuladaNueva());
+    }
+
+    void finalizar() {
+        duracion = Duration.between(inicio, Instant.now());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("prestamos=%d, cambios=%d, moraAnterior=%s, moraNueva=%s, duracion=%dms",
+                prestamos, cambios, moraAnterior, moraNueva, duracion.toMillis());
+    }
+}
@@ -0,0 +1,295 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Simulación del cálculo de mora de una fecha de negocio, sin escribir en la base de datos.
+ *
+ * <p>Permite ver el efecto de cambiar {@code prestamo.mora.porcentaje-diario} o
+ * {@code prestamo.mora.dias-gracia} antes de hacerlo. Recorre la cartera una sola vez con una
+ * consulta en modo cursor (el total pagado es la columna mantenida del préstamo), dentro de
+ * una transacción de solo lectura {@code REPEATABLE READ}, de modo que todos los préstamos se leen
+ * de la misma instantánea. Cada préstamo se aplica en memoria a las fases de {@link MoraSqlEngine},
+ * en el mismo orden, y su diferencia se escribe en la salida en cuanto se calcula: el resultado
+ * nunca se acumula en memoria.</p>
+ */
+@Slf4j
+@Component
+public class MoraSimulador {
+
+    private static final String SQL_CARTERA = """
+            SELECT p.id, p.estado, p.monto, p.fecha_vencimiento, p.fecha_ultimo_calculo_mora, p.fecha_ultima_mora,
+                   p.dias_mora, p.mora_acumulada, p.deuda_restante, p.total_pagado
+              FROM prestamos p
+             ORDER BY p.id
+            """;
+
+    private static final String CABECERA_CSV = "id,estado_anterior,estado_nuevo,dias_mora_anterior,dias_mora_nuevo,"
+            + "mora_acumulada_anterior,mora_acumulada_nueva,deuda_restante_anterior,deuda_restante_nueva";
+
+    /** Filas que el controlador JDBC trae por viaje al recorrer el cursor */
+    private static final int TAMANO_FETCH = 1000;
+
+    /** Préstamos escritos entre cada vaciado del buffer de salida */
+    private static final int FILAS_POR_VACIADO = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${prestamo.mora.porcentaje-diario:0.1}")
+    private BigDecimal porcentajeMoraDiario = new BigDecimal("0.1");
+
+    @Value("${prestamo.mora.dias-gracia:0}")
+    private int diasGracia;
+
+    public MoraSimulador(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(TAMANO_FETCH);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursor);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Valida los parámetros de una simulación, tomando la configuración actual para los que se omitan.
+     *
+     * @param fecha Fecha de negocio a simular (por defecto hoy)
+     * @param porcentajeDiario Porcentaje de mora diario a simular (por defecto el configurado)
+     * @param diasGraciaSimulados Días de gracia a simular (por defecto los configurados)
+     * @param soloCambios Si solo se emiten los préstamos que cambiarían
+     * @throws IllegalArgumentException Si algún parámetro no es válido
+     */
+    public MoraSimulacionParametros parametros(LocalDate fecha, BigDecimal porcentajeDiario,
+                                               Integer diasGraciaSimulados, boolean soloCambios) {
+        if (porcentajeDiario != null && porcentajeDiario.signum() < 0) {
+            throw new IllegalArgumentException("El porcentaje de mora diario no puede ser negativo: " + porcentajeDiario);
+        }
+        if (diasGraciaSimulados != null && diasGraciaSimulados < 0) {
+            throw new IllegalArgumentException("Los días de gracia no pueden ser negativos: " + diasGraciaSimulados);
+        }
+        return new MoraSimulacionParametros(
+                fecha != null ? fecha : LocalDate.now(),
+                porcentajeDiario != null ? porcentajeDiario : porcentajeMoraDiario.abs(),
+                diasGraciaSimulados != null ? diasGraciaSimulados : diasGracia,
+                soloCambios);
+    }
+
+    /**
+     * Simula el cálculo de mora de toda la cartera y escribe la diferencia de cada préstamo.
+     *
+     * @param parametros Fecha y configuración a simular
+     * @param formato Formato de salida
+     * @param salida Flujo en el que se escriben las diferencias (no se cierra)
+     * @return Totales de la simulación
+     */
+    public MoraSimulacionResumen simular(MoraSimulacionParametros parametros, FormatoSimulacion formato,
+                                         OutputStream salida) {
+        MoraSimulacionResumen resumen = new MoraSimulacionResumen(parametros);
+        log.info("Iniciando simulación de mora del {} (porcentaje diario {}%, {} días de gracia)",
+                parametros.getFecha(), parametros.getPorcentajeDiario(), parametros.getDiasGracia());
+
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        try {
+            if (formato == FormatoSimulacion.CSV) {
+                escritor.write(CABECERA_CSV);
+                escritor.write('\n');
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SQL_CARTERA, Map.of(), resultSet -> {
+                MoraSimulacionDiferencia diferencia = simular(leer(resultSet), parametros);
+                resumen.registrar(diferencia);
+                if (!parametros.isSoloCambios() || diferencia.tieneCambios()) {
+                    escribir(escritor, formato, diferencia);
+                }
+                if (resumen.getPrestamos() % FILAS_POR_VACIADO == 0) {
+                    vaciar(escritor);
+                }
+            }));
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la simulación de mora", e);
+        }
+
+        resumen.finalizar();
+        log.info("Simulación de mora del {} finalizada: {}", parametros.getFecha(), resumen);
+        return resumen;
+    }
+
+    /**
+     * Aplica a un préstamo, en memoria, las mismas fases que {@link MoraSqlEngine} ejecuta sobre la tabla:
+     * marcar vencidos, recalcular vencidos, acumular mora y recalcular deuda.
+     */
+    static MoraSimulacionDiferencia simular(FilaPrestamo fila, MoraSimulacionParametros parametros) {
+        LocalDate hoy = parametros.getFecha();
+        FilaPrestamo nueva = fila.copia();
+
+        // Fase 1: APROBADOS vencidos
+        if (nueva.estado == EstadoPrestamo.APROBADO && nueva.fechaVencimiento != null
+                && !nueva.fechaVencimiento.isAfter(hoy)) {
+            boolean pasado = nueva.fechaVencimiento.isBefore(hoy);
+            nueva.estado = pasado ? EstadoPrestamo.EN_MORA : EstadoPrestamo.VENCIDO;
+            nueva.diasMora = pasado ? (int) ChronoUnit.DAYS.between(nueva.fechaVencimiento, hoy) : 0;
+            nueva.fechaUltimoCalculoMora = nueva.fechaVencimiento;
+        }
+
+        // Fase 2: VENCIDOS sin mora actualizada y, después, VENCIDOS o EN_MORA fuera del periodo de gracia
+        if (nueva.estado == EstadoPrestamo.VENCIDO
+                && (nueva.fechaUltimoCalculoMora == null || nueva.fechaUltimoCalculoMora.isBefore(hoy))) {
+            acumularMora(nueva, parametros);
+        }
+        if ((nueva.estado == EstadoPrestamo.VENCIDO || nueva.estado == EstadoPrestamo.EN_MORA)
+                && nueva.fechaVencimiento != null
+                && !nueva.fechaVencimiento.isAfter(hoy.minusDays(parametros.getDiasGracia()))) {
+            acumularMora(nueva, parametros);
+        }
+
+        // Fase 3: deuda restante de los préstamos con mora aplicada en la fecha
+        if (hoy.equals(nueva.fechaUltimaMora)) {
+            nueva.deudaRestante = nueva.monto.subtract(nueva.totalPagado).max(BigDecimal.ZERO).add(nueva.moraAcumulada);
+        }
+
+        return new MoraSimulacionDiferencia(fila.id, fila.estado, nueva.estado, fila.diasMora, nueva.diasMora,
+                fila.moraAcumulada, nueva.moraAcumulada, fila.deudaRestante, nueva.deudaRestante);
+    }
+
+    /** Misma regla que {@code MoraSqlEngine.SQL_ACUMULAR_MORA} */
+    private static void acumularMora(FilaPrestamo fila, MoraSimulacionParametros parametros) {
+        LocalDate hoy = parametros.getFecha();
+        if (fila.fechaVencimiento == null) {
+            return;
+        }
+        LocalDate referencia = fila.fechaUltimoCalculoMora != null && !fila.fechaUltimoCalculoMora.isBefore(fila.fechaVencimiento)
+                ? fila.fechaUltimoCalculoMora
+                : fila.fechaVencimiento;
+        if (referencia.isAfter(hoy)) {
+            return;
+        }
+        long dias = Math.max(fila.diasMora, 0)
+                + Math.max(0, ChronoUnit.DAYS.between(referencia, hoy) - parametros.getDiasGracia());
+        if (dias <= 0) {
+            return;
+        }
+        BigDecimal moraDiaria = fila.monto.signum() > 0
+                ? fila.monto.multiply(parametros.getPorcentajeDiario()).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        boolean pasado = fila.fechaVencimiento.isBefore(hoy);
+
+        fila.moraAcumulada = moraDiaria.multiply(BigDecimal.valueOf(dias));
+        fila.diasMora = pasado ? (int) ChronoUnit.DAYS.between(fila.fechaVencimiento, hoy) : 0;
+        fila.estado = pasado ? EstadoPrestamo.EN_MORA : EstadoPrestamo.APROBADO;
+        fila.fechaUltimoCalculoMora = hoy;
+        fila.fechaUltimaMora = hoy;
+    }
+
+    private static FilaPrestamo leer(ResultSet resultSet) throws SQLException {
+        return new FilaPrestamo(
+                resultSet.getLong("id"),
+                EstadoPrestamo.valueOf(resultSet.getString("estado")),
+                resultSet.getBigDecimal("monto"),
+                fecha(resultSet.getDate("fecha_vencimiento")),
+                fecha(resultSet.getDate("fecha_ultimo_calculo_mora")),
+                fecha(resultSet.getDate("fecha_ultima_mora")),
+                resultSet.getInt("dias_mora"),
+                resultSet.getBigDecimal("mora_acumulada"),
+                resultSet.getBigDecimal("deuda_restante"),
+                resultSet.getBigDecimal("total_pagado"));
+    }
+
+    private static LocalDate fecha(Date fecha) {
+        return fecha != null ? fecha.toLocalDate() : null;
+    }
+
+    private void escribir(Writer escritor, FormatoSimulacion formato, MoraSimulacionDiferencia diferencia) {
+        try {
+            if (formato == FormatoSimulacion.CSV) {
+                escritor.write(String.join(",",
+                        String.valueOf(diferencia.getId()),
+                        String.valueOf(diferencia.getEstadoAnterior()),
+                        String.valueOf(diferencia.getEstadoNuevo()),
+                        String.valueOf(diferencia.getDiasMoraAnterior()),
+                        String.valueOf(diferencia.getDiasMoraNuevo()),
+                        diferencia.getMoraAcumuladaAnterior().toPlainString(),
+                        diferencia.getMoraAcumuladaNueva().toPlainString(),
+                        diferencia.getDeudaRestanteAnterior().toPlainString(),
+                        diferencia.getDeudaRestanteNueva().toPlainString()));
+            } else {
+                escritor.write(objectMapper.writeValueAsString(diferencia));
+            }
+            escritor.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la simulación del préstamo " + diferencia.getId(), e);
+        }
+    }
+
+    private static void vaciar(Writer escritor) {
+        try {
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la simulación de mora", e);
+        }
+    }
+
+    /**
+     * Columnas de un préstamo que intervienen en el cálculo de mora.
+     */
+    static final class FilaPrestamo {
+        private final long id;
+        private EstadoPrestamo estado;
+        private final BigDecimal monto;
+        private final LocalDate fechaVencimiento;
+        private LocalDate fechaUltimoCalculoMora;
+        private LocalDate fechaUltimaMora;
+        private int diasMora;
+        private BigDecimal moraAcumulada;
+        private BigDecimal deudaRestante;
+        private final BigDecimal totalPagado;
+
+        FilaPrestamo(long id, EstadoPrestamo estado, BigDecimal monto, LocalDate fechaVencimiento,
+                     LocalDate fechaUltimoCalculoMora, LocalDate fechaUltimaMora, int diasMora,
+                     BigDecimal moraAcumulada, BigDecimal deudaRestante, BigDecimal totalPagado) {
+            this.id = id;
+            this.estado = estado;
+            this.monto = monto;
+            this.fechaVencimiento = fechaVencimiento;
+            this.fechaUltimoCalculoMora = fechaUltimoCalculoMora;
+            this.fechaUltimaMora = fechaUltimaMora;
+            this.diasMora = diasMora;
+            this.moraAcumulada = moraAcumulada;
+            this.deudaRestante = deudaRestante;
+            this.totalPagado = totalPagado;
+        }
+
+        FilaPrestamo copia() {
+            return new FilaPrestamo(id, estado, monto, fechaVencimiento, fechaUltimoCalculoMora, fechaUltimaMora,
+                    diasMora, moraAcumulada, deudaRestante, totalPagado);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Motor de cálculo de mora basado en conjuntos.
+ *
+ * <p>Aplica las mismas reglas que {@link PrestamoScheduler} (días de gracia, porcentaje diario,
+ * transiciones a VENCIDO / EN_MORA, deuda restante) pero con una sentencia {@code UPDATE ... FROM} por fase,
+ * en lugar de cargar y guardar cada préstamo. Se activa con {@code prestamo.mora.modo=SQL}.</p>
+ *
+ * <p>Las sentencias reproducen también la normalización que hace {@code Prestamo#preUpdate}
+ * en el modo por entidades: {@code dias_mora} y {@code estado} quedan calculados a partir de
+ * la fecha de vencimiento, y {@code fecha_ultimo_interes} se fija a la fecha de ejecución.</p>
+ *
+ * <p>Cada fase se ejecuta y confirma en su propia transacción, igual que las fases del
+ * {@link MoraBatchEngine}.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MoraSqlEngine {
+
+    /** Fase 1: préstamos APROBADOS vencidos pasan a VENCIDO (o EN_MORA si ya pasó el vencimiento) */
+    private static final String SQL_MARCAR_VENCIDOS = """
+            UPDATE prestamos
+               SET estado = CASE WHEN fecha_vencimiento < CAST(:hoy AS date) THEN 'EN_MORA' ELSE 'VENCIDO' END,
+                   dias_mora = CASE WHEN fecha_vencimiento < CAST(:hoy AS date)
+                                    THEN CAST(:hoy AS date) - fecha_vencimiento ELSE 0 END,
+                   fecha_ultimo_calculo_mora = fecha_vencimiento,
+                   fecha_ultimo_interes = CAST(:hoy AS date),
+                   fecha_modificacion_auditoria = CURRENT_TIMESTAMP
+             WHERE estado = 'APROBADO'
+               AND fecha_vencimiento <= CAST(:hoy AS date)
+            """;
+
+    /**
+     * Acumulación de mora. El marcador {@code %s} recibe el filtro de la fase sobre el alias {@code x}.
+     */
+    private static final String SQL_ACUMULAR_MORA = """
+            UPDATE prestamos p
+               SET dias_mora = CASE WHEN p.fecha_vencimiento < CAST(:hoy AS date)
+                                    THEN CAST(:hoy AS date) - p.fecha_vencimiento ELSE 0 END,
+                   estado = CASE WHEN p.fecha_vencimiento < CAST(:hoy AS date) THEN 'EN_MORA' ELSE 'APROBADO' END,
+                   mora_acumulada = c.mora,
+                   fecha_ultimo_calculo_mora = CAST(:hoy AS date),
+                   fecha_ultima_mora = CAST(:hoy AS date),
+                   fecha_ultimo_interes = CAST(:hoy AS date),
+                   mora_aplicada = TRUE,
+                   interes_moratorio_aplicado = TRUE,
+                   modificado_por = 'scheduler',
+                   fecha_modificacion_auditoria = CURRENT_TIMESTAMP
+              FROM (
+                    SELECT b.id,
+                           CASE WHEN b.monto > 0 THEN ROUND(b.monto * :porcentaje / 100, 2) ELSE 0 END * b.dias AS mora
+                      FROM (
+                            SELECT x.id, x.monto,
+                                   GREATEST(x.dias_mora, 0)
+                                       + GREATEST(0, (CAST(:hoy AS date) - r.referencia) - :diasGracia) AS dias
+                              FROM prestamos x
+                             CROSS JOIN LATERAL (
+                                    SELECT CASE WHEN x.fecha_ultimo_calculo_mora >= x.fecha_vencimiento
+                                                THEN x.fecha_ultimo_calculo_mora
+                                                ELSE x.fecha_vencimiento END AS referencia
+                                   ) r
+                             WHERE x.fecha_vencimiento IS NOT NULL
+                               AND r.referencia <= CAST(:hoy AS date)
+                               AND %s
+                           ) b
+                     WHERE b.dias > 0
+                   ) c
+             WHERE p.id = c.id
+            """;
+
+    /** Deuda restante de los préstamos con mora aplicada en la fecha, a partir del total pagado mantenido */
+    private static final String SQL_RECALCULAR_DEUDA = """
+            UPDATE prestamos p
+               SET deuda_restante = GREATEST(p.monto - p.total_pagado, 0) + p.mora_acumulada,
+                   fecha_modificacion_auditoria = CURRENT_TIMESTAMP
+             WHERE p.fecha_ultima_mora = CAST(:hoy AS date)
+            """;
+
+    /** Préstamos VENCIDOS cuya mora no se ha calculado hoy */
+    private static final String FILTRO_VENCIDOS_SIN_MORA_ACTUALIZADA =
+            "x.estado = 'VENCIDO' AND (x.fecha_ultimo_calculo_mora IS NULL OR x.fecha_ultimo_calculo_mora < CAST(:hoy AS date))";
+
+    /**
+     * Préstamos VENCIDOS o EN_MORA con el vencimiento fuera del periodo de gracia.
+     * Los APROBADOS del modo por entidades no se incluyen: tras la fase 1 ninguno tiene
+     * vencimiento anterior a hoy, por lo que allí tampoco generan cambios.
+     */
+    private static final String FILTRO_ACUMULAR_MORA =
+            "x.estado IN ('VENCIDO', 'EN_MORA') AND x.fecha_vencimiento <= CAST(:fechaLimite AS date)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Marca como VENCIDO los préstamos APROBADOS cuya fecha de vencimiento ya llegó.
+     *
+     * @param hoy Fecha de referencia
+     * @return Resumen de la fase (un único lote con las filas actualizadas)
+     */
+    @Transactional
+    public MoraBatchResultado marcarVencidos(LocalDate hoy) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("hoy", hoy);
+        return ejecutar("marcar-vencidos", SQL_MARCAR_VENCIDOS, parametros);
+    }
+
+    /**
+     * Recalcula la mora de los préstamos VENCIDOS que no la tienen actualizada.
+     *
+     * @param hoy Fecha de referencia
+     * @param porcentajeDiario Porcentaje de mora diario sobre el monto
+     * @param diasGracia Días de gracia antes de aplicar mora
+     * @return Resumen de la fase
+     */
+    @Transactional
+    public MoraBatchResultado recalcularVencidos(LocalDate hoy, BigDecimal porcentajeDiario, int diasGracia) {
+        return ejecutar("recalcular-vencidos",
+                SQL_ACUMULAR_MORA.formatted(FILTRO_VENCIDOS_SIN_MORA_ACTUALIZADA),
+                parametrosMora(hoy, porcentajeDiario, diasGracia));
+    }
+
+    /**
+     * Acumula la mora de los préstamos vencidos o en mora fuera del periodo de gracia.
+     *
+     * @param hoy Fecha de referencia
+     * @param porcentajeDiario Porcentaje de mora diario sobre el monto
+     * @param diasGracia Días de gracia antes de aplicar mora
+     * @return Resumen de la fase
+     */
+    @Transactional
+    public MoraBatchResultado acumularMora(LocalDate hoy, BigDecimal porcentajeDiario, int diasGracia) {
+        return ejecutar("acumular-mora",
+                SQL_ACUMULAR_MORA.formatted(FILTRO_ACUMULAR_MORA),
+                parametrosMora(hoy, porcentajeDiario, diasGracia)
+                        .addValue("fechaLimite", hoy.minusDays(diasGracia)));
+    }
+
+    /**
+     * Recalcula la deuda restante (capital pendiente + mora) de los préstamos con mora aplicada en la fecha.
+     *
+     * @param hoy Fecha en la que se aplicó la mora
+     * @return Resumen de la fase
+     */
+    @Transactional
+    public MoraBatchResultado recalcularDeuda(LocalDate hoy) {
+        return ejecutar("recalcular-deuda", SQL_RECALCULAR_DEUDA, new MapSqlParameterSource("hoy", hoy));
+    }
+
+    private MapSqlParameterSource parametrosMora(LocalDate hoy, BigDecimal porcentajeDiario, int diasGracia) {
+        return new MapSqlParameterSource()
+                .addValue("hoy", hoy)
+                .addValue("porcentaje", porcentajeDiario.abs())
+                .addValue("diasGracia", diasGracia);
+    }
+
+    private MoraBatchResultado ejecutar(String fase, String sql, MapSqlParameterSource parametros) {
+        MoraBatchResultado resultado = new MoraBatchResultado(fase);
+        log.info("Iniciando fase '{}' en modo SQL", fase);
+
+        int filas = jdbcTemplate.update(sql, parametros);
+        resultado.registrarLote(filas, 0);
+
+        resultado.finalizar();
+        log.info("Fase '{}' finalizada: {}", fase, resultado);
+        return resultado;
+    }
+}
@@ -1,17 +1,17 @@
 package com.prestamosrapidos.prestamos_app.scheduler;
 
-import com.prestamosrapidos.prestamos_app.entity.Pago;
+import com.prestamosrapidos.prestamos_app.entity.MoraRun;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
-import com.prestamosrapidos.prestamos_app.model.EstadoModel;
+import com.prestamosrapidos.prestamos_app.entity.enums.EtapaMora;
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
-import com.prestamosrapidos.prestamos_app.service.PrestamoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -19,6 +19,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 /**
  * Servicio programado para el manejo automático de moras en préstamos.
@@ -36,6 +39,7 @@ import java.util.List;
  *   <li>prestamo.mora.porcentaje-diario: Porcentaje de mora diario (default: 0.1%)</li>
  *   <li>prestamo.mora.habilitada: Habilita/deshabilita el cálculo de mora (default: true)</li>
  *   <li>prestamo.mora.dias-gracia: Días de gracia antes de aplicar mora (default: 0)</li>
+ *   <li>prestamo.mora.modo: ENTIDAD (préstamo a préstamo) o SQL (sentencias por conjunto) (default: ENTIDAD)</li>
  * </ul>
  */
 @Component
@@ -46,8 +50,27 @@ public class PrestamoScheduler {
     /** Repositorio para operaciones de base de datos relacionadas con préstamos */
     private final PrestamoRepository prestamoRepository;
     
-    /** Servicio para operaciones de negocio relacionadas con préstamos */
-    private final PrestamoService prestamoService;
+    /** Motor que procesa los préstamos por lotes, cada uno en su propia transacción */
+    private final MoraBatchEngine moraBatchEngine;
+
+    /** Motor que aplica las mismas reglas con sentencias UPDATE por conjunto */
+    private final MoraSqlEngine moraSqlEngine;
+
+    /** Bloqueo que garantiza que cada tarea programada se ejecute en un solo nodo */
+    private final SchedulerLock schedulerLock;
+
+    /** Registro de las fechas de negocio ya procesadas */
+    private final MoraRunLedger moraRunLedger;
+
+    /** Préstamos agrupados por el día en que cambian de estado */
+    private final RuedaVencimientos ruedaVencimientos;
+
+    /** Publica el recálculo de la cartera para invalidar los valores calculados en caché */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Estados sobre los que se acumula mora */
+    private static final List<EstadoPrestamo> ESTADOS_CALCULO_MORA =
+            List.of(EstadoPrestamo.VENCIDO, EstadoPrestamo.EN_MORA, EstadoPrestamo.APROBADO);
     
     /** 
      * Porcentaje de mora diario a aplicar sobre el monto del préstamo.
@@ -71,25 +94,40 @@ public class PrestamoScheduler {
     @Value("${prestamo.mora.dias-gracia:0}")
     private int diasGracia;
 
+    /**
+     * Modo de ejecución del cálculo de mora.
+     * Valor configurable mediante la propiedad 'prestamo.mora.modo' (default: ENTIDAD)
+     */
+    @Value("${prestamo.mora.modo:ENTIDAD}")
+    private MoraModo moraModo = MoraModo.ENTIDAD;
+
     /**
      * Tarea programada que se ejecuta periódicamente para calcular intereses moratorios.
      * 
-     * <p>Esta tarea realiza las siguientes operaciones:</p>
+     * <p>Ejecuta, para la fecha de negocio actual, las etapas de {@link EtapaMora} en orden:</p>
      * <ol>
      *   <li>Actualiza el estado de préstamos APROBADOS a VENCIDO cuando corresponda</li>
      *   <li>Calcula y aplica moras a préstamos vencidos</li>
-     *   <li>Actualiza la deuda total de cada préstamo</li>
+     *   <li>Actualiza la deuda restante de cada préstamo con mora aplicada</li>
      * </ol>
      * 
-     * <p>Frecuencia de ejecución: Cada minuto (configurable mediante cron expression)</p>
+     * <p>Frecuencia de ejecución: Cada 7 horas (configurable mediante cron expression).
+     * Solo la primera ejecución de cada día hace trabajo: {@link MoraRunLedger} registra la fecha
+     * como completada y las siguientes ejecuciones de esa fecha no hacen nada.</p>
      * <p>Formato cron: segundo, minuto, hora, día del mes, mes, día de la semana</p>
      * 
-     * @implNote Esta tarea está envuelta en una transacción para garantizar la integridad de los datos.
-     * En caso de error durante el procesamiento, se realizará rollback de los cambios.
+     * @implNote Esta tarea no se ejecuta en una única transacción: cada fase se procesa mediante
+     * {@link MoraBatchEngine}, que confirma cada lote de préstamos en su propia transacción.
+     * Un error solo revierte el lote afectado. En modo SQL cada fase es una única sentencia
+     * ejecutada por {@link MoraSqlEngine} en su propia transacción. Solo se ejecuta en el nodo
+     * que obtiene el {@link SchedulerLock} de la tarea.
      */
-    @Scheduled(cron = "0 0 */7 * * ?") // Ejecutar al inicio de cada minuto (cada 60 segundos)
-    @Transactional
+    @Scheduled(cron = "0 0 */7 * * ?")
     public void calcularInteresMoratorioDiario() {
+        schedulerLock.ejecutar("mora-diaria", this::ejecutarCalculoMora);
+    }
+
+    private void ejecutarCalculoMora() {
         log.info("\n=== INICIO DE CÁLCULO DE MORA - {}", LocalDateTime.now());
         
         if (!moraHabilitada) {
@@ -98,153 +136,229 @@ public class PrestamoScheduler {
         }
         
         LocalDate hoy = LocalDate.now();
-        log.info("Buscando préstamos vencidos antes de: {}", hoy);
         
         try {
-            // 1. Actualizar estado de préstamos aprobados vencidos a VENCIDO
-            log.info("\n=== PASO 1: Actualizando préstamos vencidos");
-            actualizarPrestamosVencidos(hoy);
-            
-            // 2. Calcular mora para préstamos vencidos o en mora
-            log.info("\n=== PASO 2: Calculando mora para préstamos vencidos");
-            calcularMoraPrestamosVencidos(hoy);
-            
-            log.info("\n=== CÁLCULO DE MORA COMPLETADO - ÉXITO");
+            if (ejecutarEtapas(hoy, MoraBatchSeguimiento.NINGUNO)) {
+                log.info("\n=== CÁLCULO DE MORA COMPLETADO - ÉXITO");
+            }
         } catch (Exception e) {
             log.error("\n=== ERROR EN EL CÁLCULO DE MORA: {}", e.getMessage(), e);
         } finally {
             log.info("\n=== FIN DE EJECUCIÓN ===\n");
         }
     }
-    
+
     /**
-     * Actualiza el estado de los préstamos vencidos y prepara el cálculo de mora.
+     * Recalcula la mora de una fecha de negocio a petición (p. ej. para recuperar días no procesados).
      * 
-     * <p>Este método realiza dos operaciones principales:</p>
-     * <ol>
-     *   <li>Marca como VENCIDO los préstamos APROBADOS que han superado su fecha de vencimiento</li>
-     *   <li>Identifica préstamos VENCIDOS que requieren actualización de mora</li>
-     * </ol>
+     * <p>Ejecuta las mismas etapas y con el mismo motor que la tarea programada, pero no toma el
+     * {@link SchedulerLock}: el llamador debe ejecutarlo dentro del bloqueo {@code mora-diaria}.</p>
      * 
-     * @param hoy Fecha de referencia para el cálculo de vencimientos
-     * @throws RuntimeException Si ocurre un error durante el procesamiento
+     * @param fecha Fecha de negocio a procesar
+     * @param seguimiento Recibe el avance por lote y puede detener el cálculo entre lotes
+     * @return {@code true} si se ejecutaron las etapas, {@code false} si la fecha ya estaba completada
+     * @throws CancellationException Si el seguimiento se canceló; la fecha queda pendiente en el libro
      */
-    private void actualizarPrestamosVencidos(LocalDate hoy) {
+    public boolean recalcularMora(LocalDate fecha, MoraBatchSeguimiento seguimiento) {
+        return ejecutarEtapas(fecha, seguimiento);
+    }
+
+    /**
+     * Ejecuta las etapas del cálculo de mora de una fecha de negocio.
+     * 
+     * <p>Si la fecha ya está completada no hace nada. Si una ejecución anterior se interrumpió,
+     * continúa a partir de la etapa siguiente a la última registrada. Una etapa cancelada no se
+     * registra, de modo que la siguiente ejecución de la fecha la repite.</p>
+     *
+     * <p>Al terminar, aunque sea con error, publica {@link CarteraRecalculadaEvent}: las etapas
+     * ya ejecutadas pudieron cambiar cualquier préstamo.</p>
+     * 
+     * @param fecha Fecha de negocio a procesar
+     * @param seguimiento Seguimiento de cada fase
+     * @return {@code true} si se ejecutaron las etapas, {@code false} si la fecha ya estaba completada
+     */
+    private boolean ejecutarEtapas(LocalDate fecha, MoraBatchSeguimiento seguimiento) {
+        Optional<MoraRun> pendiente = moraRunLedger.iniciar(fecha);
+        if (pendiente.isEmpty()) {
+            log.info("El cálculo de mora del {} ya está completado; no hay nada que hacer", fecha);
+            return false;
+        }
+        EtapaMora ultimaEtapa = pendiente.get().getUltimaEtapa();
+        if (usaRueda()) {
+            ruedaVencimientos.sincronizar();
+        }
+
         try {
-            // 1. Buscar préstamos aprobados que ya vencieron
-            log.info("Buscando préstamos APROBADOS vencidos antes de: {}", hoy);
-            List<Prestamo> prestamosPorVencer = prestamoRepository.findAprobadosVencidos(hoy);
-            
-            log.info("Encontrados {} préstamos para marcar como VENCIDO", prestamosPorVencer.size());
-            
-            for (Prestamo prestamo : prestamosPorVencer) {
-                try {
-                    log.info("Actualizando préstamo {} a estado VENCIDO (venció el {})", 
-                        prestamo.getId(), prestamo.getFechaVencimiento());
-                        
-                    // Guardar la fecha de vencimiento como fecha de último cálculo
-                    prestamo.setEstado(EstadoPrestamo.VENCIDO);
-                    prestamo.setFechaUltimoCalculoMora(prestamo.getFechaVencimiento());
-                    prestamo = prestamoRepository.save(prestamo);
-                    
-                    log.info("✓ Préstamo {} actualizado a estado VENCIDO exitosamente", prestamo.getId());
-                } catch (Exception e) {
-                    log.error("✗ Error actualizando estado del préstamo {}: {}", 
-                        prestamo.getId(), e.getMessage(), e);
+            for (EtapaMora etapa : EtapaMora.values()) {
+                if (ultimaEtapa != null && etapa.ordinal() <= ultimaEtapa.ordinal()) {
+                    log.info("Etapa {} ya completada para el {}", etapa, fecha);
+                    continue;
                 }
-            }
-            
-            // 2. Buscar préstamos VENCIDOS que necesitan actualización de mora
-            log.info("\nBuscando préstamos VENCIDOS que necesitan actualización de mora...");
-            List<Prestamo> vencidosSinMoraActualizada = prestamoRepository.findVencidosSinMoraActualizada(hoy);
-            log.info("Encontrados {} préstamos VENCIDOS sin mora actualizada", vencidosSinMoraActualizada.size());
-            
-            for (Prestamo prestamo : vencidosSinMoraActualizada) {
-                try {
-                    log.info("\n--- Recalculando mora para préstamo VENCIDO {} ---", prestamo.getId());
-                    log.info("Último cálculo: {}", prestamo.getFechaUltimoCalculoMora());
-                    log.info("Días mora actuales: {}", prestamo.getDiasMora());
-                    log.info("Mora acumulada: {}", prestamo.getMoraAcumulada());
-                    
-                    // Forzar recálculo de mora
-                    calcularMoraParaPrestamo(prestamo, hoy);
-                    
-                    log.info("✓ Mora recalculada para préstamo {}", prestamo.getId());
-                } catch (Exception e) {
-                    log.error("✗ Error recalculando mora para préstamo {}: {}", 
-                        prestamo.getId(), e.getMessage(), e);
+                log.info("\n=== ETAPA {}: {}", etapa.ordinal() + 1, etapa);
+                List<MoraBatchResultado> resultados = ejecutarEtapa(etapa, fecha, seguimiento);
+                if (seguimiento.cancelado()) {
+                    throw new CancellationException("Cálculo de mora del " + fecha + " cancelado en la etapa " + etapa);
                 }
+                moraRunLedger.registrarEtapa(fecha, etapa, resultados);
             }
-        } catch (Exception e) {
-            log.error("✗ Error en actualizarPrestamosVencidos: {}", e.getMessage(), e);
-            throw e;
+        } finally {
+            eventPublisher.publishEvent(new CarteraRecalculadaEvent(fecha));
+        }
+
+        moraRunLedger.completar(fecha);
+        return true;
+    }
+
+    private List<MoraBatchResultado> ejecutarEtapa(EtapaMora etapa, LocalDate fecha, MoraBatchSeguimiento seguimiento) {
+        List<MoraBatchResultado> resultados = switch (etapa) {
+            case MARCAR_VENCIDOS -> List.of(marcarPrestamosVencidos(fecha, seguimiento));
+            case ACUMULAR_MORA -> List.of(recalcularPrestamosVencidos(fecha, seguimiento),
+                    calcularMoraPrestamosVencidos(fecha, seguimiento));
+            case RECALCULAR_DEUDA -> List.of(recalcularDeudaPrestamosConMora(fecha, seguimiento));
+        };
+        // En modo SQL cada fase es una sola sentencia: el avance se notifica al terminarla
+        if (moraModo == MoraModo.SQL) {
+            resultados.forEach(resultado -> seguimiento.loteProcesado(
+                    (int) resultado.getProcesados(), (int) resultado.getErrores()));
         }
+        return resultados;
+    }
+    
+    /**
+     * Marca como VENCIDO los préstamos APROBADOS que han superado su fecha de vencimiento.
+     * 
+     * @param hoy Fecha de referencia para el cálculo de vencimientos
+     * @param seguimiento Seguimiento de la fase
+     * @return Resumen de la fase
+     */
+    private MoraBatchResultado marcarPrestamosVencidos(LocalDate hoy, MoraBatchSeguimiento seguimiento) {
+        if (moraModo == MoraModo.SQL) {
+            return moraSqlEngine.marcarVencidos(hoy);
+        }
+
+        log.info("Buscando préstamos APROBADOS vencidos antes de: {}", hoy);
+        MoraBatchEngine.FuenteIds fuente = usaRueda()
+                ? RuedaVencimientos.fuente(ruedaVencimientos.vencidosHasta(hoy))
+                : (despuesDeId, lote) -> prestamoRepository.findIdsPorEstadoVencidos(
+                        EstadoPrestamo.APROBADO, hoy, despuesDeId, lote);
+        return moraBatchEngine.procesar(hoy, "marcar-vencidos", fuente,
+                conRueda(prestamo -> marcarComoVencido(prestamo, hoy)), seguimiento);
+    }
+
+    /**
+     * Recalcula la mora de los préstamos VENCIDOS que no la tienen actualizada.
+     * 
+     * @param hoy Fecha de referencia para el cálculo de mora
+     * @param seguimiento Seguimiento de la fase
+     * @return Resumen de la fase
+     */
+    private MoraBatchResultado recalcularPrestamosVencidos(LocalDate hoy, MoraBatchSeguimiento seguimiento) {
+        if (moraModo == MoraModo.SQL) {
+            return moraSqlEngine.recalcularVencidos(hoy, porcentajeMoraDiario, diasGracia);
+        }
+
+        log.info("\nBuscando préstamos VENCIDOS que necesitan actualización de mora...");
+        // Con la rueda, solo los VENCIDOS cuyo primer día de mora ya llegó: en los días de gracia no cambian
+        MoraBatchEngine.FuenteIds fuente = usaRueda()
+                ? RuedaVencimientos.fuente(ruedaVencimientos.iniciosMoraHasta(hoy))
+                : (despuesDeId, lote) -> prestamoRepository.findIdsVencidosSinMoraActualizada(
+                        hoy, despuesDeId, lote);
+        return moraBatchEngine.procesar(hoy, "recalcular-vencidos", fuente,
+                conRueda(prestamo -> calcularMoraParaPrestamo(prestamo, hoy)), seguimiento);
+    }
+
+    /**
+     * Las fases de transición usan la rueda de vencimientos en modo ENTIDAD; en modo SQL cada fase
+     * es una sola sentencia y no la necesita.
+     */
+    private boolean usaRueda() {
+        return moraModo == MoraModo.ENTIDAD && ruedaVencimientos.isHabilitada();
+    }
+
+    /** Recoloca en la rueda cada préstamo procesado por la acción, al confirmarse su lote */
+    private Consumer<Prestamo> conRueda(Consumer<Prestamo> accion) {
+        return prestamo -> {
+            accion.accept(prestamo);
+            ruedaVencimientos.actualizar(prestamo);
+        };
+    }
+
+    /**
+     * Marca un préstamo como VENCIDO tomando su fecha de vencimiento como último cálculo de mora.
+     * Un préstamo que ya no está APROBADO o aún no venció se deja como está.
+     *
+     * @param prestamo Préstamo APROBADO cuya fecha de vencimiento ya pasó
+     * @param hoy Fecha de referencia para el cálculo de vencimientos
+     */
+    private void marcarComoVencido(Prestamo prestamo, LocalDate hoy) {
+        if (prestamo.getEstado() != EstadoPrestamo.APROBADO || prestamo.getFechaVencimiento().isAfter(hoy)) {
+            return;
+        }
+        log.info("Actualizando préstamo {} a estado VENCIDO (venció el {})", 
+            prestamo.getId(), prestamo.getFechaVencimiento());
+        prestamo.setEstado(EstadoPrestamo.VENCIDO);
+        prestamo.setFechaUltimoCalculoMora(prestamo.getFechaVencimiento());
+        prestamoRepository.save(prestamo);
     }
     
     /**
      * Calcula y aplica mora a los préstamos vencidos.
      * 
-     * <p>Este método:</p>
-     * <ul>
-     *   <li>Busca préstamos que requieren cálculo de mora</li>
-     *   <li>Aplica el cálculo de mora a cada préstamo</li>
-     *   <li>Proporciona un resumen de la operación</li>
-     * </ul>
+     * <p>Los préstamos se recorren por lotes ordenados por id; cada lote se confirma
+     * en su propia transacción y el resumen de la operación se obtiene del motor de lotes.</p>
      * 
      * @param hoy Fecha de referencia para el cálculo de mora
-     * @throws RuntimeException Si ocurre un error durante el procesamiento
+     * @param seguimiento Seguimiento de la fase
+     * @return Resumen de la fase
      */
-    private void calcularMoraPrestamosVencidos(LocalDate hoy) {
-        try {
-            log.info("\n=== BUSCANDO PRÉSTAMOS PARA CÁLCULO DE MORA ===");
-            log.info("Fecha actual: {}", hoy);
-            log.info("Días de gracia: {}", diasGracia);
-            
-            // Buscar préstamos que necesiten cálculo de mora
-            List<Prestamo> prestamosVencidos = prestamoRepository.findByEstadoInAndFechaVencimientoBefore(
-                List.of(EstadoPrestamo.VENCIDO.name(), EstadoPrestamo.EN_MORA.name(), EstadoPrestamo.APROBADO.name()),
-                hoy.minusDays(diasGracia) // Considerar días de gracia
-            );
-            
-            log.info("Encontrados {} préstamos para calcular mora", prestamosVencidos.size());
-            
-            if (prestamosVencidos.isEmpty()) {
-                log.info("No hay préstamos que requieran cálculo de mora");
-                return;
-            }
+    private MoraBatchResultado calcularMoraPrestamosVencidos(LocalDate hoy, MoraBatchSeguimiento seguimiento) {
+        log.info("\n=== BUSCANDO PRÉSTAMOS PARA CÁLCULO DE MORA ===");
+        log.info("Fecha actual: {}", hoy);
+        log.info("Días de gracia: {}", diasGracia);
+        
+        // Considerar días de gracia
+        LocalDate fechaLimite = hoy.minusDays(diasGracia);
+        MoraBatchResultado resultado = moraModo == MoraModo.SQL
+                ? moraSqlEngine.acumularMora(hoy, porcentajeMoraDiario, diasGracia)
+                : moraBatchEngine.procesar(hoy, "acumular-mora",
+                        (despuesDeId, lote) -> prestamoRepository.findIdsPorEstadosYFechaVencimiento(
+                                ESTADOS_CALCULO_MORA, fechaLimite, despuesDeId, lote),
+                        conRueda(prestamo -> calcularMoraParaPrestamo(prestamo, hoy)), seguimiento);
+        
+        log.info("\n=== RESUMEN DE CÁLCULO DE MORA ===");
+        log.info("Total de préstamos procesados: {}", resultado.getProcesados());
+        log.info("Préstamos con errores: {}", resultado.getErrores());
+        log.info("Lotes revertidos: {}", resultado.getLotesFallidos());
+        return resultado;
+    }
 
-            int contadorProcesados = 0;
-            int contadorConMora = 0;
-            
-            for (Prestamo prestamo : prestamosVencidos) {
-                try {
-                    log.info("\n--- Procesando préstamo ID: {} ---", prestamo.getId());
-                    log.info("Estado actual: {}", prestamo.getEstado());
-                    log.info("Fecha vencimiento: {}", prestamo.getFechaVencimiento());
-                    log.info("Días mora actuales: {}", prestamo.getDiasMora());
-                    log.info("Último cálculo mora: {}", prestamo.getFechaUltimoCalculoMora());
-                    
-                    // Calcular mora para este préstamo
-                    calcularMoraParaPrestamo(prestamo, hoy);
-                    contadorProcesados++;
-                    contadorConMora++;
-                    
-                    log.info("✓ Préstamo {} procesado exitosamente", prestamo.getId());
-                } catch (Exception e) {
-                    log.error("✗ Error procesando préstamo {}: {}", 
-                        prestamo.getId(), e.getMessage(), e);
-                }
-            }
-            
-            log.info("\n=== RESUMEN DE CÁLCULO DE MORA ===");
-            log.info("Total de préstamos procesados: {}", contadorProcesados);
-            log.info("Préstamos con mora aplicada: {}", contadorConMora);
-            log.info("Préstamos con errores: {}", (prestamosVencidos.size() - contadorProcesados));
-            
-        } catch (Exception e) {
-            log.error("✗ Error en calcularMoraPrestamosVencidos: {}", e.getMessage(), e);
-            throw e;
+    /**
+     * Recalcula la deuda restante de los préstamos a los que se aplicó mora en la fecha.
+     * 
+     * @param hoy Fecha en la que se aplicó la mora
+     * @param seguimiento Seguimiento de la fase
+     * @return Resumen de la fase
+     */
+    private MoraBatchResultado recalcularDeudaPrestamosConMora(LocalDate hoy, MoraBatchSeguimiento seguimiento) {
+        if (moraModo == MoraModo.SQL) {
+            return moraSqlEngine.recalcularDeuda(hoy);
         }
+
+        return moraBatchEngine.procesar(hoy, "recalcular-deuda",
+                (despuesDeId, lote) -> prestamoRepository.findIdsConMoraAplicadaEn(hoy, despuesDeId, lote),
+                this::recalcularDeuda, seguimiento);
+    }
+
+    /**
+     * Deuda restante = capital pendiente (monto menos total pagado, nunca negativo) + mora acumulada.
+     *
+     * @param prestamo Préstamo con mora aplicada
+     */
+    private void recalcularDeuda(Prestamo prestamo) {
+        BigDecimal capitalPendiente = prestamo.getMonto().subtract(prestamo.getTotalPagado()).max(BigDecimal.ZERO);
+
+        prestamo.setDeudaRestante(capitalPendiente.add(prestamo.getMoraAcumulada()));
+        prestamoRepository.save(prestamo);
     }
     
     /**
@@ -348,7 +462,6 @@ public class PrestamoScheduler {
                 log.info("\n✅ Mora aplicada exitosamente al préstamo {}", prestamo.getId());
                 log.info("✅ Días de mora actualizados a: {}", prestamo.getDiasMora());
                 log.info("✅ Mora acumulada: {}", prestamo.getMoraAcumulada());
-                log.info("✅ Deuda restante: {}", prestamo.getDeudaRestante());
             } else {
                 log.info("ℹ️ No hay días de mora para calcular para el préstamo {}", prestamo.getId());
                 log.info("ℹ️ Fecha de referencia: {}", fechaReferencia);
@@ -368,7 +481,6 @@ public class PrestamoScheduler {
      * Calcula el monto de mora diaria para un monto dado.
      *   <li>Días de mora</li>
      *   <li>Mora acumulada</li>
-     *   <li>Deuda restante</li>
      *   <li>Fechas de último cálculo</li>
      *   <li>Estado (a EN_MORA si corresponde)</li>
      * </ul>
@@ -395,27 +507,6 @@ public class PrestamoScheduler {
             prestamo.setFechaUltimoCalculoMora(hoy);
             prestamo.setFechaUltimaMora(hoy);
             
-            // Calcular la deuda restante (capital pendiente + intereses + mora)
-            BigDecimal capitalPendiente = prestamo.getMonto();
-            BigDecimal intereses = BigDecimal.ZERO; // Asumiendo que los intereses ya están incluidos en el monto
-            
-            // Si hay pagos, restarlos del capital pendiente
-            if (prestamo.getPagos() != null && !prestamo.getPagos().isEmpty()) {
-                BigDecimal totalPagado = prestamo.getPagos().stream()
-                    .map(Pago::getMonto)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                capitalPendiente = capitalPendiente.subtract(totalPagado);
-            }
-            
-            // Asegurarse de que el capital pendiente no sea negativo
-            capitalPendiente = capitalPendiente.max(BigDecimal.ZERO);
-            
-            // Calcular deuda total (capital pendiente + mora acumulada)
-            BigDecimal deudaTotal = capitalPendiente.add(intereses).add(moraTotal);
-            
-            // Actualizar deuda restante
-            prestamo.setDeudaRestante(deudaTotal);
-            
             // Cambiar estado a EN_MORA si aún no lo está
             if (prestamo.getEstado() != EstadoPrestamo.EN_MORA) {
                 log.info("Cambiando estado de {} a EN_MORA", prestamo.getEstado());
@@ -442,7 +533,6 @@ public class PrestamoScheduler {
             log.info("Nuevo estado: {}", prestamoActualizado.getEstado());
             log.info("Total de días de mora: {}", prestamoActualizado.getDiasMora());
             log.info("Total mora acumulada: {}", prestamoActualizado.getMoraAcumulada());
-            log.info("Deuda restante: {}", prestamoActualizado.getDeudaRestante());
             
         } catch (Exception e) {
             log.error("✗ Error actualizando préstamo {}: {}", 
@@ -451,21 +541,6 @@ public class PrestamoScheduler {
         }
     }
     
-    /**
-     * Tarea programada para actualizar el estado de préstamos vencidos.
-     * 
-     * <p>Esta tarea se ejecuta diariamente al mediodía y realiza las siguientes acciones:</p>
-     * <ol>
-     *   <li>Busca préstamos PENDIENTES que hayan vencido</li>
-     *   <li>Actualiza su estado a VENCIDO</li>
-     *   <li>Aplica el interés moratorio correspondiente</li>
-     * </ol>
-     * 
-     * <p>Frecuencia de ejecución: Diario a las 12:00 PM</p>
-     * 
-     * @implNote Esta tarea está diseñada para ejecutarse en un entorno de producción
-     * con menor frecuencia que el cálculo de mora, ya que solo actualiza estados.
-     */
     /**
      * Calcula el monto de mora diaria para un préstamo.
      * 
@@ -489,87 +564,6 @@ public class PrestamoScheduler {
                  
         return moraDiaria;
     }
-    
-    @Scheduled(cron = "0 0 12 * * ?") // Se ejecuta todos los días al mediodía
-    @Transactional
-    public void actualizarEstadosPrestamosVencidos() {
-        log.info("Iniciando verificación de préstamos vencidos");
-        try {
-            // Buscar préstamos que están en estado PENDIENTE y cuya fecha de vencimiento sea hoy o anterior
-            List<Prestamo> prestamosVencidos = prestamoRepository.findByEstadoInAndFechaVencimientoBefore(
-                List.of("PENDIENTE"),
-                LocalDate.now()
-            );
-
-            if (prestamosVencidos.isEmpty()) {
-                log.debug("No se encontraron préstamos vencidos para actualizar");
-                return;
-            }
-
-            for (Prestamo prestamo : prestamosVencidos) {
-                try {
-                    // Actualizar el estado del préstamo a VENCIDO
-                    log.info("Actualizando préstamo {} a estado VENCIDO", prestamo.getId());
-                    prestamoService.actualizarEstado(prestamo.getId(), new EstadoModel("VENCIDO"));
-
-                    // Calcular y aplicar interés moratorio
-                    if (!prestamo.getInteresMoratorioAplicado()) {
-                        aplicarInteresMoratorio(prestamo);
-                    }
-                } catch (Exception e) {
-                    log.error("Error procesando préstamo {}: {}", prestamo.getId(), e.getMessage());
-                }
-            }
-
-            log.info("Proceso de actualización de préstamos vencidos completado");
-        } catch (Exception e) {
-            log.error("Error general en el scheduler: {}", e.getMessage());
-        }
-    }
-
-    /**
-     * Aplica el interés moratorio a un préstamo vencido.
-     * 
-     * <p>Este método calcula y aplica el interés moratorio a la deuda restante
-     * del préstamo, actualizando los campos correspondientes.</p>
-     * 
-     * @param prestamo Préstamo al que se aplicará el interés moratorio
-     * @throws IllegalArgumentException Si el préstamo es nulo
-     * @throws IllegalStateException Si el préstamo no está en estado VENCIDO
-     */
-    private void aplicarInteresMoratorio(Prestamo prestamo) {
-        try {
-            // Asegurarse de que deudaRestante no sea nulo
-            BigDecimal deudaRestante = prestamo.getDeudaRestante() != null ? 
-                prestamo.getDeudaRestante() : BigDecimal.ZERO;
-                
-            // Asegurarse de que interesMoratorio no sea nulo
-            BigDecimal interesMoratorioPorcentaje = prestamo.getInteresMoratorio() != null ?
-                prestamo.getInteresMoratorio() : BigDecimal.ZERO;
-            
-            // Calcular el interés moratorio
-            BigDecimal interesMoratorio = deudaRestante
-                    .multiply(interesMoratorioPorcentaje)
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-
-            // Actualizar el préstamo con el interés moratorio
-            prestamo.setSaldoMoratorio(interesMoratorio);
-            prestamo.setInteresMoratorioAplicado(true);
-            
-            // Actualizar la deuda restante incluyendo el interés moratorio
-            BigDecimal nuevaDeuda = deudaRestante.add(interesMoratorio);
-            prestamo.setDeudaRestante(nuevaDeuda);
-            
-            prestamoRepository.save(prestamo);
-
-            log.info("Aplicado interés moratorio de {} al préstamo {} con deuda restante {}",
-                interesMoratorio, prestamo.getId(), deudaRestante);
-            prestamo.setInteresMoratorioAplicado(true);
-            prestamoRepository.save(prestamo);
-        } catch (Exception e) {
-            log.error("Error aplicando interés moratorio al préstamo {}: {}", prestamo.getId(), e.getMessage());
-        }
-    }
 }
 
 
@@ -0,0 +1,48 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Refresca la vista materializada {@code portafolio_resumen} de {@code GET /portafolio/resumen}.
+ *
+ * <p>Se refresca al terminar cada proceso masivo ({@link CarteraRecalculadaEvent}: cálculo de mora,
+ * conciliación) y cada {@code prestamo.portafolio.refresco} para recoger
+ * los préstamos y pagos registrados entre medias. {@code CONCURRENTLY} calcula la vista aparte y
+ * aplica solo las filas que cambian, sin bloquear las lecturas del resumen. Con varios nodos,
+ * {@link SchedulerLock} hace que solo uno refresque a la vez.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefrescoPortafolio {
+
+    static final String SQL_REFRESCAR = "REFRESH MATERIALIZED VIEW CONCURRENTLY portafolio_resumen";
+
+    private static final String TAREA = "portafolio-resumen";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLock schedulerLock;
+
+    @Scheduled(fixedDelayString = "${prestamo.portafolio.refresco:60s}",
+               initialDelayString = "${prestamo.portafolio.refresco:60s}")
+    public void refrescarProgramado() {
+        schedulerLock.ejecutar(TAREA, this::refrescar);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecalcularCartera(CarteraRecalculadaEvent evento) {
+        schedulerLock.ejecutar(TAREA, this::refrescar);
+    }
+
+    public void refrescar() {
+        long inicio = System.currentTimeMillis();
+        jdbcTemplate.execute(SQL_REFRESCAR);
+        log.debug("Resumen de la cartera refrescado en {} ms", System.currentTimeMillis() - inicio);
+    }
+}
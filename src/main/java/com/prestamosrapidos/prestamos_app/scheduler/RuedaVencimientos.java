@@ -0,0 +1,260 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository.VencimientoPrestamo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice en memoria de los préstamos que cambian de estado en una fecha, agrupados en casillas
+ * de un día (rueda de vencimientos).
+ *
+ * <p>Cada préstamo pendiente de una transición ocupa una sola casilla:</p>
+ * <ul>
+ *   <li>Los APROBADOS, la de su {@code fechaVencimiento} (paso a VENCIDO)</li>
+ *   <li>Los VENCIDOS, la del primer día con mora: vencimiento + días de gracia + 1 (paso a EN_MORA),
+ *       o la del vencimiento si ya tienen días de mora acumulados</li>
+ * </ul>
+ *
+ * <p>Así las fases de transición de {@link PrestamoScheduler} recorren solo los préstamos de las
+ * casillas que ya llegaron (normalmente la de hoy) en lugar de consultar toda la cartera.
+ * La rueda se carga al arrancar con una proyección de id, estado, vencimiento y días de mora, y se mantiene al
+ * día de dos maneras:</p>
+ * <ul>
+ *   <li>Los servicios y el propio cálculo avisan cada préstamo creado o modificado con
+ *       {@link #actualizar(Prestamo)}, que se aplica al confirmarse la transacción</li>
+ *   <li>Antes de cada ejecución, {@link #sincronizar()} relee los préstamos modificados desde la
+ *       sincronización anterior, incluidos los modificados en otros nodos</li>
+ * </ul>
+ *
+ * <p>Las casillas son solo una guía: cada fase vuelve a comprobar el estado y el vencimiento del
+ * préstamo antes de cambiarlo.</p>
+ */
+@Slf4j
+@Component
+public class RuedaVencimientos {
+
+    /** Estados con una transición pendiente */
+    private static final List<EstadoPrestamo> ESTADOS_INDEXADOS = List.of(EstadoPrestamo.APROBADO, EstadoPrestamo.VENCIDO);
+
+    /** Tamaño de página al cargar la rueda */
+    private static final int LOTE_CARGA = 10_000;
+
+    private final PrestamoRepository prestamoRepository;
+
+    /** Préstamos APROBADOS por fecha de vencimiento */
+    private final NavigableMap<LocalDate, Set<Long>> vencimientos = new TreeMap<>();
+
+    /** Préstamos VENCIDOS por primer día de mora */
+    private final NavigableMap<LocalDate, Set<Long>> iniciosMora = new TreeMap<>();
+
+    /** Casilla que ocupa cada préstamo indexado, para moverlo o quitarlo sin recorrer la rueda */
+    private final Map<Long, LocalDate> casillaVencimiento = new HashMap<>();
+    private final Map<Long, LocalDate> casillaInicioMora = new HashMap<>();
+
+    private volatile boolean cargada;
+    private LocalDateTime sincronizadaHasta;
+
+    /**
+     * Habilita la rueda; deshabilitada, las fases de transición consultan la cartera completa.
+     * Valor configurable mediante la propiedad 'prestamo.mora.rueda.habilitada' (default: true)
+     */
+    @Value("${prestamo.mora.rueda.habilitada:true}")
+    private boolean habilitada = true;
+
+    /**
+     * Margen con el que se relee la ventana anterior al sincronizar, para cubrir transacciones que
+     * confirmaron tarde y diferencias de reloj entre nodos.
+     * Valor configurable mediante la propiedad 'prestamo.mora.rueda.margen-sincronizacion-minutos' (default: 10)
+     */
+    @Value("${prestamo.mora.rueda.margen-sincronizacion-minutos:10}")
+    private long margenSincronizacionMinutos = 10;
+
+    @Value("${prestamo.mora.dias-gracia:0}")
+    private int diasGracia;
+
+    public RuedaVencimientos(PrestamoRepository prestamoRepository) {
+        this.prestamoRepository = prestamoRepository;
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    /**
+     * Carga la rueda con todos los préstamos APROBADOS y VENCIDOS, recorridos por keyset.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        if (!habilitada) {
+            return;
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+        PageRequest lote = PageRequest.of(0, LOTE_CARGA);
+        Long ultimoId = 0L;
+        int total = 0;
+
+        synchronized (this) {
+            vencimientos.clear();
+            iniciosMora.clear();
+            casillaVencimiento.clear();
+            casillaInicioMora.clear();
+            List<VencimientoPrestamo> pagina;
+            do {
+                pagina = prestamoRepository.findVencimientosPorEstados(ESTADOS_INDEXADOS, ultimoId, lote);
+                pagina.forEach(this::colocar);
+                total += pagina.size();
+                if (!pagina.isEmpty()) {
+                    ultimoId = pagina.get(pagina.size() - 1).getId();
+                }
+            } while (pagina.size() == LOTE_CARGA);
+            sincronizadaHasta = inicio;
+            cargada = true;
+        }
+        log.info("Rueda de vencimientos cargada: {} préstamos en {} casillas de vencimiento y {} de inicio de mora",
+                total, vencimientos.size(), iniciosMora.size());
+    }
+
+    /**
+     * Incorpora los préstamos modificados desde la sincronización anterior (o carga la rueda si aún no
+     * se cargó). Se llama antes de cada ejecución del cálculo de mora.
+     */
+    public void sincronizar() {
+        if (!habilitada) {
+            return;
+        }
+        if (!cargada) {
+            cargar();
+            return;
+        }
+        LocalDateTime inicio = LocalDateTime.now();
+        LocalDateTime desde;
+        synchronized (this) {
+            desde = sincronizadaHasta.minusMinutes(margenSincronizacionMinutos);
+        }
+        List<VencimientoPrestamo> modificados = prestamoRepository.findVencimientosModificadosDesde(desde);
+        synchronized (this) {
+            modificados.forEach(this::colocar);
+            sincronizadaHasta = inicio;
+        }
+        log.debug("Rueda de vencimientos sincronizada con {} préstamos modificados desde {}", modificados.size(), desde);
+    }
+
+    /**
+     * Recoloca un préstamo según su estado y vencimiento. Dentro de una transacción se aplica al
+     * confirmarse, de modo que un lote revertido deja sus préstamos en la casilla que tenían.
+     */
+    public void actualizar(Prestamo prestamo) {
+        if (!habilitada || prestamo == null || prestamo.getId() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    colocar(prestamo.getId(), prestamo.getEstado(), prestamo.getFechaVencimiento(), prestamo.getDiasMora());
+                }
+            });
+        } else {
+            colocar(prestamo.getId(), prestamo.getEstado(), prestamo.getFechaVencimiento(), prestamo.getDiasMora());
+        }
+    }
+
+    /**
+     * Quita un préstamo eliminado de la rueda.
+     */
+    public synchronized void quitar(Long id) {
+        sacar(vencimientos, casillaVencimiento, id);
+        sacar(iniciosMora, casillaInicioMora, id);
+    }
+
+    /**
+     * Préstamos APROBADOS con vencimiento hasta la fecha indicada, ordenados por id.
+     */
+    public List<Long> vencidosHasta(LocalDate fecha) {
+        return idsHasta(vencimientos, fecha);
+    }
+
+    /**
+     * Préstamos VENCIDOS cuyo primer día de mora llegó a la fecha indicada, ordenados por id.
+     */
+    public List<Long> iniciosMoraHasta(LocalDate fecha) {
+        return idsHasta(iniciosMora, fecha);
+    }
+
+    /**
+     * Fuente keyset del {@link MoraBatchEngine} sobre una lista de ids ordenada.
+     */
+    public static MoraBatchEngine.FuenteIds fuente(List<Long> idsOrdenados) {
+        return (despuesDeId, lote) -> {
+            int desde = Collections.binarySearch(idsOrdenados, despuesDeId);
+            desde = desde >= 0 ? desde + 1 : -desde - 1;
+            int hasta = Math.min(idsOrdenados.size(), desde + lote.getPageSize());
+            return desde >= hasta ? List.of() : idsOrdenados.subList(desde, hasta);
+        };
+    }
+
+    private synchronized List<Long> idsHasta(NavigableMap<LocalDate, Set<Long>> casillas, LocalDate fecha) {
+        List<Long> ids = new ArrayList<>();
+        casillas.headMap(fecha, true).values().forEach(ids::addAll);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private void colocar(VencimientoPrestamo vencimiento) {
+        colocar(vencimiento.getId(), vencimiento.getEstado(), vencimiento.getFechaVencimiento(), vencimiento.getDiasMora());
+    }
+
+    private synchronized void colocar(Long id, EstadoPrestamo estado, LocalDate fechaVencimiento, Integer diasMora) {
+        sacar(vencimientos, casillaVencimiento, id);
+        sacar(iniciosMora, casillaInicioMora, id);
+        if (fechaVencimiento == null) {
+            return;
+        }
+        if (estado == EstadoPrestamo.APROBADO) {
+            meter(vencimientos, casillaVencimiento, id, fechaVencimiento);
+        } else if (estado == EstadoPrestamo.VENCIDO) {
+            // Con días de mora ya acumulados el cálculo lo actualiza desde el día del vencimiento
+            boolean conMora = diasMora != null && diasMora > 0;
+            meter(iniciosMora, casillaInicioMora, id, conMora ? fechaVencimiento : fechaVencimiento.plusDays(diasGracia + 1L));
+        }
+    }
+
+    private static void meter(NavigableMap<LocalDate, Set<Long>> casillas, Map<Long, LocalDate> casillaPorId,
+                              Long id, LocalDate fecha) {
+        casillas.computeIfAbsent(fecha, f -> new HashSet<>()).add(id);
+        casillaPorId.put(id, fecha);
+    }
+
+    private static void sacar(NavigableMap<LocalDate, Set<Long>> casillas, Map<Long, LocalDate> casillaPorId, Long id) {
+        LocalDate fecha = casillaPorId.remove(id);
+        if (fecha == null) {
+            return;
+        }
+        Set<Long> casilla = casillas.get(fecha);
+        casilla.remove(id);
+        if (casilla.isEmpty()) {
+            casillas.remove(fecha);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.datasource.ContextoLectura;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bloqueo de tareas programadas entre nodos basado en advisory locks de PostgreSQL.
+ *
+ * <p>Cada nodo ejecuta sus tareas {@code @Scheduled} a la misma hora; con este bloqueo solo
+ * el nodo que obtiene {@code pg_try_advisory_lock} para la tarea la ejecuta y el resto la omite.</p>
+ *
+ * <ul>
+ *   <li>El bloqueo es de sesión y se mantiene en una conexión dedicada mientras dura la tarea,
+ *       por lo que la tarea puede confirmar tantas transacciones como necesite</li>
+ *   <li>Si el nodo se cae, PostgreSQL libera el bloqueo al cerrarse la conexión</li>
+ *   <li>Por cada tarea se registran adquisiciones, omisiones, errores y tiempo con el bloqueo tomado</li>
+ *   <li>Con réplica de lectura configurada, las tareas leen siempre de la primaria ({@link ContextoLectura})</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchedulerLock {
+
+    /** Espacio de claves de los advisory locks de tareas programadas ("PRES") */
+    static final int ESPACIO_CLAVES = 0x50524553;
+
+    private static final String SQL_BLOQUEAR = "SELECT pg_try_advisory_lock(?, hashtext(?))";
+    private static final String SQL_LIBERAR = "SELECT pg_advisory_unlock(?, hashtext(?))";
+
+    private final DataSource dataSource;
+
+    private final Map<String, SchedulerLockEstadisticas> estadisticas = new ConcurrentHashMap<>();
+
+    /**
+     * Bandera para habilitar/deshabilitar el bloqueo entre nodos (p. ej. con una base de datos distinta de PostgreSQL).
+     * Valor configurable mediante la propiedad 'prestamo.scheduler.bloqueo.habilitado' (default: true)
+     */
+    @Value("${prestamo.scheduler.bloqueo.habilitado:true}")
+    private boolean habilitado = true;
+
+    /**
+     * Ejecuta la tarea solo si este nodo obtiene el bloqueo de la tarea.
+     *
+     * @param tarea Nombre único de la tarea en el clúster
+     * @param accion Cuerpo de la tarea
+     * @return {@code true} si la tarea se ejecutó en este nodo, {@code false} si otro nodo la tiene bloqueada
+     */
+    public boolean ejecutar(String tarea, Runnable accion) {
+        SchedulerLockEstadisticas stats = estadisticas.computeIfAbsent(tarea, SchedulerLockEstadisticas::new);
+        if (!habilitado) {
+            ejecutarMidiendo(stats, accion);
+            return true;
+        }
+
+        Connection conexion;
+        try {
+            conexion = dataSource.getConnection();
+        } catch (SQLException e) {
+            stats.registrarError();
+            log.error("✗ No se pudo obtener conexión para bloquear la tarea '{}': {}", tarea, e.getMessage(), e);
+            return false;
+        }
+
+        try {
+            if (!consultar(conexion, SQL_BLOQUEAR, tarea)) {
+                stats.registrarOmision();
+                log.info("Tarea '{}' omitida: otro nodo tiene el bloqueo", tarea);
+                return false;
+            }
+            log.info("Bloqueo de la tarea '{}' adquirido", tarea);
+            try {
+                ejecutarMidiendo(stats, accion);
+            } finally {
+                liberar(conexion, tarea);
+            }
+            return true;
+        } catch (SQLException e) {
+            stats.registrarError();
+            log.error("✗ Error al bloquear la tarea '{}': {}", tarea, e.getMessage(), e);
+            return false;
+        } finally {
+            cerrar(conexion, tarea);
+        }
+    }
+
+    /**
+     * Métricas de cada tarea ejecutada a través del bloqueo, ordenadas por nombre.
+     */
+    public Map<String, SchedulerLockEstadisticas> getEstadisticas() {
+        return Collections.unmodifiableMap(new TreeMap<>(estadisticas));
+    }
+
+    private void ejecutarMidiendo(SchedulerLockEstadisticas stats, Runnable accion) {
+        stats.registrarInicio();
+        boolean exito = false;
+        try {
+            ContextoLectura.conPrimaria(accion);
+            exito = true;
+        } finally {
+            stats.registrarFin(exito);
+        }
+    }
+
+    private void liberar(Connection conexion, String tarea) {
+        try {
+            if (consultar(conexion, SQL_LIBERAR, tarea)) {
+                log.info("Bloqueo de la tarea '{}' liberado", tarea);
+                return;
+            }
+            log.warn("⚠️ El bloqueo de la tarea '{}' no estaba tomado por esta sesión", tarea);
+        } catch (SQLException e) {
+            log.error("✗ Error al liberar el bloqueo de la tarea '{}': {}", tarea, e.getMessage(), e);
+        }
+        // No devolver al pool una sesión que podría seguir reteniendo el bloqueo
+        try {
+            conexion.abort(Runnable::run);
+        } catch (SQLException e) {
+            log.error("✗ No se pudo descartar la conexión de la tarea '{}': {}", tarea, e.getMessage(), e);
+        }
+    }
+
+    private void cerrar(Connection conexion, String tarea) {
+        try {
+            conexion.close();
+        } catch (SQLException e) {
+            log.warn("⚠️ Error al cerrar la conexión de bloqueo de la tarea '{}': {}", tarea, e.getMessage());
+        }
+    }
+
+    private boolean consultar(Connection conexion, String sql, String tarea) throws SQLException {
+        try (PreparedStatement sentencia = conexion.prepareStatement(sql)) {
+            sentencia.setInt(1, ESPACIO_CLAVES);
+            sentencia.setString(2, tarea);
+            try (ResultSet rs = sentencia.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
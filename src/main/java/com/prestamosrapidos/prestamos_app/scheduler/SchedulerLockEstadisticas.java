@@ -0,0 +1,56 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Métricas de una tarea programada ejecutada a través del {@link SchedulerLock}.
+ */
+@Getter
+public class SchedulerLockEstadisticas {
+
+    private final String tarea;
+    private long adquisiciones;
+    private long omisiones;
+    private long errores;
+    private Instant ultimaAdquisicion;
+    private Duration ultimaDuracion = Duration.ZERO;
+    private Duration tiempoTotalBloqueado = Duration.ZERO;
+    private boolean enCurso;
+
+    SchedulerLockEstadisticas(String tarea) {
+        this.tarea = tarea;
+    }
+
+    synchronized void registrarInicio() {
+        adquisiciones++;
+        ultimaAdquisicion = Instant.now();
+        enCurso = true;
+    }
+
+    synchronized void registrarFin(boolean exito) {
+        ultimaDuracion = Duration.between(ultimaAdquisicion, Instant.now());
+        tiempoTotalBloqueado = tiempoTotalBloqueado.plus(ultimaDuracion);
+        enCurso = false;
+        if (!exito) {
+            errores++;
+        }
+    }
+
+    synchronized void registrarOmision() {
+        omisiones++;
+    }
+
+    synchronized void registrarError() {
+        errores++;
+    }
+
+    /**
+     * Tiempo que lleva tomado el bloqueo si la tarea está en curso, o {@link Duration#ZERO}.
+     */
+    public synchronized Duration getTiempoBloqueoActual() {
+        return enCurso ? Duration.between(ultimaAdquisicion, Instant.now()) : Duration.ZERO;
+    }
+}
@@ -1,12 +1,16 @@
 package com.prestamosrapidos.prestamos_app.service;
 
 import com.prestamosrapidos.prestamos_app.model.ClienteModel;
+import com.prestamosrapidos.prestamos_app.model.ClienteResumenModel;
+import com.prestamosrapidos.prestamos_app.model.PaginaModel;
+
+import java.util.Optional;
 
-import java.util.List;
 public interface ClienteService {
     ClienteModel crearCliente(ClienteModel clienteModel);
     ClienteModel actualizarCliente(Long id, ClienteModel clienteModel);
     ClienteModel obtenerClientePorId(Long id);
-    List<ClienteModel> obtenerTodosLosClientes();
+    Optional<String> obtenerVersionCliente(Long id);
+    PaginaModel<ClienteResumenModel> listarClientes(String cursor, int limite);
     void eliminarCliente(Long id);
 }
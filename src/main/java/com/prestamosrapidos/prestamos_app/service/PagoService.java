@@ -1,15 +1,19 @@
 package com.prestamosrapidos.prestamos_app.service;
 
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.model.PagoLoteResultadoModel;
 import com.prestamosrapidos.prestamos_app.model.PagoModel;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.util.List;
 
 public interface PagoService {
     PagoModel registrarPago(PagoModel pagoModel);
+    PagoLoteResultadoModel registrarPagosLote(List<PagoModel> pagos);
+    PagoLoteResultadoModel registrarPagosLoteCsv(Reader csv);
     List<PagoModel> obtenerPagosPorPrestamo(Long prestamoId);
     PagoModel obtenerPagoPorId(Long id);
     void eliminarPago(Long id);
@@ -0,0 +1,7 @@
+package com.prestamosrapidos.prestamos_app.service;
+
+import com.prestamosrapidos.prestamos_app.model.PortafolioResumenModel;
+
+public interface PortafolioService {
+    PortafolioResumenModel obtenerResumen();
+}
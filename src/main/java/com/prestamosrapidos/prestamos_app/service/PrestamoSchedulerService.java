@@ -1,14 +1,22 @@
 package com.prestamosrapidos.prestamos_app.service;
 
-import com.prestamosrapidos.prestamos_app.entity.Prestamo;
-import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.scheduler.FormatoSimulacion;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraRecalculoTrabajo;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulacionParametros;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulacionResumen;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 
 public interface PrestamoSchedulerService {
-    Map<String, Object> calcularMoraManual(LocalDate fechaCalculo);
+    MoraRecalculoTrabajo calcularMoraManual(LocalDate desde, LocalDate hasta);
+    MoraRecalculoTrabajo obtenerCalculoMoraManual(String id);
+    List<MoraRecalculoTrabajo> listarCalculosMoraManual();
+    MoraRecalculoTrabajo cancelarCalculoMoraManual(String id);
+    MoraSimulacionParametros prepararSimulacionMora(LocalDate fecha, BigDecimal porcentajeDiario, Integer diasGracia,
+                                                    boolean soloCambios);
+    MoraSimulacionResumen simularMora(MoraSimulacionParametros parametros, FormatoSimulacion formato, OutputStream salida);
     void calcularInteresMoratorioDiario();
-    List<Prestamo> obtenerPrestamosVencidos(LocalDate fecha, List<EstadoPrestamo> estados);
 }
@@ -2,22 +2,32 @@ package com.prestamosrapidos.prestamos_app.service;
 
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.model.EstadoModel;
+import com.prestamosrapidos.prestamos_app.model.PaginaModel;
+import com.prestamosrapidos.prestamos_app.model.PrestamoFiltroModel;
 import com.prestamosrapidos.prestamos_app.model.PrestamoModel;
+import com.prestamosrapidos.prestamos_app.util.FormatoExportacion;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface PrestamoService {
     PrestamoModel crearPrestamo(PrestamoModel prestamoModel);
     PrestamoModel actualizarPrestamo(Long id, PrestamoModel prestamoModel);
     PrestamoModel obtenerPrestamoPorId(Long id);
-    List<PrestamoModel> obtenerTodosLosPrestamos();
+    Optional<String> obtenerVersionPrestamo(Long id);
+    PaginaModel<PrestamoModel> listarPrestamos(PrestamoFiltroModel filtro, String cursor, int limite);
     List<PrestamoModel> obtenerPrestamosPorCliente(Long clienteId);
     List<PrestamoModel> obtenerPrestamosPorEstado(String estado);
+    long exportarPrestamos(FormatoExportacion formato, OutputStream salida);
     void eliminarPrestamo(Long id);
     BigDecimal calcularInteresTotal(Long prestamoId);
     BigDecimal calcularMontoRestante(Long prestamoId);
+    Map<Long, BigDecimal> calcularMontosRestantes(Collection<Long> prestamoIds);
 /* <<<<<<<<<<<<<<  ✨ Windsurf Command ⭐ >>>>>>>>>>>>>>>> */
     /**
      * Actualiza el estado de un pr &eacute;stamo.
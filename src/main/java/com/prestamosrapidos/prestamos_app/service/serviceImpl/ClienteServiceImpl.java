@@ -4,14 +4,18 @@ import com.prestamosrapidos.prestamos_app.entity.Cliente;
 import com.prestamosrapidos.prestamos_app.entity.Cuenta;
 import com.prestamosrapidos.prestamos_app.entity.Pago;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
 import com.prestamosrapidos.prestamos_app.model.FechasModel;
 import com.prestamosrapidos.prestamos_app.exception.ClienteNotFoundException;
 import com.prestamosrapidos.prestamos_app.model.*;
 import com.prestamosrapidos.prestamos_app.repository.ClienteRepository;
 import com.prestamosrapidos.prestamos_app.repository.CuentaRepository;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluada;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
 import com.prestamosrapidos.prestamos_app.service.ClienteService;
 import com.prestamosrapidos.prestamos_app.service.PrestamoService;
+import com.prestamosrapidos.prestamos_app.util.CursorKeyset;
 import com.prestamosrapidos.prestamos_app.validation.ClienteValidator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -22,6 +26,8 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -35,11 +41,24 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class ClienteServiceImpl implements ClienteService {
 
+    /** Máximo de clientes por página del listado */
+    static final int LIMITE_MAXIMO_PAGINA = 200;
+
+    /** Estados de préstamo por la gravedad que les asigna {@link ClienteRepository#findResumenPagina} */
+    private static final Map<Integer, EstadoPrestamo> ESTADOS_POR_GRAVEDAD = Map.of(
+            6, EstadoPrestamo.EN_MORA,
+            5, EstadoPrestamo.VENCIDO,
+            4, EstadoPrestamo.APROBADO,
+            3, EstadoPrestamo.PENDIENTE,
+            2, EstadoPrestamo.PAGADO,
+            1, EstadoPrestamo.RECHAZADO);
+
     private final ClienteRepository clienteRepository;
     private final CuentaRepository cuentaRepository;
     private final PrestamoRepository prestamoRepository;
 
     private final PrestamoService prestamoService;
+    private final MoraEvaluador moraEvaluador;
     private final ClienteValidator clienteValidator;
 
     /**
@@ -133,6 +152,7 @@ public class ClienteServiceImpl implements ClienteService {
      * @throws ClienteNotFoundException Si no se encuentra el cliente con el ID especificado
      */
     @Override
+    @Transactional
     public ClienteModel actualizarCliente(Long id, ClienteModel clienteModel) {
         Cliente clienteExistente = clienteRepository.findById(id)
                 .orElseThrow(() -> new ClienteNotFoundException("Cliente no encontrado con ID: " + id));
@@ -169,17 +189,52 @@ public class ClienteServiceImpl implements ClienteService {
     }
 
     /**
-     * Obtiene una lista de todos los clientes registrados en el sistema.
-     * Incluye información básica de cada cliente, sus cuentas y préstamos asociados.
+     * Versión de la representación de {@link #obtenerClientePorId} para su ETag, calculada en la base de datos
+     * sin cargar el cliente, sus cuentas ni sus préstamos. Cambia al modificarse el cliente o sus cuentas,
+     * al crear, modificar o eliminar uno de sus préstamos o pagos, y cada día, porque la deuda restante
+     * de los préstamos se calcula a la fecha de la consulta.
      *
-     * @return List<ClienteModel> Lista de todos los clientes
+     * @param id ID del cliente
+     * @return Versión del cliente, o vacío si no existe
      */
     @Override
-    public List<ClienteModel> obtenerTodosLosClientes() {
-        return clienteRepository.findAll()
-                .stream()
-                .map(this::convertirAClienteModel)
+    @Transactional(readOnly = true)
+    public Optional<String> obtenerVersionCliente(Long id) {
+        LocalDate hoy = LocalDate.now();
+        return clienteRepository.findVersionById(id)
+                .map(resumen -> "c" + id + "-" + resumen + "-" + hoy);
+    }
+
+    /**
+     * Lista el resumen de los clientes paginado por keyset (orden estable por id): datos básicos,
+     * saldo de la cuenta principal, número de préstamos, deuda total y peor estado.
+     * Cada página es una sola consulta agregada; no se cargan cuentas, préstamos ni pagos.
+     *
+     * @param cursor Cursor opaco devuelto por la página anterior (null para la primera)
+     * @param limite Número máximo de clientes de la página (1 a {@value #LIMITE_MAXIMO_PAGINA})
+     * @return PaginaModel<ClienteResumenModel> Página de clientes y cursor de la siguiente
+     * @throws IllegalArgumentException Si el cursor o el límite no son válidos
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaModel<ClienteResumenModel> listarClientes(String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA);
+        }
+
+        // Se pide uno más del límite para saber si hay página siguiente
+        List<ClienteRepository.ClienteResumen> filas =
+                clienteRepository.findResumenPagina(CursorKeyset.decodificar(cursor), limite + 1);
+        boolean hayMas = filas.size() > limite;
+        List<ClienteResumenModel> contenido = (hayMas ? filas.subList(0, limite) : filas).stream()
+                .map(ClienteServiceImpl::convertirAResumen)
                 .collect(Collectors.toList());
+
+        return PaginaModel.<ClienteResumenModel>builder()
+                .contenido(contenido)
+                .limite(limite)
+                .siguiente(hayMas ? CursorKeyset.codificar(contenido.get(contenido.size() - 1).id()) : null)
+                .build();
     }
 
     /**
@@ -191,6 +246,7 @@ public class ClienteServiceImpl implements ClienteService {
      * @throws IllegalStateException Si el cliente tiene préstamos activos
      */
     @Override
+    @Transactional
     public void eliminarCliente(Long id) {
         Cliente cliente = clienteRepository.findById(id)
                 .orElseThrow(() -> new ClienteNotFoundException("Cliente no encontrado con ID: " + id));
@@ -210,6 +266,18 @@ public class ClienteServiceImpl implements ClienteService {
      * @return ClienteModel DTO con los datos del cliente
      */
     private ClienteModel convertirAClienteModel(Cliente cliente) {
+        return convertirAClienteModel(cliente, prestamoService.calcularMontosRestantes(
+                prestamosDe(cliente).stream().map(Prestamo::getId).toList()));
+    }
+
+    /**
+     * Convierte una entidad Cliente tomando la deuda restante de sus préstamos de los montos ya calculados.
+     *
+     * @param cliente Entidad Cliente a convertir
+     * @param montosRestantes Monto restante por id de préstamo
+     * @return ClienteModel DTO con los datos del cliente
+     */
+    private ClienteModel convertirAClienteModel(Cliente cliente, Map<Long, BigDecimal> montosRestantes) {
         return ClienteModel.builder()
                 .id(cliente.getId())
                 .nombre(cliente.getNombre())
@@ -219,18 +287,28 @@ public class ClienteServiceImpl implements ClienteService {
                         : null)
                 .prestamos(cliente.getPrestamos() != null
                         ? cliente.getPrestamos().stream()
-                        .map(prestamo -> {
-                            BigDecimal deudaRestante = prestamoService.calcularMontoRestante(prestamo.getId());
-                            PrestamoModel prestamoModel = convertirAPrestamoModel(prestamo);
-                            prestamoModel.setDeudaRestante(deudaRestante);
-                            return prestamoModel;
-                        })
+                        .map(prestamo -> convertirAPrestamoModel(prestamo, montosRestantes.get(prestamo.getId())))
                         .collect(Collectors.toList())
                         : new ArrayList<>())
                 .build();
     }
 
 
+    private static ClienteResumenModel convertirAResumen(ClienteRepository.ClienteResumen fila) {
+        return new ClienteResumenModel(
+                fila.getId(),
+                fila.getNombre(),
+                fila.getCorreo(),
+                fila.getSaldoCuenta(),
+                fila.getPrestamos() != null ? fila.getPrestamos() : 0L,
+                fila.getDeudaTotal() != null ? fila.getDeudaTotal() : BigDecimal.ZERO,
+                fila.getGravedadPeorEstado() != null ? ESTADOS_POR_GRAVEDAD.get(fila.getGravedadPeorEstado()) : null);
+    }
+
+    private static List<Prestamo> prestamosDe(Cliente cliente) {
+        return cliente.getPrestamos() != null ? cliente.getPrestamos() : List.of();
+    }
+
     /**
      * Convierte una entidad Cuenta a su correspondiente DTO CuentaModel.
      *
@@ -249,53 +327,37 @@ public class ClienteServiceImpl implements ClienteService {
 
     /**
      * Convierte una entidad Prestamo a su correspondiente DTO PrestamoModel.
-     * Incluye el cálculo de intereses, moras y desglose de pagos.
+     * La mora, los días de mora, el estado y la deuda son los vigentes hoy según {@link MoraEvaluador},
+     * los mismos que muestra {@code GET /prestamos/{id}}.
      *
      * @param prestamo Entidad Prestamo a convertir
+     * @param deudaRestante Deuda restante ya calculada por {@link PrestamoService#calcularMontosRestantes}
      * @return PrestamoModel DTO con los datos del préstamo
      */
-    private PrestamoModel convertirAPrestamoModel(Prestamo prestamo) {
+    private PrestamoModel convertirAPrestamoModel(Prestamo prestamo, BigDecimal deudaRestante) {
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, LocalDate.now());
+
         // Construir el objeto Fechas
         FechasModel fechas = FechasModel.builder()
                 .creacion(LocalDate.from(prestamo.getFechaCreacion()))
                 .vencimiento(prestamo.getFechaVencimiento())
-                .diasMora(prestamo.getDiasMora())
+                .diasMora(mora.getDiasMora())
                 .build();
         
-        // Calcular el pago diario (monto * (1 + interes/100) / 30)
-        BigDecimal montoDiario = prestamo.getMonto()
-                .multiply(BigDecimal.ONE.add(prestamo.getInteres().divide(BigDecimal.valueOf(100))))
-                .divide(BigDecimal.valueOf(30), 2, RoundingMode.HALF_UP);
-        
         // Crear el objeto PagoDiario
         PagoDiarioModel pagoDiario = PagoDiarioModel.builder()
-                .moraDiaria(prestamo.getInteresMoratorio() != null ? 
-                        prestamo.getMonto().multiply(prestamo.getInteresMoratorio())
-                                .divide(BigDecimal.valueOf(100 * 30), 2, RoundingMode.HALF_UP) : 
-                        BigDecimal.ZERO)
+                .moraDiaria(mora.getMoraDiaria())
                 .proximoVencimiento(prestamo.getFechaVencimiento() != null ? 
                         prestamo.getFechaVencimiento() : 
                         LocalDate.now().plusDays(30))
                 .build();
         
         // Crear el desglose de pago
-        BigDecimal interesOrdinario = prestamo.getMonto()
-                .multiply(prestamo.getInteres())
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                
-        BigDecimal moraAcumulada = prestamo.getMoraAcumulada() != null ? 
-                prestamo.getMoraAcumulada() : 
-                BigDecimal.ZERO;
-                
-        BigDecimal total = prestamo.getMonto()
-                .add(interesOrdinario)
-                .add(moraAcumulada);
-        
         DesglosePagoModel desglosePago = DesglosePagoModel.builder()
                 .capital(prestamo.getMonto())
-                .interesOrdinario(interesOrdinario)
-                .moraAcumulada(moraAcumulada)
-                .totalDeuda(total)
+                .interesOrdinario(MoraEvaluador.interesOrdinario(prestamo.getMonto(), prestamo.getInteres()))
+                .moraAcumulada(mora.getMoraAcumulada())
+                .totalDeuda(deudaRestante)
                 .build();
                 
         return PrestamoModel.builder()
@@ -303,8 +365,9 @@ public class ClienteServiceImpl implements ClienteService {
                 .monto(prestamo.getMonto())
                 .interes(prestamo.getInteres())
                 .interesMoratorio(prestamo.getInteresMoratorio())
+                .deudaRestante(deudaRestante)
                 .fechas(fechas)
-                .estado(String.valueOf(prestamo.getEstado()))
+                .estado(String.valueOf(mora.getEstado()))
                 .clienteId(prestamo.getCliente().getId())
                 .pagos(prestamo.getPagos() != null
                         ? prestamo.getPagos().stream().map(this::convertirPagoAModelo).collect(Collectors.toList())
@@ -1,28 +1,54 @@
 package com.prestamosrapidos.prestamos_app.service.serviceImpl;
 
+import com.prestamosrapidos.prestamos_app.cache.PrestamoCache;
 import com.prestamosrapidos.prestamos_app.entity.Pago;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
 import com.prestamosrapidos.prestamos_app.exception.RecursoNoEncontradoException;
+import com.prestamosrapidos.prestamos_app.model.PagoLoteFilaModel;
+import com.prestamosrapidos.prestamos_app.model.PagoLoteResultadoModel;
 import com.prestamosrapidos.prestamos_app.model.PagoModel;
 import com.prestamosrapidos.prestamos_app.repository.PagoRepository;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluada;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
+import com.prestamosrapidos.prestamos_app.scheduler.RuedaVencimientos;
 import com.prestamosrapidos.prestamos_app.service.PagoService;
+import com.prestamosrapidos.prestamos_app.util.FilaPagoLote;
+import com.prestamosrapidos.prestamos_app.util.LectorPagosCsv;
 import com.prestamosrapidos.prestamos_app.validation.PagoValidator;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Reader;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +57,28 @@ public class PagoServiceImpl implements PagoService {
 
     private final PagoRepository pagoRepository;
     private final PrestamoRepository prestamoRepository;
+    private final MoraEvaluador moraEvaluador;
+    private final RuedaVencimientos ruedaVencimientos;
+    private final PrestamoCache prestamoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final String SQL_INSERTAR_PAGO = "INSERT INTO pagos (monto, fecha_pago, prestamo_id) VALUES (?, ?, ?)";
+
+    /**
+     * Máximo de pagos de una carga masiva.
+     * Valor configurable mediante la propiedad 'prestamo.pagos.lote.maximo' (default: 100000)
+     */
+    @Value("${prestamo.pagos.lote.maximo:100000}")
+    private int maximoPagosLote = 100_000;
+
+    /**
+     * Préstamos cuyos pagos se registran en cada transacción de una carga masiva.
+     * Valor configurable mediante la propiedad 'prestamo.pagos.lote.prestamos-por-transaccion' (default: 1000)
+     */
+    @Value("${prestamo.pagos.lote.prestamos-por-transaccion:1000}")
+    private int prestamosPorTransaccion = 1000;
 
     private static final Logger log = LoggerFactory.getLogger(PagoServiceImpl.class);
 
@@ -41,6 +89,7 @@ public class PagoServiceImpl implements PagoService {
      * @return Page<PagoModel> Página con los modelos de pago
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<PagoModel> obtenerTodosLosPagosPaginados(Pageable pageable) {
         return pagoRepository.findAll(pageable).map(this::convertirEntidadAModelo);
     }
@@ -59,29 +108,14 @@ public class PagoServiceImpl implements PagoService {
     public PagoModel registrarPago(PagoModel pagoModel) {
         log.info("Iniciando registro de pago: {}", pagoModel);
         
-        // 1. Obtener y validar el préstamo
-        Prestamo prestamo = prestamoRepository.findById(pagoModel.getPrestamoId())
+        // 1. Obtener y validar el préstamo, bloqueándolo hasta confirmar el pago
+        Prestamo prestamo = prestamoRepository.findByIdParaActualizar(pagoModel.getPrestamoId())
                 .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
 
-        // 2. Calcular deuda actual incluyendo intereses y mora
-        BigDecimal interesOrdinario = calcularInteresOrdinario(prestamo);
-        BigDecimal moraAcumulada = calcularMoraAcumulada(prestamo);
-        BigDecimal totalPagado = calcularTotalPagado(prestamo);
-        
-        BigDecimal deudaTotal = prestamo.getMonto()
-                .add(interesOrdinario)
-                .add(moraAcumulada);
-                
-        BigDecimal deudaPendiente = deudaTotal.subtract(totalPagado)
-                .max(BigDecimal.ZERO);
-                
-        log.info("Deuda total: {}, Pagado: {}, Pendiente: {}", 
-                deudaTotal, totalPagado, deudaPendiente);
-
-        // 3. Validar pago
-        PagoValidator.validarPago(pagoModel, prestamo, deudaPendiente);
+        // 2. Validar el pago contra la deuda a hoy (intereses y mora vigente) y actualizar deuda y estado
+        aplicarPago(prestamo, pagoModel, LocalDate.now());
 
-        // 4. Crear y guardar el pago
+        // 3. Crear el pago y sumarlo al préstamo
         Pago pago = Pago.builder()
                 .monto(pagoModel.getMontoPago())
                 .fecha(pagoModel.getFecha() != null ? pagoModel.getFecha() : LocalDate.now())
@@ -89,36 +123,238 @@ public class PagoServiceImpl implements PagoService {
                 .build();
 
         prestamo.addPago(pago);
+        log.info("Préstamo {}: estado {}, deuda restante {}", prestamo.getId(), prestamo.getEstado(),
+                prestamo.getDeudaRestante());
+
+        // 4. Guardar cambios
+        pago = pagoRepository.save(pago);
+        PrestamoModificadoEvent evento = PrestamoModificadoEvent.de(prestamo);
+        prestamo = prestamoRepository.save(prestamo);
+        ruedaVencimientos.actualizar(prestamo);
+        eventPublisher.publishEvent(evento);
         
-        // 5. Actualizar deuda y estado del préstamo
+        log.info("Pago registrado exitosamente. ID: {}, Monto: {}", pago.getId(), pago.getMonto());
+        return convertirEntidadAModelo(pago);
+    }
+    
+    /**
+     * Valida un pago contra la deuda del préstamo a la fecha (capital, interés ordinario y mora vigente)
+     * y deja la deuda restante y el estado como quedan tras él: PAGADO si lo salda, EN_MORA si ya venció
+     * o APROBADO. Si el pago supera la deuda pendiente se ajusta a ella. No suma el pago al total pagado.
+     * El préstamo solo se modifica si el pago es válido.
+     *
+     * @param prestamo Préstamo que recibe el pago, ya bloqueado
+     * @param pagoModel Pago a aplicar
+     * @param hoy Fecha del cálculo de la deuda
+     * @throws IllegalArgumentException Si el pago no es válido ({@link PagoValidator}) o el préstamo
+     *                                  no tiene deuda pendiente
+     */
+    private void aplicarPago(Prestamo prestamo, PagoModel pagoModel, LocalDate hoy) {
+        BigDecimal interesOrdinario = calcularInteresOrdinario(prestamo);
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, hoy);
+        BigDecimal totalPagado = prestamo.getTotalPagado();
+
+        BigDecimal deudaTotal = prestamo.getMonto()
+                .add(interesOrdinario)
+                .add(mora.getMoraAcumulada());
+
+        BigDecimal deudaPendiente = deudaTotal.subtract(totalPagado)
+                .max(BigDecimal.ZERO);
+
+        log.debug("Préstamo {} - deuda total: {}, pagado: {}, pendiente: {}",
+                prestamo.getId(), deudaTotal, totalPagado, deudaPendiente);
+
+        PagoValidator.validarPago(pagoModel, prestamo, deudaPendiente);
+        // Sin deuda pendiente el validador ajusta el pago a cero
+        if (pagoModel.getMontoPago().signum() <= 0) {
+            throw new IllegalArgumentException("El préstamo no tiene deuda pendiente.");
+        }
+
+        asentarMora(prestamo, mora, hoy);
         BigDecimal nuevoTotalPagado = totalPagado.add(pagoModel.getMontoPago());
-        boolean estaPagado = nuevoTotalPagado.compareTo(deudaTotal) >= 0;
-        
-        if (estaPagado) {
+        if (nuevoTotalPagado.compareTo(deudaTotal) >= 0) {
             prestamo.setEstado(EstadoPrestamo.PAGADO);
             prestamo.setDeudaRestante(BigDecimal.ZERO);
-            log.info("Préstamo {} marcado como PAGADO", prestamo.getId());
         } else {
-            BigDecimal nuevoSaldo = deudaTotal.subtract(nuevoTotalPagado);
-            prestamo.setDeudaRestante(nuevoSaldo);
-            // Actualizar estado según vencimiento
-            LocalDate hoy = LocalDate.now();
+            prestamo.setDeudaRestante(deudaTotal.subtract(nuevoTotalPagado));
             if (prestamo.getFechaVencimiento() != null && hoy.isAfter(prestamo.getFechaVencimiento())) {
                 prestamo.setEstado(EstadoPrestamo.EN_MORA);
             } else {
                 prestamo.setEstado(EstadoPrestamo.APROBADO);
             }
-            log.info("Nuevo saldo del préstamo {}: {}", prestamo.getId(), nuevoSaldo);
         }
+    }
 
-        // 6. Guardar cambios
-        pago = pagoRepository.save(pago);
-        prestamo = prestamoRepository.save(prestamo);
-        
-        log.info("Pago registrado exitosamente. ID: {}, Monto: {}", pago.getId(), pago.getMonto());
-        return convertirEntidadAModelo(pago);
+    /**
+     * Registra los pagos de una carga masiva (array JSON).
+     *
+     * @param pagos Pagos a registrar; cada uno indica su préstamo
+     * @return Informe con el resultado de cada pago
+     * @throws IllegalArgumentException Si el lote supera {@code prestamo.pagos.lote.maximo} pagos
+     */
+    @Override
+    public PagoLoteResultadoModel registrarPagosLote(List<PagoModel> pagos) {
+        return registrarLote(FilaPagoLote.de(pagos));
     }
-    
+
+    /**
+     * Registra los pagos de una carga masiva en CSV ({@link LectorPagosCsv}).
+     *
+     * @param csv Contenido del fichero
+     * @return Informe con el resultado de cada línea
+     * @throws IllegalArgumentException Si el lote supera {@code prestamo.pagos.lote.maximo} pagos
+     */
+    @Override
+    public PagoLoteResultadoModel registrarPagosLoteCsv(Reader csv) {
+        return registrarLote(LectorPagosCsv.leer(csv));
+    }
+
+    /**
+     * Registra una carga masiva agrupando los pagos por préstamo, sin pasar por {@link #registrarPago}
+     * pago a pago.
+     *
+     * <ul>
+     *   <li>Los préstamos se procesan en grupos de {@code prestamo.pagos.lote.prestamos-por-transaccion},
+     *       cada uno en su transacción: se cargan y bloquean con una consulta {@code IN}, se aplican sus
+     *       pagos en el orden recibido con las mismas reglas que un pago individual, los pagos se insertan
+     *       con un batch JDBC y los préstamos se actualizan en batch al confirmar</li>
+     *   <li>Un pago inválido solo rechaza su fila; si un grupo no se puede confirmar se rechazan las filas
+     *       de ese grupo y la carga sigue con el siguiente</li>
+     *   <li>Cada préstamo modificado publica un {@link PrestamoModificadoEvent}</li>
+     * </ul>
+     */
+    private PagoLoteResultadoModel registrarLote(List<FilaPagoLote> filas) {
+        if (filas.size() > maximoPagosLote) {
+            throw new IllegalArgumentException("El lote no puede tener más de " + maximoPagosLote + " pagos");
+        }
+        long inicio = System.currentTimeMillis();
+        PagoLoteFilaModel[] resultados = new PagoLoteFilaModel[filas.size()];
+
+        // Índices de las filas de cada préstamo, en el orden recibido
+        Map<Long, List<Integer>> filasPorPrestamo = new HashMap<>();
+        for (int i = 0; i < filas.size(); i++) {
+            FilaPagoLote fila = filas.get(i);
+            String error = fila.error() != null ? fila.error() : validarFilaLote(fila.pago());
+            if (error != null) {
+                resultados[i] = PagoLoteFilaModel.rechazado(fila.fila(), fila.pago(),
+                        fila.pago() != null ? fila.pago().getMontoPago() : null, error);
+            } else {
+                filasPorPrestamo.computeIfAbsent(fila.pago().getPrestamoId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Long> prestamoIds = new ArrayList<>(filasPorPrestamo.keySet());
+        Collections.sort(prestamoIds);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int desde = 0; desde < prestamoIds.size(); desde += prestamosPorTransaccion) {
+            List<Long> grupo = prestamoIds.subList(desde, Math.min(desde + prestamosPorTransaccion, prestamoIds.size()));
+            try {
+                transaccion.executeWithoutResult(estado -> registrarGrupo(grupo, filasPorPrestamo, filas, resultados));
+            } catch (RuntimeException e) {
+                log.error("No se pudo registrar el grupo de {} préstamos desde el {}: {}",
+                        grupo.size(), grupo.get(0), e.getMessage(), e);
+                for (Long prestamoId : grupo) {
+                    for (int i : filasPorPrestamo.get(prestamoId)) {
+                        FilaPagoLote fila = filas.get(i);
+                        BigDecimal solicitado = resultados[i] != null ? resultados[i].montoSolicitado() : null;
+                        resultados[i] = PagoLoteFilaModel.rechazado(fila.fila(), fila.pago(), solicitado,
+                                "No se pudo guardar: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        List<PagoLoteFilaModel> informe = Arrays.asList(resultados);
+        int registrados = (int) informe.stream().filter(PagoLoteFilaModel::registrado).count();
+        long duracion = System.currentTimeMillis() - inicio;
+        log.info("Carga de pagos: {} recibidos, {} registrados, {} rechazados, {} préstamos en {} ms",
+                filas.size(), registrados, filas.size() - registrados, prestamoIds.size(), duracion);
+        return new PagoLoteResultadoModel(filas.size(), registrados, filas.size() - registrados, duracion, informe);
+    }
+
+    /**
+     * Aplica y registra los pagos de un grupo de préstamos dentro de la transacción del grupo.
+     */
+    private void registrarGrupo(List<Long> grupo, Map<Long, List<Integer>> filasPorPrestamo,
+                                List<FilaPagoLote> filas, PagoLoteFilaModel[] resultados) {
+        LocalDate hoy = LocalDate.now();
+        Map<Long, Prestamo> prestamos = prestamoRepository.findByIdInParaActualizar(grupo).stream()
+                .collect(Collectors.toMap(Prestamo::getId, Function.identity()));
+
+        List<Integer> aceptadas = new ArrayList<>();
+        List<BigDecimal> solicitados = new ArrayList<>();
+        for (Long prestamoId : grupo) {
+            Prestamo prestamo = prestamos.get(prestamoId);
+            boolean modificado = false;
+            for (int i : filasPorPrestamo.get(prestamoId)) {
+                FilaPagoLote fila = filas.get(i);
+                PagoModel pago = fila.pago();
+                BigDecimal solicitado = pago.getMontoPago();
+                if (prestamo == null) {
+                    resultados[i] = PagoLoteFilaModel.rechazado(fila.fila(), pago, solicitado, "Préstamo no encontrado");
+                    continue;
+                }
+                try {
+                    aplicarPago(prestamo, pago, hoy);
+                } catch (IllegalArgumentException e) {
+                    resultados[i] = PagoLoteFilaModel.rechazado(fila.fila(), pago, solicitado, e.getMessage());
+                    continue;
+                }
+                if (pago.getFecha() == null) {
+                    pago.setFecha(hoy);
+                }
+                prestamo.sumarPago(pago.getMontoPago(), pago.getFecha());
+                aceptadas.add(i);
+                solicitados.add(solicitado);
+                modificado = true;
+            }
+            if (modificado) {
+                ruedaVencimientos.actualizar(prestamo);
+                eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
+            }
+        }
+        if (aceptadas.isEmpty()) {
+            return;
+        }
+
+        // La clave IDENTITY de pagos impide el batch de inserciones de Hibernate: se insertan por JDBC
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(conexion -> conexion.prepareStatement(SQL_INSERTAR_PAGO, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement sentencia, int indice) throws SQLException {
+                        PagoModel pago = filas.get(aceptadas.get(indice)).pago();
+                        sentencia.setBigDecimal(1, pago.getMontoPago());
+                        sentencia.setObject(2, pago.getFecha());
+                        sentencia.setLong(3, pago.getPrestamoId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return aceptadas.size();
+                    }
+                }, claves);
+
+        List<Map<String, Object>> ids = claves.getKeyList();
+        for (int j = 0; j < aceptadas.size(); j++) {
+            int i = aceptadas.get(j);
+            Long pagoId = j < ids.size() ? ((Number) ids.get(j).get("id")).longValue() : null;
+            resultados[i] = PagoLoteFilaModel.registrado(filas.get(i).fila(), filas.get(i).pago(),
+                    solicitados.get(j), pagoId);
+        }
+    }
+
+    private static String validarFilaLote(PagoModel pago) {
+        try {
+            PagoValidator.validarPrestamoId(pago.getPrestamoId());
+            PagoValidator.validarMontoPago(pago.getMontoPago());
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
     /**
      * Calcula el nuevo saldo después de aplicar un pago, considerando intereses moratorios.
      * Si el nuevo saldo es menor que una tolerancia de 0.01, se redondea a cero.
@@ -165,6 +401,7 @@ public class PagoServiceImpl implements PagoService {
      * @return List<PagoModel> Lista de pagos del préstamo, ordenados por fecha
      */
     @Override
+    @Transactional(readOnly = true)
     public List<PagoModel> obtenerPagosPorPrestamo(Long prestamoId) {
         return pagoRepository.findByPrestamoId(prestamoId).stream()
                 .map(this::convertirEntidadAModelo)
@@ -179,6 +416,7 @@ public class PagoServiceImpl implements PagoService {
      * @throws RuntimeException Si el pago no existe
      */
     @Override
+    @Transactional(readOnly = true)
     public PagoModel obtenerPagoPorId(Long id) {
         Pago pago = pagoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pago no encontrado"));
@@ -187,20 +425,41 @@ public class PagoServiceImpl implements PagoService {
 
     /**
      * Elimina un pago del sistema por su ID.
+     * Descuenta el pago del total pagado del préstamo y se lo devuelve a la deuda restante;
+     * si el préstamo estaba PAGADO vuelve a APROBADO, o a EN_MORA si ya venció.
      * 
      * @param id ID del pago a eliminar
      * @throws RuntimeException Si el pago no existe
      */
     @Override
+    @Transactional
     public void eliminarPago(Long id) {
         Pago pago = pagoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pago no encontrado"));
+        Prestamo prestamo = prestamoRepository.findByIdParaActualizar(pago.getPrestamo().getId())
+                .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
+
+        prestamo.restarPago(pago.getMonto(), pagoRepository.findUltimaFechaPago(prestamo.getId(), pago.getId()));
+        BigDecimal deudaRestante = prestamo.getDeudaRestante() != null ? prestamo.getDeudaRestante() : BigDecimal.ZERO;
+        prestamo.setDeudaRestante(deudaRestante.add(pago.getMonto()));
+        if (prestamo.getEstado() == EstadoPrestamo.PAGADO) {
+            LocalDate hoy = LocalDate.now();
+            prestamo.setEstado(prestamo.getFechaVencimiento() != null && hoy.isAfter(prestamo.getFechaVencimiento())
+                    ? EstadoPrestamo.EN_MORA
+                    : EstadoPrestamo.APROBADO);
+        }
+
         pagoRepository.delete(pago);
+        prestamo = prestamoRepository.save(prestamo);
+        ruedaVencimientos.actualizar(prestamo);
+        eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
+        log.info("Pago {} eliminado. Total pagado del préstamo {}: {}", id, prestamo.getId(), prestamo.getTotalPagado());
     }
 
     /**
-     * Calcula el monto restante por pagar de un préstamo, incluyendo intereses ordinarios y moratorios.
-     * Aplica automáticamente intereses moratorios si el préstamo está vencido.
+     * Calcula el monto restante por pagar de un préstamo, incluyendo intereses ordinarios y la mora
+     * vigente según {@link MoraEvaluador}: es la misma deuda restante que muestra el préstamo.
+     * El resultado se guarda en {@link PrestamoCache} hasta que el préstamo cambia.
      *
      * @param prestamoId ID del préstamo a consultar
      * @return BigDecimal Monto total pendiente de pago
@@ -208,63 +467,14 @@ public class PagoServiceImpl implements PagoService {
      */
     @Override
     public BigDecimal calcularMontoRestante(Long prestamoId) {
-        Prestamo prestamo = prestamoRepository.findById(prestamoId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
-
-        // Calculate total amount (principal + interest)
-        BigDecimal montoTotal = prestamo.getMonto()
-                .add(prestamo.getMonto().multiply(prestamo.getInteres())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
-
-        // Get total paid amount from repository
-        Double totalPagado = pagoRepository.calcularTotalPagado(prestamoId);
-        BigDecimal montoPagado = totalPagado != null ? BigDecimal.valueOf(totalPagado) : BigDecimal.ZERO;
-
-        // Calculate remaining amount
-        BigDecimal saldoPendiente = montoTotal.subtract(montoPagado);
-
-        // Apply late interest if the loan is overdue
-        LocalDate hoy = LocalDate.now();
-        if (prestamo.getFechaVencimiento() != null
-                && hoy.isAfter(prestamo.getFechaVencimiento())
-                && !prestamo.getEstado().equals(EstadoPrestamo.PAGADO)) {
-            // Calculate days late
-            long diasMora = ChronoUnit.DAYS.between(prestamo.getFechaVencimiento(), hoy);
-            if (diasMora > 0) {
-                // Calculate daily interest (0.1% = 0.001)
-                BigDecimal interesDiario = saldoPendiente.multiply(BigDecimal.valueOf(0.001));
-                BigDecimal interesMoratorio = interesDiario.multiply(BigDecimal.valueOf(diasMora));
-                saldoPendiente = saldoPendiente.add(interesMoratorio);
-            }
-        }
-
-        return saldoPendiente.setScale(2, RoundingMode.HALF_UP);
+        return prestamoCache.montoRestantePagos(prestamoId, () -> calcularMontoRestanteSinCache(prestamoId));
     }
 
-    /**
-     * Calcula el interés moratorio acumulado para un préstamo hasta una fecha específica.
-     * El cálculo se realiza solo si el préstamo está vencido.
-     *
-     * @param prestamo Préstamo sobre el cual calcular la mora
-     * @param fechaActual Fecha hasta la cual calcular la mora
-     * @return BigDecimal Monto de intereses moratorios calculados
-     */
-    private BigDecimal calcularInteresMoratorio(Prestamo prestamo, LocalDate fechaActual) {
-        if (prestamo.getEstado() == EstadoPrestamo.PAGADO ||
-                prestamo.getFechaVencimiento() == null ||
-                !fechaActual.isAfter(prestamo.getFechaVencimiento())) {
-            return BigDecimal.ZERO;
-        }
-
-        BigDecimal saldoPendiente = calcularMontoRestante(prestamo.getId());
-
-        long diasVencidos = ChronoUnit.DAYS.between(prestamo.getFechaVencimiento(), fechaActual);
-        BigDecimal interesMoratorioDiario = saldoPendiente
-                .multiply(prestamo.getInteresMoratorio())
-                .divide(BigDecimal.valueOf(100))
-                .divide(BigDecimal.valueOf(365), 4, RoundingMode.HALF_UP);
+    private BigDecimal calcularMontoRestanteSinCache(Long prestamoId) {
+        Prestamo prestamo = prestamoRepository.findById(prestamoId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
 
-        return interesMoratorioDiario.multiply(BigDecimal.valueOf(diasVencidos));
+        return moraEvaluador.deudaRestante(prestamo, LocalDate.now());
     }
 
     /**
@@ -274,14 +484,14 @@ public class PagoServiceImpl implements PagoService {
      * @param prestamo Préstamo a verificar y actualizar
      */
     @Override
+    @Transactional
     public void verificarYActualizarEstado(Prestamo prestamo) {
         if (prestamo == null) {
             return;
         }
 
-        // Get total paid amount from repository
-        Double totalPagado = pagoRepository.calcularTotalPagado(prestamo.getId());
-        BigDecimal montoPagado = totalPagado != null ? BigDecimal.valueOf(totalPagado) : BigDecimal.ZERO;
+        // Total pagado mantenido en el préstamo
+        BigDecimal montoPagado = prestamo.getTotalPagado();
 
         // Calculate total amount (principal + interest)
         BigDecimal interes = prestamo.getMonto()
@@ -297,6 +507,7 @@ public class PagoServiceImpl implements PagoService {
             if (!EstadoPrestamo.PAGADO.equals(prestamo.getEstado())) {
                 prestamo.setEstado(EstadoPrestamo.PAGADO);
                 prestamoRepository.save(prestamo);
+                eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
             }
             return;
         }
@@ -309,11 +520,13 @@ public class PagoServiceImpl implements PagoService {
                 if (!EstadoPrestamo.EN_MORA.equals(prestamo.getEstado())) {
                     prestamo.setEstado(EstadoPrestamo.EN_MORA);
                     prestamoRepository.save(prestamo);
+                    eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
                 }
             } else if (EstadoPrestamo.EN_MORA.equals(prestamo.getEstado())) {
                 // If it was in MORA but now it's not overdue anymore
                 prestamo.setEstado(EstadoPrestamo.PENDIENTE);
                 prestamoRepository.save(prestamo);
+                eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
             }
         }
     }
@@ -341,57 +554,23 @@ public class PagoServiceImpl implements PagoService {
      * @return BigDecimal Monto de intereses ordinarios calculados
      */
     private BigDecimal calcularInteresOrdinario(Prestamo prestamo) {
-        // Interés ordinario = monto * (tasa_interes / 100)
-        return prestamo.getMonto()
-                .multiply(prestamo.getInteres())
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        return MoraEvaluador.interesOrdinario(prestamo.getMonto(), prestamo.getInteres());
     }
     
     /**
-     * Calcula la mora acumulada de un préstamo hasta la fecha actual.
-     * La mora se calcula solo si el préstamo está vencido.
-     * Fórmula: (monto * tasa_moratoria * días_vencido) / (100 * 365)
+     * Asienta en el préstamo la mora vigente a la fecha del pago.
+     * Si el proceso diario aún no persistió los días transcurridos, se guardan con el pago,
+     * de modo que la deuda saldada y la mora persistida coinciden.
      *
-     * @param prestamo Préstamo sobre el cual calcular la mora
-     * @return BigDecimal Monto de mora acumulada, o cero si no aplica
+     * @param prestamo Préstamo que recibe el pago
+     * @param mora Mora evaluada a la fecha del pago
+     * @param hoy Fecha del pago
      */
-    private BigDecimal calcularMoraAcumulada(Prestamo prestamo) {
-        if (prestamo.getFechaVencimiento() == null || 
-                LocalDate.now().isBefore(prestamo.getFechaVencimiento())) {
-            return BigDecimal.ZERO;
-        }
-        
-        // Días de mora
-        long diasMora = ChronoUnit.DAYS.between(
-                prestamo.getFechaVencimiento(), 
-                LocalDate.now()
-        );
-        
-        if (diasMora <= 0) {
-            return BigDecimal.ZERO;
+    private void asentarMora(Prestamo prestamo, MoraEvaluada mora, LocalDate hoy) {
+        if (mora.isPendienteDePersistir()) {
+            prestamo.setDiasMora(mora.getDiasMora());
+            prestamo.setMoraAcumulada(mora.getMoraAcumulada());
+            prestamo.setFechaUltimoCalculoMora(hoy);
         }
-        
-        // Cálculo de mora diaria = (monto * tasa_moratoria) / (100 * 365)
-        BigDecimal moraDiaria = prestamo.getMonto()
-                .multiply(prestamo.getInteresMoratorio())
-                .divide(BigDecimal.valueOf(365 * 100), 10, RoundingMode.HALF_UP);
-                
-        // Mora total = mora_diaria * días de mora
-        return moraDiaria.multiply(BigDecimal.valueOf(diasMora))
-                .setScale(2, RoundingMode.HALF_UP);
-    }
-    
-    /**
-     * Calcula el monto total pagado de un préstamo sumando todos sus pagos registrados.
-     *
-     * @param prestamo Préstamo del cual calcular el total pagado
-     * @return BigDecimal Suma total de todos los pagos realizados
-     */
-    private BigDecimal calcularTotalPagado(Prestamo prestamo) {
-        // Suma de todos los pagos realizados
-        return prestamo.getPagos().stream()
-                .map(Pago::getMonto)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package com.prestamosrapidos.prestamos_app.service.serviceImpl;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.model.PortafolioResumenModel;
+import com.prestamosrapidos.prestamos_app.model.PortafolioTotalesModel;
+import com.prestamosrapidos.prestamos_app.service.PortafolioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Implementación del resumen de la cartera. Lee las pocas filas (estado x tramo de mora) de la vista
+ * materializada {@code portafolio_resumen} y las agrega en memoria: el coste no depende del número
+ * de préstamos. La vista la refresca {@link com.prestamosrapidos.prestamos_app.scheduler.RefrescoPortafolio}.
+ */
+@Service
+@RequiredArgsConstructor
+public class PortafolioServiceImpl implements PortafolioService {
+
+    static final String SQL_RESUMEN = """
+            SELECT estado, tramo_mora, prestamos, monto, interes_ordinario, total_pagado, mora_acumulada,
+                   saldo_pendiente, actualizado_en
+              FROM portafolio_resumen
+            """;
+
+    /** Estado y tramo de la fila de control de la vista, que solo lleva la hora del refresco */
+    private static final String FILA_CONTROL = "-";
+
+    /** Tramos de días de mora en el orden en que se muestran */
+    private static final List<String> TRAMOS_MORA = List.of("0-30", "31-60", "61-90", "90+");
+
+    private static final Set<EstadoPrestamo> ESTADOS_EN_MORA = EnumSet.of(EstadoPrestamo.VENCIDO, EstadoPrestamo.EN_MORA);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Obtiene los agregados de la cartera por estado, por tramo de días de mora y de los préstamos
+     * vencidos o en mora, con la hora del último refresco de la vista.
+     *
+     * @return PortafolioResumenModel Resumen de la cartera
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PortafolioResumenModel obtenerResumen() {
+        LocalDateTime actualizadoEn = null;
+        PortafolioTotalesModel total = PortafolioTotalesModel.VACIO;
+        PortafolioTotalesModel exposicionMora = PortafolioTotalesModel.VACIO;
+        Map<String, PortafolioTotalesModel> porEstado = new TreeMap<>();
+        Map<String, PortafolioTotalesModel> porTramoMora = new LinkedHashMap<>();
+        TRAMOS_MORA.forEach(tramo -> porTramoMora.put(tramo, PortafolioTotalesModel.VACIO));
+
+        for (Map<String, Object> fila : jdbcTemplate.queryForList(SQL_RESUMEN)) {
+            actualizadoEn = ((Timestamp) fila.get("actualizado_en")).toLocalDateTime();
+            String estado = (String) fila.get("estado");
+            if (FILA_CONTROL.equals(estado)) {
+                continue;
+            }
+
+            PortafolioTotalesModel totales = new PortafolioTotalesModel(
+                    ((Number) fila.get("prestamos")).longValue(),
+                    (BigDecimal) fila.get("monto"),
+                    (BigDecimal) fila.get("interes_ordinario"),
+                    (BigDecimal) fila.get("total_pagado"),
+                    (BigDecimal) fila.get("mora_acumulada"),
+                    (BigDecimal) fila.get("saldo_pendiente"));
+            total = total.sumar(totales);
+            porEstado.merge(estado, totales, PortafolioTotalesModel::sumar);
+            porTramoMora.merge((String) fila.get("tramo_mora"), totales, PortafolioTotalesModel::sumar);
+            if (ESTADOS_EN_MORA.contains(EstadoPrestamo.valueOf(estado))) {
+                exposicionMora = exposicionMora.sumar(totales);
+            }
+        }
+
+        return new PortafolioResumenModel(actualizadoEn, total, porEstado, porTramoMora, exposicionMora);
+    }
+}
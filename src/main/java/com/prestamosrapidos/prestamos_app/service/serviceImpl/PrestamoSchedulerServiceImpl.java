@@ -1,74 +1,81 @@
 package com.prestamosrapidos.prestamos_app.service.serviceImpl;
 
-import com.prestamosrapidos.prestamos_app.entity.Prestamo;
-import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
-import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.exception.RecursoNoEncontradoException;
+import com.prestamosrapidos.prestamos_app.scheduler.FormatoSimulacion;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraRecalculoManual;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraRecalculoTrabajo;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulacionParametros;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulacionResumen;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulador;
+import com.prestamosrapidos.prestamos_app.scheduler.PrestamoScheduler;
 import com.prestamosrapidos.prestamos_app.service.PrestamoSchedulerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PrestamoSchedulerServiceImpl implements PrestamoSchedulerService {
 
-    private final PrestamoRepository prestamoRepository;
+    private final PrestamoScheduler prestamoScheduler;
+    private final MoraRecalculoManual moraRecalculoManual;
+    private final MoraSimulador moraSimulador;
 
+    /**
+     * Encola el recálculo de mora de un rango de fechas; se ejecuta en segundo plano con el mismo
+     * motor por lotes que el cálculo programado.
+     */
     @Override
-    @Transactional
-    public Map<String, Object> calcularMoraManual(LocalDate fechaCalculo) {
-        log.info("Iniciando cálculo manual de mora para la fecha: {}", fechaCalculo);
-        Map<String, Object> response = new HashMap<>();
-        response.put("fechaCalculo", fechaCalculo);
-        response.put("status", "success");
-        response.put("mensaje", "Cálculo de mora manual ejecutado exitosamente");
-        
-        try {
-            // Aquí implementarías la lógica para calcular la mora manualmente
-            // Por ahora solo es un esqueleto
-            log.info("Cálculo manual de mora completado para la fecha: {}", fechaCalculo);
-            return response;
-        } catch (Exception e) {
-            log.error("Error en cálculo manual de mora: {}", e.getMessage(), e);
-            response.put("status", "error");
-            response.put("mensaje", "Error al calcular mora: " + e.getMessage());
-            return response;
-        }
+    public MoraRecalculoTrabajo calcularMoraManual(LocalDate desde, LocalDate hasta) {
+        log.info("Solicitado recálculo manual de mora del {} al {}", desde, hasta);
+        return moraRecalculoManual.enviar(desde, hasta);
     }
 
     @Override
-    @Scheduled(cron = "0 0 */7 * * ?") // Ejecutar cada 7 horas
-    @Transactional
-    public void calcularInteresMoratorioDiario() {
-        log.info("Iniciando cálculo automático de intereses moratorios");
-        try {
-            // Aquí implementarías la lógica para calcular intereses moratorios diarios
-            // Por ahora solo es un esqueleto
-            log.info("Cálculo de intereses moratorios completado");
-        } catch (Exception e) {
-            log.error("Error en el cálculo automático de intereses: {}", e.getMessage(), e);
-        }
+    public MoraRecalculoTrabajo obtenerCalculoMoraManual(String id) {
+        return moraRecalculoManual.obtener(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Recálculo de mora no encontrado: " + id));
+    }
+
+    @Override
+    public List<MoraRecalculoTrabajo> listarCalculosMoraManual() {
+        return moraRecalculoManual.listar();
+    }
+
+    @Override
+    public MoraRecalculoTrabajo cancelarCalculoMoraManual(String id) {
+        return moraRecalculoManual.cancelar(id)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Recálculo de mora no encontrado: " + id));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<Prestamo> obtenerPrestamosVencidos(LocalDate fecha, List<EstadoPrestamo> estados) {
-        log.info("Buscando préstamos vencidos para la fecha: {}", fecha);
-        try {
-            // Implementar lógica para obtener préstamos vencidos
-            // Por ahora devuelve una lista vacía
-            return List.of();
-        } catch (Exception e) {
-            log.error("Error al obtener préstamos vencidos: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al obtener préstamos vencidos", e);
-        }
+    public MoraSimulacionParametros prepararSimulacionMora(LocalDate fecha, BigDecimal porcentajeDiario,
+                                                           Integer diasGracia, boolean soloCambios) {
+        return moraSimulador.parametros(fecha, porcentajeDiario, diasGracia, soloCambios);
+    }
+
+    /**
+     * Simula el cálculo de mora sobre una instantánea de solo lectura y escribe la diferencia
+     * de cada préstamo; no modifica ningún préstamo.
+     */
+    @Override
+    public MoraSimulacionResumen simularMora(MoraSimulacionParametros parametros, FormatoSimulacion formato,
+                                             OutputStream salida) {
+        return moraSimulador.simular(parametros, formato, salida);
+    }
+
+    /**
+     * Delega en el cálculo diario de {@link PrestamoScheduler}, que es la única tarea programada
+     * de mora; la fecha ya procesada no se vuelve a calcular.
+     */
+    @Override
+    public void calcularInteresMoratorioDiario() {
+        prestamoScheduler.calcularInteresMoratorioDiario();
     }
 }
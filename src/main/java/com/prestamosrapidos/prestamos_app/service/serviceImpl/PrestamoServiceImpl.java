@@ -1,32 +1,45 @@
 package com.prestamosrapidos.prestamos_app.service.serviceImpl;
 
+import com.prestamosrapidos.prestamos_app.cache.PrestamoCache;
 import com.prestamosrapidos.prestamos_app.entity.Cliente;
 import com.prestamosrapidos.prestamos_app.entity.Cuenta;
-import com.prestamosrapidos.prestamos_app.entity.Pago;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
 import com.prestamosrapidos.prestamos_app.exception.RecursoNoEncontradoException;
 import com.prestamosrapidos.prestamos_app.exception.SaldoInsuficienteException;
 import com.prestamosrapidos.prestamos_app.model.*;
 import com.prestamosrapidos.prestamos_app.repository.ClienteRepository;
-import com.prestamosrapidos.prestamos_app.repository.PagoRepository;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoEspecificaciones;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluada;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
+import com.prestamosrapidos.prestamos_app.scheduler.RuedaVencimientos;
 import com.prestamosrapidos.prestamos_app.service.PrestamoService;
+import com.prestamosrapidos.prestamos_app.util.CursorKeyset;
+import com.prestamosrapidos.prestamos_app.util.ExportadorPrestamos;
+import com.prestamosrapidos.prestamos_app.util.FormatoExportacion;
 import com.prestamosrapidos.prestamos_app.validation.PrestamoValidator;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.NoSuchElementException;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.chrono.ChronoLocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -34,7 +47,8 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Implementación del servicio para la gestión de préstamos en el sistema.
  * Proporciona operaciones CRUD para préstamos, cálculo de intereses, moras y gestión de pagos.
- * También incluye tareas programadas para el cálculo automático de intereses moratorios.
+ * El cálculo automático de intereses moratorios lo realiza
+ * {@link com.prestamosrapidos.prestamos_app.scheduler.PrestamoScheduler}.
  */
 @Slf4j
 @Service
@@ -43,7 +57,14 @@ public class PrestamoServiceImpl implements PrestamoService {
 
     private final PrestamoRepository prestamoRepository;
     private final ClienteRepository clienteRepository;
-    private final PagoRepository pagoRepository;
+    private final MoraEvaluador moraEvaluador;
+    private final RuedaVencimientos ruedaVencimientos;
+    private final PrestamoCache prestamoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExportadorPrestamos exportadorPrestamos;
+
+    /** Tamaño máximo de página del listado de préstamos */
+    static final int LIMITE_MAXIMO_PAGINA = 200;
 
     /**
      * Crea un nuevo préstamo en el sistema con los datos proporcionados.
@@ -123,6 +144,8 @@ public class PrestamoServiceImpl implements PrestamoService {
         
         // Guardar el préstamo
         Prestamo prestamoGuardado = prestamoRepository.save(prestamo);
+        ruedaVencimientos.actualizar(prestamoGuardado);
+        eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamoGuardado));
         
         // Convertir la entidad guardada de vuelta a modelo
         return convertirEntidadAModelo(prestamoGuardado);
@@ -139,6 +162,7 @@ public class PrestamoServiceImpl implements PrestamoService {
      * @throws IllegalArgumentException Si los datos proporcionados son inválidos
      */
     @Override
+    @Transactional
     public PrestamoModel actualizarPrestamo(Long id, PrestamoModel prestamoModel) {
         Prestamo prestamo = prestamoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
@@ -168,6 +192,8 @@ public class PrestamoServiceImpl implements PrestamoService {
         prestamo.setEstado(estado);
 
         Prestamo updatedPrestamo = prestamoRepository.save(prestamo);
+        ruedaVencimientos.actualizar(updatedPrestamo);
+        eventPublisher.publishEvent(PrestamoModificadoEvent.de(updatedPrestamo));
         return convertirEntidadAModelo(updatedPrestamo);
     }
 
@@ -207,79 +233,144 @@ public class PrestamoServiceImpl implements PrestamoService {
 
         prestamo.setEstado(nuevoEstadoEnum);
         prestamo = prestamoRepository.save(prestamo);
+        ruedaVencimientos.actualizar(prestamo);
+        eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
         return convertirEntidadAModelo(prestamo);
     }
 
     /**
-     * Obtiene un préstamo por su ID, incluyendo información actualizada de mora.
-     * Actualiza automáticamente el cálculo de mora antes de devolver el préstamo.
+     * Obtiene un préstamo por su ID.
+     * La mora devuelta es la vigente hoy, evaluada en memoria sin escribir el préstamo.
+     * El resultado se guarda en {@link PrestamoCache} con la versión del préstamo hasta que cambia.
      *
      * @param id ID del préstamo a buscar
      * @return PrestamoModel El préstamo encontrado con información actualizada
      * @throws RecursoNoEncontradoException Si no se encuentra el préstamo
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public PrestamoModel obtenerPrestamoPorId(Long id) {
-        Prestamo prestamo = prestamoRepository.findById(id)
+        String version = obtenerVersionPrestamo(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado con ID: " + id));
-        
-        // Forzar la actualización de la mora
-        verificarYActualizarMora(prestamo);
-        
-        // Recargar el préstamo para obtener los cambios más recientes
-        prestamo = prestamoRepository.findById(id)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Error al actualizar el préstamo con ID: " + id));
-        
-        return convertirEntidadAModelo(prestamo);
+        return prestamoCache.modelo(id, version, () -> {
+            Prestamo prestamo = prestamoRepository.findByIdWithPagos(id)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado con ID: " + id));
+
+            return convertirEntidadAModelo(prestamo);
+        });
+    }
+
+    /**
+     * Versión de la representación de {@link #obtenerPrestamoPorId} para su ETag, leída sin cargar el préstamo.
+     * Cambia con cada modificación del préstamo (los pagos y el cálculo de mora también lo actualizan)
+     * y cada día, porque la mora se evalúa a la fecha de la consulta.
+     *
+     * @param id ID del préstamo
+     * @return Versión del préstamo, o vacío si no existe
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> obtenerVersionPrestamo(Long id) {
+        LocalDate hoy = LocalDate.now();
+        return prestamoRepository.findFechaModificacionById(id)
+                .map(modificacion -> "p" + id + "-" + modificacion + "-" + hoy);
     }
     
     /**
-     * Obtiene una lista de todos los préstamos en el sistema.
-     * Incluye la actualización de moras para cada préstamo.
+     * Lista los préstamos paginados por keyset (orden estable por id), con filtros opcionales.
+     * Cada página cuesta lo mismo sea cual sea su profundidad: se leen los préstamos siguientes al
+     * cursor que cumplen los filtros y después solo esos, con sus pagos, en una consulta.
+     * La consulta solo lleva los filtros pedidos ({@link PrestamoEspecificaciones}), de modo que
+     * cada combinación usa su índice. No modifica ningún préstamo.
      *
-     * @return List<PrestamoModel> Lista de todos los préstamos
+     * @param filtro Filtros opcionales por estados, cliente y rangos de monto, vencimiento y días de mora
+     * @param cursor Cursor opaco devuelto por la página anterior (null para la primera)
+     * @param limite Número máximo de préstamos de la página (1 a {@value #LIMITE_MAXIMO_PAGINA})
+     * @return PaginaModel<PrestamoModel> Página de préstamos y cursor de la siguiente
+     * @throws IllegalArgumentException Si el cursor, el límite o algún filtro no son válidos
      */
     @Override
     @Transactional(readOnly = true)
-    public List<PrestamoModel> obtenerTodosLosPrestamos() {
-        List<Prestamo> prestamos = prestamoRepository.findAll();
-        // Verificar y actualizar mora para cada préstamo
-        prestamos.forEach(this::verificarYActualizarMora);
-        return prestamos.stream()
-                .map(this::convertirEntidadAModelo)
-                .collect(Collectors.toList());
+    public PaginaModel<PrestamoModel> listarPrestamos(PrestamoFiltroModel filtro, String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA);
+        }
+        Specification<Prestamo> especificacion = especificacionBusqueda(
+                filtro != null ? filtro : new PrestamoFiltroModel(), CursorKeyset.decodificar(cursor));
+
+        // Se pide uno más del límite para saber si hay página siguiente
+        List<Long> ids = prestamoRepository.findBy(especificacion,
+                        consulta -> consulta.sortBy(Sort.by("id")).limit(limite + 1).all())
+                .stream()
+                .map(Prestamo::getId)
+                .toList();
+        boolean hayMas = ids.size() > limite;
+        List<Long> idsPagina = hayMas ? ids.subList(0, limite) : ids;
+
+        List<PrestamoModel> contenido = idsPagina.isEmpty()
+                ? List.of()
+                : prestamoRepository.findByIdInWithPagos(idsPagina).stream()
+                        .map(this::convertirEntidadAModelo)
+                        .collect(Collectors.toList());
+
+        return PaginaModel.<PrestamoModel>builder()
+                .contenido(contenido)
+                .limite(limite)
+                .siguiente(hayMas ? CursorKeyset.codificar(idsPagina.get(idsPagina.size() - 1)) : null)
+                .build();
+    }
+
+    private static Specification<Prestamo> especificacionBusqueda(PrestamoFiltroModel filtros, long despuesDeId) {
+        validarRango(filtros.getMontoMinimo(), filtros.getMontoMaximo(), "monto");
+        validarRango(filtros.getVencimientoDesde(), filtros.getVencimientoHasta(), "vencimiento");
+        validarRango(filtros.getDiasMoraMinimo(), filtros.getDiasMoraMaximo(), "días de mora");
+        if (filtros.getMontoMinimo() != null && filtros.getMontoMinimo().signum() < 0) {
+            throw new IllegalArgumentException("El monto mínimo no puede ser negativo");
+        }
+        if (filtros.getDiasMoraMinimo() != null && filtros.getDiasMoraMinimo() < 0) {
+            throw new IllegalArgumentException("Los días de mora mínimos no pueden ser negativos");
+        }
+        Set<EstadoPrestamo> estados = filtros.getEstados() == null
+                ? Set.of()
+                : filtros.getEstados().stream()
+                        .filter(estado -> estado != null && !estado.isBlank())
+                        .map(EstadoPrestamo::fromString)
+                        .collect(Collectors.toCollection(() -> EnumSet.noneOf(EstadoPrestamo.class)));
+
+        return Specification.where(PrestamoEspecificaciones.despuesDe(despuesDeId > 0 ? despuesDeId : null))
+                .and(PrestamoEspecificaciones.estadoEn(estados))
+                .and(PrestamoEspecificaciones.deCliente(filtros.getClienteId()))
+                .and(PrestamoEspecificaciones.montoEntre(filtros.getMontoMinimo(), filtros.getMontoMaximo()))
+                .and(PrestamoEspecificaciones.vencimientoEntre(filtros.getVencimientoDesde(), filtros.getVencimientoHasta()))
+                .and(PrestamoEspecificaciones.diasMoraEntre(filtros.getDiasMoraMinimo(), filtros.getDiasMoraMaximo()));
+    }
+
+    private static <T extends Comparable<? super T>> void validarRango(T desde, T hasta, String nombre) {
+        if (desde != null && hasta != null && desde.compareTo(hasta) > 0) {
+            throw new IllegalArgumentException("El inicio del rango de " + nombre + " no puede ser posterior al final");
+        }
     }
 
     /**
-     * Obtiene todos los préstamos asociados a un cliente específico.
-     * Actualiza el cálculo de moras para cada préstamo del cliente.
+     * Obtiene todos los préstamos asociados a un cliente específico, ordenados por id.
+     * Se leen con sus pagos en una sola consulta de solo lectura, sin bloquear filas, y la mora se
+     * evalúa en memoria a hoy; la mora persistida la actualiza únicamente el scheduler.
      *
      * @param clienteId ID del cliente del cual se desean obtener los préstamos
      * @return List<PrestamoModel> Lista de préstamos del cliente
      */
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public List<PrestamoModel> obtenerPrestamosPorCliente(Long clienteId) {
-        List<Prestamo> prestamos = prestamoRepository.findByClienteId(clienteId);
-        
-        // Actualizar mora para cada préstamo y guardar los cambios
-        prestamos.forEach(prestamo -> {
-            verificarYActualizarMora(prestamo);
-            prestamoRepository.save(prestamo);
-        });
-        
-        // Volver a cargar los préstamos para obtener los cambios más recientes
-        List<Prestamo> prestamosActualizados = prestamoRepository.findByClienteId(clienteId);
-        
-        return prestamosActualizados.stream()
+        List<Prestamo> prestamos = prestamoRepository.findByClienteIdWithPagos(clienteId);
+
+        return prestamos.stream()
                 .map(this::convertirEntidadAModelo)
                 .collect(Collectors.toList());
     }
 
     /**
      * Obtiene los préstamos que coinciden con un estado específico.
-     * Actualiza el cálculo de moras para cada préstamo devuelto.
      *
      * @param estado Estado por el cual filtrar los préstamos
      * @return List<PrestamoModel> Lista de préstamos que coinciden con el estado
@@ -288,14 +379,25 @@ public class PrestamoServiceImpl implements PrestamoService {
     @Transactional(readOnly = true)
     public List<PrestamoModel> obtenerPrestamosPorEstado(String estado) {
         EstadoPrestamo estadoEnum = EstadoPrestamo.fromString(estado);
-        List<Prestamo> prestamos = prestamoRepository.findByEstado(String.valueOf(estadoEnum));
-        // Verificar y actualizar mora para cada préstamo
-        prestamos.forEach(this::verificarYActualizarMora);
+        List<Prestamo> prestamos = prestamoRepository.findByEstado(estadoEnum);
         return prestamos.stream()
                 .map(this::convertirEntidadAModelo)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Exporta toda la cartera en streaming, préstamo a préstamo, con los saldos y la mora a hoy.
+     * No carga las entidades: la memoria usada no depende del número de préstamos.
+     *
+     * @param formato Formato de salida (NDJSON o CSV)
+     * @param salida Flujo en el que se escriben los préstamos (no se cierra)
+     * @return Número de préstamos exportados
+     */
+    @Override
+    public long exportarPrestamos(FormatoExportacion formato, OutputStream salida) {
+        return exportadorPrestamos.exportar(formato, salida);
+    }
+
     /**
      * Elimina un préstamo del sistema por su ID.
      * No realiza validaciones adicionales sobre el estado del préstamo.
@@ -304,10 +406,13 @@ public class PrestamoServiceImpl implements PrestamoService {
      * @throws RecursoNoEncontradoException Si no se encuentra el préstamo
      */
     @Override
+    @Transactional
     public void eliminarPrestamo(Long id) {
         Prestamo prestamo = prestamoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
         prestamoRepository.delete(prestamo);
+        ruedaVencimientos.quitar(id);
+        eventPublisher.publishEvent(PrestamoModificadoEvent.eliminado(prestamo));
     }
 
     /**
@@ -320,24 +425,26 @@ public class PrestamoServiceImpl implements PrestamoService {
      */
     @Override
     public BigDecimal calcularInteresTotal(Long prestamoId) {
-        Prestamo prestamo = prestamoRepository.findById(prestamoId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
+        return prestamoCache.interesTotal(prestamoId, () -> {
+            Prestamo prestamo = prestamoRepository.findById(prestamoId)
+                    .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
 
-        BigDecimal monto = prestamo.getMonto();
-        BigDecimal interes = prestamo.getInteres();
+            BigDecimal monto = prestamo.getMonto();
+            BigDecimal interes = prestamo.getInteres();
 
-        // Calcular el interés total (monto * interés%)
-        BigDecimal interesTotal = monto.multiply(interes)
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                
-        // Sumar el monto original + intereses
-        return monto.add(interesTotal).setScale(2, RoundingMode.HALF_UP);
+            // Calcular el interés total (monto * interés%)
+            BigDecimal interesTotal = monto.multiply(interes)
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+
+            // Sumar el monto original + intereses
+            return monto.add(interesTotal).setScale(2, RoundingMode.HALF_UP);
+        });
     }
 
     /**
      * Calcula el monto restante por pagar de un préstamo.
-     * Incluye capital, intereses y moras, restando los pagos realizados.
-     * Aplica automáticamente intereses moratorios si el préstamo está vencido.
+     * Incluye capital, intereses y la mora vigente según {@link MoraEvaluador}, restando los pagos realizados:
+     * es la misma deuda restante que muestra {@link #obtenerPrestamoPorId}.
      *
      * @param prestamoId ID del préstamo para el cálculo
      * @return BigDecimal Monto restante por pagar
@@ -345,37 +452,38 @@ public class PrestamoServiceImpl implements PrestamoService {
      */
     @Override
     public BigDecimal calcularMontoRestante(Long prestamoId) {
+        return prestamoCache.montoRestante(prestamoId, () -> calcularMontoRestanteSinCache(prestamoId));
+    }
+
+    private BigDecimal calcularMontoRestanteSinCache(Long prestamoId) {
         Prestamo prestamo = prestamoRepository.findById(prestamoId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Préstamo no encontrado"));
 
-        // Calculate total amount (principal + interest)
-        BigDecimal montoTotal = prestamo.getMonto()
-                .add(prestamo.getMonto().multiply(prestamo.getInteres())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
-
-        // Get total paid amount from repository
-        Double totalPagado = pagoRepository.calcularTotalPagado(prestamoId);
-        BigDecimal montoPagado = totalPagado != null ? BigDecimal.valueOf(totalPagado) : BigDecimal.ZERO;
+        return moraEvaluador.deudaRestante(prestamo, LocalDate.now());
+    }
 
-        // Calculate remaining amount
-        BigDecimal saldoPendiente = montoTotal.subtract(montoPagado);
+    /**
+     * Calcula el monto restante de varios préstamos con una sola consulta, con las mismas reglas que
+     * {@link #calcularMontoRestante(Long)}. Los ids que no existen no aparecen en el resultado.
+     *
+     * @param prestamoIds IDs de los préstamos
+     * @return Monto restante por id de préstamo
+     */
+    @Override
+    public Map<Long, BigDecimal> calcularMontosRestantes(Collection<Long> prestamoIds) {
+        if (prestamoIds == null || prestamoIds.isEmpty()) {
+            return Map.of();
+        }
 
-        // Apply late interest if the loan is overdue
         LocalDate hoy = LocalDate.now();
-        if (prestamo.getFechaVencimiento() != null
-                && hoy.isAfter(prestamo.getFechaVencimiento())
-                && !prestamo.getEstado().equals(EstadoPrestamo.PAGADO)) {
-            // Calculate days late
-            long diasMora = ChronoUnit.DAYS.between(prestamo.getFechaVencimiento(), hoy);
-            if (diasMora > 0) {
-                // Calculate daily interest (0.1% = 0.001)
-                BigDecimal interesDiario = saldoPendiente.multiply(BigDecimal.valueOf(0.001));
-                BigDecimal interesMoratorio = interesDiario.multiply(BigDecimal.valueOf(diasMora));
-                saldoPendiente = saldoPendiente.add(interesMoratorio);
-            }
+        Map<Long, BigDecimal> montosRestantes = new HashMap<>();
+        for (PrestamoRepository.SaldoPrestamo saldo : prestamoRepository.findSaldosByIdIn(prestamoIds)) {
+            MoraEvaluada mora = moraEvaluador.evaluar(saldo.getEstado(), saldo.getMonto(), saldo.getFechaVencimiento(),
+                    saldo.getFechaUltimoCalculoMora(), saldo.getDiasMora(), saldo.getMoraAcumulada(), hoy);
+            montosRestantes.put(saldo.getId(), MoraEvaluador.deudaRestante(saldo.getMonto(), saldo.getInteres(),
+                    saldo.getTotalPagado(), mora));
         }
-
-        return saldoPendiente.setScale(2, RoundingMode.HALF_UP);
+        return montosRestantes;
     }
 
     /**
@@ -390,11 +498,12 @@ public class PrestamoServiceImpl implements PrestamoService {
         LocalDate hoy = LocalDate.now();
 
         // Verificar si el préstamo está completamente pagado
-        BigDecimal deudaRestante = calcularMontoRestante(prestamo.getId());
+        BigDecimal deudaRestante = calcularMontoRestanteSinCache(prestamo.getId());
         if (deudaRestante.compareTo(BigDecimal.ZERO) <= 0) {
             if (!prestamo.getEstado().equals(EstadoPrestamo.PAGADO)) {
                 prestamo.setEstado(EstadoPrestamo.PAGADO);
                 prestamoRepository.save(prestamo);
+                eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
             }
             return;
         }
@@ -404,129 +513,18 @@ public class PrestamoServiceImpl implements PrestamoService {
             if (!prestamo.getEstado().equals(EstadoPrestamo.VENCIDO)) {
                 prestamo.setEstado(EstadoPrestamo.VENCIDO);
                 prestamoRepository.save(prestamo);
+                eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
             }
         } else {
             // Si no está vencido, asegúrate de que el estado no sea "VENCIDO"
             if (prestamo.getEstado().equals(EstadoPrestamo.VENCIDO)) {
                 prestamo.setEstado(EstadoPrestamo.PENDIENTE); // O el estado adecuado
                 prestamoRepository.save(prestamo);
+                eventPublisher.publishEvent(PrestamoModificadoEvent.de(prestamo));
             }
         }
     }
 
-    /**
-     * Verifica y actualiza la mora de un préstamo según su estado y fechas de vencimiento.
-     * Calcula intereses moratorios diarios y actualiza el saldo pendiente.
-     *
-     * @param prestamo Préstamo a verificar y actualizar
-     */
-    @Transactional
-    public void verificarYActualizarMora(Prestamo prestamo) {
-        if (prestamo.getEstado() == EstadoPrestamo.PAGADO ||
-                prestamo.getFechaVencimiento() == null) {
-            return; // No hay nada que hacer
-        }
-
-        LocalDate hoy = LocalDate.now();
-        LocalDate fechaReferencia = prestamo.getFechaUltimoCalculoMora() != null ?
-                prestamo.getFechaUltimoCalculoMora() : prestamo.getFechaVencimiento();
-
-        // Si la fecha actual es posterior a la fecha de referencia
-        if (hoy.isAfter(fechaReferencia)) {
-            // Calcular días de mora desde la fecha de referencia
-            long diasMora = ChronoUnit.DAYS.between(fechaReferencia, hoy);
-
-            if (diasMora > 0) {
-                // Calcular capital pendiente
-                BigDecimal capitalPendiente = prestamo.getMonto();
-                if (prestamo.getPagos() != null && !prestamo.getPagos().isEmpty()) {
-                    BigDecimal totalPagado = prestamo.getPagos().stream()
-                            .map(Pago::getMonto)
-                            .filter(Objects::nonNull)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    capitalPendiente = capitalPendiente.subtract(totalPagado).max(BigDecimal.ZERO);
-                }
-
-                // Calcular mora diaria (0.1% del capital pendiente)
-                BigDecimal moraDiaria = capitalPendiente
-                        .multiply(new BigDecimal("0.001"))
-                        .setScale(2, RoundingMode.HALF_UP);
-
-                // Calcular mora total para los días transcurridos
-                BigDecimal moraNueva = moraDiaria.multiply(BigDecimal.valueOf(diasMora))
-                        .setScale(2, RoundingMode.HALF_UP);
-
-                // Actualizar el préstamo
-                int totalDiasMora = prestamo.getDiasMora() + (int) diasMora;
-                BigDecimal moraTotal = prestamo.getMoraAcumulada() != null ?
-                        prestamo.getMoraAcumulada().add(moraNueva) : moraNueva;
-
-                prestamo.setDiasMora(totalDiasMora);
-                prestamo.setMoraAcumulada(moraTotal);
-                prestamo.setEstado(EstadoPrestamo.EN_MORA);
-                prestamo.setFechaUltimoCalculoMora(hoy);
-
-                // Guardar los cambios
-                prestamoRepository.save(prestamo);
-            }
-        } else if (hoy.isBefore(prestamo.getFechaVencimiento()) &&
-                prestamo.getEstado() == EstadoPrestamo.EN_MORA) {
-            // Si la fecha actual es anterior al vencimiento y el estado es EN_MORA, cambiar a APROBADO
-            prestamo.setEstado(EstadoPrestamo.APROBADO);
-            prestamoRepository.save(prestamo);
-        }
-    }
-    
-    private BigDecimal calcularTotalPagado(Prestamo prestamo) {
-        if (prestamo.getPagos() == null || prestamo.getPagos().isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        return prestamo.getPagos().stream()
-                .map(pago -> pago.getMonto() != null ? pago.getMonto() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    /**
-     * Tarea programada que se ejecuta diariamente a medianoche.
-     * Aplica intereses moratorios a los préstamos vencidos no pagados.
-     * Actualiza el estado de los préstamos según corresponda.
-     */
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
-    public void aplicarInteresMoratorioAutomatico() {
-        LocalDate hoy = LocalDate.now();
-
-        List<Prestamo> prestamosVencidos = prestamoRepository.findPrestamosVencidosNoPagados(hoy);
-
-        prestamosVencidos.forEach(prestamo -> {
-            // Calcular días de mora desde el vencimiento
-            long diasMora = ChronoUnit.DAYS.between(prestamo.getFechaVencimiento(), hoy);
-
-            if (diasMora > 0) {
-                BigDecimal saldoPendiente = prestamo.getMonto()
-                        .add(prestamo.getMonto().multiply(prestamo.getInteres())
-                                .divide(BigDecimal.valueOf(100),
-                                4, RoundingMode.HALF_UP))
-                        .subtract(calcularTotalPagado(prestamo));
-
-                BigDecimal interesDiario = saldoPendiente
-                        .multiply(prestamo.getInteresMoratorio())
-                        .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP)
-                        .divide(BigDecimal.valueOf(365), 4, RoundingMode.HALF_UP); // Tasa diaria
-
-                prestamo.setSaldoMoratorio(
-                        prestamo.getSaldoMoratorio().add(interesDiario.multiply(BigDecimal.valueOf(diasMora)))
-                );
-                prestamo.setFechaUltimaMora(hoy);
-                prestamoRepository.save(prestamo);
-
-                if (prestamo.getEstado() != EstadoPrestamo.VENCIDO) {
-                    prestamo.setEstado(EstadoPrestamo.VENCIDO);
-                }
-            }
-        });
-    }
-
     /**
      * Valida que el cliente tenga saldo suficiente para realizar una operación.
      *
@@ -577,6 +575,11 @@ public class PrestamoServiceImpl implements PrestamoService {
     /**
      * Convierte una entidad Prestamo a su correspondiente DTO PrestamoModel.
      * Incluye el cálculo de intereses, moras y desglose de pagos.
+     * La mora, los días de mora y el estado son los vigentes hoy según {@link MoraEvaluador},
+     * sin modificar la entidad.
+     * El total pagado sale de la columna mantenida del préstamo; la colección de pagos solo se lee
+     * para listarlos, y el id del cliente no inicializa el proxy, por lo que las consultas que ya
+     * traen los pagos no provocan cargas perezosas.
      *
      * @param prestamo Entidad Prestamo a convertir
      * @return PrestamoModel DTO con los datos del préstamo
@@ -587,50 +590,24 @@ public class PrestamoServiceImpl implements PrestamoService {
                 ? prestamo.getInteresMoratorio()
                 : BigDecimal.valueOf(10.00);
                 
-        BigDecimal moraAcumulada = prestamo.getMoraAcumulada() != null
-                ? prestamo.getMoraAcumulada()
-                : BigDecimal.ZERO;
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, LocalDate.now());
+        BigDecimal moraAcumulada = mora.getMoraAcumulada();
                 
         // Calcular intereses ordinarios
-        BigDecimal interesesOrdinarios = prestamo.getMonto()
-                .multiply(prestamo.getInteres())
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                
-        // Calcular total de pagos
-        BigDecimal totalPagos = prestamo.getPagos() != null
-                ? prestamo.getPagos().stream()
-                        .map(Pago::getMonto)
-                        .filter(Objects::nonNull)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add)
-                : BigDecimal.ZERO;
+        BigDecimal interesesOrdinarios = MoraEvaluador.interesOrdinario(prestamo.getMonto(), prestamo.getInteres());
                 
         // Calcular deuda total (capital + intereses + mora - pagos)
-        BigDecimal totalDeuda = prestamo.getMonto()
-                .add(interesesOrdinarios)
-                .add(moraAcumulada)
-                .subtract(totalPagos)
-                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal totalDeuda = MoraEvaluador.deudaRestante(prestamo.getMonto(), prestamo.getInteres(),
+                prestamo.getTotalPagado(), mora);
                 
-        // Calcular mora diaria (mora diaria basada en la tasa anual)
-        BigDecimal moraDiaria = BigDecimal.ZERO;
-        if (prestamo.getEstado() == EstadoPrestamo.EN_MORA && 
-            prestamo.getFechaVencimiento() != null) {
-            
-            // Calcular la tasa de interés moratorio diaria (10% anual = 0.0274% diario)
-            BigDecimal tasaDiaria = prestamo.getInteresMoratorio()
-                    .divide(BigDecimal.valueOf(365 * 100), 10, RoundingMode.HALF_UP);
-            
-            // Calcular la mora diaria
-            moraDiaria = prestamo.getMonto()
-                    .multiply(tasaDiaria)
-                    .setScale(2, RoundingMode.HALF_UP);
-        }
+        // Mora que se suma cada día mientras el préstamo siga vencido
+        BigDecimal moraDiaria = mora.getMoraDiaria();
 
         // Construir el objeto de fechas
         FechasModel fechas = FechasModel.builder()
                 .creacion(LocalDate.from(prestamo.getFechaCreacion()))
                 .vencimiento(prestamo.getFechaVencimiento())
-                .diasMora(prestamo.getDiasMora())
+                .diasMora(mora.getDiasMora())
                 .build();
 
         // Construir el desglose de pago
@@ -658,20 +635,18 @@ public class PrestamoServiceImpl implements PrestamoService {
                 .interesMoratorio(interesMoratorio)
                 .deudaRestante(totalDeuda)  // Set deudaRestante to match totalDeuda
                 .fechas(fechas)
-                .estado(String.valueOf(prestamo.getEstado()))
+                .estado(String.valueOf(mora.getEstado()))
                 .clienteId(prestamo.getCliente().getId())
                 .desglosePago(desglosePago)
                 .pagoDiario(pagoDiario)
-                .pagos(prestamo.getPagos() != null
-                        ? prestamo.getPagos().stream()
+                .pagos(prestamo.getPagos().stream()
                         .map(pago -> PagoModel.builder()
                                 .id(pago.getId())
                                 .montoPago(pago.getMonto())
                                 .fecha(pago.getFecha())
-                                .prestamoId(pago.getPrestamo().getId())
+                                .prestamoId(prestamo.getId())
                                 .build())
-                        .collect(Collectors.toList())
-                        : new ArrayList<>())
+                        .collect(Collectors.toList()))
                 .build();
     }
 
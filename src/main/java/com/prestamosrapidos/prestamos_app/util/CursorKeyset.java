@@ -0,0 +1,50 @@
+package com.prestamosrapidos.prestamos_app.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de los listados paginados por keyset.
+ *
+ * <p>El cliente solo ve una cadena Base64 URL; dentro va el último id devuelto, de modo que la
+ * página siguiente se pide con {@code id > :ultimoId ORDER BY id} y cuesta lo mismo sea cual sea
+ * su profundidad.</p>
+ */
+public final class CursorKeyset {
+
+    private static final String PREFIJO = "id:";
+
+    private CursorKeyset() {
+    }
+
+    /**
+     * Codifica el último id de una página.
+     */
+    public static String codificar(Long ultimoId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO + ultimoId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor; sin cursor se empieza por el principio (id 0).
+     *
+     * @throws IllegalArgumentException Si el cursor no es válido
+     */
+    public static long decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        long ultimoId;
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            ultimoId = valor.startsWith(PREFIJO) ? Long.parseLong(valor.substring(PREFIJO.length())) : -1L;
+        } catch (IllegalArgumentException e) {
+            // Base64 mal formado o id no numérico
+            ultimoId = -1L;
+        }
+        if (ultimoId < 0) {
+            throw new IllegalArgumentException("Cursor de paginación no válido: " + cursor);
+        }
+        return ultimoId;
+    }
+}
@@ -0,0 +1,190 @@
+package com.prestamosrapidos.prestamos_app.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.model.PrestamoExportadoModel;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluada;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exportación de toda la cartera de préstamos con sus saldos y mora, en NDJSON o CSV.
+ *
+ * <p>Recorre los préstamos una sola vez con una consulta en modo cursor ({@value #TAMANO_FETCH} filas por
+ * viaje), dentro de una transacción de solo lectura {@code REPEATABLE READ} para que todos se lean de la
+ * misma instantánea. Cada fila se calcula y se escribe en la salida en cuanto se lee, sin cargar entidades
+ * ni pagos: la memoria no depende del tamaño de la cartera y los primeros bytes salen con la primera fila.
+ * La mora se evalúa con {@link MoraEvaluador} a la fecha de inicio de la exportación.</p>
+ */
+@Slf4j
+@Component
+public class ExportadorPrestamos {
+
+    private static final String SQL_PRESTAMOS = """
+            SELECT p.id, p.cliente_id, p.estado, p.monto, p.interes, p.total_pagado, p.ultimo_pago_fecha,
+                   p.fecha_creacion, p.fecha_vencimiento, p.fecha_ultimo_calculo_mora, p.dias_mora, p.mora_acumulada
+              FROM prestamos p
+             ORDER BY p.id
+            """;
+
+    private static final String CABECERA_CSV = "id,cliente_id,estado,monto,interes,interes_ordinario,total_pagado,"
+            + "ultimo_pago_fecha,dias_mora,mora_diaria,mora_acumulada,deuda_restante,fecha_creacion,fecha_vencimiento";
+
+    /** Filas que el controlador JDBC trae por viaje al recorrer el cursor */
+    private static final int TAMANO_FETCH = 1000;
+
+    /** Préstamos escritos entre cada vaciado del buffer de salida */
+    private static final int FILAS_POR_VACIADO = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MoraEvaluador moraEvaluador;
+
+    public ExportadorPrestamos(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper, MoraEvaluador moraEvaluador) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(TAMANO_FETCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.objectMapper = objectMapper;
+        this.moraEvaluador = moraEvaluador;
+    }
+
+    /**
+     * Escribe todos los préstamos, ordenados por id.
+     *
+     * @param formato Formato de salida
+     * @param salida Flujo en el que se escriben los préstamos (no se cierra)
+     * @return Número de préstamos exportados
+     */
+    public long exportar(FormatoExportacion formato, OutputStream salida) {
+        LocalDate hoy = LocalDate.now();
+        AtomicLong exportados = new AtomicLong();
+        long inicio = System.currentTimeMillis();
+
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        try {
+            if (formato == FormatoExportacion.CSV) {
+                escritor.write(CABECERA_CSV);
+                escritor.write('\n');
+                escritor.flush();
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(SQL_PRESTAMOS, resultSet -> {
+                escribir(escritor, formato, calcular(resultSet, hoy));
+                long filas = exportados.incrementAndGet();
+                if (filas == 1 || filas % FILAS_POR_VACIADO == 0) {
+                    vaciar(escritor);
+                }
+            }));
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la exportación de préstamos", e);
+        }
+
+        log.info("Exportación de préstamos en {} finalizada: {} préstamos en {} ms",
+                formato, exportados.get(), System.currentTimeMillis() - inicio);
+        return exportados.get();
+    }
+
+    /**
+     * Calcula la fila de un préstamo con las mismas reglas que el {@code PrestamoModel} de
+     * {@code GET /prestamos/{id}}: deuda = capital + interés ordinario + mora - total pagado.
+     */
+    PrestamoExportadoModel calcular(ResultSet resultSet, LocalDate hoy) throws SQLException {
+        EstadoPrestamo estado = EstadoPrestamo.valueOf(resultSet.getString("estado"));
+        BigDecimal monto = resultSet.getBigDecimal("monto");
+        BigDecimal interes = resultSet.getBigDecimal("interes");
+        BigDecimal totalPagado = resultSet.getBigDecimal("total_pagado");
+        LocalDate fechaVencimiento = fecha(resultSet.getDate("fecha_vencimiento"));
+
+        MoraEvaluada mora = moraEvaluador.evaluar(estado, monto, fechaVencimiento,
+                fecha(resultSet.getDate("fecha_ultimo_calculo_mora")), resultSet.getInt("dias_mora"),
+                resultSet.getBigDecimal("mora_acumulada"), hoy);
+
+        BigDecimal interesOrdinario = MoraEvaluador.interesOrdinario(monto, interes);
+        BigDecimal deudaRestante = MoraEvaluador.deudaRestante(monto, interes, totalPagado, mora);
+        Timestamp fechaCreacion = resultSet.getTimestamp("fecha_creacion");
+
+        return new PrestamoExportadoModel(
+                resultSet.getLong("id"),
+                resultSet.getLong("cliente_id"),
+                mora.getEstado(),
+                monto,
+                interes,
+                interesOrdinario,
+                totalPagado,
+                fecha(resultSet.getDate("ultimo_pago_fecha")),
+                mora.getDiasMora(),
+                mora.getMoraDiaria(),
+                mora.getMoraAcumulada(),
+                deudaRestante,
+                fechaCreacion != null ? fechaCreacion.toLocalDateTime().toLocalDate() : null,
+                fechaVencimiento);
+    }
+
+    void escribir(Writer escritor, FormatoExportacion formato, PrestamoExportadoModel prestamo) {
+        try {
+            if (formato == FormatoExportacion.CSV) {
+                escritor.write(String.join(",",
+                        String.valueOf(prestamo.id()),
+                        String.valueOf(prestamo.clienteId()),
+                        String.valueOf(prestamo.estado()),
+                        prestamo.monto().toPlainString(),
+                        prestamo.interes().toPlainString(),
+                        prestamo.interesOrdinario().toPlainString(),
+                        prestamo.totalPagado().toPlainString(),
+                        texto(prestamo.ultimoPagoFecha()),
+                        String.valueOf(prestamo.diasMora()),
+                        prestamo.moraDiaria().toPlainString(),
+                        prestamo.moraAcumulada().toPlainString(),
+                        prestamo.deudaRestante().toPlainString(),
+                        texto(prestamo.fechaCreacion()),
+                        texto(prestamo.fechaVencimiento())));
+            } else {
+                escritor.write(objectMapper.writeValueAsString(prestamo));
+            }
+            escritor.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo exportar el préstamo " + prestamo.id(), e);
+        }
+    }
+
+    private static LocalDate fecha(Date fecha) {
+        return fecha != null ? fecha.toLocalDate() : null;
+    }
+
+    private static String texto(LocalDate fecha) {
+        return fecha != null ? fecha.toString() : "";
+    }
+
+    private static void vaciar(Writer escritor) {
+        try {
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la exportación de préstamos", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.prestamosrapidos.prestamos_app.util;
+
+import com.prestamosrapidos.prestamos_app.model.PagoModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pago recibido en una carga masiva, con su número de fila para el informe.
+ *
+ * @param fila Posición en el array JSON o línea del CSV, empezando en 1
+ * @param pago Pago leído (null si la fila no se pudo leer)
+ * @param error Motivo por el que la fila no se pudo leer, o null
+ */
+public record FilaPagoLote(int fila, PagoModel pago, String error) {
+
+    public static List<FilaPagoLote> de(List<PagoModel> pagos) {
+        List<FilaPagoLote> filas = new ArrayList<>(pagos.size());
+        for (int i = 0; i < pagos.size(); i++) {
+            PagoModel pago = pagos.get(i);
+            filas.add(new FilaPagoLote(i + 1, pago, pago == null ? "Fila vacía" : null));
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,29 @@
+package com.prestamosrapidos.prestamos_app.util;
+
+/**
+ * Formato de salida de la exportación de préstamos ({@link ExportadorPrestamos}).
+ */
+public enum FormatoExportacion {
+
+    /** Un objeto JSON por línea y por préstamo */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /** Una fila por préstamo, con cabecera */
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,66 @@
+package com.prestamosrapidos.prestamos_app.util;
+
+import com.prestamosrapidos.prestamos_app.model.PagoModel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee los pagos de una carga masiva en CSV: {@code prestamoId,monto[,fecha]}, con la fecha en formato
+ * {@code yyyy-MM-dd} (sin fecha, la del día) y el punto como separador decimal. La primera línea se
+ * toma como cabecera si no empieza por un número. Una línea que no se puede leer no detiene la
+ * lectura: queda como fila con error en el informe.
+ */
+public final class LectorPagosCsv {
+
+    private LectorPagosCsv() {
+    }
+
+    public static List<FilaPagoLote> leer(Reader csv) {
+        List<FilaPagoLote> filas = new ArrayList<>();
+        try (BufferedReader lector = new BufferedReader(csv)) {
+            String linea;
+            int numero = 0;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                linea = linea.strip();
+                if (linea.isEmpty() || (numero == 1 && esCabecera(linea))) {
+                    continue;
+                }
+                filas.add(leerLinea(numero, linea));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el CSV de pagos", e);
+        }
+        return filas;
+    }
+
+    private static FilaPagoLote leerLinea(int numero, String linea) {
+        String[] campos = linea.split(",", -1);
+        if (campos.length < 2 || campos.length > 3) {
+            return new FilaPagoLote(numero, null, "Se esperaban las columnas prestamoId,monto[,fecha]");
+        }
+        try {
+            String fecha = campos.length == 3 ? campos[2].strip() : "";
+            PagoModel pago = PagoModel.builder()
+                    .prestamoId(Long.valueOf(campos[0].strip()))
+                    .montoPago(new BigDecimal(campos[1].strip()))
+                    .fecha(fecha.isEmpty() ? null : LocalDate.parse(fecha))
+                    .build();
+            return new FilaPagoLote(numero, pago, null);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return new FilaPagoLote(numero, null, "Valor no válido en la línea: " + linea);
+        }
+    }
+
+    private static boolean esCabecera(String linea) {
+        return !Character.isDigit(linea.charAt(0));
+    }
+}
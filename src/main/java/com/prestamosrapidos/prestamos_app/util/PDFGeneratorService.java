@@ -87,7 +87,7 @@ public class PDFGeneratorService {
                 
                 // Add payments table if available
                 boolean hasPayments = cliente.getPrestamos().stream()
-                    .anyMatch(p -> p.getPagos() != null && !p.getPagos().isEmpty());
+                    .anyMatch(p -> p.getUltimoPagoFecha() != null);
                     
                 if (hasPayments) {
                     addSectionTitle(document, "Historial de Pagos");
@@ -220,9 +220,7 @@ public class PDFGeneratorService {
                     
                 totalBorrowed = totalBorrowed.add(loanAmount);
                 
-                BigDecimal paid = prestamo.getPagos().stream()
-                    .map(Pago::getMonto)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                BigDecimal paid = prestamo.getTotalPagado();
                     
                 totalPaid = totalPaid.add(paid);
                 totalRemaining = totalRemaining.add(loanAmount.add(interest).subtract(paid));
@@ -341,9 +339,7 @@ public class PDFGeneratorService {
             BigDecimal totalConInteres = prestamo.getMonto()
                 .multiply(BigDecimal.ONE.add(prestamo.getInteres().divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP)));
                 
-            BigDecimal totalPagado = prestamo.getPagos().stream()
-                .map(Pago::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalPagado = prestamo.getTotalPagado();
                 
             BigDecimal deudaRestante = totalConInteres.subtract(totalPagado);
             
@@ -432,9 +428,7 @@ public class PDFGeneratorService {
                 
             totalInterest = totalInterest.add(interest);
             
-            BigDecimal paid = prestamo.getPagos().stream()
-                .map(Pago::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal paid = prestamo.getTotalPagado();
                 
             totalPaid = totalPaid.add(paid);
             
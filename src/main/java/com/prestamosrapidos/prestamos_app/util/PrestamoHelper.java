@@ -1,7 +1,6 @@
 /*
 package com.prestamosrapidos.prestamos_app.util;
 
-import com.prestamosrapidos.prestamos_app.entity.Pago;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
 import com.prestamosrapidos.prestamos_app.exception.RecursoNoEncontradoException;
@@ -32,10 +31,8 @@ public class PrestamoHelper {
                 .add(prestamo.getMonto().multiply(prestamo.getInteres())
                         .divide(BigDecimal.valueOf(100)));
 
-        // Sumar pagos realizados
-        BigDecimal montoPagado = prestamo.getPagos().stream()
-                .map(Pago::getMonto)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Total pagado mantenido en el préstamo
+        BigDecimal montoPagado = prestamo.getTotalPagado();
 
         // Saldo pendiente sin mora
         BigDecimal saldoPendiente = montoTotal.subtract(montoPagado);
@@ -0,0 +1,21 @@
+-- =============================================
+-- TABLA: mora_run
+-- =============================================
+CREATE TABLE IF NOT EXISTS mora_run (
+    fecha_negocio DATE PRIMARY KEY,
+    estado VARCHAR(20) NOT NULL,
+    ultima_etapa VARCHAR(30),
+    iniciado_el TIMESTAMP NOT NULL,
+    finalizado_el TIMESTAMP,
+    intentos INTEGER NOT NULL DEFAULT 0,
+    procesados BIGINT NOT NULL DEFAULT 0,
+    errores BIGINT NOT NULL DEFAULT 0
+);
+
+-- Comentarios para la tabla mora_run
+COMMENT ON TABLE mora_run IS 'Ejecuciones del cálculo diario de mora, una por fecha de negocio';
+COMMENT ON COLUMN mora_run.estado IS 'EN_CURSO o COMPLETADO; una fecha COMPLETADO no se vuelve a procesar';
+COMMENT ON COLUMN mora_run.ultima_etapa IS 'Última etapa completada, desde la que se reanuda una ejecución interrumpida';
+
+-- Índice para localizar los préstamos a los que se aplicó mora en una fecha (etapa RECALCULAR_DEUDA)
+CREATE INDEX IF NOT EXISTS idx_prestamo_fecha_ultima_mora ON prestamos(fecha_ultima_mora);
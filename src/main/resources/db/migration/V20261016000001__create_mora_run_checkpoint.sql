@@ -0,0 +1,24 @@
+-- =============================================
+-- TABLA: mora_run_checkpoint
+-- =============================================
+CREATE TABLE IF NOT EXISTS mora_run_checkpoint (
+    id BIGSERIAL PRIMARY KEY,
+    fecha_negocio DATE NOT NULL REFERENCES mora_run(fecha_negocio) ON DELETE CASCADE,
+    fase VARCHAR(40) NOT NULL,
+    particion INTEGER NOT NULL,
+    rango_desde BIGINT NOT NULL,
+    rango_hasta BIGINT NOT NULL,
+    ultimo_id BIGINT NOT NULL,
+    lotes INTEGER NOT NULL DEFAULT 0,
+    lotes_fallidos INTEGER NOT NULL DEFAULT 0,
+    procesados BIGINT NOT NULL DEFAULT 0,
+    errores BIGINT NOT NULL DEFAULT 0,
+    completada BOOLEAN NOT NULL DEFAULT FALSE,
+    actualizado_el TIMESTAMP NOT NULL,
+    CONSTRAINT uk_mora_run_checkpoint UNIQUE (fecha_negocio, fase, particion)
+);
+
+-- Comentarios para la tabla mora_run_checkpoint
+COMMENT ON TABLE mora_run_checkpoint IS 'Avance de cada fase (y partición) del cálculo de mora por lotes de una fecha de negocio';
+COMMENT ON COLUMN mora_run_checkpoint.rango_desde IS 'Rango de ids (rango_desde, rango_hasta] de la partición, fijado al iniciar la fase';
+COMMENT ON COLUMN mora_run_checkpoint.ultimo_id IS 'Último id procesado, confirmado en la misma transacción que su lote; la fase se reanuda desde aquí';
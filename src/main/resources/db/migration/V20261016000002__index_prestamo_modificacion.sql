@@ -0,0 +1,2 @@
+-- Sincronización incremental de la rueda de vencimientos: préstamos modificados desde la última sincronización
+CREATE INDEX IF NOT EXISTS idx_prestamo_modificacion_auditoria ON prestamos(fecha_modificacion_auditoria);
@@ -0,0 +1,8 @@
+-- Listado de préstamos paginado por keyset (id > :despuesDeId ORDER BY id) con filtros opcionales.
+-- Solo los filtros por igualdad sobre la primera columna leen la página directamente del índice, ya
+-- ordenada por id: un estado, un cliente o una fecha de vencimiento concreta.
+-- Un rango de vencimiento o varios estados (estado IN (...)) recorren el índice en orden de
+-- fecha o de estado y necesitan un paso de ordenación o de mezcla por id antes del límite.
+CREATE INDEX IF NOT EXISTS idx_prestamo_estado_id ON prestamos(estado, id);
+CREATE INDEX IF NOT EXISTS idx_prestamo_cliente_id_id ON prestamos(cliente_id, id);
+CREATE INDEX IF NOT EXISTS idx_prestamo_vencimiento_id ON prestamos(fecha_vencimiento, id);
@@ -0,0 +1,19 @@
+-- =============================================
+-- Totales de pagos mantenidos en prestamos
+-- =============================================
+ALTER TABLE prestamos ADD COLUMN IF NOT EXISTS total_pagado NUMERIC(19,2) NOT NULL DEFAULT 0;
+ALTER TABLE prestamos ADD COLUMN IF NOT EXISTS ultimo_pago_fecha DATE;
+
+COMMENT ON COLUMN prestamos.total_pagado IS 'Suma de los pagos del préstamo; la mantienen el registro y la eliminación de pagos';
+COMMENT ON COLUMN prestamos.ultimo_pago_fecha IS 'Fecha del pago más reciente del préstamo';
+
+-- Carga inicial desde los pagos existentes
+UPDATE prestamos p
+   SET total_pagado = pg.total_pagado,
+       ultimo_pago_fecha = pg.ultimo_pago_fecha
+  FROM (
+        SELECT prestamo_id, SUM(monto) AS total_pagado, MAX(fecha_pago) AS ultimo_pago_fecha
+          FROM pagos
+         GROUP BY prestamo_id
+       ) pg
+ WHERE pg.prestamo_id = p.id;
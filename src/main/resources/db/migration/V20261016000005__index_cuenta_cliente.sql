@@ -0,0 +1,3 @@
+-- Listado resumido de clientes: la cuenta principal de cada cliente (la de menor id) se lee
+-- directamente del índice
+CREATE INDEX IF NOT EXISTS idx_cuenta_cliente_id_id ON cuentas(cliente_id, id);
@@ -0,0 +1,7 @@
+-- Búsqueda de préstamos con filtros (GET /prestamos): un estado o un conjunto de estados con rango de vencimiento
+CREATE INDEX IF NOT EXISTS idx_prestamo_estado_vencimiento ON prestamos(estado, fecha_vencimiento);
+-- Vencimientos de préstamos no pagados (búsquedas por estados abiertos y préstamos vencidos no pagados):
+-- parcial, sin los préstamos pagados que forman la mayor parte de la cartera con el tiempo
+CREATE INDEX IF NOT EXISTS idx_prestamo_no_pagado_vencimiento ON prestamos(fecha_vencimiento) WHERE estado <> 'PAGADO';
+-- Rango de días de mora: solo los préstamos con mora
+CREATE INDEX IF NOT EXISTS idx_prestamo_dias_mora ON prestamos(dias_mora) WHERE dias_mora > 0;
@@ -0,0 +1,35 @@
+-- Resumen de la cartera para GET /portafolio/resumen: una fila por estado y tramo de días de mora.
+-- Se refresca con REFRESH MATERIALIZED VIEW CONCURRENTLY (RefrescoPortafolio) tras cada cálculo de
+-- mora y periódicamente; el total pagado es la columna mantenida del préstamo, sin recorrer los pagos.
+CREATE MATERIALIZED VIEW IF NOT EXISTS portafolio_resumen AS
+WITH cartera AS (
+    SELECT estado,
+           CASE
+               WHEN dias_mora <= 30 THEN '0-30'
+               WHEN dias_mora <= 60 THEN '31-60'
+               WHEN dias_mora <= 90 THEN '61-90'
+               ELSE '90+'
+           END AS tramo_mora,
+           monto,
+           ROUND(monto * interes / 100, 2) AS interes_ordinario,
+           total_pagado,
+           mora_acumulada
+      FROM prestamos
+)
+SELECT estado,
+       tramo_mora,
+       COUNT(*) AS prestamos,
+       SUM(monto) AS monto,
+       SUM(interes_ordinario) AS interes_ordinario,
+       SUM(total_pagado) AS total_pagado,
+       SUM(mora_acumulada) AS mora_acumulada,
+       SUM(monto + interes_ordinario + mora_acumulada - total_pagado) AS saldo_pendiente,
+       now() AS actualizado_en
+  FROM cartera
+ GROUP BY estado, tramo_mora
+UNION ALL
+-- Fila de control: existe aunque no haya préstamos y lleva la hora del último refresco
+SELECT '-', '-', 0, 0, 0, 0, 0, 0, now();
+
+-- REFRESH ... CONCURRENTLY necesita un índice único sobre todas las filas
+CREATE UNIQUE INDEX IF NOT EXISTS idx_portafolio_resumen_estado_tramo ON portafolio_resumen(estado, tramo_mora);
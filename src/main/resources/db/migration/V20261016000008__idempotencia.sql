@@ -0,0 +1,18 @@
+-- Claves Idempotency-Key de POST /pagos/{prestamoId} y POST /prestamos (RegistroIdempotencia).
+-- Una fila por operación y clave: EN_CURSO mientras se ejecuta la primera petición y COMPLETADA con
+-- su respuesta, que se devuelve a los reintentos hasta expira_en. La limpieza periódica borra las expiradas.
+CREATE TABLE IF NOT EXISTS idempotencia (
+    operacion VARCHAR(40) NOT NULL,
+    clave VARCHAR(255) NOT NULL,
+    huella CHAR(64) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    codigo_http INTEGER,
+    cuerpo TEXT,
+    creado_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expira_en TIMESTAMP NOT NULL
+);
+
+COMMENT ON COLUMN idempotencia.huella IS 'SHA-256 del cuerpo de la petición: la misma clave con otro cuerpo se rechaza';
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_idempotencia_operacion_clave ON idempotencia(operacion, clave);
+CREATE INDEX IF NOT EXISTS idx_idempotencia_expira ON idempotencia(expira_en);
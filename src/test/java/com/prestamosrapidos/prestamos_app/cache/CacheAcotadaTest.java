@@ -0,0 +1,146 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CacheAcotada}.
+ */
+@DisplayName("CacheAcotada Unit Tests")
+class CacheAcotadaTest {
+
+    private final RelojAjustable reloj = new RelojAjustable();
+
+    @Test
+    @DisplayName("Should load a missing value once and serve later reads from the cache")
+    void obtenerShouldLoadOnceAndCountHits() {
+        // Arrange
+        CacheAcotada<Long, String> cache = new CacheAcotada<>(10, Duration.ofMinutes(1), reloj);
+        AtomicInteger cargas = new AtomicInteger();
+
+        // Act
+        String primero = cache.obtener(1L, () -> "valor-" + cargas.incrementAndGet());
+        String segundo = cache.obtener(1L, () -> "valor-" + cargas.incrementAndGet());
+
+        // Assert
+        assertEquals("valor-1", primero);
+        assertEquals("valor-1", segundo);
+        assertEquals(1, cargas.get());
+        CacheEstadisticas estadisticas = cache.getEstadisticas();
+        assertEquals(1, estadisticas.getAciertos());
+        assertEquals(1, estadisticas.getFallos());
+        assertEquals(1, estadisticas.getTamano());
+        assertEquals(0.5, estadisticas.getTasaAciertos());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when the maximum size is exceeded")
+    void obtenerShouldEvictLeastRecentlyUsed() {
+        // Arrange
+        CacheAcotada<Long, String> cache = new CacheAcotada<>(2, Duration.ofMinutes(1), reloj);
+        cache.obtener(1L, () -> "uno");
+        cache.obtener(2L, () -> "dos");
+        cache.obtener(1L, () -> "otro");
+
+        // Act
+        cache.obtener(3L, () -> "tres");
+
+        // Assert
+        assertEquals("uno", cache.obtener(1L, () -> "recargado"));
+        assertEquals("dos-recargado", cache.obtener(2L, () -> "dos-recargado"));
+        assertEquals(2, cache.getEstadisticas().getTamano());
+        assertTrue(cache.getEstadisticas().getDesalojos() >= 1);
+    }
+
+    @Test
+    @DisplayName("Should reload entries older than their time to live")
+    void obtenerShouldExpireEntries() {
+        // Arrange
+        CacheAcotada<Long, String> cache = new CacheAcotada<>(10, Duration.ofSeconds(60), reloj);
+        cache.obtener(1L, () -> "viejo");
+
+        // Act
+        reloj.avanzar(Duration.ofSeconds(61));
+        String valor = cache.obtener(1L, () -> "nuevo");
+
+        // Assert
+        assertEquals("nuevo", valor);
+        assertEquals(1, cache.getEstadisticas().getExpiraciones());
+        assertEquals(2, cache.getEstadisticas().getFallos());
+    }
+
+    @Test
+    @DisplayName("Should not store a value loaded while an invalidation happened")
+    void obtenerShouldNotStoreValueLoadedDuringInvalidation() {
+        // Arrange
+        CacheAcotada<Long, String> cache = new CacheAcotada<>(10, Duration.ofMinutes(1), reloj);
+
+        // Act
+        String valor = cache.obtener(1L, () -> {
+            cache.invalidar(List.of(1L));
+            return "anterior";
+        });
+
+        // Assert
+        assertEquals("anterior", valor);
+        assertEquals(0, cache.getEstadisticas().getTamano());
+        assertEquals("actual", cache.obtener(1L, () -> "actual"));
+    }
+
+    @Test
+    @DisplayName("Should remove invalidated entries and not cache null values")
+    void invalidarShouldRemoveEntries() {
+        // Arrange
+        CacheAcotada<Long, String> cache = new CacheAcotada<>(10, Duration.ofMinutes(1), reloj);
+        cache.obtener(1L, () -> "uno");
+        cache.obtener(2L, () -> "dos");
+        cache.obtener(3L, () -> null);
+
+        // Act
+        cache.invalidar(List.of(1L, 4L));
+
+        // Assert
+        assertEquals(1, cache.getEstadisticas().getTamano());
+        assertEquals(1, cache.getEstadisticas().getInvalidaciones());
+
+        cache.invalidarTodo();
+        assertEquals(0, cache.getEstadisticas().getTamano());
+        assertEquals(2, cache.getEstadisticas().getInvalidaciones());
+        assertThrows(IllegalArgumentException.class, () -> new CacheAcotada<Long, String>(0, Duration.ofMinutes(1)));
+    }
+
+    /** Reloj que solo avanza cuando el test lo indica */
+    private static final class RelojAjustable extends Clock {
+
+        private Instant ahora = Instant.parse("2026-10-16T10:00:00Z");
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
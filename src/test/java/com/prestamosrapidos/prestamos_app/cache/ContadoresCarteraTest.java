@@ -0,0 +1,114 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
+import com.prestamosrapidos.prestamos_app.event.SituacionPrestamo;
+import com.prestamosrapidos.prestamos_app.model.PortafolioContadoresModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ContadoresCartera}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ContadoresCartera Unit Tests")
+class ContadoresCarteraTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ContadoresCartera contadores;
+
+    @BeforeEach
+    void setUp() {
+        contadores = new ContadoresCartera(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should seed from the aggregate query and apply the change carried by each event")
+    void shouldApplyLoanChangesOnTopOfTheSeed() throws SQLException {
+        // Arrange
+        simularConsulta(fila("APROBADO", 10, "11000.00"), fila("EN_MORA", 2, "2300.50"));
+        contadores.conciliar();
+
+        // Act
+        contadores.alModificarPrestamo(new PrestamoModificadoEvent(11L, null,
+                new SituacionPrestamo(EstadoPrestamo.APROBADO, 110000)));
+        contadores.alModificarPrestamo(new PrestamoModificadoEvent(3L,
+                new SituacionPrestamo(EstadoPrestamo.EN_MORA, 115025),
+                new SituacionPrestamo(EstadoPrestamo.PAGADO, 0)));
+        contadores.alModificarPrestamo(new PrestamoModificadoEvent(4L,
+                new SituacionPrestamo(EstadoPrestamo.APROBADO, 50000), null));
+
+        // Assert
+        PortafolioContadoresModel resultado = contadores.getContadores();
+        assertEquals(10, resultado.porEstado().get("APROBADO").prestamos());
+        assertEquals(new BigDecimal("11600.00"), resultado.porEstado().get("APROBADO").saldoPendiente());
+        assertEquals(1, resultado.porEstado().get("EN_MORA").prestamos());
+        assertEquals(new BigDecimal("1150.25"), resultado.porEstado().get("EN_MORA").saldoPendiente());
+        assertEquals(1, resultado.porEstado().get("PAGADO").prestamos());
+        assertEquals(12, resultado.total().prestamos());
+        assertEquals(new BigDecimal("12750.25"), resultado.total().saldoPendiente());
+        assertNotNull(resultado.ultimaConciliacion());
+        verify(jdbcTemplate, times(1)).query(eq(ContadoresCartera.SQL_CONTADORES), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("Should correct drifted counters without losing changes applied while reconciling")
+    void conciliarShouldKeepChangesAppliedDuringTheQuery() throws SQLException {
+        // Arrange
+        simularConsulta(fila("APROBADO", 5, "5000.00"));
+        contadores.conciliar();
+        // Un cambio de otro nodo que este no ve
+        ResultSet aprobados = fila("APROBADO", 6, "6000.00");
+        doAnswer(invocacion -> {
+            // Préstamo creado en este nodo mientras se ejecuta la consulta, que aún no lo incluye
+            contadores.alModificarPrestamo(new PrestamoModificadoEvent(20L, null,
+                    new SituacionPrestamo(EstadoPrestamo.APROBADO, 100000)));
+            invocacion.getArgument(1, RowCallbackHandler.class).processRow(aprobados);
+            return null;
+        }).when(jdbcTemplate).query(eq(ContadoresCartera.SQL_CONTADORES), any(RowCallbackHandler.class));
+
+        // Act
+        contadores.conciliar();
+
+        // Assert
+        PortafolioContadoresModel resultado = contadores.getContadores();
+        assertEquals(7, resultado.porEstado().get("APROBADO").prestamos());
+        assertEquals(new BigDecimal("7000.00"), resultado.porEstado().get("APROBADO").saldoPendiente());
+        assertEquals(1, resultado.diferenciasUltimaConciliacion());
+    }
+
+    private void simularConsulta(ResultSet... filas) {
+        doAnswer(invocacion -> {
+            RowCallbackHandler manejador = invocacion.getArgument(1);
+            for (ResultSet fila : filas) {
+                manejador.processRow(fila);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(ContadoresCartera.SQL_CONTADORES), any(RowCallbackHandler.class));
+    }
+
+    private ResultSet fila(String estado, long prestamos, String saldo) throws SQLException {
+        ResultSet fila = mock(ResultSet.class);
+        when(fila.getString("estado")).thenReturn(estado);
+        when(fila.getLong("prestamos")).thenReturn(prestamos);
+        when(fila.getBigDecimal("saldo_pendiente")).thenReturn(new BigDecimal(saldo));
+        return fila;
+    }
+}
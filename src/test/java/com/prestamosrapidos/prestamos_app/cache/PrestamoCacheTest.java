@@ -0,0 +1,88 @@
+package com.prestamosrapidos.prestamos_app.cache;
+
+import com.prestamosrapidos.prestamos_app.datasource.ContextoLectura;
+import com.prestamosrapidos.prestamos_app.model.PrestamoModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PrestamoCache}.
+ */
+@DisplayName("PrestamoCache Unit Tests")
+class PrestamoCacheTest {
+
+    private PrestamoCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrestamoCache(true, 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ContextoLectura.limpiar();
+    }
+
+    @Test
+    @DisplayName("Should load the unversioned balances from the primary so a lagging replica is never cached")
+    void saldosDebenCargarseDeLaPrimaria() {
+        // Arrange
+        AtomicBoolean montoRestante = new AtomicBoolean();
+        AtomicBoolean interesTotal = new AtomicBoolean();
+        AtomicBoolean montoRestantePagos = new AtomicBoolean();
+
+        // Act
+        cache.montoRestante(1L, () -> cargar(montoRestante));
+        cache.interesTotal(1L, () -> cargar(interesTotal));
+        cache.montoRestantePagos(1L, () -> cargar(montoRestantePagos));
+
+        // Assert
+        assertTrue(montoRestante.get());
+        assertTrue(interesTotal.get());
+        assertTrue(montoRestantePagos.get());
+        assertFalse(ContextoLectura.requierePrimaria(), "La primaria solo se fuerza durante la carga");
+    }
+
+    @Test
+    @DisplayName("Should let the versioned model read from the replica")
+    void modeloPuedeLeerDeLaReplica() {
+        // Arrange
+        AtomicBoolean primaria = new AtomicBoolean(true);
+
+        // Act
+        cache.modelo(1L, "p1-v1", () -> {
+            primaria.set(ContextoLectura.requierePrimaria());
+            return PrestamoModel.builder().id(1L).build();
+        });
+
+        // Assert
+        assertFalse(primaria.get());
+    }
+
+    @Test
+    @DisplayName("Should reload the balance after invalidating it")
+    void invalidarDebeRecargarElSaldo() {
+        // Arrange
+        cache.montoRestante(1L, () -> BigDecimal.ONE);
+
+        // Act
+        cache.invalidar(1L);
+        BigDecimal recargado = cache.montoRestante(1L, () -> BigDecimal.TEN);
+
+        // Assert
+        assertEquals(BigDecimal.TEN, recargado);
+    }
+
+    private static BigDecimal cargar(AtomicBoolean primaria) {
+        primaria.set(ContextoLectura.requierePrimaria());
+        return BigDecimal.ONE;
+    }
+}
@@ -3,26 +3,34 @@ package com.prestamosrapidos.prestamos_app.cliente;
 import com.prestamosrapidos.prestamos_app.entity.Cliente;
 import com.prestamosrapidos.prestamos_app.entity.Cuenta;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
 import com.prestamosrapidos.prestamos_app.exception.ClienteNotFoundException;
 import com.prestamosrapidos.prestamos_app.model.ClienteModel;
+import com.prestamosrapidos.prestamos_app.model.ClienteResumenModel;
 import com.prestamosrapidos.prestamos_app.model.CuentaModel;
+import com.prestamosrapidos.prestamos_app.model.PaginaModel;
 import com.prestamosrapidos.prestamos_app.repository.ClienteRepository;
 import com.prestamosrapidos.prestamos_app.repository.CuentaRepository;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
 import com.prestamosrapidos.prestamos_app.service.PrestamoService;
 import com.prestamosrapidos.prestamos_app.service.serviceImpl.ClienteServiceImpl;
+import com.prestamosrapidos.prestamos_app.util.CursorKeyset;
 import com.prestamosrapidos.prestamos_app.validation.ClienteValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +55,9 @@ public class ClienteServiceImplTest {
     @Mock
     private ClienteValidator clienteValidator;
 
+    @Spy
+    private MoraEvaluador moraEvaluador = new MoraEvaluador();
+
     @InjectMocks
     private ClienteServiceImpl clienteService;
 
@@ -165,6 +176,21 @@ public class ClienteServiceImplTest {
         verify(clienteRepository).findById(clienteId);
     }
 
+    @Test
+    void obtenerVersionClienteReadsTheDigestWithoutLoadingTheCliente() {
+        // Arrange
+        when(clienteRepository.findVersionById(1L)).thenReturn(Optional.of("9e107d9d372bb6826bd81d3542a419d6"));
+        when(clienteRepository.findVersionById(2L)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<String> version = clienteService.obtenerVersionCliente(1L);
+
+        // Assert
+        assertEquals(Optional.of("c1-9e107d9d372bb6826bd81d3542a419d6-" + LocalDate.now()), version);
+        assertTrue(clienteService.obtenerVersionCliente(2L).isEmpty());
+        verify(clienteRepository, never()).findById(any());
+    }
+
     @Test
     void obtenerClientePorIdWithInvalidIdThrowsClienteNotFoundException() {
         // Arrange
@@ -178,17 +204,62 @@ public class ClienteServiceImplTest {
     }
 
     @Test
-    void obtenerTodosLosClientesReturnsListOfClientes() {
+    void listarClientesReturnsSummaryPageWithCursor() {
         // Arrange
-        when(clienteRepository.findAll()).thenReturn(Collections.singletonList(cliente));
+        when(clienteRepository.findResumenPagina(0L, 3)).thenReturn(List.of(
+                resumen(1L, 2L, new BigDecimal("550.00"), 6),
+                resumen(2L, 0L, BigDecimal.ZERO, null),
+                resumen(3L, 1L, BigDecimal.ZERO, 2)));
 
         // Act
-        List<ClienteModel> result = clienteService.obtenerTodosLosClientes();
+        PaginaModel<ClienteResumenModel> pagina = clienteService.listarClientes(null, 2);
 
         // Assert
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        assertEquals(cliente.getNombre(), result.get(0).getNombre());
+        assertEquals(2, pagina.getContenido().size());
+        ClienteResumenModel primero = pagina.getContenido().get(0);
+        assertEquals("Juan Perez", primero.nombre());
+        assertEquals(new BigDecimal("1000.00"), primero.saldoCuenta());
+        assertEquals(2L, primero.prestamos());
+        assertEquals(new BigDecimal("550.00"), primero.deudaTotal());
+        assertEquals(EstadoPrestamo.EN_MORA, primero.peorEstado());
+        assertNull(pagina.getContenido().get(1).peorEstado());
+        assertEquals(2L, CursorKeyset.decodificar(pagina.getSiguiente()));
+        verify(clienteRepository, never()).findAll();
+        verifyNoInteractions(prestamoService);
+    }
+
+    @Test
+    void listarClientesOnLastPageOrWithInvalidArgumentsBehavesAsExpected() {
+        // Arrange
+        when(clienteRepository.findResumenPagina(5L, 51)).thenReturn(List.of(resumen(6L, 0L, BigDecimal.ZERO, null)));
+
+        // Act
+        PaginaModel<ClienteResumenModel> pagina = clienteService.listarClientes(CursorKeyset.codificar(5L), 50);
+
+        // Assert
+        assertEquals(1, pagina.getContenido().size());
+        assertNull(pagina.getSiguiente());
+        assertThrows(IllegalArgumentException.class, () -> clienteService.listarClientes(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> clienteService.listarClientes(null, 201));
+        assertThrows(IllegalArgumentException.class, () -> clienteService.listarClientes("no-es-un-cursor", 50));
+    }
+
+    @Test
+    void obtenerClientePorIdCalculatesAllBalancesInOneCall() {
+        // Arrange
+        cliente.setPrestamos(List.of(prestamo(10L, cliente), prestamo(11L, cliente)));
+        when(clienteRepository.findById(1L)).thenReturn(Optional.of(cliente));
+        when(prestamoService.calcularMontosRestantes(List.of(10L, 11L))).thenReturn(Map.of(
+                10L, new BigDecimal("550.00"), 11L, BigDecimal.ZERO));
+
+        // Act
+        ClienteModel result = clienteService.obtenerClientePorId(1L);
+
+        // Assert
+        assertEquals(new BigDecimal("550.00"), result.getPrestamos().get(0).getDeudaRestante());
+        assertEquals(BigDecimal.ZERO, result.getPrestamos().get(1).getDeudaRestante());
+        verify(prestamoService, times(1)).calcularMontosRestantes(anyCollection());
+        verify(prestamoService, never()).calcularMontoRestante(anyLong());
     }
 
     @Test
@@ -219,4 +290,55 @@ public class ClienteServiceImplTest {
         });
         verify(clienteRepository, never()).delete(any());
     }
-}
\ No newline at end of file
+
+    private Prestamo prestamo(Long id, Cliente titular) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setId(id);
+        prestamo.setMonto(new BigDecimal("500.00"));
+        prestamo.setInteres(new BigDecimal("10.00"));
+        prestamo.setEstado(EstadoPrestamo.APROBADO);
+        prestamo.setFechaCreacion(LocalDate.now().atStartOfDay());
+        prestamo.setFechaVencimiento(LocalDate.now().plusDays(30));
+        prestamo.setCliente(titular);
+        return prestamo;
+    }
+
+    private ClienteRepository.ClienteResumen resumen(Long id, Long prestamos, BigDecimal deudaTotal, Integer gravedad) {
+        return new ClienteRepository.ClienteResumen() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getNombre() {
+                return id == 1L ? "Juan Perez" : "Cliente " + id;
+            }
+
+            @Override
+            public String getCorreo() {
+                return "cliente" + id + "@example.com";
+            }
+
+            @Override
+            public BigDecimal getSaldoCuenta() {
+                return new BigDecimal("1000.00");
+            }
+
+            @Override
+            public Long getPrestamos() {
+                return prestamos;
+            }
+
+            @Override
+            public BigDecimal getDeudaTotal() {
+                return deudaTotal;
+            }
+
+            @Override
+            public Integer getGravedadPeorEstado() {
+                return gravedad;
+            }
+        };
+    }
+}
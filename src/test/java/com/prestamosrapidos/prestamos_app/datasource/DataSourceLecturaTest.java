@@ -0,0 +1,218 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link DataSourceLectura}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DataSourceLectura Unit Tests")
+class DataSourceLecturaTest {
+
+    private static final Duration RETRASO_MAXIMO = Duration.ofSeconds(5);
+
+    @Mock
+    private DataSource primaria;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection conexionPrimaria;
+
+    @Mock
+    private Connection conexionReplica;
+
+    @AfterEach
+    void tearDown() {
+        ContextoLectura.limpiar();
+    }
+
+    @Test
+    @DisplayName("Should read from the replica while its lag is within the limit")
+    void getConnectionShouldUseReplicaWhenAvailable() throws SQLException {
+        // Arrange
+        DataSourceLectura lectura = new DataSourceLectura(primaria, replica, RETRASO_MAXIMO);
+        lectura.actualizar(Duration.ofSeconds(1));
+        when(replica.getConnection()).thenReturn(conexionReplica);
+
+        // Act
+        Connection conexion = lectura.getConnection();
+
+        // Assert
+        assertSame(conexionReplica, conexion);
+        verifyNoInteractions(primaria);
+        assertEquals(1, lectura.getEstadisticas().getLecturasReplica());
+        assertTrue(lectura.getEstadisticas().isDisponible());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary before the first check, when lagging or when the replica did not answer")
+    void getConnectionShouldUsePrimaryWhenReplicaNotAvailable() throws SQLException {
+        // Arrange
+        DataSourceLectura lectura = new DataSourceLectura(primaria, replica, RETRASO_MAXIMO);
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+
+        // Act & Assert
+        assertSame(conexionPrimaria, lectura.getConnection());
+        lectura.actualizar(Duration.ofSeconds(6));
+        assertSame(conexionPrimaria, lectura.getConnection());
+        lectura.actualizar(null);
+        assertSame(conexionPrimaria, lectura.getConnection());
+
+        verifyNoInteractions(replica);
+        assertEquals(3, lectura.getEstadisticas().getLecturasPrimariaNoDisponible());
+        assertFalse(lectura.getEstadisticas().isDisponible());
+    }
+
+    @Test
+    @DisplayName("Should read from the primary after a write in the same request")
+    void getConnectionShouldUsePrimaryAfterWrite() throws SQLException {
+        // Arrange
+        DataSourceLectura lectura = new DataSourceLectura(primaria, replica, RETRASO_MAXIMO);
+        lectura.actualizar(Duration.ZERO);
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+        ContextoLectura.abrirAmbito();
+        ContextoLectura.marcarEscritura();
+
+        // Act
+        Connection conexion = lectura.getConnection();
+
+        // Assert
+        assertSame(conexionPrimaria, conexion);
+        verifyNoInteractions(replica);
+        assertEquals(1, lectura.getEstadisticas().getLecturasPrimariaTrasEscritura());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary and leave the replica out when it cannot connect")
+    void getConnectionShouldFallBackToPrimaryOnReplicaFailure() throws SQLException {
+        // Arrange
+        DataSourceLectura lectura = new DataSourceLectura(primaria, replica, RETRASO_MAXIMO);
+        lectura.actualizar(Duration.ZERO);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+
+        // Act
+        Connection primera = lectura.getConnection();
+        Connection segunda = lectura.getConnection();
+
+        // Assert
+        assertSame(conexionPrimaria, primera);
+        assertSame(conexionPrimaria, segunda);
+        verify(replica, times(1)).getConnection();
+        ReplicaEstadisticas estadisticas = lectura.getEstadisticas();
+        assertFalse(estadisticas.isDisponible());
+        assertEquals(1, estadisticas.getFallosReplica());
+        assertEquals(1, estadisticas.getLecturasPrimariaNoDisponible());
+    }
+
+    @Test
+    @DisplayName("Should apply the same routing and fallback to connections with explicit credentials")
+    void getConnectionWithCredentialsShouldRouteLikeDefault() throws SQLException {
+        // Arrange
+        DataSourceLectura lectura = new DataSourceLectura(primaria, replica, RETRASO_MAXIMO);
+        lectura.actualizar(Duration.ZERO);
+        when(replica.getConnection("lector", "clave"))
+                .thenReturn(conexionReplica)
+                .thenThrow(new SQLException("Connection refused"));
+        when(primaria.getConnection("lector", "clave")).thenReturn(conexionPrimaria);
+
+        // Act
+        Connection primera = lectura.getConnection("lector", "clave");
+        Connection segunda = lectura.getConnection("lector", "clave");
+
+        // Assert
+        assertSame(conexionReplica, primera);
+        assertSame(conexionPrimaria, segunda);
+        assertEquals(1, lectura.getEstadisticas().getLecturasReplica());
+        assertEquals(1, lectura.getEstadisticas().getFallosReplica());
+    }
+
+    @Test
+    @DisplayName("Should keep a write mark outside a request only until its transaction completes")
+    void marcarEscrituraOutsideRequestShouldLastUntilTransactionCompletes() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> sincronizaciones;
+        try {
+            // Act
+            ContextoLectura.marcarEscritura();
+            sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        boolean durante = ContextoLectura.requierePrimaria();
+        sincronizaciones.forEach(sincronizacion ->
+                sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Assert
+        assertTrue(durante);
+        assertFalse(ContextoLectura.requierePrimaria());
+        // Una sentencia suelta fuera de transacción y de petición no deja el hilo marcado
+        ContextoLectura.marcarEscritura();
+        assertFalse(ContextoLectura.requierePrimaria());
+    }
+
+    @Test
+    @DisplayName("Should pin a task to the primary and restore the previous state afterwards")
+    void conPrimariaShouldRestorePreviousState() {
+        // Act
+        boolean dentro = ContextoLectura.conPrimaria(ContextoLectura::requierePrimaria);
+
+        // Assert
+        assertTrue(dentro);
+        assertFalse(ContextoLectura.requierePrimaria());
+    }
+
+    @Test
+    @DisplayName("Should route read-only connections through the proxy to the replica and writes to the primary")
+    void proxyShouldRouteByReadOnlyFlag() throws SQLException {
+        // Arrange
+        ContextoLectura.abrirAmbito();
+        DataSourceLectura lectura = new DataSourceLectura(primaria, replica, RETRASO_MAXIMO);
+        lectura.actualizar(Duration.ZERO);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(new DataSourceEscritura(primaria));
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.setReadOnlyDataSource(lectura);
+        when(replica.getConnection()).thenReturn(conexionReplica);
+        when(primaria.getConnection()).thenReturn(conexionPrimaria);
+        when(conexionReplica.createStatement()).thenReturn(mock(Statement.class));
+        when(conexionPrimaria.createStatement()).thenReturn(mock(Statement.class));
+
+        // Act
+        try (Connection soloLectura = proxy.getConnection()) {
+            soloLectura.setReadOnly(true);
+            soloLectura.createStatement();
+        }
+        boolean requiereAntesDeEscribir = ContextoLectura.requierePrimaria();
+        try (Connection escritura = proxy.getConnection()) {
+            escritura.createStatement();
+        }
+
+        // Assert
+        verify(conexionReplica).createStatement();
+        verify(conexionPrimaria).createStatement();
+        assertFalse(requiereAntesDeEscribir);
+        assertTrue(ContextoLectura.requierePrimaria());
+    }
+}
@@ -0,0 +1,234 @@
+package com.prestamosrapidos.prestamos_app.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba el enrutado de las lecturas contra una primaria y una réplica en streaming reales
+ * (Testcontainers): la réplica se crea con {@code pg_basebackup} desde la primaria. Las pruebas se
+ * omiten cuando no hay Docker disponible.
+ *
+ * <p>Cada lectura pregunta {@code pg_is_in_recovery()}, que solo es verdadero en la réplica.</p>
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@DisplayName("Réplica de lectura - primaria y réplica PostgreSQL")
+class ReplicaLecturaPostgresTest {
+
+    private static final String IMAGEN = "postgres:16-alpine";
+
+    private static final Network RED = Network.newNetwork();
+
+    /** La imagen solo admite conexiones de replicación desde localhost */
+    private static final String PERMITIR_REPLICACION =
+            "echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\"\n";
+
+    private static final PostgreSQLContainer<?> PRIMARIA = new PostgreSQLContainer<>(IMAGEN)
+            .withNetwork(RED)
+            .withNetworkAliases("primaria")
+            .withCopyToContainer(Transferable.of(PERMITIR_REPLICACION, 0755),
+                    "/docker-entrypoint-initdb.d/replicacion.sh");
+
+    private static final GenericContainer<?> REPLICA = new GenericContainer<>(IMAGEN)
+            .withNetwork(RED)
+            .withExposedPorts(PostgreSQLContainer.POSTGRESQL_PORT)
+            .withEnv("PGPASSWORD", PRIMARIA.getPassword())
+            .withCreateContainerCmdModifier(cmd -> cmd
+                    .withUser("postgres")
+                    .withEntrypoint("sh", "-c", """
+                            pg_basebackup -h primaria -U %s -D /var/lib/postgresql/data/replica -R -X stream \
+                              && exec postgres -D /var/lib/postgresql/data/replica
+                            """.formatted(PRIMARIA.getUsername())))
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*\\s", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSourceLectura dataSourceLectura;
+
+    @DynamicPropertySource
+    static void configurarBasesDeDatos(DynamicPropertyRegistry registry) {
+        if (!PRIMARIA.isRunning()) {
+            PRIMARIA.start();
+        }
+        if (!REPLICA.isRunning()) {
+            REPLICA.start();
+        }
+        registry.add("spring.datasource.url", PRIMARIA::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARIA::getUsername);
+        registry.add("spring.datasource.password", PRIMARIA::getPassword);
+        registry.add("prestamo.datasource.replica.url", ReplicaLecturaPostgresTest::urlReplica);
+        registry.add("prestamo.datasource.replica.retraso-maximo", () -> "1s");
+        // Las pruebas comprueban el retraso cuando lo necesitan
+        registry.add("prestamo.datasource.replica.comprobacion", () -> "1h");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.prestamosrapidos", () -> "WARN");
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS replica_prueba (id BIGSERIAL PRIMARY KEY)");
+        esperarReplicaAlDia();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ContextoLectura.limpiar();
+        ejecutarEnReplica("SELECT pg_wal_replay_resume()");
+    }
+
+    @Test
+    @DisplayName("Read-only transactions should read from the replica and read-write ones from the primary")
+    void soloLecturaDebeLeerDeLaReplica() {
+        // Act
+        boolean soloLectura = leeDeReplica(true);
+        boolean lecturaEscritura = leeDeReplica(false);
+
+        // Assert
+        assertTrue(soloLectura);
+        assertFalse(lecturaEscritura);
+        assertTrue(dataSourceLectura.getEstadisticas().getLecturasReplica() > 0);
+    }
+
+    @Test
+    @DisplayName("Reads should go to the primary while the replica lags more than the limit")
+    void replicaRetrasadaDebeLeerDeLaPrimaria() {
+        // Arrange: la réplica deja de aplicar lo que recibe y la primaria sigue escribiendo
+        ejecutarEnReplica("SELECT pg_wal_replay_pause()");
+        jdbcTemplate.update("INSERT INTO replica_prueba DEFAULT VALUES");
+        long noDisponiblesAntes = dataSourceLectura.getEstadisticas().getLecturasPrimariaNoDisponible();
+
+        // Act
+        esperarHasta(() -> {
+            dataSourceLectura.comprobarRetraso();
+            return !dataSourceLectura.getEstadisticas().isDisponible();
+        });
+        boolean soloLectura = leeDeReplica(true);
+
+        // Assert
+        ReplicaEstadisticas estadisticas = dataSourceLectura.getEstadisticas();
+        assertFalse(soloLectura);
+        assertNotNull(estadisticas.getRetraso(), "La réplica debe responder a la comprobación");
+        assertTrue(estadisticas.getRetraso().compareTo(Duration.ofSeconds(1)) > 0);
+        assertTrue(estadisticas.getLecturasPrimariaNoDisponible() > noDisponiblesAntes);
+    }
+
+    @Test
+    @DisplayName("A request that wrote should read from the primary until it ends")
+    void peticionQueEscribioDebeLeerDeLaPrimaria() throws Exception {
+        // Arrange
+        AtomicBoolean antesDeEscribir = new AtomicBoolean();
+        AtomicBoolean despuesDeEscribir = new AtomicBoolean();
+
+        // Act
+        new FiltroContextoLectura().doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                (peticion, respuesta) -> {
+                    antesDeEscribir.set(leeDeReplica(true));
+                    new TransactionTemplate(transactionManager).executeWithoutResult(estado ->
+                            jdbcTemplate.update("INSERT INTO replica_prueba DEFAULT VALUES"));
+                    despuesDeEscribir.set(leeDeReplica(true));
+                });
+        boolean siguientePeticion = leeDeReplica(true);
+
+        // Assert
+        assertTrue(antesDeEscribir.get());
+        assertFalse(despuesDeEscribir.get());
+        assertTrue(siguientePeticion);
+    }
+
+    /**
+     * @return {@code true} si la transacción leyó de la réplica
+     */
+    private boolean leeDeReplica(boolean soloLectura) {
+        TransactionTemplate plantilla = new TransactionTemplate(transactionManager);
+        plantilla.setReadOnly(soloLectura);
+        return Boolean.TRUE.equals(plantilla.execute(estado ->
+                jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+    }
+
+    /**
+     * Espera a que la réplica aplique todo lo escrito en la primaria y la vuelve a admitir en las lecturas.
+     */
+    private void esperarReplicaAlDia() {
+        jdbcTemplate.update("INSERT INTO replica_prueba DEFAULT VALUES");
+        long ultimo = jdbcTemplate.queryForObject("SELECT MAX(id) FROM replica_prueba", Long.class);
+        esperarHasta(() -> consultarEnReplica("SELECT COUNT(*) FROM replica_prueba WHERE id = " + ultimo) == 1);
+        esperarHasta(() -> {
+            dataSourceLectura.comprobarRetraso();
+            return dataSourceLectura.getEstadisticas().isDisponible();
+        });
+    }
+
+    private void esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + ESPERA_MAXIMA.toNanos();
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "La réplica no llegó al estado esperado a tiempo");
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrumpido esperando a la réplica");
+            }
+        }
+    }
+
+    private void ejecutarEnReplica(String sql) {
+        consultarEnReplica(sql);
+    }
+
+    /**
+     * Consulta la réplica directamente, sin pasar por el enrutado de la aplicación.
+     */
+    private long consultarEnReplica(String sql) {
+        try (Connection conexion = DriverManager.getConnection(urlReplica(), PRIMARIA.getUsername(), PRIMARIA.getPassword());
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(sql)) {
+            resultado.next();
+            Object valor = resultado.getObject(1);
+            return valor instanceof Number numero ? numero.longValue() : 0;
+        } catch (SQLException e) {
+            // La tabla puede no haber llegado aún a la réplica
+            return -1;
+        }
+    }
+
+    private static String urlReplica() {
+        return "jdbc:postgresql://" + REPLICA.getHost() + ":"
+                + REPLICA.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + PRIMARIA.getDatabaseName();
+    }
+}
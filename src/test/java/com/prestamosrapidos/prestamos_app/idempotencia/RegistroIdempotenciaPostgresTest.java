@@ -0,0 +1,117 @@
+package com.prestamosrapidos.prestamos_app.idempotencia;
+
+import com.prestamosrapidos.prestamos_app.support.PostgresTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba contra PostgreSQL real que un reintento que llega mientras la primera petición con la misma
+ * clave sigue en curso, por mucho que tarde, espera a que termine en lugar de ejecutar la operación otra vez.
+ */
+@DisplayName("RegistroIdempotencia - peticiones simultáneas con la misma clave")
+class RegistroIdempotenciaPostgresTest extends PostgresTestSupport {
+
+    private static final Map<String, Object> PETICION = Map.of("prestamoId", 7, "montoPago", "250.00");
+
+    /** Tiempo que el reintento debe seguir esperando mientras la primera petición no termina */
+    private static final long ESPERA_BLOQUEADA_MS = 500;
+
+    @Autowired
+    private RegistroIdempotencia registro;
+
+    private final ExecutorService hilos = Executors.newFixedThreadPool(2);
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+    private final CountDownLatch primeraDentro = new CountDownLatch(1);
+    private final CountDownLatch terminarPrimera = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        terminarPrimera.countDown();
+        hilos.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("A retry while the first request is still running should wait and replay its response")
+    void reintentoDuranteLaPrimeraDebeRepetirSuRespuesta() throws Exception {
+        // Arrange
+        String clave = UUID.randomUUID().toString();
+        Future<ResponseEntity<?>> primera = hilos.submit(() ->
+                registro.ejecutar("pago", clave, PETICION, lenta(HttpStatus.CREATED)));
+        assertTrue(primeraDentro.await(10, TimeUnit.SECONDS));
+
+        // Act
+        Future<ResponseEntity<?>> reintento = hilos.submit(() ->
+                registro.ejecutar("pago", clave, PETICION, this::registrar));
+
+        // Assert: el reintento no se ejecuta mientras la primera sigue en curso
+        assertThrows(TimeoutException.class, () -> reintento.get(ESPERA_BLOQUEADA_MS, TimeUnit.MILLISECONDS));
+        terminarPrimera.countDown();
+        assertEquals(HttpStatus.CREATED, primera.get(10, TimeUnit.SECONDS).getStatusCode());
+        ResponseEntity<?> repetida = reintento.get(10, TimeUnit.SECONDS);
+        assertEquals(HttpStatus.CREATED, repetida.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    @DisplayName("A retry while the first request is still running should execute once the first one fails")
+    void reintentoDuranteLaPrimeraDebeEjecutarseSiLaPrimeraFalla() throws Exception {
+        // Arrange
+        String clave = UUID.randomUUID().toString();
+        Future<ResponseEntity<?>> primera = hilos.submit(() ->
+                registro.ejecutar("pago", clave, PETICION, lenta(HttpStatus.BAD_REQUEST)));
+        assertTrue(primeraDentro.await(10, TimeUnit.SECONDS));
+
+        // Act
+        Future<ResponseEntity<?>> reintento = hilos.submit(() ->
+                registro.ejecutar("pago", clave, PETICION, this::registrar));
+
+        // Assert
+        assertThrows(TimeoutException.class, () -> reintento.get(ESPERA_BLOQUEADA_MS, TimeUnit.MILLISECONDS));
+        terminarPrimera.countDown();
+        assertEquals(HttpStatus.BAD_REQUEST, primera.get(10, TimeUnit.SECONDS).getStatusCode());
+        ResponseEntity<?> ejecutada = reintento.get(10, TimeUnit.SECONDS);
+        assertEquals(HttpStatus.CREATED, ejecutada.getStatusCode());
+        assertNull(ejecutada.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(2, ejecuciones.get());
+    }
+
+    /**
+     * Operación que no termina hasta {@link #terminarPrimera}, con la clave ya insertada en su transacción.
+     */
+    private Supplier<ResponseEntity<?>> lenta(HttpStatus codigo) {
+        return () -> {
+            ejecuciones.incrementAndGet();
+            primeraDentro.countDown();
+            try {
+                assertTrue(terminarPrimera.await(30, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return ResponseEntity.status(codigo).body(Map.of("id", 99));
+        };
+    }
+
+    private ResponseEntity<?> registrar() {
+        ejecuciones.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", 100));
+    }
+}
@@ -0,0 +1,207 @@
+package com.prestamosrapidos.prestamos_app.idempotencia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prestamosrapidos.prestamos_app.model.PagoModel;
+import com.prestamosrapidos.prestamos_app.scheduler.SchedulerLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RegistroIdempotencia}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RegistroIdempotencia Unit Tests")
+class RegistroIdempotenciaTest {
+
+    private static final String CLAVE = "6f1c2a9e-pago-1";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    private RegistroIdempotencia registro;
+    private PagoModel pago;
+    private AtomicInteger ejecuciones;
+
+    @BeforeEach
+    void setUp() {
+        registro = new RegistroIdempotencia(jdbcTemplate, transactionManager, new ObjectMapper().findAndRegisterModules(),
+                schedulerLock, Duration.ofHours(24), 100, Duration.ofMinutes(10));
+        pago = PagoModel.builder()
+                .montoPago(new BigDecimal("250.00"))
+                .fecha(LocalDate.of(2026, 10, 1))
+                .prestamoId(7L)
+                .build();
+        ejecuciones = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should execute the action without touching the table when no key is sent")
+    void shouldExecuteDirectlyWithoutKey() {
+        // Act
+        ResponseEntity<?> respuesta = registro.ejecutar("pago", null, pago, this::registrarPago);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
+        assertEquals(1, ejecuciones.get());
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should insert the key, execute once and store the response in the same transaction")
+    void shouldStoreTheResponseOfTheFirstExecution() {
+        // Arrange
+        simularLectura();
+        simularReserva(1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        // Act
+        ResponseEntity<?> respuesta = registro.ejecutar("pago", CLAVE, pago, this::registrarPago);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
+        assertEquals(1, ejecuciones.get());
+        verify(jdbcTemplate).update(eq(RegistroIdempotencia.SQL_COMPLETAR), eq(201), contains("\"id\":99"),
+                eq("pago"), eq(CLAVE));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should replay the stored response without executing again and serve repeats from memory")
+    void shouldReplayStoredResponse() {
+        // Arrange
+        String cuerpo = "{\"id\":99,\"montoPago\":250.00,\"fecha\":\"2026-10-01\",\"prestamoId\":7}";
+        simularLectura(new RespuestaIdempotente(registro.huella(pago), 201, cuerpo));
+
+        // Act
+        ResponseEntity<?> primera = registro.ejecutar("pago", CLAVE, pago, this::registrarPago);
+        ResponseEntity<?> segunda = registro.ejecutar("pago", CLAVE, pago, this::registrarPago);
+
+        // Assert
+        assertEquals(0, ejecuciones.get());
+        assertEquals(HttpStatus.CREATED, primera.getStatusCode());
+        assertEquals(cuerpo, primera.getBody());
+        assertEquals("true", primera.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(cuerpo, segunda.getBody());
+        verify(jdbcTemplate, times(1)).query(eq(RegistroIdempotencia.SQL_LEER), any(RowMapper.class), eq("pago"), eq(CLAVE));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should reject a reused key with a different request body")
+    void shouldRejectKeyReusedWithAnotherRequest() {
+        // Arrange
+        String huellaOtroPago = registro.huella(PagoModel.builder().montoPago(BigDecimal.TEN).prestamoId(7L).build());
+        simularLectura(new RespuestaIdempotente(huellaOtroPago, 201, "{}"));
+
+        // Act
+        ResponseEntity<?> respuesta = registro.ejecutar("pago", CLAVE, pago, this::registrarPago);
+
+        // Assert
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, respuesta.getStatusCode());
+        assertEquals(0, ejecuciones.get());
+    }
+
+    @Test
+    @DisplayName("Should replay the response of a request that committed while this one waited on the key")
+    void shouldReplayResponseCommittedWhileWaitingOnTheKey() {
+        // Arrange: la primera petición aún no había terminado al leer; al insertar, ya se había confirmado
+        String cuerpo = "{\"id\":99}";
+        when(jdbcTemplate.query(eq(RegistroIdempotencia.SQL_LEER), any(RowMapper.class), eq("pago"), eq(CLAVE)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new RespuestaIdempotente(registro.huella(pago), 201, cuerpo)));
+        simularReserva(0);
+        SimpleTransactionStatus transaccion = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transaccion);
+
+        // Act
+        ResponseEntity<?> respuesta = registro.ejecutar("pago", CLAVE, pago, this::registrarPago);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, respuesta.getStatusCode());
+        assertEquals(cuerpo, respuesta.getBody());
+        assertEquals("true", respuesta.getHeaders().getFirst(RegistroIdempotencia.CABECERA_REPETIDA));
+        assertEquals(0, ejecuciones.get());
+        assertTrue(transaccion.isRollbackOnly());
+        verify(jdbcTemplate, never()).update(eq(RegistroIdempotencia.SQL_COMPLETAR), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should roll back the key with the action when it fails so a retry can execute")
+    void shouldRollBackKeyWhenActionFails() {
+        // Arrange
+        simularLectura();
+        simularReserva(1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> registro.ejecutar("pago", CLAVE, pago, () -> {
+            throw new IllegalStateException("Fallo al registrar");
+        }));
+        verify(transactionManager).rollback(any());
+        verify(jdbcTemplate, never()).update(eq(RegistroIdempotencia.SQL_COMPLETAR), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should roll back the key when the action does not answer 2xx")
+    void shouldRollBackKeyWhenActionIsRejected() {
+        // Arrange
+        simularLectura();
+        simularReserva(1);
+        SimpleTransactionStatus transaccion = new SimpleTransactionStatus();
+        when(transactionManager.getTransaction(any())).thenReturn(transaccion);
+
+        // Act
+        ResponseEntity<?> respuesta = registro.ejecutar("pago", CLAVE, pago, () -> ResponseEntity.badRequest().build());
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, respuesta.getStatusCode());
+        assertTrue(transaccion.isRollbackOnly());
+        verify(jdbcTemplate, never()).update(eq(RegistroIdempotencia.SQL_COMPLETAR), any(), any(), any(), any());
+    }
+
+    private ResponseEntity<?> registrarPago() {
+        ejecuciones.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(PagoModel.builder()
+                .id(99L)
+                .montoPago(pago.getMontoPago())
+                .fecha(pago.getFecha())
+                .prestamoId(pago.getPrestamoId())
+                .build());
+    }
+
+    private void simularLectura(RespuestaIdempotente... registros) {
+        when(jdbcTemplate.query(eq(RegistroIdempotencia.SQL_LEER), any(RowMapper.class), eq("pago"), eq(CLAVE)))
+                .thenReturn(List.of(registros));
+    }
+
+    private void simularReserva(int filas) {
+        when(jdbcTemplate.update(eq(RegistroIdempotencia.SQL_RESERVAR), eq("pago"), eq(CLAVE), eq(registro.huella(pago)),
+                eq(86400L))).thenReturn(filas);
+    }
+}
@@ -1,11 +1,18 @@
 package com.prestamosrapidos.prestamos_app.pagos;
 
+import com.prestamosrapidos.prestamos_app.cache.PrestamoCache;
 import com.prestamosrapidos.prestamos_app.entity.Pago;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
+import com.prestamosrapidos.prestamos_app.event.SituacionPrestamo;
+import com.prestamosrapidos.prestamos_app.model.PagoLoteFilaModel;
+import com.prestamosrapidos.prestamos_app.model.PagoLoteResultadoModel;
 import com.prestamosrapidos.prestamos_app.model.PagoModel;
 import com.prestamosrapidos.prestamos_app.repository.PagoRepository;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
+import com.prestamosrapidos.prestamos_app.scheduler.RuedaVencimientos;
 import com.prestamosrapidos.prestamos_app.service.serviceImpl.PagoServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,16 +22,26 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,12 +58,33 @@ class PagoServiceImplTest {
     @Mock
     private PrestamoRepository prestamoRepository;
 
+    @Spy
+    private MoraEvaluador moraEvaluador = new MoraEvaluador();
+
+    @Mock
+    private RuedaVencimientos ruedaVencimientos;
+
+    @Spy
+    private PrestamoCache prestamoCache = new PrestamoCache(true, 100, Duration.ofMinutes(1));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private PagoServiceImpl pagoService;
 
     @Captor
     private ArgumentCaptor<Pago> pagoCaptor;
 
+    @Captor
+    private ArgumentCaptor<PrestamoModificadoEvent> eventoCaptor;
+
     private Prestamo prestamo;
 
     @BeforeEach
@@ -73,7 +111,8 @@ class PagoServiceImplTest {
                 .prestamoId(1L)
                 .build();
 
-        when(prestamoRepository.findById(1L)).thenReturn(Optional.of(prestamo));
+        prestamo.postLoad();
+        when(prestamoRepository.findByIdParaActualizar(1L)).thenReturn(Optional.of(prestamo));
         when(pagoRepository.save(any(Pago.class))).thenAnswer(invocation -> {
             Pago pago = invocation.getArgument(0);
             pago.setId(1L);
@@ -94,6 +133,113 @@ class PagoServiceImplTest {
         assertEquals(new BigDecimal("100.00"), savedPago.getMonto());
         assertEquals(prestamo, savedPago.getPrestamo());
         assertNotNull(savedPago.getFecha());  // Ensure date is set
+        assertEquals(new BigDecimal("100.00"), prestamo.getTotalPagado());
+        assertEquals(LocalDate.now(), prestamo.getUltimoPagoFecha());
+        verify(eventPublisher).publishEvent(eventoCaptor.capture());
+        assertEquals(1L, eventoCaptor.getValue().prestamoId());
+        assertEquals(new SituacionPrestamo(EstadoPrestamo.APROBADO, 110000), eventoCaptor.getValue().anterior());
+        assertEquals(new SituacionPrestamo(EstadoPrestamo.APROBADO, 100000), eventoCaptor.getValue().nueva());
+    }
+
+    @Test
+    @DisplayName("Should register a payment batch grouped by loan and report every row")
+    void registrarPagosLoteShouldApplyPaymentsPerLoanAndReportEachRow() {
+        // Arrange: deuda del préstamo 1 = 1000 + 10% = 1100
+        List<PagoModel> pagos = List.of(
+                pagoLote(1L, "500.00"),
+                pagoLote(1L, "0"),
+                pagoLote(2L, "50.00"),
+                pagoLote(1L, "700.00"),
+                pagoLote(1L, "10.00"));
+        when(prestamoRepository.findByIdInParaActualizar(List.of(1L, 2L))).thenReturn(List.of(prestamo));
+        simularInsercionPagos(101L);
+
+        // Act
+        PagoLoteResultadoModel resultado = pagoService.registrarPagosLote(pagos);
+
+        // Assert
+        assertEquals(5, resultado.recibidos());
+        assertEquals(2, resultado.registrados());
+        assertEquals(3, resultado.rechazados());
+        List<PagoLoteFilaModel> filas = resultado.filas();
+        assertEquals(101L, filas.get(0).pagoId());
+        assertFalse(filas.get(0).ajustado());
+        assertFalse(filas.get(1).registrado());
+        assertEquals("Préstamo no encontrado", filas.get(2).error());
+        assertTrue(filas.get(3).registrado());
+        assertEquals(new BigDecimal("700.00"), filas.get(3).montoSolicitado());
+        assertEquals(new BigDecimal("600.00"), filas.get(3).montoPago());
+        assertTrue(filas.get(3).ajustado());
+        assertEquals(102L, filas.get(3).pagoId());
+        assertFalse(filas.get(4).registrado());
+        assertEquals(new BigDecimal("1100.00"), prestamo.getTotalPagado());
+        assertEquals(EstadoPrestamo.PAGADO, prestamo.getEstado());
+        verify(eventPublisher, times(1)).publishEvent(any(PrestamoModificadoEvent.class));
+        verify(pagoRepository, never()).save(any(Pago.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a batch row for a loan without pending debt and leave the loan untouched")
+    void registrarPagosLoteShouldNotModifyLoanWhenRowIsRejected() {
+        // Arrange: vencido hace 5 días, deuda = 1000 + 100 de interés + 5 días de mora de 1.00, ya pagada
+        prestamo.setEstado(EstadoPrestamo.VENCIDO);
+        prestamo.setFechaVencimiento(LocalDate.now().minusDays(5));
+        prestamo.setFechaUltimoCalculoMora(LocalDate.now().minusDays(5));
+        prestamo.sumarPago(new BigDecimal("1105.00"), LocalDate.now().minusDays(1));
+        when(prestamoRepository.findByIdInParaActualizar(List.of(1L))).thenReturn(List.of(prestamo));
+
+        // Act
+        PagoLoteResultadoModel resultado = pagoService.registrarPagosLote(List.of(pagoLote(1L, "50.00")));
+
+        // Assert
+        assertEquals(1, resultado.rechazados());
+        assertEquals("El préstamo no tiene deuda pendiente.", resultado.filas().get(0).error());
+        assertEquals(EstadoPrestamo.VENCIDO, prestamo.getEstado());
+        assertEquals(0, prestamo.getDiasMora());
+        assertEquals(new BigDecimal("1000.00"), prestamo.getDeudaRestante());
+        verifyNoInteractions(eventPublisher, ruedaVencimientos, jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should read a CSV payment batch and reject unreadable lines")
+    void registrarPagosLoteCsvShouldSkipHeaderAndRejectInvalidLines() {
+        // Arrange
+        String csv = """
+                prestamoId,monto,fecha
+                1,100.00,2026-10-01
+                1,abc
+                """;
+        when(prestamoRepository.findByIdInParaActualizar(List.of(1L))).thenReturn(List.of(prestamo));
+        simularInsercionPagos(7L);
+
+        // Act
+        PagoLoteResultadoModel resultado = pagoService.registrarPagosLoteCsv(new StringReader(csv));
+
+        // Assert
+        assertEquals(2, resultado.recibidos());
+        assertEquals(1, resultado.registrados());
+        assertEquals(2, resultado.filas().get(0).fila());
+        assertEquals(LocalDate.of(2026, 10, 1), resultado.filas().get(0).fecha());
+        assertEquals(3, resultado.filas().get(1).fila());
+        assertFalse(resultado.filas().get(1).registrado());
+        assertEquals(LocalDate.of(2026, 10, 1), prestamo.getUltimoPagoFecha());
+    }
+
+    private PagoModel pagoLote(Long prestamoId, String monto) {
+        return PagoModel.builder().prestamoId(prestamoId).montoPago(new BigDecimal(monto)).build();
+    }
+
+    /** Simula el batch de inserción de pagos devolviendo ids consecutivos desde {@code primerId} */
+    private void simularInsercionPagos(long primerId) {
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocacion -> {
+            BatchPreparedStatementSetter filas = invocacion.getArgument(1);
+            KeyHolder claves = invocacion.getArgument(2);
+            for (int i = 0; i < filas.getBatchSize(); i++) {
+                claves.getKeyList().add(Map.of("id", primerId + i));
+            }
+            return new int[filas.getBatchSize()];
+        });
     }
 
     @Test
@@ -164,8 +310,8 @@ class PagoServiceImplTest {
         // Arrange
         prestamo.setMonto(new BigDecimal("1000.00"));
         prestamo.setInteres(new BigDecimal("10.00")); // 10% interest
+        prestamo.setTotalPagado(new BigDecimal("300.00"));
         when(prestamoRepository.findById(1L)).thenReturn(Optional.of(prestamo));
-        when(pagoRepository.calcularTotalPagado(1L)).thenReturn(300.0);
 
         // Calculate expected: 1000 + (1000 * 0.10) - 300 = 1000 + 100 - 300 = 800
         BigDecimal expected = new BigDecimal("800.00");
@@ -178,6 +324,26 @@ class PagoServiceImplTest {
                 "Expected: " + expected + " but was: " + result);
     }
 
+    @Test
+    @DisplayName("Should add the current mora of MoraEvaluador to the remaining amount of an overdue loan")
+    void calcularMontoRestanteShouldAddTheEvaluatedMora() {
+        // Arrange
+        prestamo.setTotalPagado(new BigDecimal("300.00"));
+        prestamo.setEstado(EstadoPrestamo.VENCIDO);
+        prestamo.setFechaVencimiento(LocalDate.now().minusDays(10));
+        when(prestamoRepository.findById(1L)).thenReturn(Optional.of(prestamo));
+
+        // Mora diaria = 1000 * 0.1% = 1.00 por 10 días: 1000 + 100 + 10 - 300
+        BigDecimal expected = new BigDecimal("810.00");
+
+        // Act
+        BigDecimal result = pagoService.calcularMontoRestante(1L);
+
+        // Assert
+        assertEquals(expected, result);
+        assertEquals(moraEvaluador.deudaRestante(prestamo, LocalDate.now()), result);
+    }
+
     @Test
     @DisplayName("Should update loan status to PAID when full amount is paid")
     void verificarYActualizarEstadoShouldUpdateStatusToPaid() {
@@ -185,7 +351,7 @@ class PagoServiceImplTest {
         prestamo.setMonto(new BigDecimal("1000.00"));
         prestamo.setInteres(new BigDecimal("10.00")); // 10% interest
         // Total to pay = 1000 + (1000 * 10%) = 1100.00
-        when(pagoRepository.calcularTotalPagado(1L)).thenReturn(1100.0);
+        prestamo.setTotalPagado(new BigDecimal("1100.00"));
 
         // Act
         pagoService.verificarYActualizarEstado(prestamo);
@@ -202,7 +368,7 @@ class PagoServiceImplTest {
         // Arrange
         prestamo.setMonto(new BigDecimal("1000.00"));
         prestamo.setFechaVencimiento(LocalDate.now().minusDays(1));
-        when(pagoRepository.calcularTotalPagado(1L)).thenReturn(500.0);
+        prestamo.setTotalPagado(new BigDecimal("500.00"));
 
         // Act
         pagoService.verificarYActualizarEstado(prestamo);
@@ -213,7 +379,7 @@ class PagoServiceImplTest {
     }
 
     @Test
-    @DisplayName("Should delete a payment by ID")
+    @DisplayName("Should delete a payment by ID and take it off the loan totals")
     void eliminarPagoShouldDeletePayment() {
         // Arrange
         Pago pago = new Pago();
@@ -221,8 +387,17 @@ class PagoServiceImplTest {
         pago.setPrestamo(prestamo);
         pago.setFecha(LocalDate.now());  // Added date
         pago.setMonto(new BigDecimal("100.00"));  // Added amount
+        prestamo.setTotalPagado(new BigDecimal("1100.00"));
+        prestamo.setUltimoPagoFecha(LocalDate.now());
+        prestamo.setDeudaRestante(BigDecimal.ZERO);
+        prestamo.setEstado(EstadoPrestamo.PAGADO);
+        prestamo.postLoad();
 
+        LocalDate fechaAnterior = LocalDate.now().minusDays(5);
         when(pagoRepository.findById(1L)).thenReturn(Optional.of(pago));
+        when(prestamoRepository.findByIdParaActualizar(1L)).thenReturn(Optional.of(prestamo));
+        when(pagoRepository.findUltimaFechaPago(1L, 1L)).thenReturn(fechaAnterior);
+        when(prestamoRepository.save(prestamo)).thenReturn(prestamo);
         doNothing().when(pagoRepository).delete(any(Pago.class));
 
         // Act
@@ -230,5 +405,12 @@ class PagoServiceImplTest {
 
         // Assert
         verify(pagoRepository).delete(pago);
+        assertEquals(new BigDecimal("1000.00"), prestamo.getTotalPagado());
+        assertEquals(fechaAnterior, prestamo.getUltimoPagoFecha());
+        assertEquals(new BigDecimal("100.00"), prestamo.getDeudaRestante());
+        assertEquals(EstadoPrestamo.APROBADO, prestamo.getEstado());
+        verify(eventPublisher).publishEvent(eventoCaptor.capture());
+        assertEquals(new SituacionPrestamo(EstadoPrestamo.PAGADO, 0), eventoCaptor.getValue().anterior());
+        assertEquals(new SituacionPrestamo(EstadoPrestamo.APROBADO, 10000), eventoCaptor.getValue().nueva());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.prestamosrapidos.prestamos_app.pagos;
+
+import com.prestamosrapidos.prestamos_app.model.PagoLoteResultadoModel;
+import com.prestamosrapidos.prestamos_app.model.PagoModel;
+import com.prestamosrapidos.prestamos_app.service.PagoService;
+import com.prestamosrapidos.prestamos_app.support.PostgresTestSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mide el ritmo de la carga masiva de pagos ({@code POST /pagos/lote}) y comprueba que los totales
+ * pagados mantenidos cuadran con los pagos insertados.
+ *
+ * <p>Solo se ejecuta de forma explícita:
+ * {@code mvn test -Dtest=PagosLoteBenchmarkTest -Dbenchmark=true [-Dbenchmark.pagos=50000]}</p>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Carga masiva de pagos - benchmark")
+class PagosLoteBenchmarkTest extends PostgresTestSupport {
+
+    private static final int PAGOS_POR_PRESTAMO = 10;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Test
+    @DisplayName("Should report the payments per second of a bulk load and keep paid totals consistent")
+    void medirCargaMasivaDePagos() {
+        int cantidad = Integer.getInteger("benchmark.pagos", 20_000);
+        generarCartera(42, cantidad / PAGOS_POR_PRESTAMO * 2);
+        List<Long> prestamoIds = jdbcTemplate.queryForList("""
+                SELECT id FROM prestamos
+                 WHERE estado NOT IN ('PAGADO', 'RECHAZADO') AND monto > 0
+                 ORDER BY id LIMIT ?
+                """, Long.class, cantidad / PAGOS_POR_PRESTAMO);
+        List<PagoModel> pagos = new ArrayList<>(cantidad);
+        for (int i = 0; i < PAGOS_POR_PRESTAMO; i++) {
+            for (Long prestamoId : prestamoIds) {
+                pagos.add(PagoModel.builder().prestamoId(prestamoId).montoPago(new BigDecimal("0.01")).build());
+            }
+        }
+        BigDecimal pagadoAntes = totalPagado();
+        long pagosAntes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pagos", Long.class);
+
+        PagoLoteResultadoModel resultado = pagoService.registrarPagosLote(pagos);
+
+        log.warn("Benchmark carga de pagos: {} pagos ({} registrados) en {} ms, {} pagos/s",
+                resultado.recibidos(), resultado.registrados(), resultado.duracionMs(),
+                resultado.registrados() * 1000L / Math.max(1, resultado.duracionMs()));
+        BigDecimal registrado = resultado.filas().stream()
+                .filter(fila -> fila.registrado())
+                .map(fila -> fila.montoPago())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(pagosAntes + resultado.registrados(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pagos", Long.class));
+        assertEquals(0, pagadoAntes.add(registrado).compareTo(totalPagado()));
+        assertEquals(pagos.size(), resultado.registrados() + resultado.rechazados());
+    }
+
+    private BigDecimal totalPagado() {
+        return jdbcTemplate.queryForObject("SELECT SUM(total_pagado) FROM prestamos", BigDecimal.class);
+    }
+}
@@ -0,0 +1,139 @@
+package com.prestamosrapidos.prestamos_app.prestamo;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.model.PaginaModel;
+import com.prestamosrapidos.prestamos_app.model.PrestamoFiltroModel;
+import com.prestamosrapidos.prestamos_app.model.PrestamoModel;
+import com.prestamosrapidos.prestamos_app.service.PrestamoService;
+import com.prestamosrapidos.prestamos_app.support.CapturaSentencias;
+import com.prestamosrapidos.prestamos_app.support.PostgresTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba con {@code EXPLAIN} que las búsquedas de préstamos usan los índices de la migración
+ * {@code V20261016000006__index_prestamo_busqueda} y no recorren la tabla.
+ *
+ * <p>Se explica la sentencia que Hibernate genera a partir de {@code PrestamoEspecificaciones} para la
+ * primera página de {@link PrestamoService#listarPrestamos}, capturada con {@link CapturaSentencias}, con
+ * los valores del filtro y el límite ligados como parámetros (plan personalizado de PostgreSQL).</p>
+ */
+@DisplayName("Búsqueda de préstamos - uso de índices")
+@TestPropertySource(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.prestamosrapidos.prestamos_app.support.CapturaSentencias")
+class PrestamoBusquedaIndicesTest extends PostgresTestSupport {
+
+    private static final int PRESTAMOS = 20_000;
+    private static final int LIMITE = 50;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @BeforeEach
+    void setUp() {
+        generarCartera(21, PRESTAMOS);
+        jdbcTemplate.execute("ANALYZE prestamos");
+    }
+
+    @Test
+    @DisplayName("Searching by state and due-date range should use the (estado, fecha_vencimiento) index")
+    void estadoYVencimientoDebenUsarIndiceCompuesto() {
+        LocalDate desde = LocalDate.now().minusDays(3);
+        LocalDate hasta = LocalDate.now().minusDays(1);
+        PrestamoFiltroModel filtro = PrestamoFiltroModel.builder()
+                .estados(List.of("Vencido"))
+                .vencimientoDesde(desde)
+                .vencimientoHasta(hasta)
+                .build();
+
+        String plan = explicarListado(filtro, EstadoPrestamo.VENCIDO.name(), desde, hasta);
+
+        assertTrue(plan.contains("idx_prestamo_estado_vencimiento"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    @DisplayName("Searching open states by due date should use the partial index of unpaid loans")
+    void estadosAbiertosYVencimientoDebenUsarIndiceParcial() {
+        LocalDate hoy = LocalDate.now();
+        PrestamoFiltroModel filtro = PrestamoFiltroModel.builder()
+                .estados(List.of("Aprobado", "Pendiente", "Vencido", "En mora"))
+                .vencimientoDesde(hoy)
+                .vencimientoHasta(hoy)
+                .build();
+
+        // Mismo orden que el EnumSet de estados que arma el servicio
+        String plan = explicarListado(filtro, EstadoPrestamo.APROBADO.name(), EstadoPrestamo.PENDIENTE.name(),
+                EstadoPrestamo.VENCIDO.name(), EstadoPrestamo.EN_MORA.name(), hoy, hoy);
+
+        assertTrue(plan.contains("idx_prestamo_no_pagado_vencimiento"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    @DisplayName("Searching by a range of days in mora should use the partial dias_mora index")
+    void diasMoraDebeUsarIndiceParcial() {
+        PrestamoFiltroModel filtro = PrestamoFiltroModel.builder()
+                .diasMoraMinimo(60)
+                .diasMoraMaximo(60)
+                .build();
+
+        String plan = explicarListado(filtro, 60, 60);
+
+        assertTrue(plan.contains("idx_prestamo_dias_mora"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    @DisplayName("The search should return the same loans as the equivalent SQL, page after page")
+    void busquedaDebeDevolverLosPrestamosQueCumplenLosFiltros() {
+        // Arrange
+        LocalDate desde = LocalDate.now().minusDays(30);
+        PrestamoFiltroModel filtro = PrestamoFiltroModel.builder()
+                .estados(List.of("Vencido", "En mora"))
+                .vencimientoDesde(desde)
+                .diasMoraMinimo(10)
+                .build();
+        List<Long> esperados = jdbcTemplate.queryForList("SELECT id FROM prestamos WHERE estado IN ('VENCIDO', 'EN_MORA') "
+                + "AND fecha_vencimiento >= ? AND dias_mora >= 10 ORDER BY id", Long.class, desde);
+
+        // Act
+        List<Long> encontrados = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaModel<PrestamoModel> pagina = prestamoService.listarPrestamos(filtro, cursor, 200);
+            pagina.getContenido().forEach(prestamo -> encontrados.add(prestamo.getId()));
+            cursor = pagina.getSiguiente();
+        } while (cursor != null);
+
+        // Assert
+        assertFalse(esperados.isEmpty());
+        assertEquals(esperados, encontrados);
+    }
+
+    /**
+     * Lista la primera página con el filtro y devuelve el plan de la sentencia de ids que generó Hibernate,
+     * la primera del listado, con los valores del filtro en el orden de sus parámetros seguidos del límite + 1.
+     */
+    private String explicarListado(PrestamoFiltroModel filtro, Object... valores) {
+        CapturaSentencias.iniciar();
+        prestamoService.listarPrestamos(filtro, null, LIMITE);
+        List<String> sentencias = CapturaSentencias.detener();
+
+        assertFalse(sentencias.isEmpty());
+        String sql = sentencias.get(0);
+        Object[] parametros = Stream.concat(Stream.of(valores), Stream.of(LIMITE + 1)).toArray();
+        assertEquals(parametros.length, sql.chars().filter(c -> c == '?').count(), sql);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parametros));
+    }
+}
@@ -0,0 +1,63 @@
+package com.prestamosrapidos.prestamos_app.prestamo;
+
+import com.prestamosrapidos.prestamos_app.service.PrestamoService;
+import com.prestamosrapidos.prestamos_app.support.PostgresTestSupport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba con las estadísticas de Hibernate que los listados de préstamos lanzan el mismo
+ * número de sentencias SQL sea cual sea el número de préstamos (sin cargas N+1 de pagos ni clientes)
+ * y que no escriben ningún préstamo.
+ */
+@DisplayName("Listados de préstamos - sentencias SQL")
+class PrestamoConsultasSentenciasTest extends PostgresTestSupport {
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Listing loans should run a constant number of statements regardless of the number of loans")
+    void listadosDebenLanzarUnNumeroConstanteDeSentencias() {
+        // Arrange + Act: cartera pequeña
+        generarCartera(11, 20);
+        long[] pocos = sentenciasPorListado();
+
+        // Arrange + Act: cartera diez veces mayor
+        generarCartera(11, 200);
+        long[] muchos = sentenciasPorListado();
+
+        // Assert
+        assertArrayEquals(pocos, muchos);
+        assertEquals(2, muchos[0], "Listado paginado: ids de la página y préstamos con sus pagos");
+        assertEquals(1, muchos[1], "Préstamos por cliente");
+        assertEquals(1, muchos[2], "Préstamos por estado");
+    }
+
+    private long[] sentenciasPorListado() {
+        Long clienteId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM clientes", Long.class);
+        return new long[]{
+                sentencias(() -> assertFalse(prestamoService.listarPrestamos(null, null, 200).getContenido().isEmpty())),
+                sentencias(() -> assertFalse(prestamoService.obtenerPrestamosPorCliente(clienteId).isEmpty())),
+                sentencias(() -> assertFalse(prestamoService.obtenerPrestamosPorEstado("Aprobado").isEmpty()))
+        };
+    }
+
+    private long sentencias(Runnable listado) {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+        listado.run();
+        assertEquals(0, estadisticas.getEntityUpdateCount(), "Un listado no debe escribir préstamos");
+        return estadisticas.getPrepareStatementCount();
+    }
+}
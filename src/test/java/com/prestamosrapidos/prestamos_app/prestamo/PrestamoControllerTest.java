@@ -0,0 +1,109 @@
+package com.prestamosrapidos.prestamos_app.prestamo;
+
+import com.prestamosrapidos.prestamos_app.controller.PrestamoController;
+import com.prestamosrapidos.prestamos_app.model.PrestamoModel;
+import com.prestamosrapidos.prestamos_app.service.PrestamoService;
+import com.prestamosrapidos.prestamos_app.util.FormatoExportacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrestamoControllerTest {
+
+    private static final String VERSION = "p1-2026-10-16T09:30-2026-10-16";
+
+    @Mock
+    private PrestamoService prestamoService;
+
+    @InjectMocks
+    private PrestamoController prestamoController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(prestamoController).build();
+    }
+
+    @Test
+    void obtenerPrestamoPorIdReturnsTheLoanWithItsETag() throws Exception {
+        // Arrange
+        when(prestamoService.obtenerVersionPrestamo(1L)).thenReturn(Optional.of(VERSION));
+        when(prestamoService.obtenerPrestamoPorId(1L)).thenReturn(
+                PrestamoModel.builder().id(1L).monto(new BigDecimal("5000.00")).build());
+
+        // Act & Assert
+        mockMvc.perform(get("/prestamos/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + VERSION + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$.id").value(1));
+    }
+
+    @Test
+    void obtenerPrestamoPorIdWithCurrentETagReturnsNotModifiedWithoutLoadingTheLoan() throws Exception {
+        // Arrange
+        when(prestamoService.obtenerVersionPrestamo(1L)).thenReturn(Optional.of(VERSION));
+
+        // Act & Assert
+        mockMvc.perform(get("/prestamos/1").header(HttpHeaders.IF_NONE_MATCH, "\"" + VERSION + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + VERSION + "\""))
+                .andExpect(content().string(""));
+        verify(prestamoService, never()).obtenerPrestamoPorId(anyLong());
+    }
+
+    @Test
+    void obtenerPrestamoPorIdWithStaleETagReturnsTheCurrentLoan() throws Exception {
+        // Arrange
+        when(prestamoService.obtenerVersionPrestamo(1L)).thenReturn(Optional.of(VERSION));
+        when(prestamoService.obtenerPrestamoPorId(1L)).thenReturn(PrestamoModel.builder().id(1L).build());
+
+        // Act & Assert
+        mockMvc.perform(get("/prestamos/1").header(HttpHeaders.IF_NONE_MATCH, "\"p1-2026-10-15T08:00-2026-10-15\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + VERSION + "\""));
+    }
+
+    @Test
+    void exportarPrestamosStreamsTheServiceOutputAsCsv() throws Exception {
+        // Arrange
+        when(prestamoService.exportarPrestamos(eq(FormatoExportacion.CSV), any())).thenAnswer(invocacion -> {
+            OutputStream salida = invocacion.getArgument(1);
+            salida.write("id,cliente_id\n1,3\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // Act
+        MvcResult resultado = mockMvc.perform(get("/prestamos/exportar").param("formato", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=prestamos.csv"))
+                .andExpect(content().string("id,cliente_id\n1,3\n"));
+    }
+}
@@ -1,29 +1,47 @@
 package com.prestamosrapidos.prestamos_app.prestamo;
 
+import com.prestamosrapidos.prestamos_app.cache.PrestamoCache;
 import com.prestamosrapidos.prestamos_app.entity.Cliente;
 import com.prestamosrapidos.prestamos_app.entity.Cuenta;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.event.PrestamoModificadoEvent;
+import com.prestamosrapidos.prestamos_app.event.SituacionPrestamo;
 import com.prestamosrapidos.prestamos_app.exception.RecursoNoEncontradoException;
 import com.prestamosrapidos.prestamos_app.exception.SaldoInsuficienteException;
 import com.prestamosrapidos.prestamos_app.model.*;
 import com.prestamosrapidos.prestamos_app.repository.ClienteRepository;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
+import com.prestamosrapidos.prestamos_app.scheduler.RuedaVencimientos;
 import com.prestamosrapidos.prestamos_app.service.serviceImpl.PrestamoServiceImpl;
+import com.prestamosrapidos.prestamos_app.util.CursorKeyset;
 import com.prestamosrapidos.prestamos_app.validation.PrestamoValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,15 +50,32 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class PrestamoServiceImplTest {
 
+    private static final LocalDateTime MODIFICACION = LocalDateTime.of(2026, 10, 16, 9, 30);
+
     @Mock
     private PrestamoRepository prestamoRepository;
 
     @Mock
     private ClienteRepository clienteRepository;
 
+    @Spy
+    private MoraEvaluador moraEvaluador = new MoraEvaluador();
+
+    @Mock
+    private RuedaVencimientos ruedaVencimientos;
+
+    @Spy
+    private PrestamoCache prestamoCache = new PrestamoCache(true, 100, Duration.ofMinutes(1));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PrestamoServiceImpl prestamoService;
 
+    @Captor
+    private ArgumentCaptor<Function<FluentQuery.FetchableFluentQuery<Prestamo>, List<Prestamo>>> consultaPaginada;
+
     private Prestamo prestamo;
     private Cliente cliente;
     private Cuenta cuenta;
@@ -129,7 +164,8 @@ public class PrestamoServiceImplTest {
     @Test
     void obtenerPrestamoPorIdWithValidIdShouldReturnPrestamo() {
         // Arrange
-        when(prestamoRepository.findById(anyLong())).thenReturn(Optional.of(prestamo));
+        when(prestamoRepository.findFechaModificacionById(1L)).thenReturn(Optional.of(MODIFICACION));
+        when(prestamoRepository.findByIdWithPagos(anyLong())).thenReturn(Optional.of(prestamo));
 
         // Act
         PrestamoModel result = prestamoService.obtenerPrestamoPorId(1L);
@@ -137,18 +173,53 @@ public class PrestamoServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(prestamo.getId(), result.getId());
-        verify(prestamoRepository, times(2)).findById(anyLong());
+        verify(prestamoRepository).findByIdWithPagos(anyLong());
     }
 
     @Test
     void obtenerPrestamoPorIdWithInvalidIdShouldThrowException() {
         // Arrange
-        when(prestamoRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(prestamoRepository.findFechaModificacionById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(RecursoNoEncontradoException.class, () -> {
             prestamoService.obtenerPrestamoPorId(999L);
         });
+        verify(prestamoRepository, never()).findByIdWithPagos(anyLong());
+    }
+
+    @Test
+    void obtenerPrestamoPorIdShouldServeTheCachedModelUntilTheLoanVersionChanges() {
+        // Arrange
+        when(prestamoRepository.findFechaModificacionById(1L))
+                .thenReturn(Optional.of(MODIFICACION), Optional.of(MODIFICACION), Optional.of(MODIFICACION.plusSeconds(1)));
+        when(prestamoRepository.findByIdWithPagos(1L)).thenReturn(Optional.of(prestamo));
+
+        // Act
+        PrestamoModel primero = prestamoService.obtenerPrestamoPorId(1L);
+        PrestamoModel segundo = prestamoService.obtenerPrestamoPorId(1L);
+        PrestamoModel modificado = prestamoService.obtenerPrestamoPorId(1L);
+
+        // Assert
+        assertSame(primero, segundo);
+        assertNotSame(primero, modificado);
+        verify(prestamoRepository, times(2)).findByIdWithPagos(1L);
+        assertEquals(1, prestamoCache.getEstadisticas().getAciertos());
+    }
+
+    @Test
+    void obtenerVersionPrestamoShouldChangeWithTheModificationAndTheDay() {
+        // Arrange
+        when(prestamoRepository.findFechaModificacionById(1L)).thenReturn(Optional.of(MODIFICACION));
+        when(prestamoRepository.findFechaModificacionById(2L)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<String> version = prestamoService.obtenerVersionPrestamo(1L);
+
+        // Assert
+        assertEquals(Optional.of("p1-" + MODIFICACION + "-" + LocalDate.now()), version);
+        assertTrue(prestamoService.obtenerVersionPrestamo(2L).isEmpty());
+        verify(prestamoRepository, never()).findByIdWithPagos(anyLong());
     }
 
     @Test
@@ -182,6 +253,8 @@ public class PrestamoServiceImplTest {
 
         // Assert
         verify(prestamoRepository, times(1)).delete(any(Prestamo.class));
+        verify(eventPublisher).publishEvent(new PrestamoModificadoEvent(1L,
+                new SituacionPrestamo(EstadoPrestamo.APROBADO, 550000), null));
     }
 
     @Test
@@ -199,7 +272,7 @@ public class PrestamoServiceImplTest {
     @Test
     void obtenerPrestamosPorClienteShouldReturnPrestamosList() {
         // Arrange
-        when(prestamoRepository.findByClienteId(anyLong())).thenReturn(Arrays.asList(prestamo));
+        when(prestamoRepository.findByClienteIdWithPagos(anyLong())).thenReturn(Arrays.asList(prestamo));
 
         // Act
         List<PrestamoModel> result = prestamoService.obtenerPrestamosPorCliente(1L);
@@ -208,6 +281,9 @@ public class PrestamoServiceImplTest {
         assertFalse(result.isEmpty());
         assertEquals(1, result.size());
         assertEquals(prestamo.getId(), result.get(0).getId());
+        verify(prestamoRepository).findByClienteIdWithPagos(1L);
+        verifyNoMoreInteractions(prestamoRepository);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -225,18 +301,185 @@ public class PrestamoServiceImplTest {
     }
 
     @Test
-    void verificarYActualizarMoraWithVencidoLoanShouldUpdateMora() {
+    void obtenerPrestamoPorIdWithVencidoLoanShouldNotWriteMora() {
         // Arrange
         prestamo.setEstado(EstadoPrestamo.APROBADO);
         prestamo.setFechaVencimiento(LocalDate.now().minusDays(5));
-        when(prestamoRepository.findById(anyLong())).thenReturn(Optional.of(prestamo));
-        when(prestamoRepository.save(any(Prestamo.class))).thenReturn(prestamo);
+        when(prestamoRepository.findFechaModificacionById(1L)).thenReturn(Optional.of(MODIFICACION));
+        when(prestamoRepository.findByIdWithPagos(anyLong())).thenReturn(Optional.of(prestamo));
 
         // Act
         PrestamoModel result = prestamoService.obtenerPrestamoPorId(1L);
 
         // Assert
         assertNotNull(result);
-        // Additional assertions for mora calculation can be added
+        // La mora del día se evalúa en memoria (0.1% de 5000 = 5.00 por día); la consulta no escribe
+        assertEquals(5, result.getFechas().getDiasMora());
+        assertEquals(new BigDecimal("25.00"), result.getDesglosePago().getMoraAcumulada());
+        assertEquals(new BigDecimal("5.00"), result.getPagoDiario().getMoraDiaria());
+        assertEquals("EN_MORA", result.getEstado());
+        assertEquals(0, prestamo.getDiasMora());
+        verify(prestamoRepository, never()).save(any(Prestamo.class));
+    }
+
+    @Test
+    void listarPrestamosShouldReturnOnePageAndTheCursorOfTheNext() {
+        // Arrange
+        Prestamo segundo = new Prestamo();
+        segundo.setId(2L);
+        segundo.setMonto(new BigDecimal("1000.00"));
+        segundo.setInteres(BigDecimal.ZERO);
+        segundo.setFechaCreacion(LocalDate.now().atStartOfDay());
+        segundo.setFechaVencimiento(LocalDate.now().plusDays(30));
+        segundo.setEstado(EstadoPrestamo.APROBADO);
+        segundo.setCliente(cliente);
+        Prestamo tercero = new Prestamo();
+        tercero.setId(3L);
+        when(prestamoRepository.findBy(any(Specification.class), any())).thenReturn(List.of(prestamo, segundo, tercero));
+        when(prestamoRepository.findByIdInWithPagos(List.of(1L, 2L))).thenReturn(List.of(prestamo, segundo));
+        PrestamoFiltroModel filtro = PrestamoFiltroModel.builder()
+                .estados(List.of("APROBADO", "Vencido"))
+                .clienteId(1L)
+                .montoMinimo(new BigDecimal("500.00"))
+                .diasMoraMaximo(30)
+                .build();
+
+        // Act
+        PaginaModel<PrestamoModel> pagina = prestamoService.listarPrestamos(filtro, null, 2);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), pagina.getContenido().stream().map(PrestamoModel::getId).toList());
+        assertEquals(2L, CursorKeyset.decodificar(pagina.getSiguiente()));
+        verify(prestamoRepository).findBy(any(Specification.class), consultaPaginada.capture());
+        FluentQuery.FetchableFluentQuery<Prestamo> consulta = mock(FluentQuery.FetchableFluentQuery.class, RETURNS_SELF);
+        consultaPaginada.getValue().apply(consulta);
+        verify(consulta).sortBy(Sort.by("id"));
+        verify(consulta).limit(3);
+        verify(prestamoRepository, never()).save(any(Prestamo.class));
+        verify(prestamoRepository, never()).findAll();
+    }
+
+    @Test
+    void listarPrestamosOnLastPageShouldNotReturnACursor() {
+        // Arrange
+        when(prestamoRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+
+        // Act
+        PaginaModel<PrestamoModel> pagina = prestamoService.listarPrestamos(null, CursorKeyset.codificar(1L), 50);
+
+        // Assert
+        assertTrue(pagina.getContenido().isEmpty());
+        assertNull(pagina.getSiguiente());
+        verify(prestamoRepository, never()).findByIdInWithPagos(any());
+    }
+
+    @Test
+    void listarPrestamosWithInvalidArgumentsShouldThrowException() {
+        PrestamoFiltroModel rangoInvertido = PrestamoFiltroModel.builder()
+                .vencimientoDesde(LocalDate.now())
+                .vencimientoHasta(LocalDate.now().minusDays(1))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(null, null, 201));
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(null, "no-es-un-cursor", 50));
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(rangoInvertido, null, 50));
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(PrestamoFiltroModel.builder()
+                .montoMinimo(new BigDecimal("100")).montoMaximo(new BigDecimal("50")).build(), null, 50));
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(PrestamoFiltroModel.builder()
+                .diasMoraMinimo(-1).build(), null, 50));
+        assertThrows(IllegalArgumentException.class, () -> prestamoService.listarPrestamos(PrestamoFiltroModel.builder()
+                .estados(List.of("Inexistente")).build(), null, 50));
+        verifyNoInteractions(prestamoRepository);
+    }
+
+    @Test
+    void calcularMontosRestantesShouldMatchTheSingleLoanCalculationInOneQuery() {
+        // Arrange
+        prestamo.setTotalPagado(new BigDecimal("1000.00"));
+        prestamo.setFechaVencimiento(LocalDate.now().minusDays(10));
+        prestamo.setEstado(EstadoPrestamo.EN_MORA);
+        when(prestamoRepository.findById(1L)).thenReturn(Optional.of(prestamo));
+        when(prestamoRepository.findSaldosByIdIn(List.of(1L, 2L))).thenReturn(List.of(saldo(prestamo)));
+
+        // Act
+        Map<Long, BigDecimal> montos = prestamoService.calcularMontosRestantes(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(Map.of(1L, prestamoService.calcularMontoRestante(1L)), montos);
+        assertTrue(prestamoService.calcularMontosRestantes(List.of()).isEmpty());
+        verify(prestamoRepository, times(1)).findSaldosByIdIn(any());
+    }
+
+    @Test
+    void calcularMontosRestantesShouldMatchTheDebtOfTheLoanModel() {
+        // Arrange: mora ya persistida hasta hace 3 días y 2 días de gracia
+        ReflectionTestUtils.setField(moraEvaluador, "diasGracia", 2);
+        prestamo.setEstado(EstadoPrestamo.EN_MORA);
+        prestamo.setFechaVencimiento(LocalDate.now().minusDays(10));
+        prestamo.setFechaUltimoCalculoMora(LocalDate.now().minusDays(3));
+        prestamo.setDiasMora(5);
+        prestamo.setMoraAcumulada(new BigDecimal("25.00"));
+        prestamo.setTotalPagado(new BigDecimal("1200.00"));
+        when(prestamoRepository.findFechaModificacionById(1L)).thenReturn(Optional.of(MODIFICACION));
+        when(prestamoRepository.findByIdWithPagos(1L)).thenReturn(Optional.of(prestamo));
+        when(prestamoRepository.findSaldosByIdIn(List.of(1L))).thenReturn(List.of(saldo(prestamo)));
+
+        // Act
+        Map<Long, BigDecimal> montos = prestamoService.calcularMontosRestantes(List.of(1L));
+        PrestamoModel modelo = prestamoService.obtenerPrestamoPorId(1L);
+
+        // Assert: mora diaria 5.00 por 6 días; 5000 + 500 + 30 - 1200
+        assertEquals(new BigDecimal("4330.00"), montos.get(1L));
+        assertEquals(modelo.getDeudaRestante(), montos.get(1L));
+    }
+
+    private PrestamoRepository.SaldoPrestamo saldo(Prestamo origen) {
+        return new PrestamoRepository.SaldoPrestamo() {
+            @Override
+            public Long getId() {
+                return origen.getId();
+            }
+
+            @Override
+            public BigDecimal getMonto() {
+                return origen.getMonto();
+            }
+
+            @Override
+            public BigDecimal getInteres() {
+                return origen.getInteres();
+            }
+
+            @Override
+            public BigDecimal getTotalPagado() {
+                return origen.getTotalPagado();
+            }
+
+            @Override
+            public LocalDate getFechaVencimiento() {
+                return origen.getFechaVencimiento();
+            }
+
+            @Override
+            public EstadoPrestamo getEstado() {
+                return origen.getEstado();
+            }
+
+            @Override
+            public LocalDate getFechaUltimoCalculoMora() {
+                return origen.getFechaUltimoCalculoMora();
+            }
+
+            @Override
+            public Integer getDiasMora() {
+                return origen.getDiasMora();
+            }
+
+            @Override
+            public BigDecimal getMoraAcumulada() {
+                return origen.getMoraAcumulada();
+            }
+        };
     }
-}
\ No newline at end of file
+}
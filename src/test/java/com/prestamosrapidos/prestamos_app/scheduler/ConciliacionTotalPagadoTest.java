@@ -0,0 +1,85 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ConciliacionTotalPagado}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConciliacionTotalPagado Unit Tests")
+class ConciliacionTotalPagadoTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ConciliacionTotalPagado conciliacion;
+
+    @Test
+    @DisplayName("Should only report the loans with differences unless asked to correct them")
+    void conciliarWithoutCorrectionShouldOnlyReport() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(3L, 8L));
+
+        // Act
+        List<Long> diferencias = conciliacion.conciliar(false);
+
+        // Assert
+        assertEquals(List.of(3L, 8L), diferencias);
+        verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should recompute the totals from the payments when asked to correct them")
+    void conciliarWithCorrectionShouldUpdateTotals() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(3L));
+        when(jdbcTemplate.update(contains("UPDATE prestamos"), any(SqlParameterSource.class))).thenReturn(1);
+
+        // Act
+        conciliacion.conciliar(true);
+
+        // Assert
+        verify(jdbcTemplate).update(contains("total_pagado = c.total"), any(SqlParameterSource.class));
+        verify(eventPublisher).publishEvent(any(CarteraRecalculadaEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should not update anything when the totals match the payments")
+    void conciliarWithoutDifferencesShouldNotUpdate() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of());
+
+        // Act & Assert
+        assertTrue(conciliacion.conciliar(true).isEmpty());
+        verify(jdbcTemplate, never()).update(anyString(), any(SqlParameterSource.class));
+    }
+}
@@ -0,0 +1,347 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.MoraRunCheckpoint;
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.repository.MoraRunCheckpointRepository;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MoraBatchEngine}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MoraBatchEngine Unit Tests")
+class MoraBatchEngineTest {
+
+    @Mock
+    private PrestamoRepository prestamoRepository;
+
+    @Mock
+    private MoraRunCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MoraBatchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        lenient().when(prestamoRepository.findByIdInOrderByIdAsc(anyCollection())).thenAnswer(invocation -> {
+            List<Long> ids = new ArrayList<>(invocation.getArgument(0));
+            return ids.stream().map(this::prestamo).collect(Collectors.toList());
+        });
+
+        engine = new MoraBatchEngine(prestamoRepository, checkpointRepository, entityManager, transactionManager);
+        ReflectionTestUtils.setField(engine, "tamanoLote", 2);
+    }
+
+    @Test
+    @DisplayName("Should walk the ids by keyset and commit one transaction per chunk")
+    void procesarShouldCommitOneTransactionPerChunk() {
+        // Arrange
+        List<Long> cursores = new ArrayList<>();
+        MoraBatchEngine.FuenteIds fuente = fuenteSobre(5, cursores);
+        List<Long> procesados = new ArrayList<>();
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test", fuente, prestamo -> procesados.add(prestamo.getId()));
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), procesados);
+        assertEquals(List.of(0L, 2L, 4L), cursores);
+        assertEquals(3, resultado.getLotes());
+        assertEquals(5, resultado.getProcesados());
+        assertEquals(0, resultado.getErrores());
+        verify(transactionManager, times(3)).commit(any(TransactionStatus.class));
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    @DisplayName("Should count per-loan errors without aborting the chunk")
+    void procesarWithFailingLoanShouldContinueWithTheRestOfTheChunk() {
+        // Arrange
+        List<Long> procesados = new ArrayList<>();
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test", fuenteSobre(4, new ArrayList<>()), prestamo -> {
+            if (prestamo.getId() == 2L) {
+                throw new IllegalStateException("monto nulo");
+            }
+            procesados.add(prestamo.getId());
+        });
+
+        // Assert
+        assertEquals(List.of(1L, 3L, 4L), procesados);
+        assertEquals(3, resultado.getProcesados());
+        assertEquals(1, resultado.getErrores());
+        assertEquals(0, resultado.getLotesFallidos());
+    }
+
+    @Test
+    @DisplayName("Should lose only the failing chunk when its commit fails")
+    void procesarWhenCommitFailsShouldOnlyLoseThatChunk() {
+        // Arrange: el segundo commit falla
+        doNothing()
+                .doThrow(new TransactionSystemException("commit fallido"))
+                .doNothing()
+                .when(transactionManager).commit(any(TransactionStatus.class));
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test", fuenteSobre(6, new ArrayList<>()), prestamo -> { });
+
+        // Assert
+        assertEquals(3, resultado.getLotes());
+        assertEquals(1, resultado.getLotesFallidos());
+        assertEquals(6, resultado.getProcesados() + resultado.getErrores());
+        assertEquals(2, resultado.getErrores());
+        verify(prestamoRepository, times(3)).findByIdInOrderByIdAsc(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should not open any transaction when there is nothing to process")
+    void procesarWithEmptySourceShouldNotOpenTransactions() {
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test", (despuesDeId, lote) -> List.of(), prestamo -> { });
+
+        // Assert
+        assertEquals(0, resultado.getLotes());
+        verifyNoInteractions(transactionManager);
+        verifyNoInteractions(prestamoRepository);
+    }
+
+    @Test
+    @DisplayName("Should report each chunk and stop between chunks once cancelled")
+    void procesarWithSeguimientoShouldStopBetweenChunksWhenCancelled() {
+        // Arrange
+        List<Long> procesados = new ArrayList<>();
+        List<Integer> lotes = new ArrayList<>();
+        MoraBatchSeguimiento seguimiento = new MoraBatchSeguimiento() {
+            @Override
+            public void loteProcesado(int procesadosLote, int erroresLote) {
+                lotes.add(procesadosLote);
+            }
+
+            @Override
+            public boolean cancelado() {
+                return lotes.size() == 2;
+            }
+        };
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test", fuenteSobre(10, new ArrayList<>()),
+                prestamo -> procesados.add(prestamo.getId()), seguimiento);
+
+        // Assert
+        assertEquals(List.of(1L, 2L, 3L, 4L), procesados);
+        assertEquals(List.of(2, 2), lotes);
+        assertEquals(2, resultado.getLotes());
+        verify(transactionManager, times(2)).commit(any(TransactionStatus.class));
+    }
+
+    @Test
+    @DisplayName("Should register a checkpoint per partition and advance it with every chunk")
+    void procesarWithFechaShouldAdvanceTheCheckpoint() {
+        // Arrange
+        LocalDate fecha = LocalDate.of(2026, 10, 16);
+        when(checkpointRepository.findByFechaNegocioAndFaseOrderByParticion(fecha, "test")).thenReturn(List.of());
+        when(checkpointRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<MoraRunCheckpoint> checkpoints = invocation.getArgument(0);
+            checkpoints.forEach(checkpoint -> checkpoint.setId(7L));
+            return checkpoints;
+        });
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar(fecha, "test", fuenteSobre(5, new ArrayList<>()),
+                prestamo -> { }, MoraBatchSeguimiento.NINGUNO);
+
+        // Assert
+        assertEquals(5, resultado.getProcesados());
+        verify(checkpointRepository).avanzar(eq(7L), eq(2L), eq(2L), eq(0L), eq(0), any());
+        verify(checkpointRepository).avanzar(eq(7L), eq(4L), eq(2L), eq(0L), eq(0), any());
+        verify(checkpointRepository).avanzar(eq(7L), eq(5L), eq(1L), eq(0L), eq(0), any());
+        verify(checkpointRepository).completar(eq(7L), any());
+    }
+
+    @Test
+    @DisplayName("Should resume after the last committed chunk of an interrupted run, keeping its counters")
+    void procesarWithExistingCheckpointShouldResumeFromIt() {
+        // Arrange
+        LocalDate fecha = LocalDate.of(2026, 10, 16);
+        MoraRunCheckpoint checkpoint = checkpoint(fecha, 4L, false);
+        when(checkpointRepository.findByFechaNegocioAndFaseOrderByParticion(fecha, "test")).thenReturn(List.of(checkpoint));
+        List<Long> cursores = new ArrayList<>();
+        List<Long> procesados = new ArrayList<>();
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar(fecha, "test", fuenteSobre(6, cursores),
+                prestamo -> procesados.add(prestamo.getId()), MoraBatchSeguimiento.NINGUNO);
+
+        // Assert
+        assertEquals(List.of(5L, 6L), procesados);
+        assertEquals(4L, cursores.get(0));
+        assertEquals(6, resultado.getProcesados());
+        assertEquals(3, resultado.getLotes());
+        verify(checkpointRepository, never()).saveAll(anyList());
+        verify(checkpointRepository).completar(eq(checkpoint.getId()), any());
+    }
+
+    @Test
+    @DisplayName("Should not walk a partition whose checkpoint is already completed")
+    void procesarWithCompletedCheckpointShouldSkipIt() {
+        // Arrange
+        LocalDate fecha = LocalDate.of(2026, 10, 16);
+        when(checkpointRepository.findByFechaNegocioAndFaseOrderByParticion(fecha, "test"))
+                .thenReturn(List.of(checkpoint(fecha, 6L, true)));
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar(fecha, "test", fuenteSobre(6, new ArrayList<>()),
+                prestamo -> fail("No debe procesar préstamos"), MoraBatchSeguimiento.NINGUNO);
+
+        // Assert
+        assertEquals(4, resultado.getProcesados());
+        // Solo la transacción que lee los puntos de control
+        verify(transactionManager).commit(any(TransactionStatus.class));
+        verifyNoInteractions(prestamoRepository);
+    }
+
+    @Test
+    @DisplayName("Should split the id range into partitions and process every loan exactly once")
+    void procesarWithPartitionsShouldCoverTheWholeRangeOnce() {
+        // Arrange
+        ReflectionTestUtils.setField(engine, "particiones", 3);
+        when(prestamoRepository.findMaxId()).thenReturn(10L);
+        List<Long> procesados = Collections.synchronizedList(new ArrayList<>());
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test",
+                fuenteSobre(10, Collections.synchronizedList(new ArrayList<>())),
+                prestamo -> procesados.add(prestamo.getId()));
+
+        // Assert
+        assertEquals(LongStream.rangeClosed(1, 10).boxed().collect(Collectors.toList()),
+                procesados.stream().sorted().collect(Collectors.toList()));
+        assertEquals(3, resultado.getParticiones().size());
+        assertEquals(List.of("test#1", "test#2", "test#3"),
+                resultado.getParticiones().stream().map(MoraBatchResultado::getFase).collect(Collectors.toList()));
+        assertEquals(10, resultado.getProcesados());
+        assertEquals(resultado.getLotes(), resultado.getParticiones().stream().mapToInt(MoraBatchResultado::getLotes).sum());
+        verify(transactionManager, times(resultado.getLotes())).commit(any(TransactionStatus.class));
+    }
+
+    @Test
+    @DisplayName("Should never run more partitions at once than the connection pool allows")
+    void procesarWithPartitionsShouldRespectThePoolSize() {
+        // Arrange: pool de 4 conexiones -> como máximo 2 particiones simultáneas
+        ReflectionTestUtils.setField(engine, "particiones", 6);
+        ReflectionTestUtils.setField(engine, "tamanoPoolConexiones", 4);
+        when(prestamoRepository.findMaxId()).thenReturn(12L);
+        AtomicInteger activas = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test",
+                fuenteSobre(12, Collections.synchronizedList(new ArrayList<>())), prestamo -> {
+                    maximo.accumulateAndGet(activas.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        activas.decrementAndGet();
+                    }
+                });
+
+        // Assert
+        assertEquals(12, resultado.getProcesados());
+        assertTrue(maximo.get() <= 2, "Particiones simultáneas: " + maximo.get());
+    }
+
+    @Test
+    @DisplayName("Should count errors per partition when one partition fails")
+    void procesarWithPartitionsShouldReportErrorsPerPartition() {
+        // Arrange
+        ReflectionTestUtils.setField(engine, "particiones", 2);
+        when(prestamoRepository.findMaxId()).thenReturn(4L);
+
+        // Act
+        MoraBatchResultado resultado = engine.procesar("test",
+                fuenteSobre(4, Collections.synchronizedList(new ArrayList<>())), prestamo -> {
+                    if (prestamo.getId() > 2L) {
+                        throw new IllegalStateException("monto nulo");
+                    }
+                });
+
+        // Assert
+        MoraBatchResultado primera = resultado.getParticiones().get(0);
+        MoraBatchResultado segunda = resultado.getParticiones().get(1);
+        assertEquals(2, primera.getProcesados());
+        assertEquals(0, primera.getErrores());
+        assertEquals(0, segunda.getProcesados());
+        assertEquals(2, segunda.getErrores());
+        assertEquals(2, resultado.getErrores());
+    }
+
+    // Fuente keyset sobre los ids 1..total, registrando el cursor recibido en cada llamada
+    private MoraBatchEngine.FuenteIds fuenteSobre(long total, List<Long> cursores) {
+        return (Long despuesDeId, Pageable lote) -> {
+            cursores.add(despuesDeId);
+            return LongStream.rangeClosed(1, total)
+                    .filter(id -> id > despuesDeId)
+                    .limit(lote.getPageSize())
+                    .boxed()
+                    .collect(Collectors.toList());
+        };
+    }
+
+    // Punto de control de una ejecución anterior que confirmó 2 lotes (4 préstamos)
+    private MoraRunCheckpoint checkpoint(LocalDate fecha, long ultimoId, boolean completada) {
+        return MoraRunCheckpoint.builder()
+                .id(3L)
+                .fechaNegocio(fecha)
+                .fase("test")
+                .particion(1)
+                .rangoDesde(0L)
+                .rangoHasta(Long.MAX_VALUE)
+                .ultimoId(ultimoId)
+                .lotes(2)
+                .procesados(4)
+                .completada(completada)
+                .actualizadoEl(LocalDateTime.now())
+                .build();
+    }
+
+    private Prestamo prestamo(Long id) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setId(id);
+        return prestamo;
+    }
+}
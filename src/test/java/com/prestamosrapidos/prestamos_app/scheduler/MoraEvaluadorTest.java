@@ -0,0 +1,140 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MoraEvaluador}.
+ */
+@DisplayName("MoraEvaluador Unit Tests")
+class MoraEvaluadorTest {
+
+    private static final LocalDate HOY = LocalDate.of(2026, 10, 16);
+
+    private MoraEvaluador moraEvaluador;
+
+    @BeforeEach
+    void setUp() {
+        moraEvaluador = new MoraEvaluador();
+    }
+
+    @Test
+    @DisplayName("Should accrue from the due date when no mora was persisted yet")
+    void evaluarWithOverdueApprovedLoanShouldAccrueFromDueDate() {
+        // Arrange
+        Prestamo prestamo = prestamo(EstadoPrestamo.APROBADO, HOY.minusDays(4), null, 0, BigDecimal.ZERO);
+
+        // Act
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, HOY);
+
+        // Assert
+        assertEquals(4, mora.getDiasMora());
+        assertEquals(new BigDecimal("4.00"), mora.getMoraAcumulada());
+        assertEquals(new BigDecimal("1.00"), mora.getMoraDiaria());
+        assertEquals(EstadoPrestamo.EN_MORA, mora.getEstado());
+        assertTrue(mora.isPendienteDePersistir());
+        assertEquals(0, prestamo.getDiasMora());
+    }
+
+    @Test
+    @DisplayName("Should add only the days elapsed since the last persisted calculation")
+    void evaluarWithPersistedAnchorShouldAddElapsedDays() {
+        // Arrange
+        Prestamo prestamo = prestamo(EstadoPrestamo.EN_MORA, HOY.minusDays(10), HOY.minusDays(2), 8, new BigDecimal("8.00"));
+
+        // Act
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, HOY);
+
+        // Assert
+        assertEquals(10, mora.getDiasMora());
+        assertEquals(new BigDecimal("10.00"), mora.getMoraAcumulada());
+    }
+
+    @Test
+    @DisplayName("Should return the persisted values when the nightly run already covered the date")
+    void evaluarWhenAlreadyCalculatedTodayShouldReturnPersistedValues() {
+        // Arrange
+        Prestamo prestamo = prestamo(EstadoPrestamo.EN_MORA, HOY.minusDays(3), HOY, 3, new BigDecimal("3.00"));
+
+        // Act
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, HOY);
+
+        // Assert
+        assertEquals(3, mora.getDiasMora());
+        assertEquals(new BigDecimal("3.00"), mora.getMoraAcumulada());
+        assertFalse(mora.isPendienteDePersistir());
+    }
+
+    @Test
+    @DisplayName("Should subtract the grace days like the nightly run")
+    void evaluarWithGraceDaysShouldSubtractThem() {
+        // Arrange
+        ReflectionTestUtils.setField(moraEvaluador, "diasGracia", 2);
+        Prestamo prestamo = prestamo(EstadoPrestamo.VENCIDO, HOY.minusDays(5), HOY.minusDays(5), 0, BigDecimal.ZERO);
+
+        // Act
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, HOY);
+
+        // Assert
+        assertEquals(3, mora.getDiasMora());
+        assertEquals(new BigDecimal("3.00"), mora.getMoraAcumulada());
+    }
+
+    @Test
+    @DisplayName("Should not accrue mora on paid or not yet due loans")
+    void evaluarWithPaidOrCurrentLoanShouldNotAccrue() {
+        // Arrange
+        Prestamo pagado = prestamo(EstadoPrestamo.PAGADO, HOY.minusDays(30), null, 2, new BigDecimal("2.00"));
+        Prestamo vigente = prestamo(EstadoPrestamo.APROBADO, HOY.plusDays(30), null, 0, BigDecimal.ZERO);
+
+        // Act
+        MoraEvaluada moraPagado = moraEvaluador.evaluar(pagado, HOY);
+        MoraEvaluada moraVigente = moraEvaluador.evaluar(vigente, HOY);
+
+        // Assert
+        assertEquals(2, moraPagado.getDiasMora());
+        assertEquals(new BigDecimal("2.00"), moraPagado.getMoraAcumulada());
+        assertEquals(EstadoPrestamo.PAGADO, moraPagado.getEstado());
+        assertEquals(0, moraVigente.getDiasMora());
+        assertEquals(BigDecimal.ZERO, moraVigente.getMoraDiaria());
+        assertEquals(EstadoPrestamo.APROBADO, moraVigente.getEstado());
+    }
+
+    @Test
+    @DisplayName("Should show a loan due today as VENCIDO without mora, like MARCAR_VENCIDOS")
+    void evaluarWithApprovedLoanDueTodayShouldBeVencidoWithoutMora() {
+        // Arrange
+        Prestamo prestamo = prestamo(EstadoPrestamo.APROBADO, HOY, null, 0, BigDecimal.ZERO);
+
+        // Act
+        MoraEvaluada mora = moraEvaluador.evaluar(prestamo, HOY);
+
+        // Assert
+        assertEquals(EstadoPrestamo.VENCIDO, mora.getEstado());
+        assertEquals(0, mora.getDiasMora());
+        assertEquals(BigDecimal.ZERO, mora.getMoraAcumulada());
+        assertFalse(mora.isPendienteDePersistir());
+    }
+
+    private Prestamo prestamo(EstadoPrestamo estado, LocalDate vencimiento, LocalDate ultimoCalculo,
+                              int diasMora, BigDecimal moraAcumulada) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setId(1L);
+        prestamo.setMonto(new BigDecimal("1000.00"));
+        prestamo.setEstado(estado);
+        prestamo.setFechaVencimiento(vencimiento);
+        prestamo.setFechaUltimoCalculoMora(ultimoCalculo);
+        prestamo.setDiasMora(diasMora);
+        prestamo.setMoraAcumulada(moraAcumulada);
+        return prestamo;
+    }
+}
@@ -0,0 +1,49 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara el tiempo de ejecución del cálculo diario en modo ENTIDAD y en modo SQL.
+ *
+ * <p>Solo se ejecuta de forma explícita:
+ * {@code mvn test -Dtest=MoraModoBenchmarkTest -Dbenchmark=true [-Dbenchmark.prestamos=50000]}</p>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Mora SQL vs entidad - benchmark")
+class MoraModoBenchmarkTest extends MoraPostgresTestSupport {
+
+    private static final long SEMILLA = 42;
+
+    @Test
+    @DisplayName("Should report the run time of both modes on the same portfolio")
+    void compararTiemposDeEjecucion() {
+        int cantidad = Integer.getInteger("benchmark.prestamos", 20_000);
+
+        Duration porEntidad = medir(MoraModo.ENTIDAD, cantidad);
+        Duration porConjunto = medir(MoraModo.SQL, cantidad);
+
+        log.warn("Benchmark mora ({} préstamos): ENTIDAD={}ms, SQL={}ms, aceleración={}x",
+                cantidad, porEntidad.toMillis(), porConjunto.toMillis(),
+                String.format("%.1f", (double) porEntidad.toMillis() / Math.max(1, porConjunto.toMillis())));
+        assertTrue(porConjunto.compareTo(porEntidad) < 0, "El modo SQL debería ser más rápido");
+    }
+
+    private Duration medir(MoraModo modo, int cantidad) {
+        generarCartera(SEMILLA, cantidad);
+        jdbcTemplate.execute("ANALYZE prestamos");
+        jdbcTemplate.execute("ANALYZE pagos");
+
+        Instant inicio = Instant.now();
+        ejecutarCalculo(modo, 0);
+        return Duration.between(inicio, Instant.now());
+    }
+}
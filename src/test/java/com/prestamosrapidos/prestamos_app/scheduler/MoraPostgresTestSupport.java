@@ -0,0 +1,41 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.support.PostgresTestSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base de las pruebas del cálculo de mora contra PostgreSQL real: ejecuta el cálculo diario
+ * en cada modo y lee las columnas que deja en los préstamos.
+ */
+public abstract class MoraPostgresTestSupport extends PostgresTestSupport {
+
+    /** Columnas de negocio que ambos modos deben dejar idénticas (se excluyen las de auditoría) */
+    private static final String SQL_RESULTADOS = """
+            SELECT id, estado, dias_mora, mora_acumulada, deuda_restante, fecha_ultimo_calculo_mora,
+                   fecha_ultima_mora, fecha_ultimo_interes, mora_aplicada, interes_moratorio_aplicado
+              FROM prestamos
+             ORDER BY id
+            """;
+
+    @Autowired
+    protected PrestamoScheduler prestamoScheduler;
+
+    /**
+     * Ejecuta el cálculo diario completo en el modo indicado.
+     */
+    protected void ejecutarCalculo(MoraModo modo, int diasGracia) {
+        PrestamoScheduler objetivo = AopTestUtils.getTargetObject(prestamoScheduler);
+        ReflectionTestUtils.setField(objetivo, "moraModo", modo);
+        ReflectionTestUtils.setField(objetivo, "diasGracia", diasGracia);
+        prestamoScheduler.calcularInteresMoratorioDiario();
+    }
+
+    protected List<Map<String, Object>> leerResultados() {
+        return jdbcTemplate.queryForList(SQL_RESULTADOS);
+    }
+}
@@ -0,0 +1,202 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MoraRecalculoManual}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MoraRecalculoManual Unit Tests")
+class MoraRecalculoManualTest {
+
+    private static final LocalDate DESDE = LocalDate.now().minusDays(3);
+    private static final LocalDate HASTA = LocalDate.now().minusDays(1);
+
+    @Mock
+    private PrestamoScheduler prestamoScheduler;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    @Mock
+    private MoraRunLedger moraRunLedger;
+
+    /** Recálculos encolados; se ejecutan explícitamente en cada test */
+    private final List<Runnable> cola = new ArrayList<>();
+
+    private MoraRecalculoManual moraRecalculoManual;
+
+    @BeforeEach
+    void setUp() {
+        moraRecalculoManual = new MoraRecalculoManual(prestamoScheduler, schedulerLock, moraRunLedger, cola::add);
+        ReflectionTestUtils.setField(moraRecalculoManual, "esperaBloqueoMs", 0L);
+        lenient().when(schedulerLock.ejecutar(eq(MoraRecalculoManual.TAREA), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+    }
+
+    @Test
+    @DisplayName("Should process every date of the range in order inside the scheduler lock")
+    void enviarShouldProcessEachDateInOrder() {
+        // Arrange
+        when(prestamoScheduler.recalcularMora(any(), any())).thenAnswer(invocation -> {
+            invocation.<MoraRecalculoTrabajo>getArgument(1).loteProcesado(10, 1);
+            return !invocation.getArgument(0).equals(HASTA);
+        });
+
+        // Act
+        MoraRecalculoTrabajo trabajo = moraRecalculoManual.enviar(DESDE, HASTA);
+        assertEquals(EstadoRecalculoMora.PENDIENTE, trabajo.getEstado());
+        cola.forEach(Runnable::run);
+
+        // Assert
+        var orden = inOrder(prestamoScheduler);
+        orden.verify(prestamoScheduler).recalcularMora(DESDE, trabajo);
+        orden.verify(prestamoScheduler).recalcularMora(DESDE.plusDays(1), trabajo);
+        orden.verify(prestamoScheduler).recalcularMora(HASTA, trabajo);
+        verify(schedulerLock, times(3)).ejecutar(eq(MoraRecalculoManual.TAREA), any());
+        assertEquals(EstadoRecalculoMora.COMPLETADO, trabajo.getEstado());
+        assertEquals(3, trabajo.getTotalFechas());
+        assertEquals(2, trabajo.getFechasCompletadas());
+        assertEquals(1, trabajo.getFechasOmitidas());
+        assertEquals(0, trabajo.getFechasPendientes());
+        assertEquals(30, trabajo.getProcesados());
+        assertEquals(3, trabajo.getErrores());
+        assertNull(trabajo.getTiempoRestanteEstimado());
+        assertSame(trabajo, moraRecalculoManual.obtener(trabajo.getId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should reject future dates and inverted ranges")
+    void enviarWithInvalidRangeShouldThrow() {
+        LocalDate manana = LocalDate.now().plusDays(1);
+
+        assertThrows(IllegalArgumentException.class, () -> moraRecalculoManual.enviar(DESDE, manana));
+        assertThrows(IllegalArgumentException.class, () -> moraRecalculoManual.enviar(HASTA, DESDE));
+        ReflectionTestUtils.setField(moraRecalculoManual, "maxDias", 2);
+        assertThrows(IllegalArgumentException.class, () -> moraRecalculoManual.enviar(DESDE, HASTA));
+        assertTrue(cola.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should wait and retry while another node holds the lock")
+    void enviarWhenLockIsBusyShouldRetry() {
+        // Arrange
+        doReturn(false)
+                .doAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(1).run();
+                    return true;
+                })
+                .when(schedulerLock).ejecutar(eq(MoraRecalculoManual.TAREA), any());
+
+        // Act
+        MoraRecalculoTrabajo trabajo = moraRecalculoManual.enviar(HASTA, HASTA);
+        when(prestamoScheduler.recalcularMora(HASTA, trabajo)).thenReturn(true);
+        cola.forEach(Runnable::run);
+
+        // Assert
+        verify(schedulerLock, times(2)).ejecutar(eq(MoraRecalculoManual.TAREA), any());
+        verify(prestamoScheduler).recalcularMora(HASTA, trabajo);
+        assertEquals(EstadoRecalculoMora.COMPLETADO, trabajo.getEstado());
+        assertEquals(1, trabajo.getFechasCompletadas());
+    }
+
+    @Test
+    @DisplayName("Should discard a queued recalculation cancelled before it starts")
+    void cancelarWhilePendingShouldNotRun() {
+        // Arrange
+        MoraRecalculoTrabajo trabajo = moraRecalculoManual.enviar(DESDE, HASTA);
+
+        // Act
+        moraRecalculoManual.cancelar(trabajo.getId());
+        cola.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(EstadoRecalculoMora.CANCELADO, trabajo.getEstado());
+        assertTrue(trabajo.isTerminado());
+        verifyNoInteractions(prestamoScheduler);
+        verifyNoInteractions(schedulerLock);
+    }
+
+    @Test
+    @DisplayName("Should stop at the end of the current date when cancelled while running")
+    void cancelarWhileRunningShouldStopBeforeTheNextDate() {
+        // Arrange
+        when(prestamoScheduler.recalcularMora(eq(DESDE), any())).thenAnswer(invocation -> {
+            moraRecalculoManual.cancelar(invocation.<MoraRecalculoTrabajo>getArgument(1).getId());
+            return true;
+        });
+
+        // Act
+        MoraRecalculoTrabajo trabajo = moraRecalculoManual.enviar(DESDE, HASTA);
+        cola.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(EstadoRecalculoMora.CANCELADO, trabajo.getEstado());
+        assertEquals(1, trabajo.getFechasCompletadas());
+        assertEquals(2, trabajo.getFechasPendientes());
+        verify(prestamoScheduler, never()).recalcularMora(eq(HASTA), any());
+    }
+
+    @Test
+    @DisplayName("Should mark the recalculation as failed and stop when a date fails")
+    void enviarWhenDateFailsShouldStop() {
+        // Arrange
+        when(prestamoScheduler.recalcularMora(eq(DESDE), any())).thenThrow(new IllegalStateException("base de datos caída"));
+
+        // Act
+        MoraRecalculoTrabajo trabajo = moraRecalculoManual.enviar(DESDE, HASTA);
+        cola.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(EstadoRecalculoMora.FALLIDO, trabajo.getEstado());
+        assertTrue(trabajo.getMensaje().contains(DESDE.toString()));
+        assertEquals(3, trabajo.getFechasPendientes());
+        verify(prestamoScheduler, times(1)).recalcularMora(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should queue on startup one recalculation per interrupted date")
+    void reanudarPendientesShouldQueueEachUnfinishedDate() {
+        // Arrange
+        when(moraRunLedger.pendientes()).thenReturn(List.of(DESDE, HASTA));
+
+        // Act
+        moraRecalculoManual.reanudarPendientes();
+
+        // Assert
+        List<MoraRecalculoTrabajo> trabajos = moraRecalculoManual.listar();
+        assertEquals(2, trabajos.size());
+        assertEquals(HASTA, trabajos.get(0).getDesde());
+        assertEquals(DESDE, trabajos.get(1).getHasta());
+        assertEquals(2, cola.size());
+    }
+
+    @Test
+    @DisplayName("Should not resume anything when resuming on startup is disabled")
+    void reanudarPendientesWhenDisabledShouldDoNothing() {
+        // Arrange
+        ReflectionTestUtils.setField(moraRecalculoManual, "reanudarAlIniciar", false);
+
+        // Act
+        moraRecalculoManual.reanudarPendientes();
+
+        // Assert
+        verifyNoInteractions(moraRunLedger);
+        assertTrue(cola.isEmpty());
+    }
+}
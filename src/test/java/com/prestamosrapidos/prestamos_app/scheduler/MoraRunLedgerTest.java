@@ -0,0 +1,132 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.MoraRun;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoMoraRun;
+import com.prestamosrapidos.prestamos_app.entity.enums.EtapaMora;
+import com.prestamosrapidos.prestamos_app.repository.MoraRunCheckpointRepository;
+import com.prestamosrapidos.prestamos_app.repository.MoraRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MoraRunLedger}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MoraRunLedger Unit Tests")
+class MoraRunLedgerTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2026, 10, 16);
+
+    @Mock
+    private MoraRunRepository moraRunRepository;
+
+    @Mock
+    private MoraRunCheckpointRepository checkpointRepository;
+
+    @InjectMocks
+    private MoraRunLedger moraRunLedger;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(moraRunRepository.save(any(MoraRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Should open a new run for a date that was never processed")
+    void iniciarWithNewDateShouldCreateRun() {
+        // Arrange
+        when(moraRunRepository.findById(FECHA)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<MoraRun> run = moraRunLedger.iniciar(FECHA);
+
+        // Assert
+        assertTrue(run.isPresent());
+        assertEquals(EstadoMoraRun.EN_CURSO, run.get().getEstado());
+        assertEquals(1, run.get().getIntentos());
+        assertNull(run.get().getUltimaEtapa());
+    }
+
+    @Test
+    @DisplayName("Should return empty for a completed date")
+    void iniciarWithCompletedDateShouldBeEmpty() {
+        // Arrange
+        when(moraRunRepository.findById(FECHA)).thenReturn(Optional.of(run(EstadoMoraRun.COMPLETADO, EtapaMora.RECALCULAR_DEUDA)));
+
+        // Act & Assert
+        assertTrue(moraRunLedger.iniciar(FECHA).isEmpty());
+        verify(moraRunRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should resume an unfinished run keeping its last stage")
+    void iniciarWithUnfinishedRunShouldResume() {
+        // Arrange
+        when(moraRunRepository.findById(FECHA)).thenReturn(Optional.of(run(EstadoMoraRun.EN_CURSO, EtapaMora.MARCAR_VENCIDOS)));
+
+        // Act
+        MoraRun run = moraRunLedger.iniciar(FECHA).orElseThrow();
+
+        // Assert
+        assertEquals(EtapaMora.MARCAR_VENCIDOS, run.getUltimaEtapa());
+        assertEquals(2, run.getIntentos());
+    }
+
+    @Test
+    @DisplayName("Should accumulate counters per stage and mark the date completed")
+    void registrarEtapaAndCompletarShouldUpdateTheRun() {
+        // Arrange
+        MoraRun run = run(EstadoMoraRun.EN_CURSO, null);
+        when(moraRunRepository.findById(FECHA)).thenReturn(Optional.of(run));
+        MoraBatchResultado recalcular = new MoraBatchResultado("recalcular-vencidos");
+        recalcular.registrarLote(3, 1);
+        MoraBatchResultado acumular = new MoraBatchResultado("acumular-mora");
+        acumular.registrarLote(5, 0);
+
+        // Act
+        moraRunLedger.registrarEtapa(FECHA, EtapaMora.ACUMULAR_MORA, List.of(recalcular, acumular));
+        moraRunLedger.completar(FECHA);
+
+        // Assert
+        assertEquals(EtapaMora.ACUMULAR_MORA, run.getUltimaEtapa());
+        assertEquals(8, run.getProcesados());
+        assertEquals(1, run.getErrores());
+        assertEquals(EstadoMoraRun.COMPLETADO, run.getEstado());
+        assertNotNull(run.getFinalizadoEl());
+        verify(checkpointRepository).deleteByFechaNegocio(FECHA);
+    }
+
+    @Test
+    @DisplayName("Should list the unfinished dates to resume")
+    void pendientesShouldReturnTheDatesInProgress() {
+        // Arrange
+        when(moraRunRepository.findByEstadoOrderByFechaNegocio(EstadoMoraRun.EN_CURSO))
+                .thenReturn(List.of(run(EstadoMoraRun.EN_CURSO, EtapaMora.MARCAR_VENCIDOS)));
+
+        // Act & Assert
+        assertEquals(List.of(FECHA), moraRunLedger.pendientes());
+    }
+
+    private MoraRun run(EstadoMoraRun estado, EtapaMora ultimaEtapa) {
+        return MoraRun.builder()
+                .fechaNegocio(FECHA)
+                .estado(estado)
+                .ultimaEtapa(ultimaEtapa)
+                .iniciadoEl(LocalDateTime.now())
+                .intentos(1)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que {@link MoraSimulador} predice, sin escribir nada, el mismo resultado que deja
+ * {@link MoraSqlEngine} sobre la misma cartera generada.
+ */
+@DisplayName("Simulación de mora vs modo SQL - equivalencia")
+class MoraSimulacionEquivalenceTest extends MoraPostgresTestSupport {
+
+    private static final int CANTIDAD_PRESTAMOS = 2_000;
+
+    @Autowired
+    private MoraSimulador moraSimulador;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @ParameterizedTest(name = "semilla={0}, diasGracia={1}")
+    @CsvSource({"42, 0", "7, 3"})
+    @DisplayName("The simulation should predict the SQL run without modifying any loan")
+    void laSimulacionDebePredecirElModoSql(long semilla, int diasGracia) throws Exception {
+        // Arrange
+        generarCartera(semilla, CANTIDAD_PRESTAMOS);
+        List<Map<String, Object>> antes = leerResultados();
+
+        // Act: simulación
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        MoraSimulacionResumen resumen = moraSimulador.simular(
+                moraSimulador.parametros(LocalDate.now(), null, diasGracia, false), FormatoSimulacion.NDJSON, salida);
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+
+        // Assert: no escribió nada
+        assertEquals(antes, leerResultados());
+        assertEquals(CANTIDAD_PRESTAMOS, resumen.getPrestamos());
+        assertEquals(CANTIDAD_PRESTAMOS, lineas.size());
+
+        // Act: ejecución real
+        ejecutarCalculo(MoraModo.SQL, diasGracia);
+        List<Map<String, Object>> despues = leerResultados();
+
+        // Assert: cada préstamo quedó como predijo la simulación
+        for (int i = 0; i < lineas.size(); i++) {
+            JsonNode diferencia = objectMapper.readTree(lineas.get(i));
+            Map<String, Object> real = despues.get(i);
+            String mensaje = "Diferencia en el préstamo " + real.get("id");
+            assertEquals(((Number) real.get("id")).longValue(), diferencia.get("id").asLong(), mensaje);
+            assertEquals(real.get("estado"), diferencia.get("estadoNuevo").asText(), mensaje);
+            assertEquals(((Number) real.get("dias_mora")).intValue(), diferencia.get("diasMoraNuevo").asInt(), mensaje);
+            assertEquals(0, ((BigDecimal) real.get("mora_acumulada")).compareTo(diferencia.get("moraAcumuladaNueva").decimalValue()), mensaje);
+            assertEquals(0, ((BigDecimal) real.get("deuda_restante")).compareTo(diferencia.get("deudaRestanteNueva").decimalValue()), mensaje);
+        }
+    }
+}
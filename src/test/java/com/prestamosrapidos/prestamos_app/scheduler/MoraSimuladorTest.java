@@ -0,0 +1,113 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraSimulador.FilaPrestamo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MoraSimulador}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MoraSimulador Unit Tests")
+class MoraSimuladorTest {
+
+    private static final LocalDate HOY = LocalDate.of(2026, 10, 16);
+    private static final BigDecimal MONTO = new BigDecimal("1000.00");
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MoraSimulador moraSimulador;
+
+    @BeforeEach
+    void setUp() {
+        moraSimulador = new MoraSimulador(dataSource, transactionManager, null);
+        ReflectionTestUtils.setField(moraSimulador, "diasGracia", 2);
+    }
+
+    @Test
+    @DisplayName("Should mark an approved loan past its due date as in mora and accrue like the SQL phases")
+    void simularWithOverdueApprovedLoanShouldFollowSqlPhases() {
+        // Arrange
+        FilaPrestamo fila = fila(EstadoPrestamo.APROBADO, HOY.minusDays(4), null, 0, BigDecimal.ZERO, MONTO);
+
+        // Act
+        MoraSimulacionDiferencia diferencia = MoraSimulador.simular(fila, parametros(0));
+
+        // Assert
+        assertTrue(diferencia.tieneCambios());
+        assertEquals(EstadoPrestamo.APROBADO, diferencia.getEstadoAnterior());
+        assertEquals(EstadoPrestamo.EN_MORA, diferencia.getEstadoNuevo());
+        assertEquals(4, diferencia.getDiasMoraNuevo());
+        assertEquals(new BigDecimal("8.00"), diferencia.getMoraAcumuladaNueva());
+        assertEquals(new BigDecimal("508.00"), diferencia.getDeudaRestanteNueva());
+        assertEquals(MONTO, diferencia.getDeudaRestanteAnterior());
+    }
+
+    @Test
+    @DisplayName("Should leave loans inside the simulated grace period untouched")
+    void simularWithinGracePeriodShouldNotChange() {
+        // Arrange
+        FilaPrestamo fila = fila(EstadoPrestamo.VENCIDO, HOY.minusDays(2), HOY.minusDays(2), 0, BigDecimal.ZERO, MONTO);
+
+        // Act
+        MoraSimulacionDiferencia diferencia = MoraSimulador.simular(fila, parametros(2));
+
+        // Assert
+        assertFalse(diferencia.tieneCambios());
+        assertEquals(EstadoPrestamo.VENCIDO, diferencia.getEstadoNuevo());
+        assertEquals(BigDecimal.ZERO, diferencia.getMoraAcumuladaNueva());
+    }
+
+    @Test
+    @DisplayName("Should not change loans already calculated for the simulated date or not yet due")
+    void simularWithCurrentLoansShouldNotChange() {
+        // Arrange
+        FilaPrestamo calculado = fila(EstadoPrestamo.EN_MORA, HOY.minusDays(3), HOY, 3, new BigDecimal("3.00"), new BigDecimal("503.00"));
+        FilaPrestamo vigente = fila(EstadoPrestamo.APROBADO, HOY.plusDays(10), null, 0, BigDecimal.ZERO, MONTO);
+
+        // Act & Assert
+        assertFalse(MoraSimulador.simular(calculado, parametros(0)).tieneCambios());
+        assertFalse(MoraSimulador.simular(vigente, parametros(0)).tieneCambios());
+    }
+
+    @Test
+    @DisplayName("Should fill omitted parameters from the configuration and reject negative ones")
+    void parametrosShouldDefaultAndValidate() {
+        // Act
+        MoraSimulacionParametros parametros = moraSimulador.parametros(HOY, null, null, true);
+
+        // Assert
+        assertEquals(new BigDecimal("0.1"), parametros.getPorcentajeDiario());
+        assertEquals(2, parametros.getDiasGracia());
+        assertThrows(IllegalArgumentException.class,
+                () -> moraSimulador.parametros(HOY, new BigDecimal("-1"), null, true));
+        assertThrows(IllegalArgumentException.class, () -> moraSimulador.parametros(HOY, null, -1, true));
+    }
+
+    private MoraSimulacionParametros parametros(int diasGracia) {
+        return new MoraSimulacionParametros(HOY, new BigDecimal("0.1"), diasGracia, true);
+    }
+
+    private FilaPrestamo fila(EstadoPrestamo estado, LocalDate vencimiento, LocalDate ultimoCalculo,
+                              int diasMora, BigDecimal moraAcumulada, BigDecimal deudaRestante) {
+        return new FilaPrestamo(1L, estado, MONTO, vencimiento, ultimoCalculo, ultimoCalculo, diasMora,
+                moraAcumulada, deudaRestante, new BigDecimal("500.00"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que {@link MoraSqlEngine} y el modo préstamo a préstamo dejan la cartera
+ * en el mismo estado a partir de un mismo conjunto de datos generado.
+ */
+@DisplayName("Mora SQL vs entidad - equivalencia")
+class MoraSqlEquivalenceTest extends MoraPostgresTestSupport {
+
+    private static final int CANTIDAD_PRESTAMOS = 2_000;
+
+    @ParameterizedTest(name = "semilla={0}, diasGracia={1}")
+    @CsvSource({"42, 0", "7, 3", "2024, 15"})
+    @DisplayName("Both modes should leave every loan with identical mora columns")
+    void ambosModosDebenProducirElMismoResultado(long semilla, int diasGracia) {
+        // Arrange + Act: modo por entidades
+        generarCartera(semilla, CANTIDAD_PRESTAMOS);
+        ejecutarCalculo(MoraModo.ENTIDAD, diasGracia);
+        List<Map<String, Object>> porEntidad = leerResultados();
+
+        // Arrange + Act: modo SQL sobre la misma cartera
+        generarCartera(semilla, CANTIDAD_PRESTAMOS);
+        ejecutarCalculo(MoraModo.SQL, diasGracia);
+        List<Map<String, Object>> porConjunto = leerResultados();
+
+        // Assert
+        assertEquals(CANTIDAD_PRESTAMOS, porEntidad.size());
+        assertEquals(porEntidad.size(), porConjunto.size());
+        for (int i = 0; i < porEntidad.size(); i++) {
+            assertEquals(porEntidad.get(i), porConjunto.get(i),
+                    "Diferencia en el préstamo " + porEntidad.get(i).get("id"));
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.prestamosrapidos.prestamos_app.scheduler;
 
+import com.prestamosrapidos.prestamos_app.entity.MoraRun;
+import com.prestamosrapidos.prestamos_app.entity.Pago;
 import com.prestamosrapidos.prestamos_app.entity.Prestamo;
 import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EtapaMora;
+import com.prestamosrapidos.prestamos_app.event.CarteraRecalculadaEvent;
 import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
-import com.prestamosrapidos.prestamos_app.service.PrestamoService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,11 +16,17 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,7 +44,22 @@ class PrestamoSchedulerTest {
     private PrestamoRepository prestamoRepository;
 
     @Mock
-    private PrestamoService prestamoService;
+    private MoraBatchEngine moraBatchEngine;
+
+    @Mock
+    private MoraSqlEngine moraSqlEngine;
+
+    @Mock
+    private SchedulerLock schedulerLock;
+
+    @Mock
+    private MoraRunLedger moraRunLedger;
+
+    @Mock
+    private RuedaVencimientos ruedaVencimientos;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private PrestamoScheduler prestamoScheduler;
@@ -48,10 +72,21 @@ class PrestamoSchedulerTest {
 
     @BeforeEach
     void setUp() {
+        // Este nodo siempre obtiene el bloqueo de la tarea
+        lenient().when(schedulerLock.ejecutar(anyString(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return true;
+        });
+        // La fecha de hoy aún no se ha procesado
+        lenient().when(moraRunLedger.iniciar(any())).thenAnswer(invocation ->
+                Optional.of(MoraRun.builder().fechaNegocio(invocation.getArgument(0)).build()));
+
         // Initialize default values
         ReflectionTestUtils.setField(prestamoScheduler, "porcentajeMoraDiario", DEFAULT_PORCENTAJE_MORA);
         ReflectionTestUtils.setField(prestamoScheduler, "diasGracia", DEFAULT_DIAS_GRACIA);
         ReflectionTestUtils.setField(prestamoScheduler, "moraHabilitada", true);
+        lenient().when(moraBatchEngine.procesar(any(), anyString(), any(), any(), any()))
+                .thenAnswer(invocation -> new MoraBatchResultado(invocation.getArgument(1)));
     }
 
     @Test
@@ -65,7 +100,7 @@ class PrestamoSchedulerTest {
 
         // Assert
         verifyNoInteractions(prestamoRepository);
-        verifyNoInteractions(prestamoService);
+        verifyNoInteractions(moraBatchEngine);
     }
 
     @Test
@@ -75,7 +110,7 @@ class PrestamoSchedulerTest {
         LocalDate yesterday = LocalDate.now().minusDays(1);
         Prestamo prestamo = crearPrestamo(1L, EstadoPrestamo.APROBADO, yesterday, null);
         
-        when(prestamoRepository.findAprobadosVencidos(any())).thenReturn(List.of(prestamo));
+        simularFase("marcar-vencidos", prestamo);
         when(prestamoRepository.save(any(Prestamo.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -188,12 +223,14 @@ class PrestamoSchedulerTest {
     @Test
     @DisplayName("Should handle empty loan list gracefully")
     void calcularInteresMoratorioDiarioWithNoLoansShouldNotFail() {
-        // Arrange
-        when(prestamoRepository.findAprobadosVencidos(any())).thenReturn(List.of());
-        when(prestamoRepository.findVencidosSinMoraActualizada(any())).thenReturn(List.of());
-        
         // Act & Assert (should not throw exceptions)
         assertDoesNotThrow(() -> prestamoScheduler.calcularInteresMoratorioDiario());
+
+        verify(moraBatchEngine).procesar(any(), eq("marcar-vencidos"), any(), any(), any());
+        verify(moraBatchEngine).procesar(any(), eq("recalcular-vencidos"), any(), any(), any());
+        verify(moraBatchEngine).procesar(any(), eq("acumular-mora"), any(), any(), any());
+        verify(moraBatchEngine).procesar(any(), eq("recalcular-deuda"), any(), any(), any());
+        verify(prestamoRepository, never()).save(any(Prestamo.class));
     }
 
     @Test
@@ -205,8 +242,8 @@ class PrestamoSchedulerTest {
         Prestamo enMora = crearPrestamo(2L, EstadoPrestamo.EN_MORA, fiveDaysAgo, fiveDaysAgo);
         Prestamo pagado = crearPrestamo(3L, EstadoPrestamo.PAGADO, fiveDaysAgo, null);
         
-        when(prestamoRepository.findAprobadosVencidos(any())).thenReturn(List.of(vencido));
-        when(prestamoRepository.findVencidosSinMoraActualizada(any())).thenReturn(List.of(enMora));
+        simularFase("marcar-vencidos", vencido);
+        simularFase("recalcular-vencidos", enMora);
         when(prestamoRepository.save(any(Prestamo.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -305,22 +342,247 @@ class PrestamoSchedulerTest {
     }
 
     @Test
-    @DisplayName("Should handle exception during loan processing")
-    void calcularInteresMoratorioDiarioWhenExceptionThrownShouldContinueProcessing() {
+    @DisplayName("Should query each phase by keyset instead of loading every loan")
+    void calcularInteresMoratorioDiarioShouldUseKeysetQueries() {
         // Arrange
-        LocalDate fiveDaysAgo = LocalDate.now().minusDays(5);
-        Prestamo goodLoan = crearPrestamo(1L, EstadoPrestamo.APROBADO, fiveDaysAgo, null);
-        Prestamo badLoan = crearPrestamo(2L, EstadoPrestamo.APROBADO, fiveDaysAgo, null);
-        badLoan.setMonto(null); // This will cause NPE
-        
-        when(prestamoRepository.findAprobadosVencidos(any())).thenReturn(List.of(goodLoan, badLoan));
-        when(prestamoRepository.save(any(Prestamo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ReflectionTestUtils.setField(prestamoScheduler, "diasGracia", 2);
+        LocalDate hoy = LocalDate.now();
+        Pageable lote = PageRequest.of(0, 100);
+        ArgumentCaptor<MoraBatchEngine.FuenteIds> fuenteCaptor = ArgumentCaptor.forClass(MoraBatchEngine.FuenteIds.class);
 
-        // Act & Assert (should not throw)
-        assertDoesNotThrow(() -> prestamoScheduler.calcularInteresMoratorioDiario());
-        
-        // Should still process the good loan
-        verify(prestamoRepository, atLeastOnce()).save(any(Prestamo.class));
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        verify(moraBatchEngine, times(4)).procesar(any(), anyString(), fuenteCaptor.capture(), any(), any());
+        List<MoraBatchEngine.FuenteIds> fuentes = fuenteCaptor.getAllValues();
+        fuentes.forEach(fuente -> fuente.siguientes(10L, lote));
+
+        verify(prestamoRepository).findIdsPorEstadoVencidos(EstadoPrestamo.APROBADO, hoy, 10L, lote);
+        verify(prestamoRepository).findIdsVencidosSinMoraActualizada(hoy, 10L, lote);
+        verify(prestamoRepository).findIdsPorEstadosYFechaVencimiento(
+                List.of(EstadoPrestamo.VENCIDO, EstadoPrestamo.EN_MORA, EstadoPrestamo.APROBADO),
+                hoy.minusDays(2), 10L, lote);
+        verify(prestamoRepository).findIdsConMoraAplicadaEn(hoy, 10L, lote);
+        verify(prestamoRepository, never()).findAprobadosVencidos(any());
+        verify(prestamoRepository, never()).findByEstadoInAndFechaVencimientoBefore(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should take the transition phases from today's buckets of the due-date wheel")
+    void calcularInteresMoratorioDiarioWithWheelShouldOnlyWalkTodaysBuckets() {
+        // Arrange
+        LocalDate hoy = LocalDate.now();
+        Pageable lote = PageRequest.of(0, 100);
+        when(ruedaVencimientos.isHabilitada()).thenReturn(true);
+        when(ruedaVencimientos.vencidosHasta(hoy)).thenReturn(List.of(4L, 8L));
+        when(ruedaVencimientos.iniciosMoraHasta(hoy)).thenReturn(List.of(6L));
+        ArgumentCaptor<MoraBatchEngine.FuenteIds> fuenteCaptor = ArgumentCaptor.forClass(MoraBatchEngine.FuenteIds.class);
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        verify(ruedaVencimientos).sincronizar();
+        verify(moraBatchEngine).procesar(eq(hoy), eq("marcar-vencidos"), fuenteCaptor.capture(), any(), any());
+        verify(moraBatchEngine).procesar(eq(hoy), eq("recalcular-vencidos"), fuenteCaptor.capture(), any(), any());
+        assertEquals(List.of(4L, 8L), fuenteCaptor.getAllValues().get(0).siguientes(0L, lote));
+        assertEquals(List.of(6L), fuenteCaptor.getAllValues().get(1).siguientes(0L, lote));
+        verify(prestamoRepository, never()).findIdsPorEstadoVencidos(any(), any(), any(), any());
+        verify(prestamoRepository, never()).findIdsVencidosSinMoraActualizada(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should leave a wheel entry untouched when the loan is no longer approved")
+    void marcarVencidosWithStaleWheelEntryShouldSkipTheLoan() {
+        // Arrange
+        when(ruedaVencimientos.isHabilitada()).thenReturn(true);
+        Prestamo prestamo = crearPrestamo(1L, EstadoPrestamo.PAGADO, LocalDate.now().minusDays(1), null);
+        simularFase("marcar-vencidos", prestamo);
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        assertEquals(EstadoPrestamo.PAGADO, prestamo.getEstado());
+        verify(prestamoRepository, never()).save(any(Prestamo.class));
+        verify(ruedaVencimientos).actualizar(prestamo);
+    }
+
+    @Test
+    @DisplayName("Should delegate every phase to the set-based engine in SQL mode")
+    void calcularInteresMoratorioDiarioInSqlModeShouldUseSetBasedEngine() {
+        // Arrange
+        ReflectionTestUtils.setField(prestamoScheduler, "moraModo", MoraModo.SQL);
+        ReflectionTestUtils.setField(prestamoScheduler, "diasGracia", 3);
+        LocalDate hoy = LocalDate.now();
+        when(moraSqlEngine.marcarVencidos(hoy)).thenReturn(new MoraBatchResultado("marcar-vencidos"));
+        when(moraSqlEngine.recalcularVencidos(hoy, DEFAULT_PORCENTAJE_MORA, 3))
+                .thenReturn(new MoraBatchResultado("recalcular-vencidos"));
+        when(moraSqlEngine.acumularMora(hoy, DEFAULT_PORCENTAJE_MORA, 3))
+                .thenReturn(new MoraBatchResultado("acumular-mora"));
+        when(moraSqlEngine.recalcularDeuda(hoy)).thenReturn(new MoraBatchResultado("recalcular-deuda"));
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        var orden = inOrder(moraSqlEngine);
+        orden.verify(moraSqlEngine).marcarVencidos(hoy);
+        orden.verify(moraSqlEngine).recalcularVencidos(hoy, DEFAULT_PORCENTAJE_MORA, 3);
+        orden.verify(moraSqlEngine).acumularMora(hoy, DEFAULT_PORCENTAJE_MORA, 3);
+        orden.verify(moraSqlEngine).recalcularDeuda(hoy);
+        verifyNoInteractions(moraBatchEngine);
+        verifyNoInteractions(prestamoRepository);
+    }
+
+    @Test
+    @DisplayName("Should skip the mora run when another node holds the lock")
+    void calcularInteresMoratorioDiarioWithoutLockShouldNotRun() {
+        // Arrange
+        when(schedulerLock.ejecutar(eq("mora-diaria"), any())).thenReturn(false);
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        verifyNoInteractions(moraBatchEngine);
+        verifyNoInteractions(moraSqlEngine);
+        verifyNoInteractions(prestamoRepository);
+    }
+
+    @Test
+    @DisplayName("Should do nothing when today's run is already completed")
+    void calcularInteresMoratorioDiarioWithCompletedDateShouldBeANoOp() {
+        // Arrange
+        when(moraRunLedger.iniciar(LocalDate.now())).thenReturn(Optional.empty());
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        verifyNoInteractions(moraBatchEngine);
+        verifyNoInteractions(prestamoRepository);
+        verify(moraRunLedger, never()).completar(any());
+    }
+
+    @Test
+    @DisplayName("Should run the stages in order and record each one in the ledger")
+    void calcularInteresMoratorioDiarioShouldRecordEveryStage() {
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        LocalDate hoy = LocalDate.now();
+        var orden = inOrder(moraRunLedger);
+        orden.verify(moraRunLedger).iniciar(hoy);
+        orden.verify(moraRunLedger).registrarEtapa(eq(hoy), eq(EtapaMora.MARCAR_VENCIDOS), argThat(r -> r.size() == 1));
+        orden.verify(moraRunLedger).registrarEtapa(eq(hoy), eq(EtapaMora.ACUMULAR_MORA), argThat(r -> r.size() == 2));
+        orden.verify(moraRunLedger).registrarEtapa(eq(hoy), eq(EtapaMora.RECALCULAR_DEUDA), argThat(r -> r.size() == 1));
+        orden.verify(moraRunLedger).completar(hoy);
+        verify(eventPublisher).publishEvent(new CarteraRecalculadaEvent(hoy));
+    }
+
+    @Test
+    @DisplayName("Should resume an interrupted run after its last completed stage")
+    void calcularInteresMoratorioDiarioWithInterruptedRunShouldResume() {
+        // Arrange
+        LocalDate hoy = LocalDate.now();
+        when(moraRunLedger.iniciar(hoy)).thenReturn(Optional.of(
+                MoraRun.builder().fechaNegocio(hoy).ultimaEtapa(EtapaMora.ACUMULAR_MORA).build()));
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        verify(moraBatchEngine, never()).procesar(any(), eq("marcar-vencidos"), any(), any(), any());
+        verify(moraBatchEngine, never()).procesar(any(), eq("acumular-mora"), any(), any(), any());
+        verify(moraBatchEngine).procesar(any(), eq("recalcular-deuda"), any(), any(), any());
+        verify(moraRunLedger).completar(hoy);
+    }
+
+    @Test
+    @DisplayName("Should not complete the date when a stage fails")
+    void calcularInteresMoratorioDiarioWhenStageFailsShouldLeaveTheDateOpen() {
+        // Arrange
+        when(moraBatchEngine.procesar(any(), eq("acumular-mora"), any(), any(), any()))
+                .thenThrow(new IllegalStateException("base de datos caída"));
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        LocalDate hoy = LocalDate.now();
+        verify(moraRunLedger).registrarEtapa(eq(hoy), eq(EtapaMora.MARCAR_VENCIDOS), anyList());
+        verify(moraRunLedger, never()).registrarEtapa(eq(hoy), eq(EtapaMora.ACUMULAR_MORA), anyList());
+        verify(moraRunLedger, never()).completar(any());
+        verify(eventPublisher).publishEvent(new CarteraRecalculadaEvent(hoy));
+    }
+
+    @Test
+    @DisplayName("Should run a manual recalculation for the given date with the caller's tracking")
+    void recalcularMoraShouldRunTheStagesForTheGivenDate() {
+        // Arrange
+        LocalDate fecha = LocalDate.now().minusDays(10);
+        MoraRecalculoTrabajo trabajo = new MoraRecalculoTrabajo(fecha, fecha);
+
+        // Act
+        boolean ejecutada = prestamoScheduler.recalcularMora(fecha, trabajo);
+
+        // Assert
+        assertTrue(ejecutada);
+        verify(moraBatchEngine).procesar(eq(fecha), eq("acumular-mora"), any(), any(), same(trabajo));
+        verify(moraRunLedger).completar(fecha);
+        verifyNoInteractions(schedulerLock);
+    }
+
+    @Test
+    @DisplayName("Should not record a cancelled stage so the date resumes from it")
+    void recalcularMoraWhenCancelledShouldLeaveTheStagePending() {
+        // Arrange
+        LocalDate fecha = LocalDate.now().minusDays(10);
+        MoraRecalculoTrabajo trabajo = new MoraRecalculoTrabajo(fecha, fecha);
+        trabajo.iniciar();
+        when(moraBatchEngine.procesar(any(), eq("acumular-mora"), any(), any(), any())).thenAnswer(invocation -> {
+            trabajo.solicitarCancelacion();
+            return new MoraBatchResultado("acumular-mora");
+        });
+
+        // Act & Assert
+        assertThrows(CancellationException.class, () -> prestamoScheduler.recalcularMora(fecha, trabajo));
+        verify(moraRunLedger).registrarEtapa(eq(fecha), eq(EtapaMora.MARCAR_VENCIDOS), anyList());
+        verify(moraRunLedger, never()).registrarEtapa(eq(fecha), eq(EtapaMora.ACUMULAR_MORA), anyList());
+        verify(moraBatchEngine, never()).procesar(any(), eq("recalcular-deuda"), any(), any(), any());
+        verify(moraRunLedger, never()).completar(any());
+    }
+
+    @Test
+    @DisplayName("Should recompute remaining debt from payments and accrued mora")
+    void recalcularDeudaShouldSubtractPaymentsAndAddMora() {
+        // Arrange
+        Prestamo prestamo = crearPrestamo(1L, EstadoPrestamo.EN_MORA, LocalDate.now().minusDays(3), LocalDate.now());
+        prestamo.setMoraAcumulada(new BigDecimal("3.00"));
+        prestamo.addPago(Pago.builder().monto(new BigDecimal("400.00")).build());
+        simularFase("recalcular-deuda", prestamo);
+
+        // Act
+        prestamoScheduler.calcularInteresMoratorioDiario();
+
+        // Assert
+        verify(prestamoRepository).save(prestamoCaptor.capture());
+        assertEquals(new BigDecimal("603.00"), prestamoCaptor.getValue().getDeudaRestante());
+    }
+
+    // Hace que el motor de lotes (mock) aplique la acción de la fase sobre los préstamos indicados
+    @SuppressWarnings("unchecked")
+    private void simularFase(String fase, Prestamo... prestamos) {
+        when(moraBatchEngine.procesar(any(), eq(fase), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<Prestamo> accion = invocation.getArgument(3);
+            for (Prestamo prestamo : prestamos) {
+                accion.accept(prestamo);
+            }
+            return new MoraBatchResultado(fase);
+        });
     }
 
     // Helper method to create a test Prestamo
@@ -0,0 +1,70 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.model.PortafolioResumenModel;
+import com.prestamosrapidos.prestamos_app.service.PortafolioService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba contra PostgreSQL que la vista {@code portafolio_resumen} coincide con la cartera tras
+ * refrescarla y que el cálculo de mora la refresca al terminar.
+ */
+@DisplayName("Resumen de la cartera - vista materializada")
+class RefrescoPortafolioTest extends MoraPostgresTestSupport {
+
+    @Autowired
+    private RefrescoPortafolio refrescoPortafolio;
+
+    @Autowired
+    private PortafolioService portafolioService;
+
+    @Test
+    @DisplayName("The refreshed summary should match the totals computed from the loans table")
+    void resumenDebeCoincidirConLaCartera() {
+        // Arrange
+        generarCartera(5, 3_000);
+
+        // Act
+        refrescoPortafolio.refrescar();
+        PortafolioResumenModel resumen = portafolioService.obtenerResumen();
+
+        // Assert
+        Map<String, Object> esperado = jdbcTemplate.queryForMap("""
+                SELECT COUNT(*) AS prestamos, SUM(monto) AS monto, SUM(total_pagado) AS total_pagado,
+                       COUNT(*) FILTER (WHERE dias_mora > 90) AS mas_de_90,
+                       COUNT(*) FILTER (WHERE estado IN ('VENCIDO', 'EN_MORA')) AS en_mora
+                  FROM prestamos
+                """);
+        assertEquals(((Number) esperado.get("prestamos")).longValue(), resumen.total().prestamos());
+        assertEquals(0, ((BigDecimal) esperado.get("monto")).compareTo(resumen.total().monto()));
+        assertEquals(0, ((BigDecimal) esperado.get("total_pagado")).compareTo(resumen.total().totalPagado()));
+        assertEquals(((Number) esperado.get("mas_de_90")).longValue(), resumen.porTramoMora().get("90+").prestamos());
+        assertEquals(((Number) esperado.get("en_mora")).longValue(), resumen.exposicionMora().prestamos());
+    }
+
+    @Test
+    @DisplayName("A mora run should refresh the summary when it finishes")
+    void calculoDeMoraDebeRefrescarElResumen() {
+        // Arrange
+        generarCartera(6, 500);
+        refrescoPortafolio.refrescar();
+        LocalDateTime antes = portafolioService.obtenerResumen().actualizadoEn();
+
+        // Act
+        ejecutarCalculo(MoraModo.SQL, 0);
+
+        // Assert
+        PortafolioResumenModel despues = portafolioService.obtenerResumen();
+        assertTrue(despues.actualizadoEn().isAfter(antes));
+        Long enMora = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM prestamos WHERE estado IN ('VENCIDO', 'EN_MORA')", Long.class);
+        assertEquals(enMora, despues.exposicionMora().prestamos());
+    }
+}
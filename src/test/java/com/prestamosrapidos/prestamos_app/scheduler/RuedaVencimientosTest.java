@@ -0,0 +1,168 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import com.prestamosrapidos.prestamos_app.entity.Prestamo;
+import com.prestamosrapidos.prestamos_app.entity.enums.EstadoPrestamo;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository;
+import com.prestamosrapidos.prestamos_app.repository.PrestamoRepository.VencimientoPrestamo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RuedaVencimientos}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RuedaVencimientos Unit Tests")
+class RuedaVencimientosTest {
+
+    private static final LocalDate HOY = LocalDate.of(2026, 10, 16);
+
+    @Mock
+    private PrestamoRepository prestamoRepository;
+
+    private RuedaVencimientos rueda;
+
+    @BeforeEach
+    void setUp() {
+        rueda = new RuedaVencimientos(prestamoRepository);
+        ReflectionTestUtils.setField(rueda, "diasGracia", 2);
+    }
+
+    @Test
+    @DisplayName("Should load approved loans by due date and overdue loans by first mora day (or due date if they carry mora days)")
+    void cargarShouldPlaceEachLoanInItsDay() {
+        // Arrange
+        when(prestamoRepository.findVencimientosPorEstados(anyCollection(), eq(0L), any())).thenReturn(List.of(
+                vencimiento(3L, EstadoPrestamo.APROBADO, HOY),
+                vencimiento(1L, EstadoPrestamo.APROBADO, HOY.minusDays(4)),
+                vencimiento(2L, EstadoPrestamo.APROBADO, HOY.plusDays(1)),
+                vencimiento(4L, EstadoPrestamo.VENCIDO, HOY.minusDays(3)),
+                vencimiento(5L, EstadoPrestamo.VENCIDO, HOY.minusDays(2)),
+                vencimiento(6L, EstadoPrestamo.VENCIDO, HOY, 3)));
+
+        // Act
+        rueda.cargar();
+
+        // Assert
+        assertEquals(List.of(1L, 3L), rueda.vencidosHasta(HOY));
+        assertEquals(List.of(1L, 2L, 3L), rueda.vencidosHasta(HOY.plusDays(1)));
+        assertEquals(List.of(4L, 6L), rueda.iniciosMoraHasta(HOY));
+        assertEquals(List.of(4L, 5L, 6L), rueda.iniciosMoraHasta(HOY.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Should move a loan when its state or due date changes and drop it once it needs no transition")
+    void actualizarShouldMoveOrDropTheLoan() {
+        // Arrange
+        Prestamo prestamo = prestamo(1L, EstadoPrestamo.APROBADO, HOY);
+        rueda.actualizar(prestamo);
+
+        // Act & Assert
+        prestamo.setFechaVencimiento(HOY.plusDays(30));
+        rueda.actualizar(prestamo);
+        assertTrue(rueda.vencidosHasta(HOY).isEmpty());
+        assertEquals(List.of(1L), rueda.vencidosHasta(HOY.plusDays(30)));
+
+        prestamo.setEstado(EstadoPrestamo.PAGADO);
+        rueda.actualizar(prestamo);
+        assertTrue(rueda.vencidosHasta(HOY.plusDays(30)).isEmpty());
+        assertTrue(rueda.iniciosMoraHasta(HOY.plusDays(60)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply changes made inside a transaction only after it commits")
+    void actualizarInsideTransactionShouldWaitForCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            rueda.actualizar(prestamo(1L, EstadoPrestamo.APROBADO, HOY));
+
+            // Assert
+            assertTrue(rueda.vencidosHasta(HOY).isEmpty());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(1L), rueda.vencidosHasta(HOY));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should only read loans modified since the previous synchronization")
+    void sincronizarAfterLoadShouldReadOnlyModifiedLoans() {
+        // Arrange
+        when(prestamoRepository.findVencimientosPorEstados(anyCollection(), eq(0L), any())).thenReturn(List.of());
+        rueda.cargar();
+        when(prestamoRepository.findVencimientosModificadosDesde(any()))
+                .thenReturn(List.of(vencimiento(9L, EstadoPrestamo.APROBADO, HOY)));
+
+        // Act
+        rueda.sincronizar();
+
+        // Assert
+        assertEquals(List.of(9L), rueda.vencidosHasta(HOY));
+        verify(prestamoRepository, times(1)).findVencimientosPorEstados(anyCollection(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should serve the ids after the keyset cursor in chunks")
+    void fuenteShouldPageTheIdsByKeyset() {
+        // Arrange
+        MoraBatchEngine.FuenteIds fuente = RuedaVencimientos.fuente(List.of(2L, 5L, 7L, 9L));
+
+        // Act & Assert
+        assertEquals(List.of(2L, 5L), fuente.siguientes(0L, PageRequest.of(0, 2)));
+        assertEquals(List.of(7L, 9L), fuente.siguientes(5L, PageRequest.of(0, 2)));
+        assertEquals(List.of(7L), fuente.siguientes(6L, PageRequest.of(0, 1)));
+        assertTrue(fuente.siguientes(9L, PageRequest.of(0, 2)).isEmpty());
+    }
+
+    private VencimientoPrestamo vencimiento(Long id, EstadoPrestamo estado, LocalDate fechaVencimiento) {
+        return vencimiento(id, estado, fechaVencimiento, 0);
+    }
+
+    private VencimientoPrestamo vencimiento(Long id, EstadoPrestamo estado, LocalDate fechaVencimiento, int diasMora) {
+        return new VencimientoPrestamo() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public EstadoPrestamo getEstado() {
+                return estado;
+            }
+
+            @Override
+            public LocalDate getFechaVencimiento() {
+                return fechaVencimiento;
+            }
+
+            @Override
+            public Integer getDiasMora() {
+                return diasMora;
+            }
+        };
+    }
+
+    private Prestamo prestamo(Long id, EstadoPrestamo estado, LocalDate fechaVencimiento) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setId(id);
+        prestamo.setEstado(estado);
+        prestamo.setFechaVencimiento(fechaVencimiento);
+        return prestamo;
+    }
+}
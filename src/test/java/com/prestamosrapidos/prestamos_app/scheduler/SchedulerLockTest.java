@@ -0,0 +1,131 @@
+package com.prestamosrapidos.prestamos_app.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SchedulerLock}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SchedulerLock Unit Tests")
+class SchedulerLockTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection conexion;
+
+    @Mock
+    private PreparedStatement bloquear;
+
+    @Mock
+    private PreparedStatement liberar;
+
+    @Mock
+    private ResultSet resultadoBloquear;
+
+    @Mock
+    private ResultSet resultadoLiberar;
+
+    private SchedulerLock schedulerLock;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(conexion);
+        lenient().when(conexion.prepareStatement(contains("pg_try_advisory_lock"))).thenReturn(bloquear);
+        lenient().when(conexion.prepareStatement(contains("pg_advisory_unlock"))).thenReturn(liberar);
+        lenient().when(bloquear.executeQuery()).thenReturn(resultadoBloquear);
+        lenient().when(liberar.executeQuery()).thenReturn(resultadoLiberar);
+        lenient().when(resultadoBloquear.next()).thenReturn(true);
+        lenient().when(resultadoLiberar.next()).thenReturn(true);
+        lenient().when(resultadoLiberar.getBoolean(1)).thenReturn(true);
+
+        schedulerLock = new SchedulerLock(dataSource);
+    }
+
+    @Test
+    @DisplayName("Should run the task and release the lock when this node acquires it")
+    void ejecutarWithLockAcquiredShouldRunAndRelease() throws SQLException {
+        // Arrange
+        when(resultadoBloquear.getBoolean(1)).thenReturn(true);
+        AtomicBoolean ejecutada = new AtomicBoolean();
+
+        // Act
+        boolean resultado = schedulerLock.ejecutar("mora-diaria", () -> ejecutada.set(true));
+
+        // Assert
+        assertTrue(resultado);
+        assertTrue(ejecutada.get());
+        verify(bloquear).setInt(1, SchedulerLock.ESPACIO_CLAVES);
+        verify(bloquear).setString(2, "mora-diaria");
+        verify(liberar).setString(2, "mora-diaria");
+        verify(conexion).close();
+        SchedulerLockEstadisticas stats = schedulerLock.getEstadisticas().get("mora-diaria");
+        assertEquals(1, stats.getAdquisiciones());
+        assertEquals(0, stats.getOmisiones());
+        assertFalse(stats.isEnCurso());
+    }
+
+    @Test
+    @DisplayName("Should skip the task when another node holds the lock")
+    void ejecutarWithLockHeldElsewhereShouldSkip() throws SQLException {
+        // Arrange
+        when(resultadoBloquear.getBoolean(1)).thenReturn(false);
+        AtomicBoolean ejecutada = new AtomicBoolean();
+
+        // Act
+        boolean resultado = schedulerLock.ejecutar("mora-diaria", () -> ejecutada.set(true));
+
+        // Assert
+        assertFalse(resultado);
+        assertFalse(ejecutada.get());
+        verify(conexion, never()).prepareStatement(contains("pg_advisory_unlock"));
+        verify(conexion).close();
+        assertEquals(1, schedulerLock.getEstadisticas().get("mora-diaria").getOmisiones());
+    }
+
+    @Test
+    @DisplayName("Should release the lock and count the error when the task fails")
+    void ejecutarWhenTaskFailsShouldReleaseAndRethrow() throws SQLException {
+        // Arrange
+        when(resultadoBloquear.getBoolean(1)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> schedulerLock.ejecutar("mora-diaria", () -> { throw new IllegalStateException("fallo"); }));
+        verify(liberar).executeQuery();
+        verify(conexion).close();
+        assertEquals(1, schedulerLock.getEstadisticas().get("mora-diaria").getErrores());
+    }
+
+    @Test
+    @DisplayName("Should discard the connection when the lock cannot be released")
+    void ejecutarWhenUnlockFailsShouldAbortTheConnection() throws SQLException {
+        // Arrange
+        when(resultadoBloquear.getBoolean(1)).thenReturn(true);
+        when(liberar.executeQuery()).thenThrow(new SQLException("conexión perdida"));
+
+        // Act
+        boolean resultado = schedulerLock.ejecutar("mora-diaria", () -> { });
+
+        // Assert
+        assertTrue(resultado);
+        verify(conexion).abort(any(Executor.class));
+    }
+}
@@ -0,0 +1,87 @@
+package com.prestamosrapidos.prestamos_app.service;
+
+import com.prestamosrapidos.prestamos_app.model.PortafolioResumenModel;
+import com.prestamosrapidos.prestamos_app.model.PortafolioTotalesModel;
+import com.prestamosrapidos.prestamos_app.service.serviceImpl.PortafolioServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PortafolioServiceImplTest {
+
+    private static final LocalDateTime REFRESCO = LocalDateTime.of(2026, 10, 16, 9, 30);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PortafolioServiceImpl portafolioService;
+
+    @Test
+    void obtenerResumenShouldAggregateTheViewRowsByStateAndMoraBucket() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(
+                fila("-", "-", 0, "0", "0"),
+                fila("APROBADO", "0-30", 10, "10000.00", "11000.00"),
+                fila("VENCIDO", "0-30", 2, "2000.00", "2100.00"),
+                fila("EN_MORA", "31-60", 3, "3000.00", "3300.00"),
+                fila("EN_MORA", "90+", 1, "1000.00", "1250.00")));
+
+        // Act
+        PortafolioResumenModel resumen = portafolioService.obtenerResumen();
+
+        // Assert
+        assertEquals(REFRESCO, resumen.actualizadoEn());
+        assertEquals(16, resumen.total().prestamos());
+        assertEquals(new BigDecimal("16000.00"), resumen.total().monto());
+        assertEquals(new BigDecimal("17650.00"), resumen.total().saldoPendiente());
+        assertEquals(4, resumen.porEstado().get("EN_MORA").prestamos());
+        assertEquals(List.of("0-30", "31-60", "61-90", "90+"), List.copyOf(resumen.porTramoMora().keySet()));
+        assertEquals(12, resumen.porTramoMora().get("0-30").prestamos());
+        assertEquals(PortafolioTotalesModel.VACIO, resumen.porTramoMora().get("61-90"));
+        assertEquals(6, resumen.exposicionMora().prestamos());
+        assertEquals(new BigDecimal("6650.00"), resumen.exposicionMora().saldoPendiente());
+        assertFalse(resumen.porEstado().containsKey("-"));
+    }
+
+    @Test
+    void obtenerResumenOfAnEmptyPortfolioShouldStillCarryTheRefreshTime() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of(fila("-", "-", 0, "0", "0")));
+
+        // Act
+        PortafolioResumenModel resumen = portafolioService.obtenerResumen();
+
+        // Assert
+        assertEquals(REFRESCO, resumen.actualizadoEn());
+        assertEquals(0, resumen.total().prestamos());
+        assertTrue(resumen.porEstado().isEmpty());
+    }
+
+    private static Map<String, Object> fila(String estado, String tramo, long prestamos, String monto, String saldo) {
+        return Map.of(
+                "estado", estado,
+                "tramo_mora", tramo,
+                "prestamos", prestamos,
+                "monto", new BigDecimal(monto),
+                "interes_ordinario", BigDecimal.ZERO,
+                "total_pagado", BigDecimal.ZERO,
+                "mora_acumulada", BigDecimal.ZERO,
+                "saldo_pendiente", new BigDecimal(saldo),
+                "actualizado_en", Timestamp.valueOf(REFRESCO));
+    }
+}
@@ -0,0 +1,42 @@
+package com.prestamosrapidos.prestamos_app.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda el SQL que Hibernate prepara mientras la captura está activa, para inspeccionar las
+ * sentencias que genera una consulta (por ejemplo, con {@code EXPLAIN}).
+ *
+ * <p>Se registra con {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * Las sentencias se devuelven sin modificar.</p>
+ */
+public class CapturaSentencias implements StatementInspector {
+
+    private static final List<String> SENTENCIAS = new ArrayList<>();
+    private static boolean activa;
+
+    public static synchronized void iniciar() {
+        SENTENCIAS.clear();
+        activa = true;
+    }
+
+    /**
+     * Termina la captura y devuelve las sentencias preparadas desde {@link #iniciar()}, en orden.
+     */
+    public static synchronized List<String> detener() {
+        activa = false;
+        return List.copyOf(SENTENCIAS);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (CapturaSentencias.class) {
+            if (activa) {
+                SENTENCIAS.add(sql);
+            }
+        }
+        return sql;
+    }
+}
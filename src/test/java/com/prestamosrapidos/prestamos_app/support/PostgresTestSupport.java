@@ -0,0 +1,132 @@
+package com.prestamosrapidos.prestamos_app.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Base de las pruebas contra PostgreSQL real (Testcontainers), con la base migrada por Flyway
+ * y una cartera de préstamos generada a partir de una semilla.
+ * Las pruebas se omiten cuando no hay Docker disponible.
+ *
+ * <p>El contenedor se arranca una sola vez y se comparte entre clases para que el contexto
+ * de Spring cacheado siga apuntando a una base de datos viva.</p>
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public abstract class PostgresTestSupport {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String SQL_INSERTAR_PRESTAMO = """
+            INSERT INTO prestamos (id, monto, interes, interes_moratorio, interes_moratorio_aplicado, fecha_creacion,
+                                   fecha_vencimiento, estado, cliente_id, dias_mora, mora_acumulada,
+                                   fecha_ultimo_calculo_mora, mora_aplicada, deuda_restante, deuda_total,
+                                   interes_moratorio_acumulado)
+            VALUES (?, ?, 12.50, 10.00, FALSE, ?, ?, ?, ?, ?, ?, ?, FALSE, ?, 0, 0)
+            """;
+
+    /** Mismo relleno que la migración de {@code total_pagado}, para los pagos insertados por JDBC */
+    private static final String SQL_TOTALES_PAGADOS = """
+            UPDATE prestamos p
+               SET total_pagado = g.total, ultimo_pago_fecha = g.ultima
+              FROM (SELECT prestamo_id, SUM(monto) AS total, MAX(fecha_pago) AS ultima FROM pagos GROUP BY prestamo_id) g
+             WHERE g.prestamo_id = p.id
+            """;
+
+    private static final String[] ESTADOS = {
+            "APROBADO", "APROBADO", "APROBADO", "VENCIDO", "VENCIDO", "EN_MORA", "EN_MORA", "PAGADO", "PENDIENTE"
+    };
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void configurarBaseDeDatos(DynamicPropertyRegistry registry) {
+        if (!POSTGRES.isRunning()) {
+            POSTGRES.start();
+        }
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.prestamosrapidos", () -> "WARN");
+    }
+
+    /**
+     * Borra los préstamos y el registro de ejecuciones de mora y genera una cartera determinista a partir de la semilla.
+     * Mezcla estados, vencimientos pasados y futuros, cálculos de mora previos y pagos parciales
+     * o superiores al monto.
+     */
+    protected void generarCartera(long semilla, int cantidad) {
+        jdbcTemplate.execute("TRUNCATE pagos, prestamos, mora_run_checkpoint, mora_run RESTART IDENTITY");
+        Long clienteId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM clientes", Long.class);
+
+        Random random = new Random(semilla);
+        LocalDate hoy = LocalDate.now();
+        List<Object[]> prestamos = new ArrayList<>(cantidad);
+        List<Object[]> pagos = new ArrayList<>();
+
+        for (long id = 1; id <= cantidad; id++) {
+            LocalDate vencimiento = hoy.plusDays(random.nextInt(106) - 90);
+            BigDecimal monto = random.nextInt(20) == 0
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(10_000 + random.nextInt(990_000), 2);
+            BigDecimal moraPrevia = BigDecimal.valueOf(random.nextInt(50_000), 2);
+            int diasMora = random.nextInt(10) < 4 ? 0 : 1 + random.nextInt(60);
+
+            prestamos.add(new Object[]{
+                    id,
+                    monto,
+                    Timestamp.valueOf(LocalDateTime.now().minusDays(100 + random.nextInt(100))),
+                    Date.valueOf(vencimiento),
+                    ESTADOS[random.nextInt(ESTADOS.length)],
+                    clienteId,
+                    diasMora,
+                    moraPrevia,
+                    ultimoCalculo(random, vencimiento, hoy),
+                    monto
+            });
+
+            for (int i = random.nextInt(4); i > 0; i--) {
+                BigDecimal pago = monto.multiply(BigDecimal.valueOf(random.nextInt(60)))
+                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+                pagos.add(new Object[]{pago, Date.valueOf(hoy.minusDays(random.nextInt(30))), id});
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_PRESTAMO, prestamos);
+        jdbcTemplate.batchUpdate("INSERT INTO pagos (monto, fecha_pago, prestamo_id) VALUES (?, ?, ?)", pagos);
+        jdbcTemplate.update(SQL_TOTALES_PAGADOS);
+        jdbcTemplate.execute("SELECT setval(pg_get_serial_sequence('prestamos', 'id'), " + cantidad + ")");
+    }
+
+    private Date ultimoCalculo(Random random, LocalDate vencimiento, LocalDate hoy) {
+        int caso = random.nextInt(10);
+        if (caso < 3) {
+            return null;
+        }
+        if (caso < 5) {
+            return Date.valueOf(vencimiento);
+        }
+        if (caso < 6) {
+            return Date.valueOf(vencimiento.minusDays(1 + random.nextInt(10)));
+        }
+        long diasDesdeVencimiento = Math.max(0, hoy.toEpochDay() - vencimiento.toEpochDay());
+        return Date.valueOf(vencimiento.plusDays(random.nextLong(diasDesdeVencimiento + 1)));
+    }
+}
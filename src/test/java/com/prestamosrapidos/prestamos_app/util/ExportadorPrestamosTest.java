@@ -0,0 +1,129 @@
+package com.prestamosrapidos.prestamos_app.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.prestamosrapidos.prestamos_app.scheduler.MoraEvaluador;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ExportadorPrestamos}.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExportadorPrestamos Unit Tests")
+class ExportadorPrestamosTest {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private ExportadorPrestamos exportadorPrestamos;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        exportadorPrestamos = new ExportadorPrestamos(dataSource, transactionManager, objectMapper, new MoraEvaluador());
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        prestamoVencido();
+    }
+
+    @Test
+    @DisplayName("Should stream each loan as a CSV row with its balances and mora at today's date")
+    void exportarCsvShouldWriteHeaderAndComputedRows() throws SQLException {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        long exportados = exportadorPrestamos.exportar(FormatoExportacion.CSV, salida);
+
+        // Assert
+        assertEquals(1, exportados);
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lineas.length);
+        assertTrue(lineas[0].startsWith("id,cliente_id,estado,"));
+        assertEquals("7,3,EN_MORA,1000.00,10.00,100.00,200.00," + HOY.minusDays(10) + ",4,1.00,4.00,904.00,"
+                + "2026-09-01," + HOY.minusDays(4), lineas[1]);
+        verify(statement).setFetchSize(1000);
+        verify(resultSet).close();
+    }
+
+    @Test
+    @DisplayName("Should stream each loan as one JSON object per line")
+    void exportarNdjsonShouldWriteOneObjectPerLine() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        exportadorPrestamos.exportar(FormatoExportacion.NDJSON, salida);
+
+        // Assert
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lineas.length);
+        var prestamo = objectMapper.readTree(lineas[0]);
+        assertEquals(7, prestamo.get("id").asLong());
+        assertEquals("EN_MORA", prestamo.get("estado").asText());
+        assertTrue(lineas[0].contains("\"deudaRestante\":904.00"));
+        assertEquals(HOY.minusDays(4).toString(), prestamo.get("fechaVencimiento").asText());
+    }
+
+    /**
+     * Préstamo aprobado, vencido hace 4 días, de 1000 al 10% con 200 pagados: 4 días de mora de 1.00.
+     */
+    private void prestamoVencido() throws SQLException {
+        when(resultSet.getLong("id")).thenReturn(7L);
+        when(resultSet.getLong("cliente_id")).thenReturn(3L);
+        when(resultSet.getString("estado")).thenReturn("APROBADO");
+        when(resultSet.getBigDecimal("monto")).thenReturn(new BigDecimal("1000.00"));
+        when(resultSet.getBigDecimal("interes")).thenReturn(new BigDecimal("10.00"));
+        when(resultSet.getBigDecimal("total_pagado")).thenReturn(new BigDecimal("200.00"));
+        when(resultSet.getBigDecimal("mora_acumulada")).thenReturn(BigDecimal.ZERO);
+        when(resultSet.getInt("dias_mora")).thenReturn(0);
+        when(resultSet.getDate("fecha_vencimiento")).thenReturn(Date.valueOf(HOY.minusDays(4)));
+        when(resultSet.getDate("fecha_ultimo_calculo_mora")).thenReturn(null);
+        when(resultSet.getDate("ultimo_pago_fecha")).thenReturn(Date.valueOf(HOY.minusDays(10)));
+        when(resultSet.getTimestamp("fecha_creacion")).thenReturn(Timestamp.valueOf("2026-09-01 10:00:00"));
+    }
+}